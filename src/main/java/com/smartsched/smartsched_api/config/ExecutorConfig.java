@@ -0,0 +1,44 @@
+package com.smartsched.smartsched_api.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Executor for blocking MongoDB work done off the request path (saving a solved schedule,
+ * cleaning up after a failed solve), so the solver's own threads go straight back to solving.
+ *
+ * With spring.threads.virtual.enabled=true Tomcat, async (streamed) responses and this executor
+ * all run on virtual threads: a task parked on a MongoDB round trip no longer holds a platform
+ * thread. Otherwise this is a small fixed pool of platform threads (smartsched.io.threads).
+ * The solver is unaffected either way: Timefold keeps its own bounded platform pool
+ * (timefold.solver-manager.parallel-solver-count).
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    @Bean(name = "ioExecutor", destroyMethod = "shutdown")
+    public ExecutorService ioExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                      @Value("${smartsched.io.threads:4}") int threads) {
+        if (virtualThreads) {
+            logger.info("I/O executor: virtual threads.");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("io-", 1).factory());
+        }
+        int size = Math.max(1, threads);
+        logger.info("I/O executor: {} platform threads.", size);
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -4,13 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Component;
 
 /**
- * Logs MongoDB connection status on application startup
+ * Logs MongoDB connection status on application startup (there is no connection in the inmemory profile)
  */
 @Component
+@Profile("!inmemory")
 public class MongoConnectionLogger implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(MongoConnectionLogger.class);
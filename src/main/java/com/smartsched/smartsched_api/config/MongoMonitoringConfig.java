@@ -0,0 +1,38 @@
+package com.smartsched.smartsched_api.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import com.smartsched.smartsched_api.service.MongoQueryMonitor;
+
+/**
+ * Hooks MongoQueryMonitor into the MongoDB driver (command listener) and into every Spring Data
+ * repository (invocation listener), so both raw commands and repository methods are measured.
+ */
+@Configuration
+public class MongoMonitoringConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoQueryMonitorCustomizer(MongoQueryMonitor monitor) {
+        return settings -> settings.addCommandListener(monitor);
+    }
+
+    // Static, and the monitor looked up lazily: post-processors are created before ordinary beans
+    @Bean
+    public static BeanPostProcessor repositoryInvocationMonitor(ObjectProvider<MongoQueryMonitor> monitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                            factory.addInvocationListener(monitor.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+}
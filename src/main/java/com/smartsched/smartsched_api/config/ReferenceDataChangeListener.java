@@ -0,0 +1,136 @@
+package com.smartsched.smartsched_api.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional MongoDB change-stream listener for multi-node deployments.
+ * Evicts the matching ReferenceDataCache region whenever another node (or a manual edit)
+ * changes teachers, classrooms or sections, and invalidates the schedule ETags when
+ * schedules change elsewhere. Change streams need a replica set (Atlas has one).
+ * Enable with smartsched.cache.change-streams.enabled=true.
+ *
+ * Events for documents the loaded cache already holds as they now are in the collection are
+ * skipped: that is every write this node made itself, which write-through (and the in-place
+ * scheduleIds update of saveSolution) has already applied. The rest are coalesced per
+ * collection, so a burst of events, like the inserts of one saveSolution, evicts once.
+ */
+@Component
+@ConditionalOnProperty(name = "smartsched.cache.change-streams.enabled", havingValue = "true")
+public class ReferenceDataChangeListener implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataChangeListener.class);
+
+    private final MessageListenerContainer container;
+    private final ReferenceDataCache referenceDataCache;
+    private final MongoConverter converter;
+    private final long coalesceMillis;
+    private final Map<String, Runnable> evictions;
+    private final Map<String, AtomicBoolean> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-stream-evictions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReferenceDataChangeListener(MongoTemplate mongoTemplate, ReferenceDataCache referenceDataCache,
+                                       ChangeVersions changeVersions,
+                                       @Value("${smartsched.cache.change-streams.coalesce-ms:200}") long coalesceMillis) {
+        this.container = new DefaultMessageListenerContainer(mongoTemplate);
+        this.referenceDataCache = referenceDataCache;
+        this.converter = mongoTemplate.getConverter();
+        this.coalesceMillis = coalesceMillis;
+        this.evictions = Map.of(
+                "teachers", referenceDataCache::evictTeachers,
+                "classrooms", referenceDataCache::evictClassrooms,
+                "sections", referenceDataCache::evictSections,
+                "schedules", changeVersions::schedulesChanged);
+    }
+
+    @Override
+    public void run(String... args) {
+        evictions.keySet().forEach(collection -> {
+            MessageListener<ChangeStreamDocument<Document>, Document> listener = message -> {
+                ChangeStreamDocument<Document> event = message.getRaw();
+                BsonDocument key = event.getDocumentKey();
+                onChange(collection, key == null ? null : idOf(key.get("_id")), event.getFullDocument());
+            };
+            ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                    .collection(collection)
+                    .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                    .build();
+            container.register(request, Document.class);
+        });
+        container.start();
+        logger.info("Reference-data change-stream listener started for {}", evictions.keySet());
+    }
+
+    /**
+     * One change event: the changed document's id and its current version (null once deleted).
+     */
+    void onChange(String collection, String id, Document current) {
+        if (id != null && !collection.equals("schedules") && alreadyCached(collection, id, current)) {
+            logger.debug("Change stream event on {} for {} is already cached; skipping.", collection, id);
+            return;
+        }
+        AtomicBoolean scheduled = pending.computeIfAbsent(collection, k -> new AtomicBoolean());
+        if (!scheduled.compareAndSet(false, true)) return;
+        scheduler.schedule(() -> {
+            // Cleared first, so an event arriving during the eviction schedules another one
+            scheduled.set(false);
+            logger.debug("Change stream events on {}: invalidating local copy.", collection);
+            evictions.get(collection).run();
+        }, coalesceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // An unloaded region is evicted anyway: nothing is lost, and its version (the ETag) moves
+    private boolean alreadyCached(String collection, String id, Document current) {
+        Map<String, ?> cached = referenceDataCache.loadedEntities(collection);
+        if (cached == null) return false;
+        Object entity = cached.get(id);
+        if (current == null || entity == null) return current == null && entity == null;
+        Document written = new Document();
+        converter.write(entity, written);
+        return written.equals(current);
+    }
+
+    // The cache is keyed by the entities' String ids; any other _id type is never cached
+    private static String idOf(BsonValue id) {
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        return id.isString() ? id.asString().getValue() : null;
+    }
+
+    @PreDestroy
+    public void stop() {
+        container.stop();
+        scheduler.shutdownNow();
+    }
+}
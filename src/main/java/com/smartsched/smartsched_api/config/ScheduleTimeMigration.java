@@ -0,0 +1,126 @@
+package com.smartsched.smartsched_api.config;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleTimes;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+
+/**
+ * Startup migration for the integer time fields on Schedule.
+ * Creates the Schedule indexes (auto-index-creation is off), then backfills startMinute,
+ * endMinute and durationMinutes on older documents in a background thread, so startup is
+ * not blocked. Documents that are already migrated are never touched again.
+ * isMajor is left as it is: a missing value is not guessed here and persisted as if it had
+ * been entered; SchedulingService falls back to the classroom type when it reads one.
+ */
+@Component
+public class ScheduleTimeMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleTimeMigration.class);
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeVersions changeVersions;
+
+    @Value("${smartsched.migration.schedule-times.enabled:true}")
+    private boolean enabled;
+
+    public ScheduleTimeMigration(MongoTemplate mongoTemplate, ChangeVersions changeVersions) {
+        this.mongoTemplate = mongoTemplate;
+        this.changeVersions = changeVersions;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            logger.info("Schedule time migration disabled.");
+            return;
+        }
+        Thread worker = new Thread(this::migrate, "schedule-time-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void migrate() {
+        try {
+            ensureIndexes();
+            backfill();
+        } catch (Exception e) {
+            logger.error("Schedule time migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(Schedule.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Schedule.class)
+                .forEach(indexOps::ensureIndex);
+        logger.info("Schedule indexes ensured.");
+    }
+
+    private void backfill() {
+        Query pending = new Query(Criteria.where("startMinute").exists(false));
+        pending.fields().include("startTime", "endTime");
+        pending.cursorBatchSize(BATCH_SIZE);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Schedule.class);
+        int queued = 0;
+        int migrated = 0;
+        int skipped = 0;
+
+        try (Stream<Document> docs = mongoTemplate.stream(pending, Document.class, "schedules")) {
+            Iterator<Document> cursor = docs.iterator();
+            while (cursor.hasNext()) {
+                Document doc = cursor.next();
+                Integer start = ScheduleTimes.parseMinutes(doc.getString("startTime"));
+                Integer end = ScheduleTimes.parseMinutes(doc.getString("endTime"));
+                if (start == null || end == null) {
+                    logger.warn("Cannot migrate schedule {}: unparsable times '{}' / '{}'",
+                            doc.get("_id"), doc.get("startTime"), doc.get("endTime"));
+                    skipped++;
+                    continue;
+                }
+
+                Update update = new Update()
+                        .set("startMinute", start)
+                        .set("endMinute", end)
+                        .set("durationMinutes", ScheduleTimes.duration(start, end));
+                bulk.updateOne(new Query(Criteria.where("_id").is(doc.get("_id"))), update);
+
+                if (++queued == BATCH_SIZE) {
+                    migrated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Schedule.class);
+                    queued = 0;
+                }
+            }
+        }
+        if (queued > 0) {
+            migrated += bulk.execute().getModifiedCount();
+        }
+
+        if (migrated > 0) {
+            changeVersions.schedulesChanged(); // documents gained new fields
+        }
+        if (migrated > 0 || skipped > 0) {
+            logger.info("Schedule time migration: {} documents migrated, {} skipped.", migrated, skipped);
+        } else {
+            logger.info("Schedule time migration: nothing to migrate.");
+        }
+    }
+}
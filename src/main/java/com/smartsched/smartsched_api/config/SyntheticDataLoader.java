@@ -0,0 +1,97 @@
+package com.smartsched.smartsched_api.config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.smartsched.smartsched_api.dataset.SyntheticDataset;
+import com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+
+/**
+ * Optional startup load of a synthetic institution for benchmarks and load tests: the JSON
+ * fixtures in smartsched.dataset.fixtures, or, when that is empty, a freshly generated dataset
+ * of smartsched.dataset.generate.sections sections. Only present with smartsched.dataset.load=true,
+ * and it refuses to start against a database that already holds teachers, classrooms, sections
+ * or schedules.
+ */
+@Component
+@ConditionalOnProperty(name = "smartsched.dataset.load", havingValue = "true")
+public class SyntheticDataLoader implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataLoader.class);
+
+    private final TeacherRepository teacherRepository;
+    private final ClassroomRepository classroomRepository;
+    private final SectionRepository sectionRepository;
+    private final ScheduleRepository scheduleRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ChangeVersions changeVersions;
+
+    @Value("${smartsched.dataset.fixtures:}")
+    private String fixtures;
+
+    @Value("${smartsched.dataset.generate.sections:0}")
+    private int generateSections;
+
+    @Value("${smartsched.dataset.generate.scheduled-ratio:0.5}")
+    private double scheduledRatio;
+
+    @Value("${smartsched.dataset.generate.seed:1}")
+    private long seed;
+
+    public SyntheticDataLoader(TeacherRepository teacherRepository, ClassroomRepository classroomRepository,
+                               SectionRepository sectionRepository, ScheduleRepository scheduleRepository,
+                               ReferenceDataCache referenceDataCache, ChangeVersions changeVersions) {
+        this.teacherRepository = teacherRepository;
+        this.classroomRepository = classroomRepository;
+        this.sectionRepository = sectionRepository;
+        this.scheduleRepository = scheduleRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
+    }
+
+    @Override
+    public void run(String... args) {
+        SyntheticDataset dataset;
+        if (!fixtures.isBlank()) {
+            try {
+                dataset = SyntheticDataset.readJson(Path.of(fixtures));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read dataset fixtures from " + fixtures, e);
+            }
+        } else if (generateSections > 0) {
+            dataset = SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                    .withSeed(seed).withSections(generateSections).withScheduledSectionRatio(scheduledRatio));
+        } else {
+            return;
+        }
+
+        long existing = teacherRepository.count() + classroomRepository.count() + sectionRepository.count()
+                + scheduleRepository.count();
+        if (existing > 0) {
+            throw new IllegalStateException("Refusing to load the synthetic dataset: the database already holds "
+                    + existing + " teachers, classrooms, sections or schedules. Point it at an empty database.");
+        }
+
+        long start = System.nanoTime();
+        dataset.loadInto(teacherRepository, classroomRepository, sectionRepository, scheduleRepository);
+        referenceDataCache.evictAll();
+        changeVersions.schedulesChanged();
+        logger.info("Loaded synthetic dataset: {} sections, {} teachers, {} classrooms, {} schedules in {} ms",
+                dataset.sections().size(), dataset.teachers().size(), dataset.classrooms().size(),
+                dataset.schedules().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
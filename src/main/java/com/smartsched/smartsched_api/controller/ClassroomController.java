@@ -12,8 +12,10 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.service.ChangeVersions;
 import com.smartsched.smartsched_api.service.ClassroomService;
 
 @RestController
@@ -23,13 +25,19 @@ public class ClassroomController {
     @Autowired
     private ClassroomService classroomService;
 
+    @Autowired
+    private ChangeVersions changeVersions;
+
     @GetMapping
-    public List<Classroom> getAllClassrooms() {
+    public List<Classroom> getAllClassrooms(WebRequest request) {
+        // If-None-Match answered from the version counter alone: 304, nothing read or serialised
+        if (request.checkNotModified(changeVersions.classroomsTag())) return null;
         return classroomService.getAllClassrooms();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Classroom> getClassroomById(@PathVariable String id) {
+    public ResponseEntity<Classroom> getClassroomById(@PathVariable String id, WebRequest request) {
+        if (request.checkNotModified(changeVersions.classroomsTag())) return null;
         return classroomService.getClassroomById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
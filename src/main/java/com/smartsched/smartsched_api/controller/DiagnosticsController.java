@@ -0,0 +1,47 @@
+package com.smartsched.smartsched_api.controller;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.smartsched.smartsched_api.dto.SlowQuery;
+import com.smartsched.smartsched_api.service.MongoQueryMonitor;
+
+/**
+ * Admin-only runtime diagnostics.
+ */
+@RestController
+@RequestMapping("/api/admin/diagnostics")
+@PreAuthorize("hasRole('ADMIN')")
+public class DiagnosticsController {
+
+    private final MongoQueryMonitor mongoQueryMonitor;
+
+    public DiagnosticsController(MongoQueryMonitor mongoQueryMonitor) {
+        this.mongoQueryMonitor = mongoQueryMonitor;
+    }
+
+    // Recent MongoDB commands and repository calls over the slow-query threshold, newest first
+    @GetMapping("/slow-queries")
+    public ResponseEntity<Map<String, Object>> getSlowQueries(@RequestParam(required = false) Integer limit) {
+        List<SlowQuery> recent = mongoQueryMonitor.recent();
+        if (limit != null && limit >= 0 && limit < recent.size()) recent = recent.subList(0, limit);
+        Map<String, Object> body = new LinkedHashMap<>(mongoQueryMonitor.getStats());
+        body.put("queries", recent);
+        return ResponseEntity.ok(body);
+    }
+
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<Void> clearSlowQueries() {
+        mongoQueryMonitor.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
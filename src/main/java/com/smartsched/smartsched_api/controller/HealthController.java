@@ -9,6 +9,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.smartsched.smartsched_api.security.JwtService;
+import com.smartsched.smartsched_api.security.TokenEpochCache;
+import com.smartsched.smartsched_api.service.ExportCache;
+import com.smartsched.smartsched_api.service.MongoQueryMonitor;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -22,6 +28,11 @@ public class HealthController {
     private static final Logger logger = LoggerFactory.getLogger(HealthController.class);
     
     private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ExportCache exportCache;
+    private final JwtService jwtService;
+    private final TokenEpochCache tokenEpochCache;
+    private final MongoQueryMonitor mongoQueryMonitor;
     
     @Value("${spring.data.mongodb.uri:not-set}")
     private String mongoUri;
@@ -32,8 +43,15 @@ public class HealthController {
     @Value("${cors.allowed-origins:not-set}")
     private String corsOrigins;
 
-    public HealthController(MongoTemplate mongoTemplate) {
+    public HealthController(MongoTemplate mongoTemplate, ReferenceDataCache referenceDataCache,
+                            ExportCache exportCache, JwtService jwtService, TokenEpochCache tokenEpochCache,
+                            MongoQueryMonitor mongoQueryMonitor) {
         this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.exportCache = exportCache;
+        this.jwtService = jwtService;
+        this.tokenEpochCache = tokenEpochCache;
+        this.mongoQueryMonitor = mongoQueryMonitor;
     }
 
     @GetMapping
@@ -54,8 +72,19 @@ public class HealthController {
             mongoStatus.put("error", e.getMessage());
             logger.error("MongoDB health check failed: {}", e.getMessage(), e);
         }
+        mongoStatus.put("slowQueries", mongoQueryMonitor.getStats());
         mongoStatus.put("uri", mongoUri.replaceAll(":[^:@]+@", ":****@") + " (masked)");
         health.put("mongodb", mongoStatus);
+
+        // Reference-data cache: hit/miss counters and version per collection
+        health.put("referenceCache", referenceDataCache.getStats());
+
+        // Rendered export files: hit rate and bytes held
+        health.put("exportCache", exportCache.getStats());
+
+        // Verified-token cache in front of JWT signature checks
+        health.put("jwtCache", jwtService.getVerifiedCacheStats());
+        health.put("tokenEpochCache", tokenEpochCache.getStats());
         
         // Configuration info
         Map<String, Object> config = new HashMap<>();
@@ -1,22 +1,40 @@
 package com.smartsched.smartsched_api.controller;
 
 import ai.timefold.solver.core.api.solver.SolverStatus;
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.dto.SchedulePage;
+import com.smartsched.smartsched_api.dto.SolveOptions;
+import com.smartsched.smartsched_api.dto.SolveRunSummary;
+import com.smartsched.smartsched_api.exception.SolverBusyException;
 import com.smartsched.smartsched_api.model.Schedule;
 import com.smartsched.smartsched_api.model.ScheduleInput;
+import com.smartsched.smartsched_api.model.SolveRun;
 import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
 import com.smartsched.smartsched_api.service.ExcelExportService; // Import Excel Service
+import com.smartsched.smartsched_api.service.ExportFormat;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
 import com.smartsched.smartsched_api.service.SchedulingService;
 
 import jakarta.servlet.http.HttpServletResponse; // Import HttpServletResponse
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // Import for method security
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream; // Import ByteArrayInputStream
 import java.io.IOException; // Import IOException
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -31,16 +49,31 @@ public class ScheduleController {
     private final SchedulingService schedulingService;
     private final ScheduleRepository scheduleRepository;
     private final ExcelExportService excelExportService; // Inject Excel Service
+    private final ScheduleQueryService scheduleQueryService;
+    private final ChangeVersions changeVersions;
+    private final BulkExportService bulkExportService;
+    private final CalendarExportService calendarExportService;
+    private final ExportMetrics exportMetrics;
 
-    public ScheduleController(SchedulingService schedulingService, ScheduleRepository scheduleRepository, ExcelExportService excelExportService) {
+    public ScheduleController(SchedulingService schedulingService, ScheduleRepository scheduleRepository, ExcelExportService excelExportService, ScheduleQueryService scheduleQueryService, ChangeVersions changeVersions, BulkExportService bulkExportService, CalendarExportService calendarExportService, ExportMetrics exportMetrics) {
         this.schedulingService = schedulingService;
         this.scheduleRepository = scheduleRepository;
         this.excelExportService = excelExportService; // Initialize Excel Service
+        this.scheduleQueryService = scheduleQueryService;
+        this.changeVersions = changeVersions;
+        this.bulkExportService = bulkExportService;
+        this.calendarExportService = calendarExportService;
+        this.exportMetrics = exportMetrics;
     }
 
+    // Optional ?randomSeed=42&reproducible=true&moveCountLimit=500000 for repeatable runs: same input,
+    // seed and move count give the same schedule (see smartsched.solver.reproducible.*)
     @PostMapping("/solve")
     @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')") // Both roles can generate
-    public ResponseEntity<?> solveSchedule(@RequestBody List<ScheduleInput> inputs) {
+    public ResponseEntity<?> solveSchedule(@RequestBody List<ScheduleInput> inputs,
+                                           @RequestParam(required = false) Long randomSeed,
+                                           @RequestParam(required = false) Boolean reproducible,
+                                           @RequestParam(required = false) Long moveCountLimit) {
         logger.info(">>> Received /solve request.");
         if (inputs == null || inputs.isEmpty()) {
             logger.warn(">>> Payload is null or empty!");
@@ -57,14 +90,20 @@ public class ScheduleController {
         logger.info(">>> Submitting job to SchedulingService with problemId: {}, sectionId: {}", problemId, sectionId);
 
         try {
-            schedulingService.solveAndSave(problemId, sectionId, inputs);
-            return ResponseEntity.ok(Map.of(
-                "message", "Scheduling process started.",
-                "problemId", problemId
-            ));
+            SolveOptions options = schedulingService.resolveSolveOptions(reproducible, randomSeed, moveCountLimit);
+            schedulingService.solveAndSave(problemId, sectionId, inputs, options);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("message", "Scheduling process started.");
+            body.put("problemId", problemId);
+            if (!options.isDefault()) body.put("solveOptions", options);
+            return ResponseEntity.ok(body);
         } catch (IllegalArgumentException e) {
              logger.error(">>> Error during submission to SchedulingService: {}", e.getMessage());
              return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (SolverBusyException e) {
+             logger.warn(">>> Solve request refused: {}", e.getMessage());
+             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30")
+                     .body(Map.of("message", e.getMessage()));
         } catch (Exception e) {
              logger.error(">>> Unexpected error during submission to SchedulingService:", e);
              return ResponseEntity.internalServerError().body(Map.of("message", "An unexpected error occurred."));
@@ -77,20 +116,103 @@ public class ScheduleController {
         logger.debug(">>> Received status check request for problemId: {}", problemId);
         try {
             SolverStatus status = schedulingService.getSolverStatus(problemId);
-            return ResponseEntity.ok(Map.of("problemId", problemId, "status", status.name()));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("problemId", problemId);
+            body.put("status", status.name());
+            // Once saved: round trips and latency of the bulk save, to confirm it stays O(1)
+            schedulingService.getSaveStats(problemId).ifPresent(stats -> body.put("saveStats", stats));
+            return ResponseEntity.ok(body);
         } catch (Exception e) {
              logger.error(">>> Error checking status for problemId {}:", problemId, e);
              return ResponseEntity.internalServerError().body(Map.of("message", "Error checking solver status."));
         }
     }
 
+    // Per-constraint evaluation cost of a job, most expensive first; only recorded while
+    // smartsched.solver.profiling.enabled=true. Can be polled while the job is still solving.
+    @GetMapping("/analysis/{problemId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getSolverAnalysis(@PathVariable String problemId) {
+        return schedulingService.getConstraintProfile(problemId)
+                .<ResponseEntity<?>>map(report -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("problemId", problemId);
+                    body.put("status", schedulingService.getSolverStatus(problemId).name());
+                    body.put("profile", report);
+                    return ResponseEntity.ok(body);
+                })
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of("message",
+                        "No constraint profile for this problem ID. Is smartsched.solver.profiling.enabled set?")));
+    }
+
+    // --- Solve-run history (capacity planning) ---
+    // Last 100 finished solve jobs with problem size, stage timings, score and thread budget
+    @GetMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SolveRun>> getSolveRuns() {
+        return ResponseEntity.ok(schedulingService.getRecentSolveRuns());
+    }
+
+    // p50/p90/p95/p99 of solve time, time to feasible etc. per problem-size bucket
+    @GetMapping("/runs/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<SolveRunSummary>> getSolveRunSummary(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(schedulingService.getSolveRunSummary(days));
+    }
+
+    // --- Filtered, paginated schedule query ---
+    // e.g. /api/schedules?sectionId=...&dayOfWeek=MONDAY&fromMinute=480&toMinute=720&fields=subjectCode,startTime&limit=50
+    // Follow nextCursor (?cursor=...) for the next page. Bad parameters return 400 via GlobalExceptionHandler.
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')")
+    public ResponseEntity<SchedulePage> querySchedules(ScheduleFilter filter,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer limit,
+                                                       @RequestParam(required = false) List<String> fields,
+                                                       WebRequest request) {
+        logger.debug(">>> Received schedule query: {}, cursor={}, limit={}", filter, cursor, limit);
+        // A section-scoped query only changes when that section is re-solved
+        String etag = filter.sectionId() != null && !filter.sectionId().isBlank()
+                ? changeVersions.sectionSchedulesTag(filter.sectionId())
+                : changeVersions.schedulesTag();
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok(scheduleQueryService.findPage(filter, cursor, limit, fields));
+    }
+
+    // --- Streaming export of every matching schedule as NDJSON (one JSON object per line) ---
+    // Same filters and ?fields= as the query endpoint above, but no paging: the response is
+    // written from the Mongo cursor as it is read, so memory stays flat however many rows match.
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')")
+    public ResponseEntity<StreamingResponseBody> streamSchedules(ScheduleFilter filter,
+                                                                 @RequestParam(required = false) List<String> fields) {
+        logger.info(">>> Received /stream request: {}", filter);
+        // Validate up front so bad parameters still get a 400 before the response is committed
+        scheduleQueryService.validate(filter, fields);
+
+        StreamingResponseBody body = out -> scheduleQueryService.streamNdjson(filter, fields, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Legacy: returns every schedule in one response, which grows with every stored term.
+     * Kept for existing clients; use GET /api/schedules with filters and a cursor instead.
+     */
+    @Deprecated
     @GetMapping("/all")
     @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')") // Both roles can view all schedules (filtered on frontend)
-    public ResponseEntity<List<Schedule>> getAllSchedules() {
-        logger.info(">>> Received /all request.");
+    public ResponseEntity<List<Schedule>> getAllSchedules(WebRequest request) {
+        logger.info(">>> Received /all request (legacy).");
+        // Dashboards poll this; answer If-None-Match with 304 before touching MongoDB
+        if (request.checkNotModified(changeVersions.schedulesTag())) return null;
         try {
             List<Schedule> schedules = scheduleRepository.findAll();
-            return ResponseEntity.ok(schedules);
+            return ResponseEntity.ok()
+                    .header("Deprecation", "true")
+                    .header(HttpHeaders.LINK, "</api/schedules>; rel=\"successor-version\"")
+                    .body(schedules);
         } catch (Exception e) {
             logger.error(">>> Error fetching all schedules:", e);
             // Consider returning an error response instead of null body for better frontend handling
@@ -99,26 +221,49 @@ public class ScheduleController {
     }
 
     // --- NEW: Endpoint to export schedule for a specific section ---
+    // ?format=xlsx streams an .xlsx (SXSSF) directly to the response; default is the legacy .xls.
+    // ?format=csv / ics are handed to the plain-text exporter (see exportCalendar below).
     @GetMapping("/export/section/{sectionId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')") // Both roles can export
-    public void exportSchedule(@PathVariable String sectionId, HttpServletResponse response) throws IOException {
+    public void exportSchedule(@PathVariable String sectionId, @RequestParam(required = false) String format,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+                               WebRequest request, HttpServletResponse response) throws IOException {
         logger.info(">>> Received request to export schedule for section ID: {}", sectionId);
+        if (format != null && (format.equalsIgnoreCase("csv") || format.equalsIgnoreCase("ics"))) {
+            // No conditional GET here: the calendar depends on from/until (from defaults to today)
+            exportCalendar(CalendarExportService.View.SECTION, sectionId, format, from, until, response);
+            return;
+        }
+        if (request.checkNotModified(changeVersions.sectionExportTag(sectionId))) return;
+        long start = System.nanoTime();
         try {
-            ByteArrayInputStream bis = excelExportService.generateScheduleExcel(sectionId);
+            ExportFormat exportFormat = ExportFormat.fromParam(format);
+            // Same file already rendered since the section last changed: no DB read, no POI
+            byte[] cached = excelExportService.findCachedExport(sectionId, exportFormat);
+            // Otherwise load first: a missing section still gets a clean 404 before any bytes are written
+            ExcelExportService.SectionSheet section = cached == null ? excelExportService.loadSection(sectionId) : null;
 
             // --- Filename Logic ---
             // Try to get section details to create a more descriptive filename
-            String filename = excelExportService.getExcelFilename(sectionId);
+            String filename = excelExportService.getExcelFilename(sectionId, exportFormat);
 
-            response.setContentType("application/vnd.ms-excel");
+            response.setContentType(exportFormat.getContentType());
             response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
 
-            // --- FIX: Use Java's built-in transferTo ---
-            // Replace: org.apache.commons.io.IOUtils.copy(bis, response.getOutputStream());
-            bis.transferTo(response.getOutputStream());
-            // --- End Fix ---
+            if (cached != null) {
+                response.setContentLength(cached.length);
+                response.getOutputStream().write(cached);
+                response.flushBuffer();
+                exportMetrics.record("section", exportFormat, "hit", start, cached.length);
+            } else {
+                // The workbook is written straight to the servlet stream (and copied into the export cache)
+                ExportMetrics.CountingOutputStream out = exportMetrics.counting(response.getOutputStream());
+                excelExportService.writeScheduleExcelCached(section, exportFormat, out);
+                response.flushBuffer();
+                exportMetrics.record("section", exportFormat, "miss", start, out.getCount());
+            }
 
-            response.flushBuffer();
             logger.info(">>> Successfully exported schedule for section ID: {}", sectionId);
 
         } catch (IllegalArgumentException e) {
@@ -138,6 +283,83 @@ public class ScheduleController {
         }
     }
 
+    // --- CSV / iCalendar exports of a teacher's or a room's timetable ---
+    // ?format=csv (default) or ics; for ics, ?from= sets the first week (default today), ?until= the last day.
+    @GetMapping("/export/teacher/{teacherId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')")
+    public void exportTeacherSchedule(@PathVariable String teacherId, @RequestParam(defaultValue = "csv") String format,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+                                      HttpServletResponse response) throws IOException {
+        exportCalendar(CalendarExportService.View.TEACHER, teacherId, format, from, until, response);
+    }
+
+    @GetMapping("/export/classroom/{classroomId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')")
+    public void exportClassroomSchedule(@PathVariable String classroomId, @RequestParam(defaultValue = "csv") String format,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until,
+                                        HttpServletResponse response) throws IOException {
+        exportCalendar(CalendarExportService.View.CLASSROOM, classroomId, format, from, until, response);
+    }
+
+    // Shared by the section, teacher and classroom CSV/ICS exports. Rows are written as they are read.
+    private void exportCalendar(CalendarExportService.View view, String id, String format, LocalDate from, LocalDate until,
+                                HttpServletResponse response) throws IOException {
+        logger.info(">>> Received {} export request for {} {}", format, view, id);
+        long start = System.nanoTime();
+        try {
+            ExportFormat exportFormat = ExportFormat.fromParam(format);
+            if (exportFormat.isSpreadsheet()) {
+                throw new IllegalArgumentException("Use format=csv or format=ics for this export.");
+            }
+            // Resolves the name first, so an unknown id is a 404 before anything is written
+            String filename = calendarExportService.filename(view, id, exportFormat);
+
+            response.setContentType(exportFormat.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+            ExportMetrics.CountingOutputStream out = exportMetrics.counting(response.getOutputStream());
+            calendarExportService.write(view, id, exportFormat, from != null ? from : LocalDate.now(), until, out);
+            response.flushBuffer();
+            exportMetrics.record(view.name().toLowerCase(), exportFormat, "none", start, out.getCount());
+        } catch (IllegalArgumentException e) {
+            logger.error(">>> Error during export (Bad Request): {}", e.getMessage());
+            if (e.getMessage().contains("not found")) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+            } else {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+        }
+    }
+
+    // --- Bulk export: many sections in one download ---
+    // Select with ?sectionIds=a,b,c or ?program=BSIT&yearLevel=1; ?layout=zip (default, one file per
+    // section) or sheets (one workbook); ?format=xls|xlsx. The ZIP starts streaming with the first section.
+    @GetMapping("/export/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SCHEDULER')")
+    public ResponseEntity<StreamingResponseBody> exportBulk(@RequestParam(required = false) List<String> sectionIds,
+                                                            @RequestParam(required = false) String program,
+                                                            @RequestParam(required = false) Integer yearLevel,
+                                                            @RequestParam(required = false) String format,
+                                                            @RequestParam(required = false) String layout) {
+        logger.info(">>> Received bulk export request: sectionIds={}, program={}, yearLevel={}", sectionIds, program, yearLevel);
+        // Validation and loading happen here, so selection errors are a 400 (GlobalExceptionHandler)
+        BulkExportService.BulkExport export = bulkExportService.prepare(sectionIds, program, yearLevel,
+                ExportFormat.fromParam(format), BulkExportService.Layout.fromParam(layout));
+
+        StreamingResponseBody body = out -> {
+            long start = System.nanoTime();
+            ExportMetrics.CountingOutputStream counted = exportMetrics.counting(out);
+            bulkExportService.write(export, counted);
+            exportMetrics.record("bulk-" + export.layout().name().toLowerCase(), export.format(), "none",
+                    start, counted.getCount());
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, export.contentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + export.filename() + "\"")
+                .body(body);
+    }
+
     // --- NEW: Endpoint for Admin to delete a generated schedule by Problem ID ---
     @DeleteMapping("/problem/{problemId}")
     @PreAuthorize("hasRole('ADMIN')") // ONLY Admin can delete
@@ -145,6 +367,7 @@ public class ScheduleController {
         logger.warn(">>> Received request to DELETE schedule for problemId: {}", problemId);
         try {
             long deletedCount = scheduleRepository.deleteByProblemId(problemId);
+            changeVersions.schedulesChanged();
             if (deletedCount > 0) {
                 logger.warn(">>> Successfully deleted {} schedule entries for problemId: {}", deletedCount, problemId);
                 return ResponseEntity.ok(Map.of("message", "Schedule deleted successfully.", "deletedCount", deletedCount));
@@ -12,8 +12,10 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.service.ChangeVersions;
 import com.smartsched.smartsched_api.service.SectionService;
 
 @RestController
@@ -23,13 +25,19 @@ public class SectionController {
     @Autowired
     private SectionService sectionService;
 
+    @Autowired
+    private ChangeVersions changeVersions;
+
     @GetMapping
-    public List<Section> getAllSections() {
+    public List<Section> getAllSections(WebRequest request) {
+        // If-None-Match answered from the version counter alone: 304, nothing read or serialised
+        if (request.checkNotModified(changeVersions.sectionsTag())) return null;
         return sectionService.getAllSections();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Section> getSectionById(@PathVariable String id) {
+    public ResponseEntity<Section> getSectionById(@PathVariable String id, WebRequest request) {
+        if (request.checkNotModified(changeVersions.sectionsTag())) return null;
         return sectionService.getSectionById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -12,8 +12,10 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.service.ChangeVersions;
 import com.smartsched.smartsched_api.service.TeacherService;
 
 @RestController
@@ -23,13 +25,19 @@ public class TeacherController {
     @Autowired
     private TeacherService teacherService;
 
+    @Autowired
+    private ChangeVersions changeVersions;
+
     @GetMapping
-    public List<Teacher> getAllTeachers() {
+    public List<Teacher> getAllTeachers(WebRequest request) {
+        // If-None-Match answered from the version counter alone: 304, nothing read or serialised
+        if (request.checkNotModified(changeVersions.teachersTag())) return null;
         return teacherService.getAllTeachers();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Teacher> getTeacherById(@PathVariable String id) {
+    public ResponseEntity<Teacher> getTeacherById(@PathVariable String id, WebRequest request) {
+        if (request.checkNotModified(changeVersions.teachersTag())) return null;
         return teacherService.getTeacherById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
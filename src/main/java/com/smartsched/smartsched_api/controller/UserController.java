@@ -46,6 +46,20 @@ public class UserController {
         }
     }
 
+    @PostMapping("/disable/{userId}")
+    public ResponseEntity<?> disableUser(@PathVariable String userId) {
+        logger.info("Request to disable user: {}", userId);
+        try {
+            User disabledUser = userService.disableUser(userId);
+            return ResponseEntity.ok(Map.of(
+                    "message", "User disabled successfully",
+                    "username", disabledUser.getUsername()));
+        } catch (NoSuchElementException e) {
+            logger.warn("Failed to disable user: {}", e.getMessage());
+            return ResponseEntity.status(404).body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{userId}")
     public ResponseEntity<?> deleteUser(@PathVariable String userId) {
         logger.info("Request to delete user: {}", userId);
@@ -0,0 +1,149 @@
+package com.smartsched.smartsched_api.dataset;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleInput;
+import com.smartsched.smartsched_api.model.ScheduleTimes;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.service.SchedulingService;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+import com.smartsched.smartsched_api.solver.domain.Timeslot;
+
+/**
+ * A generated institution (see SyntheticDatasetGenerator). As JSON fixtures it is one file per
+ * collection in a directory; schedule-inputs.json is grouped per section in the request format
+ * of POST /api/schedules/solve, so load tests can post the entries as they are.
+ */
+public record SyntheticDataset(SyntheticDatasetGenerator.Spec spec, List<Teacher> teachers, List<Classroom> classrooms,
+                               List<Section> sections, List<ScheduleInput> inputs, List<Schedule> schedules) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    public List<ScheduleInput> inputsFor(String sectionId) {
+        return inputs.stream().filter(input -> sectionId.equals(input.getSectionId())).toList();
+    }
+
+    /**
+     * The problem SchedulingService would assemble for re-solving this section: its subjects as
+     * new allocations, every other section's schedules pinned.
+     */
+    public ScheduleSolution toProblem(String sectionId) {
+        List<Timeslot> timeslots = SchedulingService.generateTimeslots();
+        Map<String, Timeslot> timeslotByStart = new HashMap<>();
+        timeslots.forEach(ts -> timeslotByStart.put(ts.getDayOfWeek() + "_" + ScheduleTimes.toMinutes(ts.getStartTime()), ts));
+        Map<String, Teacher> teacherById = byId(teachers, Teacher::getId);
+        Map<String, Classroom> classroomById = byId(classrooms, Classroom::getId);
+        Map<String, Section> sectionById = byId(sections, Section::getId);
+        Section section = sectionById.get(sectionId);
+        if (section == null) throw new IllegalArgumentException("Section with ID " + sectionId + " not found.");
+
+        List<Allocation> allocations = new ArrayList<>();
+        long id = 1;
+        for (ScheduleInput input : inputsFor(sectionId)) {
+            for (int duration : SchedulingService.determineSessionDurations(input.getClassHoursPerWeek())) {
+                allocations.add(new Allocation(id++, input.getSubjectCode(), input.getSubjectName(),
+                        teacherById.get(input.getTeacherId()), section, duration, input.isMajor(), false));
+            }
+        }
+        for (Schedule schedule : schedules) {
+            if (sectionId.equals(schedule.getSectionId())) continue;
+            Allocation pinned = new Allocation(id++, schedule.getSubjectCode(), schedule.getSubjectName(),
+                    teacherById.get(schedule.getTeacherId()), sectionById.get(schedule.getSectionId()),
+                    schedule.getDurationMinutes(), Boolean.TRUE.equals(schedule.getIsMajor()), true);
+            pinned.setTimeslot(timeslotByStart.get(schedule.getDayOfWeek() + "_" + schedule.getStartMinute()));
+            pinned.setClassroom(classroomById.get(schedule.getClassroomId()));
+            allocations.add(pinned);
+        }
+        return new ScheduleSolution(timeslots, new ArrayList<>(classrooms), new ArrayList<>(teachers),
+                new ArrayList<>(sections), allocations);
+    }
+
+    private static <T> Map<String, T> byId(List<T> items, Function<T, String> id) {
+        Map<String, T> map = new HashMap<>();
+        items.forEach(item -> map.put(id.apply(item), item));
+        return map;
+    }
+
+    /**
+     * Saves everything with the generated IDs. scheduleRepository may be null to load only the
+     * reference data. Callers running inside the application should evict ReferenceDataCache.
+     */
+    public void loadInto(TeacherRepository teacherRepository, ClassroomRepository classroomRepository,
+                         SectionRepository sectionRepository, ScheduleRepository scheduleRepository) {
+        teacherRepository.saveAll(teachers);
+        classroomRepository.saveAll(classrooms);
+        sectionRepository.saveAll(sections);
+        if (scheduleRepository != null && !schedules.isEmpty()) scheduleRepository.saveAll(schedules);
+    }
+
+    // --- JSON fixtures ---
+
+    public void writeJson(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MAPPER.writeValue(directory.resolve("spec.json").toFile(), spec);
+        MAPPER.writeValue(directory.resolve("teachers.json").toFile(), teachers);
+        MAPPER.writeValue(directory.resolve("classrooms.json").toFile(), classrooms);
+        MAPPER.writeValue(directory.resolve("sections.json").toFile(), sections);
+        MAPPER.writeValue(directory.resolve("schedules.json").toFile(), schedules);
+
+        Map<String, List<Map<String, Object>>> requests = new LinkedHashMap<>();
+        sections.forEach(section -> requests.put(section.getId(), solveRequest(section.getId())));
+        MAPPER.writeValue(directory.resolve("schedule-inputs.json").toFile(), requests);
+    }
+
+    /**
+     * The body of POST /api/schedules/solve for a section, ready to be serialized as JSON.
+     */
+    public List<Map<String, Object>> solveRequest(String sectionId) {
+        // ScheduleInput's getters would write "major"; the solve endpoint reads "isMajor"
+        List<Map<String, Object>> request = new ArrayList<>();
+        for (ScheduleInput input : inputsFor(sectionId)) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("subjectCode", input.getSubjectCode());
+            json.put("subjectName", input.getSubjectName());
+            json.put("teacherId", input.getTeacherId());
+            json.put("sectionId", input.getSectionId());
+            json.put("classHoursPerWeek", input.getClassHoursPerWeek());
+            json.put("isMajor", input.isMajor());
+            request.add(json);
+        }
+        return request;
+    }
+
+    public static SyntheticDataset readJson(Path directory) throws IOException {
+        Map<String, List<ScheduleInput>> requests = MAPPER.readValue(directory.resolve("schedule-inputs.json").toFile(),
+                new TypeReference<LinkedHashMap<String, List<ScheduleInput>>>() {});
+        List<ScheduleInput> inputs = new ArrayList<>();
+        requests.values().forEach(inputs::addAll);
+        return new SyntheticDataset(
+                MAPPER.readValue(directory.resolve("spec.json").toFile(), SyntheticDatasetGenerator.Spec.class),
+                MAPPER.readValue(directory.resolve("teachers.json").toFile(), new TypeReference<List<Teacher>>() {}),
+                MAPPER.readValue(directory.resolve("classrooms.json").toFile(), new TypeReference<List<Classroom>>() {}),
+                MAPPER.readValue(directory.resolve("sections.json").toFile(), new TypeReference<List<Section>>() {}),
+                inputs,
+                MAPPER.readValue(directory.resolve("schedules.json").toFile(), new TypeReference<List<Schedule>>() {}));
+    }
+}
@@ -0,0 +1,298 @@
+package com.smartsched.smartsched_api.dataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleInput;
+import com.smartsched.smartsched_api.model.ScheduleTimes;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.service.SchedulingService;
+import com.smartsched.smartsched_api.solver.domain.Timeslot;
+
+/**
+ * Generates a synthetic institution for benchmarks and load tests: teachers, classrooms (a mix
+ * of computer labs, labs and lecture rooms), sections of BSIT and other programs, the subjects
+ * each section asks the solver to schedule (ScheduleInput) and, optionally, existing schedules
+ * for part of the sections so solves have pinned allocations to work around.
+ *
+ * The same Spec (seed included) always gives the same dataset, IDs included.
+ *
+ * From the packaged jar, writing JSON fixtures to a directory:
+ *   java -cp target/smartsched-api-*.jar -Dloader.main=com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher fixtures/ --sections=300 --scheduled-ratio=0.9
+ */
+public final class SyntheticDatasetGenerator {
+
+    private static final List<String> OTHER_PROGRAMS = List.of("BSCS", "BSIS", "BSEMC", "BSBA", "BSED");
+    private static final List<String> DEPARTMENTS = List.of("CS", "IT", "Math", "Science", "English", "Business");
+
+    private SyntheticDatasetGenerator() {}
+
+    /**
+     * @param sections              number of sections
+     * @param subjectsPerSection    subjects (ScheduleInputs) per section
+     * @param majorRatio            share of subjects that are majors (they need a lab)
+     * @param minClassHours         weekly hours of a subject, lower bound
+     * @param maxClassHours         weekly hours of a subject, upper bound
+     * @param bsitRatio             share of sections in the BSIT program
+     * @param subjectsPerTeacher    average teaching load; sets the number of teachers
+     * @param roomScarcity          share of the room-timeslots that the sessions would fill; 1.0 leaves no slack
+     * @param scheduledSectionRatio share of sections that already have schedules
+     */
+    public record Spec(long seed, int sections, int subjectsPerSection, double majorRatio,
+                       int minClassHours, int maxClassHours, double bsitRatio, int subjectsPerTeacher,
+                       double roomScarcity, double scheduledSectionRatio) {
+
+        public Spec {
+            if (sections <= 0 || subjectsPerSection <= 0 || subjectsPerTeacher <= 0) {
+                throw new IllegalArgumentException("sections, subjectsPerSection and subjectsPerTeacher must be positive.");
+            }
+            if (minClassHours <= 0 || maxClassHours < minClassHours) {
+                throw new IllegalArgumentException("Class hours must satisfy 0 < minClassHours <= maxClassHours.");
+            }
+            if (roomScarcity <= 0 || roomScarcity > 1) throw new IllegalArgumentException("roomScarcity must be in (0, 1].");
+            requireRatio("majorRatio", majorRatio);
+            requireRatio("bsitRatio", bsitRatio);
+            requireRatio("scheduledSectionRatio", scheduledSectionRatio);
+        }
+
+        private static void requireRatio(String name, double value) {
+            if (value < 0 || value > 1) throw new IllegalArgumentException(name + " must be between 0 and 1.");
+        }
+
+        // 20 sections of 8 subjects, nothing scheduled yet
+        public static Spec defaults() {
+            return new Spec(1L, 20, 8, 0.4, 2, 5, 0.5, 6, 0.6, 0.0);
+        }
+
+        public Spec withSeed(long value) {
+            return new Spec(value, sections, subjectsPerSection, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withSections(int value) {
+            return new Spec(seed, value, subjectsPerSection, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withSubjectsPerSection(int value) {
+            return new Spec(seed, sections, value, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withMajorRatio(double value) {
+            return new Spec(seed, sections, subjectsPerSection, value, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withClassHours(int min, int max) {
+            return new Spec(seed, sections, subjectsPerSection, majorRatio, min, max, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withBsitRatio(double value) {
+            return new Spec(seed, sections, subjectsPerSection, majorRatio, minClassHours, maxClassHours, value,
+                    subjectsPerTeacher, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withSubjectsPerTeacher(int value) {
+            return new Spec(seed, sections, subjectsPerSection, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    value, roomScarcity, scheduledSectionRatio);
+        }
+
+        public Spec withRoomScarcity(double value) {
+            return new Spec(seed, sections, subjectsPerSection, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, value, scheduledSectionRatio);
+        }
+
+        public Spec withScheduledSectionRatio(double value) {
+            return new Spec(seed, sections, subjectsPerSection, majorRatio, minClassHours, maxClassHours, bsitRatio,
+                    subjectsPerTeacher, roomScarcity, value);
+        }
+    }
+
+    public static SyntheticDataset generate(Spec spec) {
+        Random random = new Random(spec.seed());
+        List<Timeslot> timeslots = SchedulingService.generateTimeslots();
+
+        // --- Sections ---
+        List<Section> sections = new ArrayList<>(spec.sections());
+        Map<String, Integer> nextLetter = new HashMap<>();
+        for (int i = 0; i < spec.sections(); i++) {
+            String program = random.nextDouble() < spec.bsitRatio()
+                    ? "BSIT" : OTHER_PROGRAMS.get(random.nextInt(OTHER_PROGRAMS.size()));
+            int yearLevel = 1 + random.nextInt(4);
+            int letter = nextLetter.merge(program + yearLevel, 1, Integer::sum) - 1;
+            Section section = new Section(program, yearLevel, program + " " + yearLevel + "-" + sectionLetters(letter),
+                    25 + random.nextInt(21));
+            section.setId(id("s", i, spec.sections()));
+            sections.add(section);
+        }
+
+        // --- Teachers ---
+        int teacherCount = Math.max(1, (int) Math.ceil((double) spec.sections() * spec.subjectsPerSection() / spec.subjectsPerTeacher()));
+        List<Teacher> teachers = new ArrayList<>(teacherCount);
+        for (int i = 0; i < teacherCount; i++) {
+            Teacher teacher = new Teacher("Teacher " + (i + 1), DEPARTMENTS.get(random.nextInt(DEPARTMENTS.size())));
+            teacher.setId(id("t", i, teacherCount));
+            teachers.add(teacher);
+        }
+
+        // --- Subjects; teachers are dealt out so loads stay close to subjectsPerTeacher ---
+        List<ScheduleInput> inputs = new ArrayList<>(spec.sections() * spec.subjectsPerSection());
+        List<Integer> teacherDeck = new ArrayList<>();
+        int majorSessions = 0;
+        int otherSessions = 0;
+        for (Section section : sections) {
+            for (int subject = 0; subject < spec.subjectsPerSection(); subject++) {
+                if (teacherDeck.isEmpty()) {
+                    for (int t = 0; t < teacherCount; t++) teacherDeck.add(t);
+                    Collections.shuffle(teacherDeck, random);
+                }
+                boolean major = random.nextDouble() < spec.majorRatio();
+                int hours = spec.minClassHours() + random.nextInt(spec.maxClassHours() - spec.minClassHours() + 1);
+                String code = section.getProgram() + (section.getYearLevel() * 100 + subject + 1);
+                inputs.add(new ScheduleInput(code, (major ? "Major " : "General ") + code,
+                        teachers.get(teacherDeck.remove(teacherDeck.size() - 1)).getId(), section.getId(), hours, major));
+                int sessions = SchedulingService.determineSessionDurations(hours).size();
+                if (major) majorSessions += sessions; else otherSessions += sessions;
+            }
+        }
+
+        // --- Classrooms, sized so the sessions fill roomScarcity of the room-timeslots ---
+        int labs = Math.max(1, (int) Math.ceil(majorSessions / (timeslots.size() * spec.roomScarcity())));
+        int lectureRooms = Math.max(1, (int) Math.ceil(otherSessions / (timeslots.size() * spec.roomScarcity())));
+        List<Classroom> classrooms = new ArrayList<>(labs + lectureRooms);
+        for (int i = 0; i < labs + lectureRooms; i++) {
+            String type = i >= labs ? "Lecture" : i % 2 == 0 ? "Computer Laboratory" : "Laboratory";
+            Classroom room = new Classroom((i >= labs ? "Room " : "Lab ") + (i + 1), 30 + 5 * random.nextInt(5), type);
+            room.setId(id("r", i, labs + lectureRooms));
+            classrooms.add(room);
+        }
+
+        List<Schedule> schedules = schedule(spec, random, sections, teachers, classrooms, inputs, timeslots);
+        return new SyntheticDataset(spec, teachers, classrooms, sections, inputs, schedules);
+    }
+
+    /**
+     * Greedy first-fit placement of the scheduled sections' sessions: no teacher, room or section
+     * double-booked, majors in labs. Sessions that do not fit anywhere are left out.
+     */
+    private static List<Schedule> schedule(Spec spec, Random random, List<Section> sections, List<Teacher> teachers,
+                                           List<Classroom> classrooms, List<ScheduleInput> inputs, List<Timeslot> timeslots) {
+        int scheduledSections = (int) Math.round(spec.sections() * spec.scheduledSectionRatio());
+        if (scheduledSections == 0) return new ArrayList<>();
+        Set<String> scheduled = new HashSet<>();
+        for (Section section : sections.subList(0, scheduledSections)) scheduled.add(section.getId());
+
+        Map<String, Teacher> teacherById = new HashMap<>();
+        teachers.forEach(t -> teacherById.put(t.getId(), t));
+        Map<String, Section> sectionById = new HashMap<>();
+        sections.forEach(s -> sectionById.put(s.getId(), s));
+        List<Classroom> labs = classrooms.stream().filter(c -> !"Lecture".equals(c.getType())).toList();
+        List<Classroom> lectureRooms = classrooms.stream().filter(c -> "Lecture".equals(c.getType())).toList();
+
+        // "<id>@<timeslot index>" of everything already booked
+        Set<String> booked = new HashSet<>();
+        List<Schedule> schedules = new ArrayList<>();
+        for (ScheduleInput input : inputs) {
+            if (!scheduled.contains(input.getSectionId())) continue;
+            List<Classroom> rooms = input.isMajor() ? labs : lectureRooms;
+            for (int duration : SchedulingService.determineSessionDurations(input.getClassHoursPerWeek())) {
+                int offset = random.nextInt(timeslots.size());
+                for (int n = 0; n < timeslots.size(); n++) {
+                    int slot = (offset + n) % timeslots.size();
+                    if (booked.contains(input.getSectionId() + "@" + slot) || booked.contains(input.getTeacherId() + "@" + slot)) continue;
+                    Classroom room = null;
+                    for (Classroom candidate : rooms) {
+                        if (!booked.contains(candidate.getId() + "@" + slot)) { room = candidate; break; }
+                    }
+                    if (room == null) continue;
+
+                    Timeslot timeslot = timeslots.get(slot);
+                    int start = ScheduleTimes.toMinutes(timeslot.getStartTime());
+                    DayOfWeek day = timeslot.getDayOfWeek();
+                    Schedule schedule = new Schedule("synthetic-" + input.getSectionId(), input.getSubjectCode(),
+                            input.getSubjectName(), input.getTeacherId(), input.getSectionId(), room.getId(),
+                            day, start, start + duration, input.isMajor());
+                    schedule.setId("sch" + String.format("%07d", schedules.size() + 1));
+                    schedules.add(schedule);
+                    booked.add(input.getSectionId() + "@" + slot);
+                    booked.add(input.getTeacherId() + "@" + slot);
+                    booked.add(room.getId() + "@" + slot);
+                    // Back-references as saveSolution keeps them, so cascades find the schedules
+                    Teacher teacher = teacherById.get(input.getTeacherId());
+                    Section section = sectionById.get(input.getSectionId());
+                    teacher.setScheduleIds(withId(teacher.getScheduleIds(), schedule.getId()));
+                    room.setScheduleIds(withId(room.getScheduleIds(), schedule.getId()));
+                    section.setScheduleIds(withId(section.getScheduleIds(), schedule.getId()));
+                    break;
+                }
+            }
+        }
+        return schedules;
+    }
+
+    private static List<String> withId(List<String> ids, String id) {
+        List<String> result = ids == null ? new ArrayList<>() : ids;
+        result.add(id);
+        return result;
+    }
+
+    private static String id(String prefix, int index, int count) {
+        int width = Math.max(3, String.valueOf(count).length());
+        return prefix + String.format("%0" + width + "d", index + 1);
+    }
+
+    // A..Z, then AA, AB, ...
+    private static String sectionLetters(int index) {
+        StringBuilder letters = new StringBuilder();
+        for (int i = index; i >= 0; i = i / 26 - 1) letters.insert(0, (char) ('A' + i % 26));
+        return letters.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Spec spec = Spec.defaults();
+        Path output = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--seed=")) spec = spec.withSeed(Long.parseLong(value));
+            else if (arg.startsWith("--sections=")) spec = spec.withSections(Integer.parseInt(value));
+            else if (arg.startsWith("--subjects=")) spec = spec.withSubjectsPerSection(Integer.parseInt(value));
+            else if (arg.startsWith("--major-ratio=")) spec = spec.withMajorRatio(Double.parseDouble(value));
+            else if (arg.startsWith("--class-hours=")) {
+                String[] range = value.split("-");
+                spec = spec.withClassHours(Integer.parseInt(range[0]), Integer.parseInt(range[range.length - 1]));
+            }
+            else if (arg.startsWith("--bsit-ratio=")) spec = spec.withBsitRatio(Double.parseDouble(value));
+            else if (arg.startsWith("--subjects-per-teacher=")) spec = spec.withSubjectsPerTeacher(Integer.parseInt(value));
+            else if (arg.startsWith("--room-scarcity=")) spec = spec.withRoomScarcity(Double.parseDouble(value));
+            else if (arg.startsWith("--scheduled-ratio=")) spec = spec.withScheduledSectionRatio(Double.parseDouble(value));
+            else if (arg.startsWith("--")) throw new IllegalArgumentException("Unknown option: " + arg);
+            else output = Path.of(arg);
+        }
+        if (output == null) {
+            System.err.println("Usage: SyntheticDatasetGenerator <output directory> [--seed=N] [--sections=N] [--subjects=N]"
+                    + " [--major-ratio=0.4] [--class-hours=2-5] [--bsit-ratio=0.5] [--subjects-per-teacher=6]"
+                    + " [--room-scarcity=0.6] [--scheduled-ratio=0.0]");
+            System.exit(2);
+        }
+        SyntheticDataset dataset = generate(spec);
+        dataset.writeJson(output);
+        System.out.printf("Wrote %d sections, %d teachers, %d classrooms, %d subjects, %d schedules to %s%n",
+                dataset.sections().size(), dataset.teachers().size(), dataset.classrooms().size(),
+                dataset.inputs().size(), dataset.schedules().size(), output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,49 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.smartsched.smartsched_api.solver.ConstraintProfiler.ConstraintStats;
+
+/**
+ * Where one solve job spent its constraint evaluation time, most expensive constraint first.
+ * Call counts and times come from ConstraintProfiler; matchCount and score are the constraint's
+ * matches in the final best solution (null until the job has finished).
+ */
+public record ConstraintProfileReport(String problemId, boolean finished, long solveMillis,
+                                      double profiledMillis, List<Entry> constraints) {
+
+    public record Entry(int rank, String constraint, long filterCalls, long filterPassed, double filterMillis,
+                        long weightCalls, double weightMillis, double totalMillis, double sharePercent,
+                        double avgMicrosPerCall, Integer matchCount, String score) {
+    }
+
+    // Match count and score of one constraint in the final solution
+    public record Matches(int matchCount, String score) {
+    }
+
+    public static ConstraintProfileReport of(String problemId, boolean finished, long solveMillis,
+                                             List<ConstraintStats> stats, Map<String, Matches> matches) {
+        long profiledNanos = stats.stream().mapToLong(ConstraintStats::totalNanos).sum();
+        List<ConstraintStats> ranked = new ArrayList<>(stats);
+        ranked.sort(Comparator.comparingLong(ConstraintStats::totalNanos).reversed());
+
+        List<Entry> entries = new ArrayList<>(ranked.size());
+        for (ConstraintStats s : ranked) {
+            long calls = s.filterCalls() + s.weightCalls();
+            Matches m = matches.get(s.constraint());
+            entries.add(new Entry(entries.size() + 1, s.constraint(), s.filterCalls(), s.filterPassed(),
+                    millis(s.filterNanos()), s.weightCalls(), millis(s.weightNanos()), millis(s.totalNanos()),
+                    profiledNanos == 0 ? 0 : Math.round(1000.0 * s.totalNanos() / profiledNanos) / 10.0,
+                    calls == 0 ? 0 : Math.round(10.0 * s.totalNanos() / calls / 1000.0) / 10.0,
+                    m == null ? null : m.matchCount(), m == null ? null : m.score()));
+        }
+        return new ConstraintProfileReport(problemId, finished, solveMillis, millis(profiledNanos), entries);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.time.DayOfWeek;
+
+/**
+ * Server-side filters for schedule queries, bound from request parameters.
+ * Every field is optional; the ones that are set are combined with AND.
+ * fromMinute/toMinute select schedules overlapping that window (minutes since midnight).
+ */
+public record ScheduleFilter(String sectionId, String teacherId, String classroomId, DayOfWeek dayOfWeek,
+                             Integer fromMinute, Integer toMinute, String problemId) {
+}
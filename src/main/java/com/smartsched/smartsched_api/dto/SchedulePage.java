@@ -0,0 +1,10 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.util.List;
+
+/**
+ * One page of a schedule query. Pass nextCursor back as ?cursor= to get the next page;
+ * it is null on the last page.
+ */
+public record SchedulePage(List<ScheduleView> items, String nextCursor) {
+}
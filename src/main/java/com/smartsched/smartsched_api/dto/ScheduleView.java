@@ -0,0 +1,25 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.time.DayOfWeek;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.smartsched.smartsched_api.model.Schedule;
+
+/**
+ * DTO for schedule query results. Fields left out by the requested projection are null
+ * and omitted from the JSON, so a projected response only carries what was asked for.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ScheduleView(String id, String problemId, String subjectCode, String subjectName,
+                           String teacherId, String sectionId, String classroomId, DayOfWeek dayOfWeek,
+                           String startTime, String endTime, Integer startMinute, Integer endMinute,
+                           @JsonProperty("isMajor") Boolean isMajor) {
+
+    public static ScheduleView from(Schedule schedule) {
+        return new ScheduleView(schedule.getId(), schedule.getProblemId(), schedule.getSubjectCode(),
+                schedule.getSubjectName(), schedule.getTeacherId(), schedule.getSectionId(),
+                schedule.getClassroomId(), schedule.getDayOfWeek(), schedule.getStartTime(),
+                schedule.getEndTime(), schedule.getStartMinute(), schedule.getEndMinute(), schedule.getIsMajor());
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One MongoDB operation that took longer than smartsched.mongo.slow-query.threshold-ms.
+ * source is "command" for a driver command (operation = find, aggregate, delete, ...) or
+ * "repository" for a Spring Data repository call (operation = Repository.method). shape is
+ * the command's filter with every value replaced by "?", so it never carries data.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SlowQuery(Instant at, String source, String operation, String collection, String shape,
+                        long millis, Integer documents, String outcome) {
+}
@@ -0,0 +1,15 @@
+package com.smartsched.smartsched_api.dto;
+
+/**
+ * Per-request solver settings of POST /api/schedules/solve. A null randomSeed means the solver's
+ * usual random behaviour; reproducible runs always carry a seed and a move-count limit.
+ */
+public record SolveOptions(Long randomSeed, boolean reproducible, Long moveCountLimit) {
+
+    public static final SolveOptions DEFAULT = new SolveOptions(null, false, null);
+
+    // Whether the job can run on the shared SolverManager as configured in application.properties
+    public boolean isDefault() {
+        return randomSeed == null && !reproducible;
+    }
+}
@@ -0,0 +1,19 @@
+package com.smartsched.smartsched_api.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Solve runs of one problem-size bucket (planning entities, pinned excluded) with percentiles
+ * of the stage timings and speeds. A percentile block is null when no run reached that stage.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SolveRunSummary(String entityCountRange, int runs, int failed, double feasibleRate,
+                              double avgPinnedCount, Percentiles totalMillis, Percentiles queueMillis,
+                              Percentiles constructionHeuristicMillis, Percentiles timeToFeasibleMillis,
+                              Percentiles scoreCalculationSpeed, Map<String, Long> terminationReasons) {
+
+    public record Percentiles(long p50, long p90, long p95, long p99, long max) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.smartsched.smartsched_api.exception;
+
+/**
+ * A solve request that cannot be taken now because its solver quota is used up (503, retry later).
+ */
+public class SolverBusyException extends RuntimeException {
+
+    public SolverBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartsched.smartsched_api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Rendering and writing one Excel workbook (one section, or several sections as sheets).
+ */
+@Name("smartsched.ExcelExport")
+@Label("Excel Export")
+@Category({"SmartSched", "Export"})
+@Description("Generation of one XLS/XLSX workbook")
+@StackTrace(false)
+public class ExcelExportEvent extends Event {
+
+    @Label("Section Id")
+    @Description("The exported section, or null for a multi-sheet workbook")
+    public String sectionId;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Sheets")
+    public int sheets;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,26 @@
+package com.smartsched.smartsched_api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One JwtService.verify call: a verified-token cache hit, or a signature check and claims parse.
+ */
+@Name("smartsched.JwtVerification")
+@Label("JWT Verification")
+@Category({"SmartSched", "Security"})
+@Description("Verification of one bearer token")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    @Label("Cached")
+    public boolean cached;
+
+    @Label("Outcome")
+    @Description("valid, or the simple name of the exception thrown")
+    public String outcome;
+}
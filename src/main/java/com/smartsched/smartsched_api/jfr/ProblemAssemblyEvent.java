@@ -0,0 +1,35 @@
+package com.smartsched.smartsched_api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Building the planning problem in SchedulingService.solveAndSave: reference data, pinned
+ * allocations from other sections' schedules and the new allocations to solve.
+ */
+@Name("smartsched.ProblemAssembly")
+@Label("Problem Assembly")
+@Category({"SmartSched", "Solver"})
+@Description("Assembly of one solve job's planning problem from MongoDB state")
+@StackTrace(false)
+public class ProblemAssemblyEvent extends Event {
+
+    @Label("Problem Id")
+    public String problemId;
+
+    @Label("Section Id")
+    public String sectionId;
+
+    @Label("New Allocations")
+    public int newAllocations;
+
+    @Label("Pinned Allocations")
+    public int pinnedAllocations;
+
+    @Label("Existing Schedules Read")
+    public int existingSchedules;
+}
@@ -0,0 +1,39 @@
+package com.smartsched.smartsched_api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One step of saving a solved schedule: validate, fix-up (allocations to schedules), delete,
+ * insert, back-references.
+ */
+@Name("smartsched.SaveSolutionStep")
+@Label("Save Solution Step")
+@Category({"SmartSched", "Persistence"})
+@Description("One step of saveSolution and the bulk write pipeline behind it")
+@StackTrace(false)
+public class SaveSolutionStepEvent extends Event {
+
+    @Label("Problem Id")
+    public String problemId;
+
+    @Label("Section Id")
+    public String sectionId;
+
+    @Label("Step")
+    public String step;
+
+    @Label("Documents")
+    @Description("Schedules validated, built, deleted or inserted, or owners updated")
+    public int documents;
+
+    public SaveSolutionStepEvent(String problemId, String sectionId, String step) {
+        this.problemId = problemId;
+        this.sectionId = sectionId;
+        this.step = step;
+    }
+}
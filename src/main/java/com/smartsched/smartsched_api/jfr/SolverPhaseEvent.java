@@ -0,0 +1,40 @@
+package com.smartsched.smartsched_api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of a solve job. Timefold's public job API reports the job start, the first fully
+ * initialized solution and the final best solution, so a job shows up as two phases: the
+ * construction heuristic up to the first initialized solution, then local search to the end.
+ * Begun and committed from Timefold's callback threads, so the event thread is not the solver's.
+ */
+@Name("smartsched.SolverPhase")
+@Label("Solver Phase")
+@Category({"SmartSched", "Solver"})
+@Description("A construction heuristic or local search phase of one solve job")
+@StackTrace(false)
+public class SolverPhaseEvent extends Event {
+
+    @Label("Problem Id")
+    public String problemId;
+
+    @Label("Section Id")
+    public String sectionId;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Start Score")
+    public String startScore;
+
+    @Label("End Score")
+    public String endScore;
+
+    @Label("Terminated Early")
+    public boolean terminatedEarly;
+}
@@ -3,13 +3,25 @@ package com.smartsched.smartsched_api.model;
 import java.time.DayOfWeek;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document("schedules")
+@CompoundIndexes({
+    @CompoundIndex(name = "section_day_start", def = "{'sectionId': 1, 'dayOfWeek': 1, 'startMinute': 1}"),
+    @CompoundIndex(name = "teacher_day_start", def = "{'teacherId': 1, 'dayOfWeek': 1, 'startMinute': 1}"),
+    @CompoundIndex(name = "classroom_day_start", def = "{'classroomId': 1, 'dayOfWeek': 1, 'startMinute': 1}"),
+    // Keyset paging (ScheduleQueryService) filters on one owner and sorts on _id
+    @CompoundIndex(name = "section_id", def = "{'sectionId': 1, '_id': 1}"),
+    @CompoundIndex(name = "teacher_id", def = "{'teacherId': 1, '_id': 1}"),
+    @CompoundIndex(name = "classroom_id", def = "{'classroomId': 1, '_id': 1}"),
+    @CompoundIndex(name = "problem_id", def = "{'problemId': 1, '_id': 1}")
+})
 public class Schedule {
     @Id
     private String id;
-    private String problemId;
+    private String problemId; // Lookups by problemId use the problem_id index
     private String subjectCode;
     private String subjectName;
     private String teacherId; 
@@ -19,6 +31,13 @@ public class Schedule {
     private String startTime; 
     private String endTime; 
 
+    // Minutes since midnight - use these for queries and sorting, the strings are for display.
+    // Null only on documents the background migration (ScheduleTimeMigration) has not reached yet.
+    private Integer startMinute;
+    private Integer endMinute;
+    private Integer durationMinutes;
+    private Boolean isMajor; // Persisted from the solver so pinned allocations don't have to guess
+
     // No-arg constructor
     public Schedule() {}
 
@@ -35,6 +54,16 @@ public class Schedule {
         this.endTime = endTime;
     }
 
+    // Constructor used by saveSolution: integer times plus solver metadata, display strings derived
+    public Schedule(String problemId, String subjectCode, String subjectName, String teacherId, String sectionId, String classroomId, DayOfWeek dayOfWeek, int startMinute, int endMinute, boolean isMajor) {
+        this(problemId, subjectCode, subjectName, teacherId, sectionId, classroomId, dayOfWeek,
+                ScheduleTimes.format(startMinute), ScheduleTimes.format(endMinute));
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.durationMinutes = ScheduleTimes.duration(startMinute, endMinute);
+        this.isMajor = isMajor;
+    }
+
     // Getters
     public String getId() { return id; }
     public String getProblemId() { return problemId; }
@@ -46,6 +75,13 @@ public class Schedule {
     public DayOfWeek getDayOfWeek() { return dayOfWeek; }
     public String getStartTime() { return startTime; }
     public String getEndTime() { return endTime; }
+    public Integer getStartMinute() { return startMinute; }
+    public Integer getEndMinute() { return endMinute; }
+    public Integer getDurationMinutes() { return durationMinutes; }
+    public Boolean getIsMajor() { return isMajor; } // Jackson maps this to "isMajor", like ScheduleInput
+
+    // Assigned client-side by the bulk insert in SchedulePersistenceService
+    public void setId(String id) { this.id = id; }
 
     // --- SETTERS REQUIRED FOR THE DELETE LOGIC ---
     public void setTeacherId(String teacherId) { this.teacherId = teacherId; }
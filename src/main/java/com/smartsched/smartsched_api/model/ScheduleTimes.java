@@ -0,0 +1,76 @@
+package com.smartsched.smartsched_api.model;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+
+/**
+ * Conversions between the "hh:mm a" display strings stored on Schedule and
+ * minutes since midnight, which is what queries and sorts should use.
+ */
+public final class ScheduleTimes {
+
+    public static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("hh:mm a");
+
+    // Lenient on case so legacy documents with "am"/"pm" still parse during migration
+    private static final DateTimeFormatter PARSE_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("hh:mm a")
+            .toFormatter();
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private ScheduleTimes() {}
+
+    public static int toMinutes(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static LocalTime toLocalTime(int minutes) {
+        int normalized = Math.floorMod(minutes, MINUTES_PER_DAY);
+        return LocalTime.of(normalized / 60, normalized % 60);
+    }
+
+    public static String format(int minutes) {
+        return toLocalTime(minutes).format(DISPLAY_FORMAT);
+    }
+
+    /**
+     * Parses a "hh:mm a" display string. Returns null if it is missing or malformed.
+     */
+    public static Integer parseMinutes(String display) {
+        if (display == null || display.isBlank()) return null;
+        try {
+            return toMinutes(LocalTime.parse(display.trim(), PARSE_FORMAT));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Duration between two minute values, wrapping past midnight like the old ChronoUnit logic.
+     */
+    public static int duration(int startMinute, int endMinute) {
+        int duration = endMinute - startMinute;
+        return duration < 0 ? duration + MINUTES_PER_DAY : duration;
+    }
+
+    /**
+     * Start minute of a schedule, falling back to parsing the string for documents the
+     * background migration has not reached yet. Returns -1 if neither is usable.
+     */
+    public static int startMinuteOf(Schedule schedule) {
+        if (schedule.getStartMinute() != null) return schedule.getStartMinute();
+        Integer parsed = parseMinutes(schedule.getStartTime());
+        return parsed != null ? parsed : -1;
+    }
+
+    /**
+     * End minute of a schedule, with the same fallback as startMinuteOf.
+     */
+    public static int endMinuteOf(Schedule schedule) {
+        if (schedule.getEndMinute() != null) return schedule.getEndMinute();
+        Integer parsed = parseMinutes(schedule.getEndTime());
+        return parsed != null ? parsed : -1;
+    }
+}
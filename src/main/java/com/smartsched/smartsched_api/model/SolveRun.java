@@ -0,0 +1,116 @@
+package com.smartsched.smartsched_api.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * One finished (or failed) solve job, kept for capacity planning: how big the problem was, how
+ * long each stage took, how fast the score was calculated and why the solver stopped.
+ * Written once by SolveRunHistory when the job ends; never updated.
+ */
+@Document("solve_runs")
+public class SolveRun {
+    @Id
+    private String id;
+    @Indexed
+    private String problemId;
+    private String sectionId;
+    @Indexed
+    private Instant finishedAt;
+
+    // Problem size: planning entities and problem facts
+    private int entityCount;     // allocations to place (pinned excluded)
+    private int pinnedCount;     // other sections' schedules, fixed in place
+    private int timeslotCount;
+    private int classroomCount;
+    private int teacherCount;
+    private int sectionCount;
+
+    // Timings in milliseconds; null when the stage was never reached
+    private long queueMillis;                // submitted until a solver thread picked it up
+    private Long constructionHeuristicMillis; // solver start until the first initialized solution
+    private Long timeToFeasibleMillis;        // solver start until the first best solution without hard violations
+    private long totalMillis;                 // submitted until finished, queueing included
+
+    private String finalScore;
+    private Integer hardScore;
+    private Integer softScore;
+    private boolean feasible;
+    private long scoreCalculationSpeed; // per second, averaged over the job
+    private long moveEvaluationSpeed;
+
+    // Thread budget the job ran under
+    private int parallelSolverCount;
+    private String moveThreadCount;
+    private int availableProcessors;
+
+    // Set only for seeded jobs (reproducible runs terminate on a move count instead of time)
+    private Long randomSeed;
+    private boolean reproducible;
+
+    private String terminationReason; // best score limit, spent limit, unimproved spent limit, move count limit, failed
+
+    public SolveRun() {}
+
+    public SolveRun(String problemId, String sectionId) {
+        this.problemId = problemId;
+        this.sectionId = sectionId;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getProblemId() { return problemId; }
+    public void setProblemId(String problemId) { this.problemId = problemId; }
+    public String getSectionId() { return sectionId; }
+    public void setSectionId(String sectionId) { this.sectionId = sectionId; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+    public int getEntityCount() { return entityCount; }
+    public void setEntityCount(int entityCount) { this.entityCount = entityCount; }
+    public int getPinnedCount() { return pinnedCount; }
+    public void setPinnedCount(int pinnedCount) { this.pinnedCount = pinnedCount; }
+    public int getTimeslotCount() { return timeslotCount; }
+    public void setTimeslotCount(int timeslotCount) { this.timeslotCount = timeslotCount; }
+    public int getClassroomCount() { return classroomCount; }
+    public void setClassroomCount(int classroomCount) { this.classroomCount = classroomCount; }
+    public int getTeacherCount() { return teacherCount; }
+    public void setTeacherCount(int teacherCount) { this.teacherCount = teacherCount; }
+    public int getSectionCount() { return sectionCount; }
+    public void setSectionCount(int sectionCount) { this.sectionCount = sectionCount; }
+    public long getQueueMillis() { return queueMillis; }
+    public void setQueueMillis(long queueMillis) { this.queueMillis = queueMillis; }
+    public Long getConstructionHeuristicMillis() { return constructionHeuristicMillis; }
+    public void setConstructionHeuristicMillis(Long constructionHeuristicMillis) { this.constructionHeuristicMillis = constructionHeuristicMillis; }
+    public Long getTimeToFeasibleMillis() { return timeToFeasibleMillis; }
+    public void setTimeToFeasibleMillis(Long timeToFeasibleMillis) { this.timeToFeasibleMillis = timeToFeasibleMillis; }
+    public long getTotalMillis() { return totalMillis; }
+    public void setTotalMillis(long totalMillis) { this.totalMillis = totalMillis; }
+    public String getFinalScore() { return finalScore; }
+    public void setFinalScore(String finalScore) { this.finalScore = finalScore; }
+    public Integer getHardScore() { return hardScore; }
+    public void setHardScore(Integer hardScore) { this.hardScore = hardScore; }
+    public Integer getSoftScore() { return softScore; }
+    public void setSoftScore(Integer softScore) { this.softScore = softScore; }
+    public boolean isFeasible() { return feasible; }
+    public void setFeasible(boolean feasible) { this.feasible = feasible; }
+    public long getScoreCalculationSpeed() { return scoreCalculationSpeed; }
+    public void setScoreCalculationSpeed(long scoreCalculationSpeed) { this.scoreCalculationSpeed = scoreCalculationSpeed; }
+    public long getMoveEvaluationSpeed() { return moveEvaluationSpeed; }
+    public void setMoveEvaluationSpeed(long moveEvaluationSpeed) { this.moveEvaluationSpeed = moveEvaluationSpeed; }
+    public int getParallelSolverCount() { return parallelSolverCount; }
+    public void setParallelSolverCount(int parallelSolverCount) { this.parallelSolverCount = parallelSolverCount; }
+    public String getMoveThreadCount() { return moveThreadCount; }
+    public void setMoveThreadCount(String moveThreadCount) { this.moveThreadCount = moveThreadCount; }
+    public int getAvailableProcessors() { return availableProcessors; }
+    public void setAvailableProcessors(int availableProcessors) { this.availableProcessors = availableProcessors; }
+    public Long getRandomSeed() { return randomSeed; }
+    public void setRandomSeed(Long randomSeed) { this.randomSeed = randomSeed; }
+    public boolean isReproducible() { return reproducible; }
+    public void setReproducible(boolean reproducible) { this.reproducible = reproducible; }
+    public String getTerminationReason() { return terminationReason; }
+    public void setTerminationReason(String terminationReason) { this.terminationReason = terminationReason; }
+}
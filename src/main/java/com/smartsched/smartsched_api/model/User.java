@@ -21,6 +21,7 @@ public class User implements UserDetails {
     private String password;
     private Role role;
     private boolean enabled; // Used for admin approval
+    private long tokenEpoch; // Bumped to revoke every token issued before
 
     // Constructors
     public User() {
@@ -63,6 +64,14 @@ public class User implements UserDetails {
         this.enabled = enabled;
     }
 
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public void setTokenEpoch(long tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+
     // UserDetails implementation
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
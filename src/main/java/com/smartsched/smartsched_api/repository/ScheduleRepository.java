@@ -1,5 +1,6 @@
 package com.smartsched.smartsched_api.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -20,4 +21,10 @@ public interface ScheduleRepository extends MongoRepository<Schedule, String> {
     List<Schedule> findAllByTeacherId(String teacherId);
     List<Schedule> findAllByClassroomId(String classroomId);
     List<Schedule> findAllBySectionId(String sectionId);
+
+    // Everything except one section - the pinned schedules when that section is re-solved
+    List<Schedule> findAllBySectionIdNot(String sectionId);
+
+    // Bulk export: every schedule of the selected sections in one query
+    List<Schedule> findAllBySectionIdIn(Collection<String> sectionIds);
 }
@@ -0,0 +1,16 @@
+package com.smartsched.smartsched_api.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.smartsched.smartsched_api.model.SolveRun;
+
+public interface SolveRunRepository extends MongoRepository<SolveRun, String> {
+
+    // Runs finished since a point in time, for the percentile summary
+    List<SolveRun> findAllByFinishedAtAfter(Instant since);
+
+    List<SolveRun> findTop100ByOrderByFinishedAtDesc();
+}
@@ -1,12 +1,19 @@
 package com.smartsched.smartsched_api.security;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,6 +21,8 @@ import org.springframework.stereotype.Component; // Direct dependency
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -26,7 +35,12 @@ import lombok.RequiredArgsConstructor;
 /**
  * This is the JWT Filter.
  * It MUST NOT depend on SecurityConfig.
- * It ONLY depends on JwtService and UserDetailsService.
+ * It ONLY depends on JwtService, UserDetailsService and TokenEpochCache.
+ *
+ * jwt.auth-mode=database (default) loads the user from MongoDB on every request.
+ * jwt.auth-mode=claims builds the principal from the verified username and role claims and only
+ * checks the token's epoch against TokenEpochCache, so revoked, disabled or deleted users are
+ * still rejected without a per-request query.
  */
 @Component
 @RequiredArgsConstructor // <-- This annotation creates the constructor for the 'final' fields
@@ -38,6 +52,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     // 2. DEPENDENCY: Inject UserDetailsService. This is correct.
     private final UserDetailsService userDetailsService;
+    private final TokenEpochCache tokenEpochCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.auth-mode:database}")
+    private String authMode = "database";
     
     // NOTE: There is NO constructor asking for SecurityConfig. This breaks the cycle.
 
@@ -58,15 +77,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
+        long start = System.nanoTime();
+        String outcome = "skipped"; // already authenticated earlier in the chain
 
         try {
-            username = jwtService.extractUsername(jwt);
+            // Parsed and signature-checked exactly once per request (or answered from the verified-token cache)
+            JwtService.VerifiedToken token = jwtService.verify(jwt);
+            username = token.username();
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && "claims".equalsIgnoreCase(authMode)) {
+                if (!token.isExpired() && tokenEpochCache.isCurrent(username, token.epoch())) {
+                    UserDetails principal = User.withUsername(username)
+                            .password("")
+                            .authorities(authoritiesFrom(token.role()))
+                            .build();
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            principal,
+                            null,
+                            principal.getAuthorities()
+                    );
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    outcome = "authenticated";
+                    filterLogger.debug("User '{}' authenticated from JWT claims.", username);
+                } else {
+                    outcome = "rejected";
+                    filterLogger.warn("JWT token for user '{}' is revoked or the account is disabled.", username);
+                }
+            } else if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Use the injected UserDetailsService
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -74,26 +117,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    outcome = "authenticated";
                     filterLogger.debug("User '{}' authenticated successfully via JWT.", username);
                 } else {
+                     outcome = "rejected";
                      filterLogger.warn("JWT token validation failed for user '{}'.", username);
                 }
             }
         } catch (ExpiredJwtException e) {
+             outcome = "invalid";
              filterLogger.warn("JWT token has expired: {}", e.getMessage());
         } catch (SignatureException e) {
+             outcome = "invalid";
              filterLogger.error("JWT signature validation failed: {}", e.getMessage());
         } catch (MalformedJwtException e) {
+             outcome = "invalid";
              filterLogger.error("JWT token is malformed: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
+             outcome = "invalid";
              filterLogger.error("Unsupported JWT token: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
+             outcome = "invalid";
              filterLogger.error("JWT claims string is empty or argument invalid: {}", e.getMessage());
         } catch (Exception e) {
+             outcome = "error";
              filterLogger.error("Error processing JWT or loading user details: {}", e.getMessage(), e);
         }
+        // Token handling only; the rest of the chain is measured by http.server.requests
+        Timer.builder("smartsched.security.jwt.filter")
+                .description("Time to verify the bearer token and set up the security context")
+                .tag("mode", authMode).tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private static List<GrantedAuthority> authoritiesFrom(String roleClaim) {
+        if (roleClaim == null || roleClaim.isBlank()) return List.of();
+        return Arrays.stream(roleClaim.split(","))
+                .map(String::trim)
+                .filter(role -> !role.isEmpty())
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
@@ -1,9 +1,13 @@
 package com.smartsched.smartsched_api.security;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -19,12 +23,19 @@ import java.security.NoSuchAlgorithmException;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+
+import com.smartsched.smartsched_api.jfr.JwtVerificationEvent;
+import com.smartsched.smartsched_api.model.User;
+
+import javax.crypto.SecretKey;
 
 
 @Service
@@ -35,12 +46,113 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secretKeyString;
 
+    // Recently verified tokens kept (0 disables the cache)
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
     private static final long EXPIRATION_TIME_MS = 1000 * 60 * 60 * 24; // 24 hours
 
+    // Derived once at startup; the parser is immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Keyed by the SHA-256 of the token, never the token itself. Access-ordered for LRU; guarded by itself.
+    private Map<String, VerifiedToken> verifiedTokens;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * What the filter needs from a token whose signature has been checked.
+     * Tokens issued before the epoch claim existed read as epoch 0.
+     */
+    public record VerifiedToken(String username, String role, long epoch, Date expiration) {
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        this.signingKey = deriveSigningKey();
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        int maxEntries = Math.max(0, verifiedCacheMaxEntries);
+        this.verifiedTokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     // --- Core JWT Methods ---
 
+    /**
+     * Verifies the signature and reads the claims, once. A token seen recently is answered from
+     * the verified-token cache without parsing; cached entries are dropped when the token expires,
+     * and an expired token always goes through the parser, which throws ExpiredJwtException.
+     */
+    public VerifiedToken verify(String token) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        try {
+            VerifiedToken verified = verify(token, event);
+            event.outcome = "valid";
+            return verified;
+        } catch (RuntimeException e) {
+            event.outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private VerifiedToken verify(String token, JwtVerificationEvent event) {
+        String cacheKey = null;
+        if (verifiedCacheMaxEntries > 0) {
+            cacheKey = hash(token);
+            VerifiedToken cached;
+            synchronized (verifiedTokens) {
+                cached = verifiedTokens.get(cacheKey);
+                if (cached != null && cached.isExpired()) {
+                    verifiedTokens.remove(cacheKey);
+                    cached = null;
+                }
+            }
+            if (cached != null) {
+                cacheHits.incrementAndGet();
+                event.cached = true;
+                return cached;
+            }
+            cacheMisses.incrementAndGet();
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Object epoch = claims.get("epoch");
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.get("role", String.class),
+                epoch instanceof Number n ? n.longValue() : 0L, claims.getExpiration());
+        if (cacheKey != null) {
+            synchronized (verifiedTokens) {
+                verifiedTokens.put(cacheKey, verified);
+            }
+        }
+        return verified;
+    }
+
+    public Map<String, Object> getVerifiedCacheStats() {
+        long h = cacheHits.get();
+        long m = cacheMisses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (verifiedTokens) {
+            stats.put("size", verifiedTokens.size());
+        }
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -57,6 +169,9 @@ public class JwtService {
                         .map(GrantedAuthority::getAuthority)
                         .collect(Collectors.joining(","));
         extraClaims.put("role", roles);
+        if (userDetails instanceof User user) {
+            extraClaims.put("epoch", user.getTokenEpoch());
+        }
 
         Key signingKey = getSigningKey();
         if (signingKey == null) {
@@ -76,15 +191,7 @@ public class JwtService {
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            boolean isValid = (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-            if (!isValid) {
-                 logger.warn("Token validation failed for user '{}'. Username match: {}, Not expired: {}",
-                        userDetails.getUsername(),
-                        username.equals(userDetails.getUsername()),
-                        !isTokenExpired(token));
-            }
-             return isValid;
+            return isTokenValid(verify(token), userDetails);
         } catch (SignatureException e) {
              logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -101,50 +208,52 @@ public class JwtService {
         return false;
     }
 
-    // --- Helper Methods ---
-
-    private boolean isTokenExpired(String token) {
-         try {
-             return extractExpiration(token).before(new Date());
-         } catch (ExpiredJwtException e) {
-             return true;
-         } catch (Exception e) {
-             logger.error("Could not determine token expiration: {}", e.getMessage());
-             return true;
-         }
+    /**
+     * Same check as isTokenValid(String, UserDetails) on a token that was already verified,
+     * so the filter does not parse it again.
+     */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        boolean usernameMatches = token.username() != null && token.username().equals(userDetails.getUsername());
+        boolean isValid = usernameMatches && !token.isExpired();
+        if (!isValid) {
+             logger.warn("Token validation failed for user '{}'. Username match: {}, Not expired: {}",
+                    userDetails.getUsername(), usernameMatches, !token.isExpired());
+        }
+        return isValid;
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    // --- Helper Methods ---
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
     }
 
     /**
      * Parses the JWT token and extracts all claims.
      */
     private Claims extractAllClaims(String token) {
-         Key signingKey = getSigningKey();
-         if (signingKey == null) {
-             logger.error("Signing key is null during claim extraction!");
-             throw new IllegalArgumentException("JWT Signing Key configuration error.");
-         }
-
-         // --- USE ALTERNATIVE PARSING METHOD ---
-         // Use Jwts.parser() which is less likely to have symbol issues
-         // Note: setSigningKey might be deprecated but works. The modern way is verifyWith(key).
-         return Jwts.parser()
-                 .setSigningKey(signingKey) // Use the derived key
-                 .build() // Build the parser
-                 .parseClaimsJws(token) // Parse and verify signature
-                 .getBody();
-         // --- END ALTERNATIVE PARSING METHOD ---
+         // The parser (and its key) is built once in init()
+         return parser.parseSignedClaims(token).getPayload();
     }
 
 
     /**
      * Gets the signing key used for JWT validation and generation.
-     * Accepts any string and automatically converts it to a secure 32-byte key.
      */
     private Key getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Derives the signing key from jwt.secret; called once from init().
+     * Accepts any string and automatically converts it to a secure 32-byte key.
+     */
+    private SecretKey deriveSigningKey() {
         if (secretKeyString == null || secretKeyString.isEmpty()) {
              logger.error("FATAL: JWT Secret Key (jwt.secret) is not configured!");
              throw new IllegalArgumentException("JWT Secret Key is missing. Please set JWT_SECRET environment variable.");
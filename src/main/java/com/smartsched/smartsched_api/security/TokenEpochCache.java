@@ -0,0 +1,91 @@
+package com.smartsched.smartsched_api.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.repository.UserRepository;
+
+/**
+ * Current token epoch and enabled flag per username, for the claims-only auth mode.
+ * A token carries the epoch its user had at login; bumping the stored epoch revokes every token
+ * issued before, and tokens of disabled or deleted users are rejected whatever their epoch.
+ * Each user is read from MongoDB at most once per TTL instead of once per request. Changes made
+ * through UserService on this node apply immediately; changes made on another node are picked up
+ * when the entry expires.
+ */
+@Component
+public class TokenEpochCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenEpochCache.class);
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+
+    // One entry per user that has presented a token (bounded by the users collection)
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    private record Entry(long epoch, boolean active, long loadedAtNanos) {}
+
+    public TokenEpochCache(UserRepository userRepository,
+                           @Value("${jwt.epoch-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlNanos = Math.max(0, ttlSeconds) * 1_000_000_000L;
+    }
+
+    /**
+     * True if the user still exists, is enabled, and the token was issued at its current epoch.
+     */
+    public boolean isCurrent(String username, long tokenEpoch) {
+        Entry entry = entries.get(username);
+        if (entry == null || System.nanoTime() - entry.loadedAtNanos() > ttlNanos) {
+            entry = load(username);
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry.active() && entry.epoch() == tokenEpoch;
+    }
+
+    /**
+     * Records a user's new state after it was saved, so this node stops accepting old tokens at once.
+     */
+    public void update(User user) {
+        entries.put(user.getUsername(), new Entry(user.getTokenEpoch(), user.isEnabled(), System.nanoTime()));
+    }
+
+    /**
+     * Marks a deleted user as inactive; the entry is reloaded (and found missing) after the TTL.
+     */
+    public void revoke(String username) {
+        entries.put(username, new Entry(Long.MIN_VALUE, false, System.nanoTime()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        return stats;
+    }
+
+    private Entry load(String username) {
+        loads.incrementAndGet();
+        Entry entry = userRepository.findByUsername(username)
+                .map(user -> new Entry(user.getTokenEpoch(), user.isEnabled(), System.nanoTime()))
+                .orElseGet(() -> new Entry(Long.MIN_VALUE, false, System.nanoTime()));
+        if (!entry.active()) {
+            logger.debug("Token epoch lookup: user '{}' is missing or disabled.", username);
+        }
+        entries.put(username, entry);
+        return entry;
+    }
+}
@@ -0,0 +1,221 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Exports many sections in one request: either a ZIP with one workbook per section, or one
+ * workbook with a sheet per section. Schedules are loaded with a single query and names come
+ * from the reference-data cache, so the per-section lookups of the single export are not repeated.
+ *
+ * ZIP mode renders sections in parallel on a small fixed pool but writes entries in order,
+ * with at most WINDOW_PER_THREAD rendered files per thread waiting; the first entry is sent as
+ * soon as it is ready. Sheets mode has to build one workbook, so it renders sequentially
+ * (with .xlsx the SXSSF row window still keeps memory bounded).
+ */
+@Service
+public class BulkExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkExportService.class);
+    private static final int WINDOW_PER_THREAD = 2;
+
+    public enum Layout {
+        ZIP, SHEETS;
+
+        public static Layout fromParam(String value) {
+            if (value == null || value.isBlank()) return ZIP;
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported layout: " + value + " (use zip or sheets)");
+            }
+        }
+    }
+
+    /**
+     * A validated bulk export, ready to be written. Sections without schedules are already dropped.
+     */
+    public record BulkExport(List<ExcelExportService.SectionSheet> sections, ExportFormat format, Layout layout) {
+
+        public String filename() {
+            return layout == Layout.ZIP ? "Schedules.zip" : "Schedules." + format.getExtension();
+        }
+
+        public String contentType() {
+            return layout == Layout.ZIP ? "application/zip" : format.getContentType();
+        }
+    }
+
+    private final ScheduleRepository scheduleRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final ExcelExportService excelExportService;
+    private final ChangeVersions changeVersions;
+    private final ExecutorService renderPool;
+    private final int threads;
+
+    public BulkExportService(ScheduleRepository scheduleRepository, ReferenceDataCache referenceDataCache,
+                             ExcelExportService excelExportService, ChangeVersions changeVersions,
+                             @Value("${smartsched.export.bulk.threads:4}") int threads) {
+        this.scheduleRepository = scheduleRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.excelExportService = excelExportService;
+        this.changeVersions = changeVersions;
+        this.threads = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resolves the sections (explicit ids win over program/yearLevel), loads all their schedules
+     * in one query and sorts each section. Throws IllegalArgumentException on a bad selection
+     * or a non-spreadsheet format, before the response is started.
+     */
+    public BulkExport prepare(List<String> sectionIds, String program, Integer yearLevel,
+                              ExportFormat format, Layout layout) {
+        if (!format.isSpreadsheet()) {
+            throw new IllegalArgumentException("Bulk export supports format=xls or format=xlsx only.");
+        }
+        List<String> ids = resolveSectionIds(sectionIds, program, yearLevel);
+        // Cache versions are taken before the read, like ExcelExportService.loadSection
+        Map<String, String> versions = new LinkedHashMap<>();
+        ids.forEach(id -> versions.put(id, changeVersions.sectionExportTag(id)));
+
+        Map<String, List<Schedule>> bySection = new LinkedHashMap<>();
+        ids.forEach(id -> bySection.put(id, new ArrayList<>()));
+        for (Schedule schedule : scheduleRepository.findAllBySectionIdIn(ids)) {
+            List<Schedule> sectionSchedules = bySection.get(schedule.getSectionId());
+            if (sectionSchedules != null) sectionSchedules.add(schedule);
+        }
+
+        List<ExcelExportService.SectionSheet> sections = new ArrayList<>();
+        bySection.forEach((id, schedules) -> {
+            if (schedules.isEmpty()) {
+                logger.warn("Bulk export: no schedules for section {}, skipped.", id);
+            } else {
+                sections.add(excelExportService.toSectionSheet(id, schedules, versions.get(id)));
+            }
+        });
+        if (sections.isEmpty()) {
+            throw new IllegalArgumentException("No schedules found for the selected sections.");
+        }
+        return new BulkExport(sections, format, layout);
+    }
+
+    public void write(BulkExport export, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        if (export.layout() == Layout.SHEETS) {
+            excelExportService.writeSectionsAsSheets(export.sections(), export.format(), out);
+        } else {
+            writeZip(export, out);
+        }
+        logger.info("Bulk export of {} sections ({}, {}) finished in {} ms", export.sections().size(),
+                export.layout(), export.format(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void writeZip(BulkExport export, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        Deque<String> entryNames = new ArrayDeque<>();
+        Set<String> usedNames = new HashSet<>();
+        Iterator<ExcelExportService.SectionSheet> pending = export.sections().iterator();
+        int window = threads * WINDOW_PER_THREAD;
+
+        try {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                // Keep the pool busy, but never hold more than `window` rendered files
+                while (inFlight.size() < window && pending.hasNext()) {
+                    ExcelExportService.SectionSheet section = pending.next();
+                    entryNames.add(uniqueEntryName(
+                            excelExportService.getExcelFilename(section.sectionId(), export.format()), usedNames));
+                    inFlight.add(renderPool.submit(() -> excelExportService.renderScheduleExcelCached(section, export.format())));
+                }
+                // Entries go out in request order, each as soon as it is rendered
+                byte[] file = await(inFlight.poll());
+                zip.putNextEntry(new ZipEntry(entryNames.poll()));
+                zip.write(file);
+                zip.closeEntry();
+                zip.flush();
+            }
+            zip.finish();
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private List<String> resolveSectionIds(List<String> sectionIds, String program, Integer yearLevel) {
+        if (sectionIds != null && !sectionIds.isEmpty()) {
+            List<String> ids = sectionIds.stream().map(String::trim).filter(id -> !id.isEmpty()).distinct().toList();
+            if (ids.isEmpty()) throw new IllegalArgumentException("sectionIds is empty.");
+            return ids;
+        }
+        if ((program == null || program.isBlank()) && yearLevel == null) {
+            throw new IllegalArgumentException("Provide sectionIds, or program and/or yearLevel.");
+        }
+        List<String> ids = new ArrayList<>();
+        for (Section section : referenceDataCache.getSections()) {
+            boolean programMatches = program == null || program.isBlank() || program.trim().equalsIgnoreCase(section.getProgram());
+            boolean yearMatches = yearLevel == null || yearLevel == section.getYearLevel();
+            if (programMatches && yearMatches) ids.add(section.getId());
+        }
+        if (ids.isEmpty()) throw new IllegalArgumentException("No sections match the given program/yearLevel.");
+        return ids;
+    }
+
+    private static String uniqueEntryName(String filename, Set<String> usedNames) {
+        String name = filename;
+        int dot = filename.lastIndexOf('.');
+        for (int n = 2; !usedNames.add(name); n++) {
+            name = filename.substring(0, dot) + "_" + n + filename.substring(dot);
+        }
+        return name;
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Bulk export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("Failed to render section: " + cause.getMessage(), cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+}
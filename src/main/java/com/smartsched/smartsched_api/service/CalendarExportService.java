@@ -0,0 +1,256 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleTimes;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+
+/**
+ * CSV and iCalendar exports of one section, teacher or classroom.
+ * Nothing is built in memory: schedules are read with one cursor per weekday (sorted by
+ * startMinute on the compound indexes, so rows come out in timetable order) and each row or
+ * VEVENT is written to the response as it is read.
+ */
+@Service
+public class CalendarExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarExportService.class);
+
+    private static final List<DayOfWeek> DAYS_ORDER = List.of(
+            DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+            DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY
+    );
+    private static final DateTimeFormatter ICS_LOCAL = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter ICS_UTC = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Whose timetable is exported. field is the Schedule property the view filters on.
+     */
+    public enum View {
+        SECTION("sectionId"), TEACHER("teacherId"), CLASSROOM("classroomId");
+
+        private final String field;
+
+        View(String field) { this.field = field; }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+
+    public CalendarExportService(MongoTemplate mongoTemplate, ReferenceDataCache referenceDataCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    /**
+     * Display name of the exported section/teacher/classroom. Throws IllegalArgumentException
+     * ("... not found") for an unknown id, so callers can check before writing anything.
+     */
+    public String label(View view, String id) {
+        return switch (view) {
+            case SECTION -> referenceDataCache.findSection(id)
+                    .map(s -> String.format("%s %d-%s", s.getProgram(), s.getYearLevel(), s.getSectionName()))
+                    .orElseThrow(() -> new IllegalArgumentException("Section not found: " + id));
+            case TEACHER -> referenceDataCache.findTeacher(id).map(Teacher::getName)
+                    .orElseThrow(() -> new IllegalArgumentException("Teacher not found: " + id));
+            case CLASSROOM -> referenceDataCache.findClassroom(id).map(Classroom::getName)
+                    .orElseThrow(() -> new IllegalArgumentException("Classroom not found: " + id));
+        };
+    }
+
+    public String filename(View view, String id, ExportFormat format) {
+        String safe = label(view, id).replaceAll("[^a-zA-Z0-9\\-_]", "_");
+        return String.format("Schedule_%s.%s", safe, format.getExtension());
+    }
+
+    /**
+     * Writes the timetable as CSV or iCalendar. For ICS, each schedule becomes a weekly
+     * recurring event starting on its first weekday on or after firstDay, ending at lastDay if given.
+     * Times are floating (no time zone), so calendar apps show them as local wall-clock times.
+     */
+    public void write(View view, String id, ExportFormat format, LocalDate firstDay, LocalDate lastDay,
+                      OutputStream out) throws IOException {
+        if (format != ExportFormat.CSV && format != ExportFormat.ICS) {
+            throw new IllegalArgumentException("Unsupported format for this export: " + format);
+        }
+        String label = label(view, id);
+        Names names = new Names(referenceDataCache.getTeacherMap(), referenceDataCache.getClassroomMap(),
+                referenceDataCache.getSectionMap());
+
+        // The writer buffers; the servlet stream is flushed but never closed here
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count;
+        if (format == ExportFormat.CSV) {
+            writer.write("Day,Start,End,Subject Code,Subject Name,Teacher,Classroom,Section" + CRLF);
+            count = forEachSchedule(view, id, schedule -> writeCsvRow(writer, schedule, names));
+        } else {
+            String stamp = LocalDateTime.now(ZoneOffset.UTC).format(ICS_UTC);
+            writeLine(writer, "BEGIN:VCALENDAR");
+            writeLine(writer, "VERSION:2.0");
+            writeLine(writer, "PRODID:-//SmartSched//Schedule Export//EN");
+            writeLine(writer, "CALSCALE:GREGORIAN");
+            writeLine(writer, "X-WR-CALNAME:" + escapeText(label));
+            count = forEachSchedule(view, id, schedule -> writeEvent(writer, schedule, names, stamp, firstDay, lastDay));
+            writeLine(writer, "END:VCALENDAR");
+        }
+        writer.flush();
+        logger.info("Exported {} schedules of {} {} as {}", count, view, id, format);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Schedule schedule) throws IOException;
+    }
+
+    private long forEachSchedule(View view, String id, RowWriter rowWriter) throws IOException {
+        long count = 0;
+        for (DayOfWeek day : DAYS_ORDER) {
+            Query query = new Query(Criteria.where(view.field).is(id).and("dayOfWeek").is(day))
+                    .with(Sort.by(Sort.Direction.ASC, "startMinute"));
+            try (Stream<Schedule> schedules = mongoTemplate.stream(query, Schedule.class)) {
+                Iterator<Schedule> cursor = schedules.iterator();
+                while (cursor.hasNext()) {
+                    rowWriter.write(cursor.next());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // --- CSV ---
+
+    private void writeCsvRow(Writer writer, Schedule schedule, Names names) throws IOException {
+        writer.write(String.join(",",
+                csv(String.valueOf(schedule.getDayOfWeek())),
+                csv(schedule.getStartTime()),
+                csv(schedule.getEndTime()),
+                csv(schedule.getSubjectCode()),
+                csv(schedule.getSubjectName()),
+                csv(names.teacher(schedule)),
+                csv(names.classroom(schedule)),
+                csv(names.section(schedule))));
+        writer.write(CRLF);
+    }
+
+    // RFC 4180: quote when needed, double embedded quotes
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // --- iCalendar ---
+
+    private void writeEvent(Writer writer, Schedule schedule, Names names, String stamp,
+                            LocalDate firstDay, LocalDate lastDay) throws IOException {
+        int start = ScheduleTimes.startMinuteOf(schedule);
+        int end = ScheduleTimes.endMinuteOf(schedule);
+        if (schedule.getDayOfWeek() == null || start < 0 || end < 0) {
+            logger.warn("Skipping schedule {} in calendar export: no usable day/time", schedule.getId());
+            return;
+        }
+        LocalDate date = firstDay.with(TemporalAdjusters.nextOrSame(schedule.getDayOfWeek()));
+        LocalDateTime dtStart = date.atTime(ScheduleTimes.toLocalTime(start));
+        LocalDateTime dtEnd = dtStart.plusMinutes(ScheduleTimes.duration(start, end));
+
+        String rrule = "RRULE:FREQ=WEEKLY;BYDAY=" + schedule.getDayOfWeek().name().substring(0, 2);
+        if (lastDay != null) {
+            rrule += ";UNTIL=" + lastDay.atTime(23, 59, 59).format(ICS_LOCAL);
+        }
+
+        writeLine(writer, "BEGIN:VEVENT");
+        writeLine(writer, "UID:" + schedule.getId() + "@smartsched");
+        writeLine(writer, "DTSTAMP:" + stamp);
+        writeLine(writer, "DTSTART:" + dtStart.format(ICS_LOCAL));
+        writeLine(writer, "DTEND:" + dtEnd.format(ICS_LOCAL));
+        writeLine(writer, rrule);
+        writeLine(writer, "SUMMARY:" + escapeText(schedule.getSubjectCode() + " - " + schedule.getSubjectName()));
+        writeLine(writer, "LOCATION:" + escapeText(names.classroom(schedule)));
+        writeLine(writer, "DESCRIPTION:" + escapeText("Teacher: " + names.teacher(schedule)
+                + "\nSection: " + names.section(schedule)));
+        writeLine(writer, "END:VEVENT");
+    }
+
+    // RFC 5545 TEXT escaping
+    private static String escapeText(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                .replace("\r\n", "\\n").replace("\n", "\\n");
+    }
+
+    // RFC 5545 lines are folded at 75 octets with CRLF + space
+    private static void writeLine(Writer writer, String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= 75) {
+            writer.write(line);
+            writer.write(CRLF);
+            return;
+        }
+        int octets = 0;
+        int limit = 75;
+        StringBuilder folded = new StringBuilder(line.length() + 8);
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int width = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            if (octets + width > limit) {
+                folded.append(CRLF).append(' ');
+                octets = 0;
+                limit = 74; // Continuation lines start with the space
+            }
+            folded.appendCodePoint(codePoint);
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        writer.write(folded.toString());
+        writer.write(CRLF);
+    }
+
+    /**
+     * Name lookups from one snapshot of the reference-data cache, taken once per export.
+     */
+    private record Names(Map<String, Teacher> teachers, Map<String, Classroom> classrooms,
+                         Map<String, Section> sections) {
+
+        String teacher(Schedule s) { return nameOrDefault(teachers.get(s.getTeacherId()), Teacher::getName); }
+        String classroom(Schedule s) { return nameOrDefault(classrooms.get(s.getClassroomId()), Classroom::getName); }
+        String section(Schedule s) {
+            return nameOrDefault(sections.get(s.getSectionId()),
+                    sec -> String.format("%s %d-%s", sec.getProgram(), sec.getYearLevel(), sec.getSectionName()));
+        }
+
+        private static <T> String nameOrDefault(T entity, Function<T, String> nameOf) {
+            return entity != null && nameOf.apply(entity) != null ? nameOf.apply(entity) : "N/A";
+        }
+    }
+}
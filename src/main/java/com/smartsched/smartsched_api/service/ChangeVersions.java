@@ -0,0 +1,88 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Monotonic change counters behind the ETags of the read endpoints.
+ * Teachers, classrooms and sections reuse the ReferenceDataCache versions, which every
+ * service write bumps. Schedules keep a global counter plus one per section; writes that
+ * touch schedules of unknown sections (deletes by problemId, cascades) bump every tag.
+ *
+ * Counters live in memory, so each tag carries a per-boot id: after a restart no old tag
+ * can match. Tags must be computed before the data is read, never after.
+ */
+@Component
+public class ChangeVersions {
+
+    private final String bootId = UUID.randomUUID().toString().substring(0, 8);
+    private final ReferenceDataCache referenceDataCache;
+
+    private final AtomicLong schedules = new AtomicLong();
+    private final AtomicLong allSections = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> bySection = new ConcurrentHashMap<>();
+
+    // Told the section id after a bump, or null when every section changed
+    private final List<Consumer<String>> scheduleChangeListeners = new CopyOnWriteArrayList<>();
+
+    public ChangeVersions(ReferenceDataCache referenceDataCache) {
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    // --- Bumped by writers ---
+
+    /** The schedules of one section were replaced (saveSolution). */
+    public void sectionSchedulesChanged(String sectionId) {
+        bySection.computeIfAbsent(sectionId, k -> new AtomicLong()).incrementAndGet();
+        schedules.incrementAndGet();
+        scheduleChangeListeners.forEach(listener -> listener.accept(sectionId));
+    }
+
+    /** Schedules changed somewhere, sections unknown. Invalidates every schedule tag. */
+    public void schedulesChanged() {
+        allSections.incrementAndGet();
+        schedules.incrementAndGet();
+        scheduleChangeListeners.forEach(listener -> listener.accept(null));
+    }
+
+    public void addScheduleChangeListener(Consumer<String> listener) {
+        scheduleChangeListeners.add(listener);
+    }
+
+    // --- Strong ETags (quoted, ready for the ETag header) ---
+
+    public String teachersTag() { return tag("t", referenceDataCache.getTeachersVersion()); }
+    public String classroomsTag() { return tag("c", referenceDataCache.getClassroomsVersion()); }
+    public String sectionsTag() { return tag("s", referenceDataCache.getSectionsVersion()); }
+    public String schedulesTag() { return tag("a", schedules.get()); }
+
+    public String sectionSchedulesTag(String sectionId) {
+        return tag("ss", allSections.get() + "." + sectionVersion(sectionId));
+    }
+
+    /**
+     * Section export: its own schedules plus the names pulled from teachers, classrooms and
+     * sections. Uses the labels version, so saving another section (which only rewrites the
+     * scheduleIds back-references) leaves this tag, and the cached file, alone.
+     */
+    public String sectionExportTag(String sectionId) {
+        return tag("x", allSections.get() + "." + sectionVersion(sectionId)
+                + "." + referenceDataCache.getLabelsVersion());
+    }
+
+    private long sectionVersion(String sectionId) {
+        AtomicLong version = bySection.get(sectionId);
+        return version == null ? 0 : version.get();
+    }
+
+    private String tag(String kind, Object version) {
+        return "\"" + kind + "-" + bootId + "-" + version + "\"";
+    }
+}
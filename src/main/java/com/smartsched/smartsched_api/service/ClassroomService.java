@@ -3,45 +3,60 @@ package com.smartsched.smartsched_api.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.smartsched.smartsched_api.model.Classroom;
 import com.smartsched.smartsched_api.model.Schedule;
 import com.smartsched.smartsched_api.repository.ClassroomRepository;
-import com.smartsched.smartsched_api.repository.ScheduleRepository;
 
 @Service
 public class ClassroomService {
 
     private final ClassroomRepository classroomRepository;
-    private final ScheduleRepository scheduleRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ChangeVersions changeVersions;
 
-    public ClassroomService(ClassroomRepository classroomRepository, ScheduleRepository scheduleRepository) {
+    public ClassroomService(ClassroomRepository classroomRepository, MongoTemplate mongoTemplate,
+                            ReferenceDataCache referenceDataCache, ChangeVersions changeVersions) {
         this.classroomRepository = classroomRepository;
-        this.scheduleRepository = scheduleRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
     }
 
+    // Reads are served from the reference-data cache; writes below keep it in sync.
     public List<Classroom> getAllClassrooms() {
-        return classroomRepository.findAll();
+        return referenceDataCache.getClassrooms();
     }
 
     public Optional<Classroom> getClassroomById(String id) {
-        return classroomRepository.findById(id);
+        return referenceDataCache.findClassroom(id);
     }
 
     public Classroom createClassroom(Classroom classroom) {
-        return classroomRepository.save(classroom);
+        Classroom saved = classroomRepository.save(classroom);
+        referenceDataCache.putClassroom(saved);
+        return saved;
     }
 
     // --- FIX: "Unsafe Update" Bug ---
     public Optional<Classroom> updateClassroom(String id, Classroom classroomDetails) {
-        return classroomRepository.findById(id).map(existingClassroom -> {
-            existingClassroom.setName(classroomDetails.getName());
-            existingClassroom.setCapacity(classroomDetails.getCapacity());
-            existingClassroom.setType(classroomDetails.getType());
-            // We DO NOT touch existingClassroom.scheduleIds
-            return classroomRepository.save(existingClassroom);
-        });
+        // Only the user-editable fields are $set; the document is never re-saved whole,
+        // so scheduleIds written concurrently by saveSolution cannot be overwritten.
+        Update update = new Update()
+                .set("name", classroomDetails.getName())
+                .set("capacity", classroomDetails.getCapacity())
+                .set("type", classroomDetails.getType());
+        Classroom updated = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Classroom.class);
+        if (updated != null) referenceDataCache.putClassroom(updated);
+        return Optional.ofNullable(updated);
     }
 
     // --- FIX: "Orphaned Schedule" Bug ---
@@ -51,15 +66,14 @@ public class ClassroomService {
         }
 
         // Step 1: Update linked schedules
-        // The error on the line below will be fixed when you update ScheduleRepository.java
-        List<Schedule> schedules = scheduleRepository.findAllByClassroomId(id);
-        for (Schedule schedule : schedules) {
-            schedule.setClassroomId(null); // Set to null
-        }
-        scheduleRepository.saveAll(schedules);
+        // One atomic multi-update instead of loading and re-saving every schedule
+        mongoTemplate.updateMulti(new Query(Criteria.where("classroomId").is(id)),
+                new Update().unset("classroomId"), Schedule.class);
+        changeVersions.schedulesChanged();
 
         // Step 2: Delete classroom
         classroomRepository.deleteById(id);
+        referenceDataCache.removeClassroom(id);
         return true;
     }
 }
@@ -0,0 +1,130 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.dto.ConstraintProfileReport;
+import com.smartsched.smartsched_api.solver.ConstraintProfiler;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.analysis.ConstraintAnalysis;
+import ai.timefold.solver.core.api.score.analysis.ScoreAnalysis;
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.ScoreAnalysisFetchPolicy;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolutionUpdatePolicy;
+
+/**
+ * Per-job constraint profiling (smartsched.solver.profiling.enabled). When on, every solve job
+ * records how often each constraint's filters and penalty/reward weighers run and how long they
+ * take; when the job finishes, the final solution's match count per constraint is added. The
+ * reports of the last smartsched.solver.profiling.retained-jobs jobs are kept in memory.
+ *
+ * Profiling adds two nanoTime() calls to every lambda invocation, so leave it off in production
+ * unless a slow solve is being investigated.
+ */
+@Service
+public class ConstraintProfilingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConstraintProfilingService.class);
+
+    private static final class Run {
+        final ConstraintProfiler.JobProfile profile;
+        final long startedAtNanos = System.nanoTime();
+        volatile long finishedAtNanos;
+        volatile Map<String, ConstraintProfileReport.Matches> matches = Map.of();
+
+        Run(ConstraintProfiler.JobProfile profile) {
+            this.profile = profile;
+        }
+    }
+
+    private final SolutionManager<ScheduleSolution, HardSoftScore> solutionManager;
+    private final int retainedJobs;
+
+    // Insertion-ordered, oldest job first. Guarded by this.
+    private final LinkedHashMap<String, Run> runs = new LinkedHashMap<>();
+
+    public ConstraintProfilingService(SolutionManager<ScheduleSolution, HardSoftScore> solutionManager,
+                                      @Value("${smartsched.solver.profiling.enabled:false}") boolean enabled,
+                                      @Value("${smartsched.solver.profiling.retained-jobs:50}") int retainedJobs) {
+        this.solutionManager = solutionManager;
+        this.retainedJobs = Math.max(1, retainedJobs);
+        ConstraintProfiler.setEnabled(enabled);
+        if (enabled) logger.info("Constraint profiling enabled; keeping reports of the last {} jobs.", this.retainedJobs);
+    }
+
+    public boolean isEnabled() {
+        return ConstraintProfiler.isEnabled();
+    }
+
+    /**
+     * Must run on the solver thread of the job, before solving starts (the problem finder does).
+     * The binding ends in jobFinished.
+     */
+    public void jobStarted(String problemId) {
+        ConstraintProfiler.JobProfile profile = ConstraintProfiler.bind();
+        if (profile == null) return;
+        synchronized (this) {
+            runs.put(problemId, new Run(profile));
+            Iterator<String> eldest = runs.keySet().iterator();
+            while (runs.size() > retainedJobs) {
+                runs.get(eldest.next()).profile.finish();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Ends the job's profile. Timefold calls this on the solver thread when the job fails (which
+     * drops the binding here) and on its consumer thread when it succeeds (the solver thread then
+     * drops its binding at its next probe). The score analysis below must not be counted either.
+     */
+    public void jobFinished(String problemId, ScheduleSolution finalSolution) {
+        ConstraintProfiler.unbind();
+        Run run;
+        synchronized (this) {
+            run = runs.get(problemId);
+        }
+        if (run == null) return;
+        run.profile.finish();
+        run.finishedAtNanos = System.nanoTime();
+        if (finalSolution == null) return;
+        try {
+            run.matches = matchesOf(solutionManager.analyze(finalSolution,
+                    ScoreAnalysisFetchPolicy.FETCH_MATCH_COUNT, SolutionUpdatePolicy.NO_UPDATE));
+        } catch (RuntimeException e) {
+            logger.warn("Could not analyze the final solution of problemId {}: {}", problemId, e.getMessage());
+        }
+    }
+
+    public Optional<ConstraintProfileReport> report(String problemId) {
+        Run run;
+        synchronized (this) {
+            run = runs.get(problemId);
+        }
+        if (run == null) return Optional.empty();
+        long finishedAt = run.finishedAtNanos;
+        boolean finished = finishedAt != 0;
+        long solveMillis = ((finished ? finishedAt : System.nanoTime()) - run.startedAtNanos) / 1_000_000;
+        return Optional.of(ConstraintProfileReport.of(problemId, finished, solveMillis,
+                run.profile.snapshot(), run.matches));
+    }
+
+    public static Map<String, ConstraintProfileReport.Matches> matchesOf(ScoreAnalysis<HardSoftScore> analysis) {
+        Map<String, ConstraintProfileReport.Matches> matches = new HashMap<>();
+        for (ConstraintAnalysis<HardSoftScore> constraint : analysis.constraintAnalyses()) {
+            matches.put(constraint.constraintName(),
+                    new ConstraintProfileReport.Matches(constraint.matchCount(), constraint.score().toString()));
+        }
+        return matches;
+    }
+}
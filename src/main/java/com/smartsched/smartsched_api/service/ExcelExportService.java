@@ -3,15 +3,16 @@ package com.smartsched.smartsched_api.service;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.DayOfWeek;
-import java.util.Comparator;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.BorderStyle;
@@ -25,18 +26,19 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.smartsched.smartsched_api.jfr.ExcelExportEvent;
 import com.smartsched.smartsched_api.model.Classroom;
 import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleTimes;
 import com.smartsched.smartsched_api.model.Section;
 import com.smartsched.smartsched_api.model.Teacher;
-import com.smartsched.smartsched_api.repository.ClassroomRepository;
 import com.smartsched.smartsched_api.repository.ScheduleRepository;
-import com.smartsched.smartsched_api.repository.SectionRepository;
-import com.smartsched.smartsched_api.repository.TeacherRepository;
 
 @Service
 public class ExcelExportService {
@@ -44,166 +46,332 @@ public class ExcelExportService {
     private static final Logger logger = LoggerFactory.getLogger(ExcelExportService.class);
 
     private final ScheduleRepository scheduleRepository;
-    private final TeacherRepository teacherRepository;
-    private final ClassroomRepository classroomRepository;
-    private final SectionRepository sectionRepository; // Added for filename generation
+    private final ReferenceDataCache referenceDataCache; // Teachers, classrooms and sections (names, filename)
+    private final ChangeVersions changeVersions;
+    private final ExportCache exportCache; // Rendered files, reused until the section changes
 
     // Define the desired order of days
     private static final List<DayOfWeek> DAYS_ORDER = List.of(
             DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
             DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY
     );
+    private static final int MINUTES_PER_DAY = 24 * 60;
 
-    public ExcelExportService(ScheduleRepository scheduleRepository, TeacherRepository teacherRepository,
-                              ClassroomRepository classroomRepository, SectionRepository sectionRepository) {
+    // Rows SXSSF keeps in memory before flushing to its temp file
+    private static final int ROW_WINDOW = 100;
+
+    public ExcelExportService(ScheduleRepository scheduleRepository, ReferenceDataCache referenceDataCache,
+                              ChangeVersions changeVersions, ExportCache exportCache) {
         this.scheduleRepository = scheduleRepository;
-        this.teacherRepository = teacherRepository;
-        this.classroomRepository = classroomRepository;
-        this.sectionRepository = sectionRepository; // Inject SectionRepository
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
+        this.exportCache = exportCache;
     }
 
-    public String getExcelFilename(String sectionId) {
+    public String getExcelFilename(String sectionId, ExportFormat format) {
         // Try to find the section to make the filename more descriptive
-        Optional<Section> sectionOpt = sectionRepository.findById(sectionId);
+        Optional<Section> sectionOpt = referenceDataCache.findSection(sectionId);
         if (sectionOpt.isPresent()) {
             Section section = sectionOpt.get();
             // Sanitize program, year, section name for filename
             String program = section.getProgram().replaceAll("[^a-zA-Z0-9\\-_]", ""); // Allow underscore and hyphen
             String year = String.valueOf(section.getYearLevel());
             String name = section.getSectionName().replaceAll("[^a-zA-Z0-9\\-_]", "");
-            return String.format("Schedule_%s_%s-%s.xls", program, year, name); // Use hyphen
+            return String.format("Schedule_%s_%s-%s.%s", program, year, name, format.getExtension()); // Use hyphen
         } else {
             // Fallback filename if section not found
             logger.warn("Section with ID {} not found when generating filename. Using default.", sectionId);
             // Sanitize sectionId as well
             String safeSectionId = sectionId.replaceAll("[^a-zA-Z0-9\\-_]", "");
-            return String.format("Schedule_Section_%s.xls", safeSectionId);
+            return String.format("Schedule_Section_%s.%s", safeSectionId, format.getExtension());
         }
     }
 
-
-    public ByteArrayInputStream generateScheduleExcel(String sectionId) throws IOException {
-        logger.info("Generating Excel schedule for section ID: {}", sectionId);
-
+    /**
+     * One section's rows, already sorted for output, plus its title line. version is the
+     * ChangeVersions export tag taken before the rows were read; it keys the export cache.
+     */
+    public record SectionSheet(String sectionId, String title, List<Schedule> rows, String version) {}
+
+    /**
+     * Loads and sorts a section's schedules. Throws IllegalArgumentException if there are none,
+     * before anything has been written to the response.
+     */
+    public SectionSheet loadSection(String sectionId) {
+        String version = changeVersions.sectionExportTag(sectionId); // Before the read, never after
         List<Schedule> schedules = scheduleRepository.findAllBySectionId(sectionId);
         if (schedules.isEmpty()) {
             logger.warn("No schedules found for section ID: {}", sectionId);
-            // Consider throwing an exception or returning an empty Excel file
-             throw new IllegalArgumentException("No schedules found for section ID: " + sectionId);
-           // return createEmptyExcel("No Schedule Found"); // Alternative: return empty file
+            throw new IllegalArgumentException("No schedules found for section ID: " + sectionId);
         }
+        return toSectionSheet(sectionId, schedules, version);
+    }
 
-        // Fetch related data efficiently
-        Set<String> teacherIds = schedules.stream().map(Schedule::getTeacherId).filter(Objects::nonNull).collect(Collectors.toSet());
-        Set<String> classroomIds = schedules.stream().map(Schedule::getClassroomId).filter(Objects::nonNull).collect(Collectors.toSet());
-
-        Map<String, String> teacherMap = teacherRepository.findAllById(teacherIds).stream()
-                .collect(Collectors.toMap(Teacher::getId, Teacher::getName));
-        Map<String, String> classroomMap = classroomRepository.findAllById(classroomIds).stream()
-                .collect(Collectors.toMap(Classroom::getId, Classroom::getName));
-
+    /**
+     * Builds a SectionSheet from schedules that were already loaded (bulk export loads them in one query).
+     */
+    public SectionSheet toSectionSheet(String sectionId, List<Schedule> schedules, String version) {
         // Get Section Info for Header
-        Optional<Section> sectionOpt = sectionRepository.findById(sectionId);
-        String sectionHeader = sectionOpt
+        String sectionHeader = referenceDataCache.findSection(sectionId)
                 .map(s -> String.format("%s %d-%s Schedule", s.getProgram(), s.getYearLevel(), s.getSectionName()))
                 .orElse("Schedule for Section " + sectionId);
+        return new SectionSheet(sectionId, sectionHeader, sortForOutput(schedules), version);
+    }
 
-
-        try (Workbook workbook = new HSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Schedule");
-            sheet.setDefaultColumnWidth(20); // Set a default column width
-
-            // --- Create Styles ---
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle boldStyle = createBoldStyle(workbook);
-            CellStyle centeredStyle = createCenteredStyle(workbook);
-            CellStyle wrappedStyle = createWrappedStyle(workbook); // For subject names
-            CellStyle timeStyle = createTimeStyle(workbook); // Centered time
-
-             // --- Add Section Header Row ---
-            Row titleRow = sheet.createRow(0);
-            Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue(sectionHeader);
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-            titleStyle.setAlignment(HorizontalAlignment.CENTER);
-            titleCell.setCellStyle(titleStyle);
-            // Merge cells for the title (adjust column count if needed)
-            sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, 5));
-
-
-            // --- Create Header Row ---
-            Row headerRow = sheet.createRow(2); // Start header at row 2
-            String[] columns = {"Day", "Time", "Subject Code", "Subject Name", "Teacher", "Classroom"};
-            for (int i = 0; i < columns.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columns[i]);
-                cell.setCellStyle(headerStyle);
+    /**
+     * Writes one section as a workbook straight to out (normally the servlet output stream).
+     * XLSX uses the streaming SXSSF writer, which keeps only ROW_WINDOW rows in memory and
+     * spills the rest to a compressed temp file, so heap use does not grow with the row count.
+     */
+    public void writeScheduleExcel(SectionSheet section, ExportFormat format, OutputStream out) throws IOException {
+        logger.info("Generating {} schedule for section ID: {}", format, section.sectionId());
+        ExcelExportEvent event = new ExcelExportEvent();
+        event.begin();
+        Workbook workbook = createWorkbook(format);
+        try {
+            renderSheet(workbook, new Styles(workbook), "Schedule", section);
+            workbook.write(out);
+            out.flush();
+            logger.info("Excel file generated successfully for section ID: {}", section.sectionId());
+        } catch (IOException e) {
+            logger.error("Error generating Excel for section ID {}: {}", section.sectionId(), e.getMessage());
+            throw e; // Re-throw exception to be handled by controller
+        } finally {
+            close(workbook);
+            if (event.shouldCommit()) {
+                event.sectionId = section.sectionId();
+                event.format = format.name();
+                event.sheets = 1;
+                event.rows = section.rows().size();
+                event.commit();
             }
+        }
+    }
 
-            // --- Populate Data ---
-            int rowIdx = 3; // Start data at row 3
-
-            // Sort schedules by day according to DAYS_ORDER, then by start time
-            schedules.sort(Comparator
-                .<Schedule, Integer>comparing(s -> DAYS_ORDER.indexOf(s.getDayOfWeek()))
-                .thenComparing(s -> {
-                    try {
-                        // Attempt to parse time for proper sorting
-                        return Date.parse("01/01/1970 " + s.getStartTime());
-                    } catch (Exception e) {
-                        logger.warn("Could not parse start time for sorting: {}", s.getStartTime());
-                        return 0L; // Fallback
-                    }
-                })
-            );
-
-            for (Schedule schedule : schedules) {
-                Row row = sheet.createRow(rowIdx++);
-
-                // Day (Bold)
-                Cell dayCell = row.createCell(0);
-                dayCell.setCellValue(schedule.getDayOfWeek().toString());
-                dayCell.setCellStyle(boldStyle);
-
-                // Time (Centered)
-                Cell timeCell = row.createCell(1);
-                timeCell.setCellValue(String.format("%s - %s", schedule.getStartTime(), schedule.getEndTime()));
-                timeCell.setCellStyle(timeStyle); // Use centered time style
-
-                // Subject Code
-                 row.createCell(2).setCellValue(schedule.getSubjectCode());
-
-                 // Subject Name (Wrapped)
-                 Cell subjectNameCell = row.createCell(3);
-                 subjectNameCell.setCellValue(schedule.getSubjectName());
-                 subjectNameCell.setCellStyle(wrappedStyle);
-
-                // Teacher
-                row.createCell(4).setCellValue(teacherMap.getOrDefault(schedule.getTeacherId(), "N/A"));
-
-                // Classroom
-                row.createCell(5).setCellValue(classroomMap.getOrDefault(schedule.getClassroomId(), "N/A"));
-            }
+    /**
+     * The cached file for this section and format if it is still current, else null.
+     * Lets the controller answer without reading any schedules.
+     */
+    public byte[] findCachedExport(String sectionId, ExportFormat format) {
+        return exportCache.get(new ExportCache.Key(sectionId, changeVersions.sectionExportTag(sectionId), format));
+    }
 
-            // Auto-size columns (optional, can sometimes be imperfect with wrapped text)
-            // for (int i = 0; i < columns.length; i++) {
-            //     sheet.autoSizeColumn(i);
-            // }
+    /**
+     * writeScheduleExcel, keeping a copy of what was streamed in the export cache.
+     */
+    public void writeScheduleExcelCached(SectionSheet section, ExportFormat format, OutputStream out) throws IOException {
+        ExportCache.CapturingOutputStream capture = exportCache.capture(out);
+        writeScheduleExcel(section, format, capture);
+        byte[] bytes = capture.captured();
+        if (bytes != null) {
+            exportCache.put(new ExportCache.Key(section.sectionId(), section.version(), format), bytes);
+        }
+    }
 
+    /**
+     * renderScheduleExcel through the export cache.
+     */
+    public byte[] renderScheduleExcelCached(SectionSheet section, ExportFormat format) throws IOException {
+        ExportCache.Key key = new ExportCache.Key(section.sectionId(), section.version(), format);
+        byte[] bytes = exportCache.get(key);
+        if (bytes == null) {
+            bytes = renderScheduleExcel(section, format);
+            exportCache.put(key, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * Renders one section to a standalone file in memory. Used by the bulk ZIP export, which
+     * renders several sections in parallel and needs each file whole before adding it.
+     */
+    public byte[] renderScheduleExcel(SectionSheet section, ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeScheduleExcel(section, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes several sections into one workbook, one sheet each, sharing one set of styles.
+     * Sheet names are made Excel-safe (31 chars, no []:*?/\) and unique.
+     */
+    public void writeSectionsAsSheets(List<SectionSheet> sections, ExportFormat format, OutputStream out) throws IOException {
+        ExcelExportEvent event = new ExcelExportEvent();
+        event.begin();
+        Workbook workbook = createWorkbook(format);
+        try {
+            Styles styles = new Styles(workbook);
+            Set<String> usedNames = new HashSet<>();
+            for (SectionSheet section : sections) {
+                renderSheet(workbook, styles, uniqueSheetName(sheetLabel(section.sectionId()), usedNames), section);
+            }
             workbook.write(out);
-            logger.info("Excel file generated successfully for section ID: {}", sectionId);
-            return new ByteArrayInputStream(out.toByteArray());
+            out.flush();
+            logger.info("Multi-sheet {} workbook generated for {} sections", format, sections.size());
+        } finally {
+            close(workbook);
+            if (event.shouldCommit()) {
+                event.format = format.name();
+                event.sheets = sections.size();
+                event.rows = sections.stream().mapToInt(section -> section.rows().size()).sum();
+                event.commit();
+            }
+        }
+    }
 
-        } catch (IOException e) {
-            logger.error("Error generating Excel for section ID {}: {}", sectionId, e.getMessage());
-            throw e; // Re-throw exception to be handled by controller
+    private String sheetLabel(String sectionId) {
+        return referenceDataCache.findSection(sectionId)
+                .map(s -> String.format("%s %d-%s", s.getProgram(), s.getYearLevel(), s.getSectionName()))
+                .orElse(sectionId);
+    }
+
+    private static String uniqueSheetName(String label, Set<String> usedNames) {
+        String base = WorkbookUtil.createSafeSheetName(label);
+        String name = base;
+        for (int n = 2; !usedNames.add(name.toLowerCase()); n++) {
+            String suffix = " (" + n + ")";
+            name = base.substring(0, Math.min(base.length(), 31 - suffix.length())) + suffix;
+        }
+        return name;
+    }
+
+    Workbook createWorkbook(ExportFormat format) {
+        if (format == ExportFormat.XLSX) {
+            SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+            workbook.setCompressTempFiles(true);
+            return workbook;
+        }
+        return new HSSFWorkbook();
+    }
+
+    void close(Workbook workbook) throws IOException {
+        if (workbook instanceof SXSSFWorkbook streaming) {
+            streaming.dispose(); // Delete the temp file backing the flushed rows
+        }
+        workbook.close();
+    }
+
+    /**
+     * Writes one section into a new sheet of the workbook using the shared styles.
+     */
+    void renderSheet(Workbook workbook, Styles styles, String sheetName, SectionSheet section) {
+        // Related names come from the reference-data cache (no extra round trips)
+        Map<String, Teacher> teacherMap = referenceDataCache.getTeacherMap();
+        Map<String, Classroom> classroomMap = referenceDataCache.getClassroomMap();
+
+        Sheet sheet = workbook.createSheet(sheetName);
+        sheet.setDefaultColumnWidth(20); // Set a default column width
+
+         // --- Add Section Header Row ---
+        Row titleRow = sheet.createRow(0);
+        Cell titleCell = titleRow.createCell(0);
+        titleCell.setCellValue(section.title());
+        titleCell.setCellStyle(styles.title);
+        // Merge cells for the title (adjust column count if needed)
+        sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, 5));
+
+
+        // --- Create Header Row ---
+        Row headerRow = sheet.createRow(2); // Start header at row 2
+        String[] columns = {"Day", "Time", "Subject Code", "Subject Name", "Teacher", "Classroom"};
+        for (int i = 0; i < columns.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columns[i]);
+            cell.setCellStyle(styles.header);
         }
+
+        // --- Populate Data ---
+        int rowIdx = 3; // Start data at row 3
+
+        for (Schedule schedule : section.rows()) {
+            Row row = sheet.createRow(rowIdx++);
+
+            // Day (Bold)
+            Cell dayCell = row.createCell(0);
+            dayCell.setCellValue(String.valueOf(schedule.getDayOfWeek()));
+            dayCell.setCellStyle(styles.bold);
+
+            // Time (Centered)
+            Cell timeCell = row.createCell(1);
+            timeCell.setCellValue(schedule.getStartTime() + " - " + schedule.getEndTime());
+            timeCell.setCellStyle(styles.time); // Use centered time style
+
+            // Subject Code
+             row.createCell(2).setCellValue(schedule.getSubjectCode());
+
+             // Subject Name (Wrapped)
+             Cell subjectNameCell = row.createCell(3);
+             subjectNameCell.setCellValue(schedule.getSubjectName());
+             subjectNameCell.setCellStyle(styles.wrapped);
+
+            // Teacher
+            row.createCell(4).setCellValue(nameOrDefault(teacherMap.get(schedule.getTeacherId()), Teacher::getName));
+
+            // Classroom
+            row.createCell(5).setCellValue(nameOrDefault(classroomMap.get(schedule.getClassroomId()), Classroom::getName));
+        }
+    }
+
+    /**
+     * Sorts by day (Monday first) then start time. Each row gets one integer key
+     * (day index * 1440 + start minute) packed with its position into a long, and the
+     * longs are sorted as primitives - no comparator calls, no time parsing.
+     */
+    static List<Schedule> sortForOutput(List<Schedule> schedules) {
+        long[] keys = new long[schedules.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) sortKey(schedules.get(i)) << 32) | i;
+        }
+        Arrays.sort(keys);
+        List<Schedule> sorted = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            sorted.add(schedules.get((int) key));
+        }
+        return sorted;
     }
 
+    private static int sortKey(Schedule schedule) {
+        DayOfWeek day = schedule.getDayOfWeek();
+        int dayIndex = day == null ? DAYS_ORDER.size() : DAYS_ORDER.indexOf(day);
+        return dayIndex * MINUTES_PER_DAY + ScheduleTimes.startMinuteOf(schedule);
+    }
+
+    /**
+     * Cell styles are workbook-level objects (the .xls format allows ~4000), so each workbook
+     * creates this set once and every sheet and row reuses it.
+     */
+    final class Styles {
+        final CellStyle title;
+        final CellStyle header;
+        final CellStyle bold;
+        final CellStyle wrapped;
+        final CellStyle time;
+
+        Styles(Workbook workbook) {
+            this.title = createTitleStyle(workbook);
+            this.header = createHeaderStyle(workbook);
+            this.bold = createBoldStyle(workbook);
+            this.wrapped = createWrappedStyle(workbook); // For subject names
+            this.time = createTimeStyle(workbook); // Centered time
+        }
+    }
+
+     // Helper to resolve a display name, falling back to "N/A" like the original lookup maps did
+     private static <T> String nameOrDefault(T entity, Function<T, String> nameOf) {
+         return entity != null && nameOf.apply(entity) != null ? nameOf.apply(entity) : "N/A";
+     }
+
+     // Helper method to create the section title style
+     private CellStyle createTitleStyle(Workbook workbook) {
+         CellStyle style = workbook.createCellStyle();
+         Font font = workbook.createFont();
+         font.setBold(true);
+         font.setFontHeightInPoints((short) 14);
+         style.setFont(font);
+         style.setAlignment(HorizontalAlignment.CENTER);
+         return style;
+     }
+
      // Helper method to create header cell style
      private CellStyle createHeaderStyle(Workbook workbook) {
          CellStyle style = workbook.createCellStyle();
@@ -229,15 +397,6 @@ public class ExcelExportService {
          return style;
      }
 
-      // Helper method to create centered cell style
-     private CellStyle createCenteredStyle(Workbook workbook) {
-         CellStyle style = workbook.createCellStyle();
-         style.setAlignment(HorizontalAlignment.CENTER);
-         style.setVerticalAlignment(VerticalAlignment.CENTER);
-          setBorder(style, BorderStyle.THIN);
-         return style;
-     }
-
       // Helper method to create wrapped text style
      private CellStyle createWrappedStyle(Workbook workbook) {
          CellStyle style = workbook.createCellStyle();
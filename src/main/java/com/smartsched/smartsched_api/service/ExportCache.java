@@ -0,0 +1,153 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rendered export files, kept so repeated downloads between solves skip POI entirely.
+ * Keys carry the section's export version from ChangeVersions, so a re-solve, a cascade
+ * or a rename of a teacher/classroom/section makes old entries unreachable; schedule changes
+ * also evict them eagerly to free the space. Bounded by total bytes, least recently used first.
+ */
+@Component
+public class ExportCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportCache.class);
+
+    public record Key(String sectionId, String version, ExportFormat format) {}
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by this.
+    private final LinkedHashMap<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ExportCache(@Value("${smartsched.export.cache.max-bytes:33554432}") long maxBytes,
+                       ChangeVersions changeVersions) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 4; // One huge file must not flush everything else
+        changeVersions.addScheduleChangeListener(sectionId -> {
+            if (sectionId == null) evictAll();
+            else evictSection(sectionId);
+        });
+    }
+
+    public byte[] get(Key key) {
+        byte[] bytes;
+        synchronized (this) {
+            bytes = entries.get(key);
+        }
+        (bytes != null ? hits : misses).incrementAndGet();
+        return bytes;
+    }
+
+    public void put(Key key, byte[] bytes) {
+        if (bytes.length > maxEntryBytes) return;
+        synchronized (this) {
+            byte[] previous = entries.put(key, bytes);
+            totalBytes += bytes.length - (previous == null ? 0 : previous.length);
+            Iterator<byte[]> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                totalBytes -= eldest.next().length;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void evictSection(String sectionId) {
+        entries.entrySet().removeIf(entry -> {
+            if (!entry.getKey().sectionId().equals(sectionId)) return false;
+            totalBytes -= entry.getValue().length;
+            return true;
+        });
+    }
+
+    public synchronized void evictAll() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Wraps out so everything written is also captured, up to the per-entry limit.
+     * Lets a cache miss stream to the client and fill the cache in the same pass.
+     */
+    public CapturingOutputStream capture(OutputStream out) {
+        return new CapturingOutputStream(out, maxEntryBytes);
+    }
+
+    /**
+     * Hit/miss counters and memory use, for the health endpoint.
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
+    public static final class CapturingOutputStream extends FilterOutputStream {
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit) {
+                logger.debug("Export larger than {} bytes; not caching it.", limit);
+                copy = null;
+            }
+        }
+
+        /** The captured bytes, or null if the output went over the limit. */
+        public byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+}
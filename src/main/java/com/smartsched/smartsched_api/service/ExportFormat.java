@@ -0,0 +1,36 @@
+package com.smartsched.smartsched_api.service;
+
+/**
+ * File formats for schedule exports, selected with ?format= on the export endpoints.
+ */
+public enum ExportFormat {
+    XLS("xls", "application/vnd.ms-excel"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV("csv", "text/csv; charset=UTF-8"),
+    ICS("ics", "text/calendar; charset=UTF-8");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() { return extension; }
+    public String getContentType() { return contentType; }
+
+    /** XLS/XLSX go through POI; CSV and ICS are plain text written line by line. */
+    public boolean isSpreadsheet() { return this == XLS || this == XLSX; }
+
+    /**
+     * Parses a ?format= value case-insensitively; null or blank means the legacy .xls.
+     */
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) return XLS;
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value.trim())) return format;
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,73 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Duration and size of every export download, tagged by what was exported (section, teacher,
+ * classroom, bulk), the format and whether the file came from the export cache.
+ */
+@Component
+public class ExportMetrics {
+
+    private final MeterRegistry registry;
+
+    public ExportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Wraps the response stream to count the bytes written through it.
+     */
+    public CountingOutputStream counting(OutputStream out) {
+        return new CountingOutputStream(out);
+    }
+
+    public void record(String kind, ExportFormat format, String cache, long startNanos, long bytes) {
+        String formatTag = format.name().toLowerCase();
+        Timer.builder("smartsched.export.duration")
+                .tag("kind", kind).tag("format", formatTag).tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("smartsched.export.bytes")
+                .baseUnit("bytes")
+                .tag("kind", kind).tag("format", formatTag)
+                .register(registry)
+                .record(bytes);
+    }
+
+    public static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        // FilterOutputStream would otherwise forward arrays one byte at a time
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
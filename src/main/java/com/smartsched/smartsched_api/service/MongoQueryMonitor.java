@@ -0,0 +1,236 @@
+package com.smartsched.smartsched_api.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.smartsched.smartsched_api.dto.SlowQuery;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Watches every MongoDB command (as a driver CommandListener) and every Spring Data repository
+ * call (as a RepositoryMethodInvocationListener); MongoMonitoringConfig registers it as both.
+ *
+ * Latency histograms come from Spring Boot's own meters (mongodb.driver.commands per command,
+ * spring.data.repository.invocations per repository method). This adds documents returned per
+ * command and keeps the last smartsched.mongo.slow-query.capacity operations slower than
+ * smartsched.mongo.slow-query.threshold-ms in a ring, with the filter shape of each command.
+ */
+@Component
+public class MongoQueryMonitor implements CommandListener, RepositoryMethodInvocationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoQueryMonitor.class);
+
+    // Commands worth timing; handshakes, pings and the like are ignored
+    private static final Set<String> DATA_COMMANDS = Set.of("find", "getMore", "aggregate", "count", "distinct",
+            "insert", "update", "delete", "findAndModify");
+    private static final int MAX_SHAPE_LENGTH = 512;
+    private static final int MAX_SHAPE_DEPTH = 6;
+
+    private record Started(String collection, String shape) {}
+
+    private final MeterRegistry registry;
+    private final long thresholdNanos;
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+
+    // Ring of the most recent slow operations. Guarded by itself.
+    private final SlowQuery[] ring;
+    private long written;
+    private final AtomicLong slowCommands = new AtomicLong();
+    private final AtomicLong slowInvocations = new AtomicLong();
+
+    public MongoQueryMonitor(MeterRegistry registry,
+                             @Value("${smartsched.mongo.slow-query.threshold-ms:200}") long thresholdMillis,
+                             @Value("${smartsched.mongo.slow-query.capacity:200}") int capacity) {
+        this.registry = registry;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.ring = new SlowQuery[Math.max(1, capacity)];
+        logger.info("Capturing MongoDB operations slower than {} ms (last {} kept).", thresholdMillis, ring.length);
+    }
+
+    // --- Driver commands ---
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!DATA_COMMANDS.contains(event.getCommandName())) return;
+        // The command document is only valid during this callback, so the shape is taken now
+        BsonDocument command = event.getCommand();
+        inFlight.put(event.getRequestId(), new Started(collectionOf(event.getCommandName(), command),
+                shapeOf(event.getCommandName(), command)));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started == null) return;
+        int documents = documentsIn(event.getResponse());
+        DistributionSummary.builder("smartsched.mongo.documents")
+                .description("Documents returned or written per MongoDB command")
+                .tag("command", event.getCommandName())
+                .tag("collection", started.collection() == null ? "none" : started.collection())
+                .register(registry)
+                .record(documents);
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        if (nanos >= thresholdNanos) {
+            slowCommands.incrementAndGet();
+            add(new SlowQuery(Instant.now(), "command", event.getCommandName(), started.collection(),
+                    started.shape(), TimeUnit.NANOSECONDS.toMillis(nanos), documents, "success"));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started == null) return;
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        if (nanos >= thresholdNanos) {
+            slowCommands.incrementAndGet();
+            add(new SlowQuery(Instant.now(), "command", event.getCommandName(), started.collection(),
+                    started.shape(), TimeUnit.NANOSECONDS.toMillis(nanos), null,
+                    event.getThrowable().getClass().getSimpleName()));
+        }
+    }
+
+    // --- Repository calls ---
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        long nanos = invocation.getDuration(TimeUnit.NANOSECONDS);
+        if (nanos < thresholdNanos) return;
+        slowInvocations.incrementAndGet();
+        RepositoryMethodInvocationResult result = invocation.getResult();
+        String outcome = result == null ? null
+                : result.getError() != null ? result.getError().getClass().getSimpleName()
+                : result.getState().name().toLowerCase();
+        add(new SlowQuery(Instant.now(), "repository",
+                invocation.getRepositoryInterface().getSimpleName() + "." + invocation.getMethod().getName(),
+                null, null, TimeUnit.NANOSECONDS.toMillis(nanos), null, outcome));
+    }
+
+    // --- Ring ---
+
+    private void add(SlowQuery query) {
+        synchronized (ring) {
+            ring[(int) (written++ % ring.length)] = query;
+        }
+        logger.debug("Slow MongoDB {} {} on {}: {} ms", query.source(), query.operation(), query.collection(), query.millis());
+    }
+
+    /**
+     * The captured operations, newest first.
+     */
+    public List<SlowQuery> recent() {
+        synchronized (ring) {
+            int size = (int) Math.min(written, ring.length);
+            List<SlowQuery> result = new ArrayList<>(size);
+            for (long i = written - 1; i >= written - size; i--) {
+                result.add(ring[(int) (i % ring.length)]);
+            }
+            return result;
+        }
+    }
+
+    public void clear() {
+        synchronized (ring) {
+            Arrays.fill(ring, null);
+            written = 0;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("thresholdMillis", TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+        stats.put("capacity", ring.length);
+        stats.put("slowCommands", slowCommands.get());
+        stats.put("slowRepositoryCalls", slowInvocations.get());
+        return stats;
+    }
+
+    // --- Command parsing ---
+
+    private static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue value = command.get(commandName.equals("getMore") ? "collection" : commandName);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    private static String shapeOf(String commandName, BsonDocument command) {
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "distinct", "findAndModify" -> command.get("query");
+            case "aggregate" -> command.get("pipeline");
+            case "update" -> firstStatementField(command, "updates", "q");
+            case "delete" -> firstStatementField(command, "deletes", "q");
+            default -> null;
+        };
+        if (filter == null) return null;
+        // Only a document prints as JSON; a pipeline is an array, so it is written as a field and cut out
+        String json = new BsonDocument("s", shape(filter, 0)).toJson();
+        String shape = json.substring("{\"s\": ".length(), json.length() - 1);
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) + "..." : shape;
+    }
+
+    private static BsonValue firstStatementField(BsonDocument command, String statements, String field) {
+        BsonValue list = command.get(statements);
+        if (list == null || !list.isArray() || list.asArray().isEmpty()) return null;
+        BsonValue first = list.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get(field) : null;
+    }
+
+    // Keeps field names and operators, replaces every value with "?" and an array by its first element
+    private static BsonValue shape(BsonValue value, int depth) {
+        if (depth > MAX_SHAPE_DEPTH) return new BsonString("...");
+        if (value.isDocument()) {
+            BsonDocument shaped = new BsonDocument();
+            value.asDocument().forEach((key, child) -> shaped.put(key, shape(child, depth + 1)));
+            return shaped;
+        }
+        if (value.isArray()) {
+            BsonArray shaped = new BsonArray();
+            BsonArray array = value.asArray();
+            if (!array.isEmpty()) {
+                BsonValue first = array.get(0);
+                // A pipeline or $and/$or keeps every stage; a value list collapses to one "?"
+                if (first.isDocument()) array.forEach(element -> shaped.add(shape(element, depth + 1)));
+                else shaped.add(shape(first, depth + 1));
+            }
+            return shaped;
+        }
+        return new BsonString("?");
+    }
+
+    private static int documentsIn(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().get("firstBatch");
+            if (batch == null) batch = cursor.asDocument().get("nextBatch");
+            if (batch != null && batch.isArray()) return batch.asArray().size();
+        }
+        BsonValue values = response.get("values"); // distinct
+        if (values != null && values.isArray()) return values.asArray().size();
+        BsonValue n = response.get("n"); // count, insert, update, delete
+        return n != null && n.isNumber() ? n.asNumber().intValue() : 0;
+    }
+}
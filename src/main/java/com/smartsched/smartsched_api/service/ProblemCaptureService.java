@@ -0,0 +1,123 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.solver.ProblemSnapshot;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+
+/**
+ * Captures the assembled problem of solve jobs as gzipped JSON snapshots
+ * (smartsched.solver.capture.mode), so a slow or infeasible solve can be re-run offline with
+ * SnapshotReplay instead of depending on the Mongo state at the time.
+ *
+ * The snapshot is taken when the job is queued (before the solver touches the allocations) and
+ * written to smartsched.solver.capture.directory on the I/O executor once the job has ended,
+ * only if the mode asks for it.
+ */
+@Service
+public class ProblemCaptureService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProblemCaptureService.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss").withZone(ZoneOffset.UTC);
+
+    public enum CaptureMode {
+        OFF,
+        // Failed jobs, infeasible final solutions and jobs slower than the slow threshold
+        SLOW_OR_INFEASIBLE,
+        ALL
+    }
+
+    private record Pending(ProblemSnapshot snapshot, long queuedAtNanos) {
+    }
+
+    private final ExecutorService ioExecutor;
+    private final CaptureMode mode;
+    private final Path directory;
+    private final Duration slowThreshold;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    public ProblemCaptureService(@Qualifier("ioExecutor") ExecutorService ioExecutor,
+                                 @Value("${smartsched.solver.capture.mode:off}") String mode,
+                                 @Value("${smartsched.solver.capture.directory:captures}") String directory,
+                                 @Value("${smartsched.solver.capture.slow-threshold:5m}") Duration slowThreshold) {
+        this.ioExecutor = ioExecutor;
+        this.mode = parseMode(mode);
+        this.directory = Path.of(directory);
+        this.slowThreshold = slowThreshold;
+        if (this.mode != CaptureMode.OFF) {
+            logger.info("Problem capture {} (slow threshold {}), writing to {}", this.mode, slowThreshold,
+                    this.directory.toAbsolutePath());
+        }
+    }
+
+    private static CaptureMode parseMode(String mode) {
+        try {
+            return CaptureMode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("smartsched.solver.capture.mode must be off, slow-or-infeasible or all, not: " + mode);
+        }
+    }
+
+    public boolean isEnabled() {
+        return mode != CaptureMode.OFF;
+    }
+
+    // Call before the job is submitted
+    public void jobQueued(String problemId, String sectionId, ScheduleSolution problem) {
+        if (mode == CaptureMode.OFF) return;
+        pending.put(problemId, new Pending(ProblemSnapshot.of(problemId, sectionId, problem), System.nanoTime()));
+    }
+
+    public void jobFinished(String problemId, HardSoftScore finalScore) {
+        Pending job = pending.remove(problemId);
+        if (job == null) return;
+        Duration took = Duration.ofNanos(System.nanoTime() - job.queuedAtNanos());
+        String reason;
+        if (finalScore == null || !finalScore.isFeasible()) {
+            reason = "infeasible";
+        } else if (took.compareTo(slowThreshold) >= 0) {
+            reason = "slow";
+        } else if (mode == CaptureMode.ALL) {
+            reason = "solved";
+        } else {
+            return;
+        }
+        write(job.snapshot(), reason, took);
+    }
+
+    public void jobFailed(String problemId) {
+        Pending job = pending.remove(problemId);
+        if (job == null) return;
+        write(job.snapshot(), "failed", Duration.ofNanos(System.nanoTime() - job.queuedAtNanos()));
+    }
+
+    private void write(ProblemSnapshot snapshot, String reason, Duration took) {
+        Path file = directory.resolve(FILE_TIME.format(snapshot.capturedAt()) + "_" + snapshot.problemId() + "_" + reason + ".json.gz");
+        ioExecutor.execute(() -> {
+            try {
+                snapshot.write(file);
+                logger.info("Captured {} problem {} ({} allocations, {} pinned, took {} ms) to {}", reason,
+                        snapshot.problemId(), snapshot.allocations().size(), snapshot.pinnedCount(), took.toMillis(), file);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not capture problem {} to {}: {}", snapshot.problemId(), file, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,311 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+
+/**
+ * In-memory cache for the small reference collections (teachers, classrooms, sections).
+ * Each collection is held as an immutable snapshot that is swapped atomically, so readers
+ * never see a half-applied write. The services write through on every change, and
+ * ReferenceDataChangeListener evicts on writes made by other nodes.
+ *
+ * Entities handed out by this cache are shared - callers must treat them as read-only.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private final Region<Teacher> teachers;
+    private final Region<Classroom> classrooms;
+    private final Region<Section> sections;
+
+    public ReferenceDataCache(TeacherRepository teacherRepository, ClassroomRepository classroomRepository,
+                              SectionRepository sectionRepository) {
+        this.teachers = new Region<>("teachers", teacherRepository::findAll, Teacher::getId,
+                Teacher::getScheduleIds, ReferenceDataCache::withScheduleIds);
+        this.classrooms = new Region<>("classrooms", classroomRepository::findAll, Classroom::getId,
+                Classroom::getScheduleIds, ReferenceDataCache::withScheduleIds);
+        this.sections = new Region<>("sections", sectionRepository::findAll, Section::getId,
+                Section::getScheduleIds, ReferenceDataCache::withScheduleIds);
+    }
+
+    // --- Teachers ---
+    public List<Teacher> getTeachers() { return teachers.snapshot().items(); }
+    public Map<String, Teacher> getTeacherMap() { return teachers.snapshot().byId(); }
+    public Optional<Teacher> findTeacher(String id) { return Optional.ofNullable(id == null ? null : getTeacherMap().get(id)); }
+    public void putTeacher(Teacher teacher) { teachers.put(teacher); }
+    public void removeTeacher(String id) { teachers.remove(id); }
+    public void evictTeachers() { teachers.evict(); }
+    public long getTeachersVersion() { return teachers.version(); }
+
+    // --- Classrooms ---
+    public List<Classroom> getClassrooms() { return classrooms.snapshot().items(); }
+    public Map<String, Classroom> getClassroomMap() { return classrooms.snapshot().byId(); }
+    public Optional<Classroom> findClassroom(String id) { return Optional.ofNullable(id == null ? null : getClassroomMap().get(id)); }
+    public void putClassroom(Classroom classroom) { classrooms.put(classroom); }
+    public void removeClassroom(String id) { classrooms.remove(id); }
+    public void evictClassrooms() { classrooms.evict(); }
+    public long getClassroomsVersion() { return classrooms.version(); }
+
+    // --- Sections ---
+    public List<Section> getSections() { return sections.snapshot().items(); }
+    public Map<String, Section> getSectionMap() { return sections.snapshot().byId(); }
+    public Optional<Section> findSection(String id) { return Optional.ofNullable(id == null ? null : getSectionMap().get(id)); }
+    public void putSection(Section section) { sections.put(section); }
+    public void removeSection(String id) { sections.remove(id); }
+    public void evictSections() { sections.evict(); }
+    public long getSectionsVersion() { return sections.version(); }
+
+    // --- Schedule back-references ---
+    /**
+     * Mirrors a section save in the cached scheduleIds, the same way it was written to MongoDB:
+     * oldIds are pulled from every owner holding them, then each owner gains its new ids.
+     * Affected entities are swapped for updated copies, so the regions stay loaded and the
+     * entities already handed out are left untouched.
+     */
+    public void replaceScheduleIds(Collection<String> oldIds, Map<String, List<String>> newIdsByTeacher,
+                                   Map<String, List<String>> newIdsByClassroom, Map<String, List<String>> newIdsBySection) {
+        teachers.replaceScheduleIds(oldIds, newIdsByTeacher);
+        classrooms.replaceScheduleIds(oldIds, newIdsByClassroom);
+        sections.replaceScheduleIds(oldIds, newIdsBySection);
+    }
+
+    /**
+     * Changes whenever a teacher, classroom or section may have been renamed, added or removed,
+     * but not when only scheduleIds were replaced. Keys what exports print from these collections.
+     */
+    public String getLabelsVersion() {
+        return teachers.labelsVersion() + "." + classrooms.labelsVersion() + "." + sections.labelsVersion();
+    }
+
+    /**
+     * The entities of a loaded region by id, for the change-stream listener to compare against;
+     * null when the region is not loaded. Never triggers a load.
+     */
+    public Map<String, ?> loadedEntities(String collection) {
+        Region<?> region = switch (collection) {
+            case "teachers" -> teachers;
+            case "classrooms" -> classrooms;
+            case "sections" -> sections;
+            default -> throw new IllegalArgumentException("Not a cached collection: " + collection);
+        };
+        Snapshot<?> snapshot = region.current.get();
+        return snapshot == null ? null : snapshot.byId();
+    }
+
+    public void evictAll() {
+        teachers.evict();
+        classrooms.evict();
+        sections.evict();
+    }
+
+    /**
+     * Hit/miss counters and current version per collection, for the health endpoint.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(teachers.name, teachers.stats());
+        stats.put(classrooms.name, classrooms.stats());
+        stats.put(sections.name, sections.stats());
+        return stats;
+    }
+
+    private static Teacher withScheduleIds(Teacher teacher, List<String> scheduleIds) {
+        Teacher copy = new Teacher(teacher.getName(), teacher.getDepartment());
+        copy.setId(teacher.getId());
+        copy.setScheduleIds(scheduleIds);
+        return copy;
+    }
+
+    private static Classroom withScheduleIds(Classroom classroom, List<String> scheduleIds) {
+        Classroom copy = new Classroom(classroom.getName(), classroom.getCapacity(), classroom.getType());
+        copy.setId(classroom.getId());
+        copy.setScheduleIds(scheduleIds);
+        return copy;
+    }
+
+    private static Section withScheduleIds(Section section, List<String> scheduleIds) {
+        Section copy = new Section(section.getProgram(), section.getYearLevel(), section.getSectionName(),
+                section.getNumberOfStudents());
+        copy.setId(section.getId());
+        copy.setScheduleIds(scheduleIds);
+        return copy;
+    }
+
+    /**
+     * Immutable view of one collection. byId keeps the load order of items.
+     */
+    record Snapshot<T>(List<T> items, Map<String, T> byId) {
+
+        static <T> Snapshot<T> of(List<T> loaded, Function<T, String> idOf) {
+            Map<String, T> byId = new LinkedHashMap<>();
+            for (T item : loaded) {
+                String id = idOf.apply(item);
+                if (id != null) byId.putIfAbsent(id, item);
+            }
+            return fromMap(byId);
+        }
+
+        private static <T> Snapshot<T> fromMap(Map<String, T> byId) {
+            return new Snapshot<>(Collections.unmodifiableList(new ArrayList<>(byId.values())),
+                    Collections.unmodifiableMap(byId));
+        }
+
+        Snapshot<T> with(String id, T item) {
+            Map<String, T> copy = new LinkedHashMap<>(byId);
+            copy.put(id, item);
+            return fromMap(copy);
+        }
+
+        Snapshot<T> without(String id) {
+            if (!byId.containsKey(id)) return this;
+            Map<String, T> copy = new LinkedHashMap<>(byId);
+            copy.remove(id);
+            return fromMap(copy);
+        }
+
+        // Returns this snapshot when the function hands every item back unchanged
+        Snapshot<T> map(Function<T, T> update) {
+            Map<String, T> copy = new LinkedHashMap<>();
+            boolean changed = false;
+            for (Map.Entry<String, T> entry : byId.entrySet()) {
+                T updated = update.apply(entry.getValue());
+                changed |= updated != entry.getValue();
+                copy.put(entry.getKey(), updated);
+            }
+            return changed ? fromMap(copy) : this;
+        }
+    }
+
+    /**
+     * One cached collection. A null snapshot means "not loaded"; the next read reloads it.
+     * Every write bumps the version; all but the scheduleIds mirror also bump labelsVersion,
+     * which tracks only what exports print (names, programs). Loads and writes hold the region's lock, so a write
+     * either waits for a running load and is applied to what it installed, or happens before
+     * the load starts; a slow load can never install data that misses a returned write.
+     * Reads of a loaded snapshot take no lock.
+     */
+    static final class Region<T> {
+        private final String name;
+        private final Supplier<List<T>> loader;
+        private final Function<T, String> idOf;
+        private final Function<T, List<String>> scheduleIdsOf;
+        private final BiFunction<T, List<String>, T> withScheduleIds;
+        private final AtomicReference<Snapshot<T>> current = new AtomicReference<>();
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicLong labelsVersion = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        Region(String name, Supplier<List<T>> loader, Function<T, String> idOf,
+               Function<T, List<String>> scheduleIdsOf, BiFunction<T, List<String>, T> withScheduleIds) {
+            this.name = name;
+            this.loader = loader;
+            this.idOf = idOf;
+            this.scheduleIdsOf = scheduleIdsOf;
+            this.withScheduleIds = withScheduleIds;
+        }
+
+        Snapshot<T> snapshot() {
+            Snapshot<T> snapshot = current.get();
+            if (snapshot != null) {
+                hits.incrementAndGet();
+                return snapshot;
+            }
+            synchronized (this) {
+                snapshot = current.get();
+                if (snapshot != null) {
+                    hits.incrementAndGet();
+                    return snapshot;
+                }
+                misses.incrementAndGet();
+                Snapshot<T> loaded = Snapshot.of(loader.get(), idOf);
+                current.set(loaded);
+                return loaded;
+            }
+        }
+
+        synchronized void put(T item) {
+            String id = idOf.apply(item);
+            if (id == null) {
+                evict();
+                return;
+            }
+            version.incrementAndGet();
+            labelsVersion.incrementAndGet();
+            current.updateAndGet(s -> s == null ? null : s.with(id, item));
+        }
+
+        synchronized void remove(String id) {
+            version.incrementAndGet();
+            labelsVersion.incrementAndGet();
+            current.updateAndGet(s -> s == null ? null : s.without(id));
+        }
+
+        // Bumps the version like any other write (scheduleIds are part of the served entities),
+        // but not labelsVersion: no name changes
+        synchronized void replaceScheduleIds(Collection<String> oldIds, Map<String, List<String>> newIdsByOwner) {
+            if (oldIds.isEmpty() && newIdsByOwner.isEmpty()) return;
+            Set<String> removed = new HashSet<>(oldIds);
+            version.incrementAndGet();
+            current.updateAndGet(s -> s == null ? null : s.map(item -> {
+                List<String> ids = scheduleIdsOf.apply(item);
+                List<String> added = newIdsByOwner.getOrDefault(idOf.apply(item), List.of());
+                boolean holdsRemoved = ids != null && ids.stream().anyMatch(removed::contains);
+                if (!holdsRemoved && added.isEmpty()) return item;
+                List<String> updated = new ArrayList<>();
+                if (ids != null) ids.stream().filter(id -> !removed.contains(id)).forEach(updated::add);
+                added.stream().filter(id -> !updated.contains(id)).forEach(updated::add);
+                return withScheduleIds.apply(item, updated);
+            }));
+        }
+
+        synchronized void evict() {
+            version.incrementAndGet();
+            labelsVersion.incrementAndGet();
+            current.set(null);
+        }
+
+        long version() {
+            return version.get();
+        }
+
+        long labelsVersion() {
+            return labelsVersion.get();
+        }
+
+        Map<String, Object> stats() {
+            Snapshot<T> snapshot = current.get();
+            long h = hits.get();
+            long m = misses.get();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("version", version.get());
+            stats.put("loaded", snapshot != null);
+            stats.put("size", snapshot != null ? snapshot.items().size() : 0);
+            stats.put("hits", h);
+            stats.put("misses", m);
+            stats.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.smartsched.smartsched_api.dto.SolveOptions;
+import com.smartsched.smartsched_api.exception.SolverBusyException;
+import com.smartsched.smartsched_api.solver.ReproducibleSolverConfig;
+import com.smartsched.smartsched_api.solver.SnapshotReplay;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Seeded and reproducible solve jobs (smartsched.solver.reproducible.*, or per request).
+ *
+ * The shared SolverManager can only override termination per job, not the random seed, so
+ * such a job gets its own single-threaded SolverManager built from the application's solver
+ * config. These managers are not part of timefold.solver-manager.parallel-solver-count, so
+ * they have their own bound (smartsched.solver.reproducible.max-concurrent-jobs):
+ * - jobs with the configured seed and move-count limit (every job when reproducible solving is
+ *   on by default) share one manager with that many solver threads and wait in its queue, like
+ *   unseeded jobs do on the shared SolverManager;
+ * - a seed or limit asked for per request takes one of that many slots, and a request beyond
+ *   them is refused with SolverBusyException.
+ */
+@Component
+public class ReproducibleSolving {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReproducibleSolving.class);
+
+    private final ObjectProvider<SolverConfig> solverConfig;
+    private final boolean reproducibleByDefault;
+    private final long defaultSeed;
+    private final long defaultMoveCountLimit;
+    private final int maxConcurrentJobs;
+    private final SolveOptions configuredOptions;
+    private volatile SolverManager<ScheduleSolution, String> configuredManager;
+    private final Semaphore jobSlots;
+    // One waiter per running seeded job closes its manager; the quota bounds the pool
+    private final ExecutorService closers;
+
+    public ReproducibleSolving(ObjectProvider<SolverConfig> solverConfig,
+                               @Value("${smartsched.solver.reproducible.enabled:false}") boolean reproducibleByDefault,
+                               @Value("${smartsched.solver.reproducible.random-seed:0}") long defaultSeed,
+                               @Value("${smartsched.solver.reproducible.move-count-limit:2000000}") long defaultMoveCountLimit,
+                               @Value("${smartsched.solver.reproducible.max-concurrent-jobs:1}") int maxConcurrentJobs) {
+        this.solverConfig = solverConfig;
+        this.reproducibleByDefault = reproducibleByDefault;
+        this.defaultSeed = defaultSeed;
+        this.defaultMoveCountLimit = defaultMoveCountLimit;
+        this.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+        this.configuredOptions = new SolveOptions(defaultSeed, true, defaultMoveCountLimit);
+        this.jobSlots = new Semaphore(this.maxConcurrentJobs);
+        AtomicInteger counter = new AtomicInteger();
+        this.closers = Executors.newFixedThreadPool(this.maxConcurrentJobs, runnable -> {
+            Thread thread = new Thread(runnable, "seeded-solver-close-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reproducibleByDefault) {
+            logger.info("All solve jobs are reproducible (seed {}, {} moves, at most {} at a time).", defaultSeed,
+                    defaultMoveCountLimit, this.maxConcurrentJobs);
+        }
+    }
+
+    /**
+     * Request values win over the configured defaults; a reproducible job always gets a seed and
+     * a move-count limit.
+     */
+    public SolveOptions resolve(Boolean reproducible, Long randomSeed, Long moveCountLimit) {
+        if (moveCountLimit != null && moveCountLimit <= 0) {
+            throw new IllegalArgumentException("moveCountLimit must be positive.");
+        }
+        boolean isReproducible = reproducible != null ? reproducible : reproducibleByDefault || moveCountLimit != null;
+        if (!isReproducible) {
+            return randomSeed == null ? SolveOptions.DEFAULT : new SolveOptions(randomSeed, false, null);
+        }
+        return new SolveOptions(randomSeed != null ? randomSeed : defaultSeed, true,
+                moveCountLimit != null ? moveCountLimit : defaultMoveCountLimit);
+    }
+
+    /**
+     * The shared manager for jobs with the configured seed and move-count limit when reproducible
+     * solving is on by default, or null if these options need a manager of their own.
+     * Jobs beyond max-concurrent-jobs wait in its queue; no slot is taken.
+     */
+    public SolverManager<ScheduleSolution, String> configuredSolverManager(SolveOptions options) {
+        if (!reproducibleByDefault || !configuredOptions.equals(options)) {
+            return null;
+        }
+        SolverManager<ScheduleSolution, String> manager = configuredManager;
+        if (manager == null) {
+            synchronized (this) {
+                manager = configuredManager;
+                if (manager == null) {
+                    manager = create(configuredOptions, String.valueOf(maxConcurrentJobs));
+                    configuredManager = manager;
+                }
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * A new SolverManager for one job, taking one of the seeded-job slots. Hand it back with
+     * closeWhenDone once the job is submitted, or with close if submission failed.
+     * Throws SolverBusyException when every slot is taken.
+     */
+    public SolverManager<ScheduleSolution, String> newSolverManager(SolveOptions options) {
+        if (!jobSlots.tryAcquire()) {
+            throw new SolverBusyException("Already running " + maxConcurrentJobs
+                    + " seeded solve job(s); retry when one has finished.");
+        }
+        try {
+            return create(options, "1");
+        } catch (RuntimeException e) {
+            jobSlots.release();
+            throw e;
+        }
+    }
+
+    private SolverManager<ScheduleSolution, String> create(SolveOptions options, String parallelSolverCount) {
+        SolverConfig base = solverConfig.getIfAvailable(SnapshotReplay::defaultConfig);
+        SolverConfig config = ReproducibleSolverConfig.configure(base, options.randomSeed(),
+                options.reproducible() ? options.moveCountLimit() : null);
+        return SolverManager.create(config, new SolverManagerConfig().withParallelSolverCount(parallelSolverCount));
+    }
+
+    /**
+     * Closes the manager and frees its slot once the job has ended. Closing from a solver callback
+     * would interrupt the job's own thread, so a pooled waiter does it.
+     */
+    public void closeWhenDone(String problemId, SolverJob<ScheduleSolution, String> solverJob,
+                              SolverManager<ScheduleSolution, String> manager) {
+        closers.execute(() -> {
+            try {
+                solverJob.getFinalBestSolution();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                logger.debug("Seeded job {} ended with: {}", problemId, e.getMessage());
+            } finally {
+                close(manager);
+            }
+        });
+    }
+
+    /**
+     * Closes a manager from newSolverManager right away and frees its slot.
+     */
+    public void close(SolverManager<ScheduleSolution, String> manager) {
+        try {
+            manager.close();
+        } finally {
+            jobSlots.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closers.shutdownNow();
+        SolverManager<ScheduleSolution, String> manager = configuredManager;
+        if (manager != null) {
+            manager.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.jfr.SaveSolutionStepEvent;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bulk write pipeline behind saveSolution.
+ * Replacing a section's schedules costs a fixed number of round trips, however many
+ * allocations were solved: read old ids, delete, one ordered insert batch, then one bulk
+ * write each for teacher, classroom and section back-references.
+ *
+ * Back-references (scheduleIds) are only ever changed with atomic $pull/$addToSet updates,
+ * never by loading and re-saving the owner, so two sections solved at the same time that
+ * share a teacher or classroom cannot overwrite each other's ids.
+ */
+@Service
+public class SchedulePersistenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulePersistenceService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ChangeVersions changeVersions;
+    private final Timer saveTimer;
+    private final DistributionSummary documentsWritten;
+    private final DistributionSummary roundTripsPerSave;
+
+    public SchedulePersistenceService(MongoTemplate mongoTemplate, ReferenceDataCache referenceDataCache,
+                                      ChangeVersions changeVersions, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
+        this.saveTimer = Timer.builder("smartsched.persistence.save")
+                .description("Replacing one section's schedules after a solve")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.documentsWritten = DistributionSummary.builder("smartsched.persistence.documents.written")
+                .description("Schedules deleted and inserted plus owners updated, per save")
+                .register(meterRegistry);
+        this.roundTripsPerSave = DistributionSummary.builder("smartsched.persistence.round.trips")
+                .description("MongoDB round trips per save")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Per-solve persistence report: documents touched, MongoDB round trips and wall time.
+     */
+    public record SaveStats(String sectionId, int deleted, int inserted, int teachersUpdated,
+                            int classroomsUpdated, int roundTrips, long latencyMillis) {}
+
+    /**
+     * Replaces every schedule of one section with the given (not yet saved) schedules
+     * and keeps Teacher/Classroom/Section.scheduleIds in step. problemId only labels the
+     * JFR events of each step.
+     */
+    public SaveStats replaceSectionSchedules(String problemId, String sectionId, List<Schedule> newSchedules) {
+        long start = System.nanoTime();
+        int roundTrips = 0;
+
+        if (referenceDataCache.findSection(sectionId).isEmpty()) {
+            throw new IllegalStateException("Section disappeared: " + sectionId);
+        }
+
+        // 1. Ids of the schedules being replaced (projection on _id only)
+        SaveSolutionStepEvent deleteEvent = new SaveSolutionStepEvent(problemId, sectionId, "delete");
+        deleteEvent.begin();
+        Query sectionQuery = new Query(Criteria.where("sectionId").is(sectionId));
+        sectionQuery.fields().include("_id");
+        List<String> oldIds = mongoTemplate.find(sectionQuery, Document.class, "schedules").stream()
+                .map(doc -> doc.get("_id").toString())
+                .toList();
+        roundTrips++;
+
+        // 2. One delete for exactly those documents
+        int deleted = 0;
+        if (!oldIds.isEmpty()) {
+            deleted = (int) mongoTemplate.remove(
+                    new Query(Criteria.where("sectionId").is(sectionId).and("_id").in(oldIds)),
+                    Schedule.class).getDeletedCount();
+            roundTrips++;
+        }
+        deleteEvent.documents = deleted;
+        deleteEvent.commit();
+
+        // 3. One ordered insert batch. Ids are assigned client-side so the back-references
+        //    below can be written without reading the inserted documents back.
+        SaveSolutionStepEvent insertEvent = new SaveSolutionStepEvent(problemId, sectionId, "insert");
+        insertEvent.begin();
+        Map<String, List<String>> newIdsByTeacher = new LinkedHashMap<>();
+        Map<String, List<String>> newIdsByClassroom = new LinkedHashMap<>();
+        List<String> newIds = new ArrayList<>(newSchedules.size());
+        for (Schedule schedule : newSchedules) {
+            String id = new ObjectId().toHexString();
+            schedule.setId(id);
+            newIds.add(id);
+            if (schedule.getTeacherId() != null) {
+                newIdsByTeacher.computeIfAbsent(schedule.getTeacherId(), k -> new ArrayList<>()).add(id);
+            }
+            if (schedule.getClassroomId() != null) {
+                newIdsByClassroom.computeIfAbsent(schedule.getClassroomId(), k -> new ArrayList<>()).add(id);
+            }
+        }
+        int inserted = 0;
+        if (!newSchedules.isEmpty()) {
+            inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Schedule.class)
+                    .insert(newSchedules)
+                    .execute()
+                    .getInsertedCount();
+            roundTrips++;
+        }
+        insertEvent.documents = inserted;
+        insertEvent.commit();
+
+        // 4-5. Teacher and classroom back-references: pull the old ids, push the new ones
+        SaveSolutionStepEvent backReferencesEvent = new SaveSolutionStepEvent(problemId, sectionId, "back-references");
+        backReferencesEvent.begin();
+        if (writeBackReferences(Teacher.class, oldIds, newIdsByTeacher)) roundTrips++;
+        if (writeBackReferences(Classroom.class, oldIds, newIdsByClassroom)) roundTrips++;
+
+        // 6. Section back-reference, with the same atomic pull/addToSet as teachers and classrooms
+        if (writeBackReferences(Section.class, oldIds, newIds.isEmpty() ? Map.of() : Map.of(sectionId, newIds))) roundTrips++;
+        backReferencesEvent.documents = newIdsByTeacher.size() + newIdsByClassroom.size() + 1;
+        backReferencesEvent.commit();
+
+        // Apply the same pull/addToSet to the cached owners instead of reloading them
+        referenceDataCache.replaceScheduleIds(oldIds, newIdsByTeacher, newIdsByClassroom,
+                newIds.isEmpty() ? Map.of() : Map.of(sectionId, newIds));
+        changeVersions.sectionSchedulesChanged(sectionId);
+
+        SaveStats stats = new SaveStats(sectionId, deleted, inserted, newIdsByTeacher.size(),
+                newIdsByClassroom.size(), roundTrips, (System.nanoTime() - start) / 1_000_000);
+        saveTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        documentsWritten.record(deleted + inserted + newIdsByTeacher.size() + newIdsByClassroom.size() + 1);
+        roundTripsPerSave.record(roundTrips);
+        logger.info("Saved section {}: {} deleted, {} inserted, {} round trips in {} ms",
+                sectionId, stats.deleted(), stats.inserted(), stats.roundTrips(), stats.latencyMillis());
+        return stats;
+    }
+
+    /**
+     * One ordered bulk write per collection: a multi-update doing {$pull: {scheduleIds: {$in: old}}},
+     * then one {$addToSet: {scheduleIds: {$each: new}}} per owner. Both are applied atomically
+     * per document by the server, and addToSet keeps a retried save from duplicating ids.
+     * Returns false if there was nothing to write.
+     */
+    private boolean writeBackReferences(Class<?> ownerType, List<String> oldIds, Map<String, List<String>> newIdsByOwner) {
+        if (oldIds.isEmpty() && newIdsByOwner.isEmpty()) return false;
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ownerType);
+        if (!oldIds.isEmpty()) {
+            bulk.updateMulti(new Query(Criteria.where("scheduleIds").in(oldIds)),
+                    new Update().pull("scheduleIds", new Document("$in", oldIds)));
+        }
+        newIdsByOwner.forEach((ownerId, ids) -> bulk.updateOne(
+                new Query(Criteria.where("_id").is(ownerId)),
+                new Update().addToSet("scheduleIds").each(ids.toArray())));
+        bulk.execute();
+        return true;
+    }
+}
@@ -0,0 +1,173 @@
+package com.smartsched.smartsched_api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.dto.SchedulePage;
+import com.smartsched.smartsched_api.dto.ScheduleView;
+import com.smartsched.smartsched_api.model.Schedule;
+
+/**
+ * Filtered, projected, keyset-paginated reads of the schedules collection.
+ * Pages are ordered by _id and continue from the last _id returned, so deep pages cost
+ * the same as the first one. A filter on section, teacher, classroom or problem is served by
+ * that field's {field, _id} index on Schedule, which also yields the rows in page order.
+ */
+@Service
+public class ScheduleQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleQueryService.class);
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // Documents per cursor batch, and how many lines are written between flushes, when streaming
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    // Fields a client may ask for with ?fields=; _id is always included (it is the cursor)
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of(
+            "problemId", "subjectCode", "subjectName", "teacherId", "sectionId", "classroomId",
+            "dayOfWeek", "startTime", "endTime", "startMinute", "endMinute", "isMajor");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    // Flushes only where streamNdjson says so; by default every value written is flushed on its own
+    private final ObjectWriter lineWriter;
+
+    public ScheduleQueryService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writerFor(ScheduleView.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public SchedulePage findPage(ScheduleFilter filter, String cursor, Integer limit, List<String> fields) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ".");
+        }
+
+        Criteria criteria = criteriaFor(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            if (!ObjectId.isValid(cursor)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            criteria.and("_id").gt(new ObjectId(cursor));
+        }
+
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(pageSize + 1);
+        applyProjection(query, fields);
+
+        // One extra row tells us whether there is a next page without a count query
+        List<Schedule> rows = mongoTemplate.find(query, Schedule.class);
+        boolean hasMore = rows.size() > pageSize;
+        List<ScheduleView> items = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            items.add(ScheduleView.from(rows.get(i)));
+        }
+        String nextCursor = hasMore ? items.get(items.size() - 1).id() : null;
+        return new SchedulePage(items, nextCursor);
+    }
+
+    /**
+     * Throws IllegalArgumentException for a filter or field list that the query methods would reject.
+     */
+    public void validate(ScheduleFilter filter, List<String> fields) {
+        criteriaFor(filter);
+        applyProjection(new Query(), fields);
+    }
+
+    /**
+     * Writes every matching schedule to out as newline-delimited JSON, one ScheduleView per line,
+     * straight from a MongoDB cursor. Only one cursor batch is held in memory; a slow client
+     * blocks the write, which in turn stops the next batch being fetched.
+     * Returns the number of documents written.
+     */
+    public long streamNdjson(ScheduleFilter filter, List<String> fields, OutputStream out) throws IOException {
+        Query query = new Query(criteriaFor(filter)).with(Sort.by(Sort.Direction.ASC, "_id"));
+        applyProjection(query, fields);
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+
+        long written = 0;
+        // The generator must not close the servlet stream; the container owns it
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             Stream<Schedule> schedules = mongoTemplate.stream(query, Schedule.class)) {
+            Iterator<Schedule> cursor = schedules.iterator();
+            while (cursor.hasNext()) {
+                lineWriter.writeValue(generator, ScheduleView.from(cursor.next()));
+                generator.writeRaw('\n');
+                if (++written % STREAM_BATCH_SIZE == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        logger.info("Streamed {} schedules as NDJSON.", written);
+        return written;
+    }
+
+    /**
+     * Mongo criteria for a filter. Shared by every endpoint that accepts ScheduleFilter.
+     * Time-range filters only match documents that already have startMinute/endMinute.
+     */
+    public Criteria criteriaFor(ScheduleFilter filter) {
+        Criteria criteria = new Criteria();
+        if (filter == null) return criteria;
+
+        if (hasText(filter.sectionId())) criteria.and("sectionId").is(filter.sectionId());
+        if (hasText(filter.teacherId())) criteria.and("teacherId").is(filter.teacherId());
+        if (hasText(filter.classroomId())) criteria.and("classroomId").is(filter.classroomId());
+        if (filter.dayOfWeek() != null) criteria.and("dayOfWeek").is(filter.dayOfWeek());
+        if (hasText(filter.problemId())) criteria.and("problemId").is(filter.problemId());
+
+        Integer from = filter.fromMinute();
+        Integer to = filter.toMinute();
+        if (from != null && to != null && from >= to) {
+            throw new IllegalArgumentException("fromMinute must be before toMinute.");
+        }
+        // Overlap with [from, to): starts before the window ends and ends after it starts
+        if (to != null) criteria.and("startMinute").lt(to);
+        if (from != null) criteria.and("endMinute").gt(from);
+        return criteria;
+    }
+
+    /**
+     * Restricts the query to the requested fields. Unknown names are rejected rather than ignored
+     * so a typo does not silently return empty objects.
+     */
+    public void applyProjection(Query query, List<String> fields) {
+        if (fields == null || fields.isEmpty()) return;
+        query.fields().include("_id");
+        for (String field : fields) {
+            String name = field.trim();
+            if (name.isEmpty() || name.equals("id")) continue;
+            if (!PROJECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            query.fields().include(name);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
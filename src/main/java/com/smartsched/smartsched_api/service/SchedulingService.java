@@ -1,89 +1,181 @@
 package com.smartsched.smartsched_api.service;
 
+import com.smartsched.smartsched_api.dto.ConstraintProfileReport;
+import com.smartsched.smartsched_api.dto.SolveOptions;
+import com.smartsched.smartsched_api.dto.SolveRunSummary;
+import com.smartsched.smartsched_api.jfr.ProblemAssemblyEvent;
+import com.smartsched.smartsched_api.jfr.SaveSolutionStepEvent;
+import com.smartsched.smartsched_api.jfr.SolverPhaseEvent;
 import com.smartsched.smartsched_api.model.*;
 import com.smartsched.smartsched_api.repository.*;
 import com.smartsched.smartsched_api.solver.domain.Allocation;
 import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
 import com.smartsched.smartsched_api.solver.domain.Timeslot;
 import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverJob;
 import ai.timefold.solver.core.api.solver.SolverManager;
 import ai.timefold.solver.core.api.solver.SolverStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class SchedulingService {
     private static final Logger logger = LoggerFactory.getLogger(SchedulingService.class);
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("hh:mm a");
 
     private final SolverManager<ScheduleSolution, String> solverManager;
     private final ConcurrentMap<String, SolverStatus> solverStatusMap = new ConcurrentHashMap<>();
-    private final AtomicLong nextAllocationId = new AtomicLong(1);
+    private final ConcurrentMap<String, SchedulePersistenceService.SaveStats> saveStatsMap = new ConcurrentHashMap<>();
     
-    private final TeacherRepository teacherRepository;
-    private final ClassroomRepository classroomRepository;
-    private final SectionRepository sectionRepository;
     private final ScheduleRepository scheduleRepository;
+    private final ReferenceDataCache referenceDataCache;
+    private final SchedulePersistenceService schedulePersistenceService;
+    private final ChangeVersions changeVersions;
+    // Blocking saves and cleanups run here, not on the solver's threads
+    private final ExecutorService ioExecutor;
+    // Newest write not yet done, per problem: saving the latest best solution, or the cleanup after
+    // a failed job. At most one task per problem drains it, so writes of one section never overlap,
+    // intermediate solutions are skipped rather than queued, and a cleanup follows any save in flight.
+    private final ConcurrentMap<String, Runnable> pendingWrites = new ConcurrentHashMap<>();
+    private final SolverMetrics solverMetrics;
+    private final ConstraintProfilingService constraintProfiling;
+    private final SolveRunHistory solveRunHistory;
+    private final ProblemCaptureService problemCapture;
+    private final ReproducibleSolving reproducibleSolving;
 
     @Autowired
     public SchedulingService(SolverManager<ScheduleSolution, String> solverManager,
-                             TeacherRepository teacherRepository,
-                             ClassroomRepository classroomRepository, SectionRepository sectionRepository,
-                             ScheduleRepository scheduleRepository) {
+                             ScheduleRepository scheduleRepository, ReferenceDataCache referenceDataCache,
+                             SchedulePersistenceService schedulePersistenceService, ChangeVersions changeVersions,
+                             @Qualifier("ioExecutor") ExecutorService ioExecutor, SolverMetrics solverMetrics,
+                             ConstraintProfilingService constraintProfiling, SolveRunHistory solveRunHistory,
+                             ProblemCaptureService problemCapture, ReproducibleSolving reproducibleSolving) {
         this.solverManager = solverManager;
-        this.teacherRepository = teacherRepository;
-        this.classroomRepository = classroomRepository;
-        this.sectionRepository = sectionRepository;
         this.scheduleRepository = scheduleRepository;
+        this.referenceDataCache = referenceDataCache;
+        this.schedulePersistenceService = schedulePersistenceService;
+        this.changeVersions = changeVersions;
+        this.ioExecutor = ioExecutor;
+        this.solverMetrics = solverMetrics;
+        this.constraintProfiling = constraintProfiling;
+        this.solveRunHistory = solveRunHistory;
+        this.problemCapture = problemCapture;
+        this.reproducibleSolving = reproducibleSolving;
     }
 
     public SolverStatus getSolverStatus(String problemId) {
         return solverStatusMap.getOrDefault(problemId, SolverStatus.NOT_SOLVING);
     }
 
+    // Round trips and latency of the last save for this job (empty until it has been saved)
+    public Optional<SchedulePersistenceService.SaveStats> getSaveStats(String problemId) {
+        return Optional.ofNullable(saveStatsMap.get(problemId));
+    }
+
+    // Ranked per-constraint evaluation cost of the job (empty unless profiling was on when it ran)
+    public Optional<ConstraintProfileReport> getConstraintProfile(String problemId) {
+        return constraintProfiling.report(problemId);
+    }
+
+    // Most recent finished solve jobs, newest first
+    public List<SolveRun> getRecentSolveRuns() {
+        return solveRunHistory.recent();
+    }
+
+    // Solve-run percentiles per problem size over the last `days` days
+    public List<SolveRunSummary> getSolveRunSummary(int days) {
+        return solveRunHistory.summarize(days);
+    }
+
+
+    // Request values over the smartsched.solver.reproducible.* defaults; bad values throw IllegalArgumentException
+    public SolveOptions resolveSolveOptions(Boolean reproducible, Long randomSeed, Long moveCountLimit) {
+        return reproducibleSolving.resolve(reproducible, randomSeed, moveCountLimit);
+    }
 
     public void solveAndSave(String problemId, String sectionId, List<ScheduleInput> scheduleInputs) {
+        solveAndSave(problemId, sectionId, scheduleInputs, SolveOptions.DEFAULT);
+    }
+
+    public void solveAndSave(String problemId, String sectionId, List<ScheduleInput> scheduleInputs, SolveOptions options) {
         logger.info("Received scheduling request for problemId: {} and sectionId: {}", problemId, sectionId);
+        // Seeded jobs need their own SolverManager: the shared one cannot change the seed per job.
+        // Jobs with the configured seed share one and queue; for any other seed it is taken first,
+        // so a request over the seeded-job quota is refused before anything is assembled.
+        if (options.isDefault()) {
+            submit(problemId, sectionId, scheduleInputs, options, solverManager);
+            return;
+        }
+        logger.info("Solving problemId {} with seed {} (reproducible: {}, move count limit: {})", problemId,
+                options.randomSeed(), options.reproducible(), options.moveCountLimit());
+        SolverManager<ScheduleSolution, String> configured = reproducibleSolving.configuredSolverManager(options);
+        if (configured != null) {
+            submit(problemId, sectionId, scheduleInputs, options, configured);
+            return;
+        }
+        SolverManager<ScheduleSolution, String> dedicated = reproducibleSolving.newSolverManager(options);
+        SolverJob<ScheduleSolution, String> solverJob;
+        try {
+            solverJob = submit(problemId, sectionId, scheduleInputs, options, dedicated);
+        } catch (RuntimeException e) {
+            reproducibleSolving.close(dedicated);
+            throw e;
+        }
+        reproducibleSolving.closeWhenDone(problemId, solverJob, dedicated);
+    }
+
+    private SolverJob<ScheduleSolution, String> submit(String problemId, String sectionId, List<ScheduleInput> scheduleInputs,
+                                                       SolveOptions options, SolverManager<ScheduleSolution, String> jobSolverManager) {
         solverStatusMap.put(problemId, SolverStatus.SOLVING_SCHEDULED);
+        ProblemAssemblyEvent assemblyEvent = new ProblemAssemblyEvent();
+        assemblyEvent.begin();
 
-        Section sectionToSchedule = sectionRepository.findById(sectionId)
+        Section sectionToSchedule = referenceDataCache.findSection(sectionId)
                 .orElseThrow(() -> {
                      logger.error("Section with ID {} not found!", sectionId);
                      solverStatusMap.put(problemId, SolverStatus.NOT_SOLVING);
                      return new IllegalArgumentException("Section with ID " + sectionId + " not found.");
                 });
         
-        List<Teacher> allTeachers = teacherRepository.findAll();
-        List<Classroom> allClassrooms = classroomRepository.findAll();
+        // Reference data comes from the in-memory cache (immutable snapshots, already keyed by id).
+        // Facts and pinned schedules are put in id order, as MongoDB returns them in no set order
+        // and a seeded solve is only repeatable if the problem is assembled the same way every time.
+        List<Teacher> allTeachers = sortedById(referenceDataCache.getTeachers(), Teacher::getId);
+        List<Classroom> allClassrooms = sortedById(referenceDataCache.getClassrooms(), Classroom::getId);
         List<Timeslot> allTimeslots = generateTimeslots();
         
-        List<Section> allSections = sectionRepository.findAll();
-        List<Schedule> allExistingSchedules = scheduleRepository.findAll();
+        List<Section> allSections = sortedById(referenceDataCache.getSections(), Section::getId);
+        // Only other sections' schedules become pinned; this section's are replaced on save
+        List<Schedule> allExistingSchedules = sortedById(scheduleRepository.findAllBySectionIdNot(sectionId), Schedule::getId);
 
         // Create lookup maps for efficiency
-        Map<String, Teacher> teacherMap = allTeachers.stream().collect(Collectors.toMap(Teacher::getId, t -> t, (t1, t2) -> t1));
-        Map<String, Classroom> classroomMap = allClassrooms.stream().collect(Collectors.toMap(Classroom::getId, c -> c, (c1, c2) -> c1));
-        Map<String, Section> sectionMap = allSections.stream().collect(Collectors.toMap(Section::getId, s -> s, (s1, s2) -> s1));
-        Map<String, Timeslot> timeslotMap = allTimeslots.stream().collect(Collectors.toMap(ts -> ts.getDayOfWeek().toString() + "_" + ts.getStartTime().toString(), ts -> ts, (ts1, ts2) -> ts1));
+        Map<String, Teacher> teacherMap = referenceDataCache.getTeacherMap();
+        Map<String, Classroom> classroomMap = referenceDataCache.getClassroomMap();
+        Map<String, Section> sectionMap = referenceDataCache.getSectionMap();
+        Map<String, Timeslot> timeslotMap = allTimeslots.stream().collect(Collectors.toMap(ts -> timeslotKey(ts.getDayOfWeek(), ScheduleTimes.toMinutes(ts.getStartTime())), ts -> ts, (ts1, ts2) -> ts1));
 
         List<Allocation> allocations = new ArrayList<>();
+        // Numbered per job, so the same request always gives the same allocation ids
+        long nextAllocationId = 1;
         logger.info("Creating NEW allocations for {} subjects...", scheduleInputs.size());
 
         for (ScheduleInput input : scheduleInputs) {
@@ -101,7 +193,7 @@ public class SchedulingService {
 
             for (int duration : sessionDurationsInMinutes) {
                 Allocation newAllocation = new Allocation(
-                        nextAllocationId.getAndIncrement(),
+                        nextAllocationId++,
                         input.getSubjectCode(), input.getSubjectName(),
                         teacher, sectionToSchedule, duration, input.isMajor(),
                         false // This is a NEW allocation, so it is NOT pinned
@@ -117,7 +209,7 @@ public class SchedulingService {
         logger.info("Converting {} existing schedules to PINNED allocations...", allExistingSchedules.size());
         int pinnedCount = 0;
         for (Schedule existing : allExistingSchedules) {
-            if (existing.getSectionId().equals(sectionId)) {
+            if (sectionId.equals(existing.getSectionId())) {
                 logger.info("Skipping existing schedule {} for section {} (it will be deleted)", existing.getId(), sectionId);
                 continue;
             }
@@ -125,34 +217,35 @@ public class SchedulingService {
             Teacher teacher = (existing.getTeacherId() != null) ? teacherMap.get(existing.getTeacherId()) : null;
             Classroom classroom = classroomMap.get(existing.getClassroomId());
             Section section = sectionMap.get(existing.getSectionId());
-            LocalTime startTime;
-            LocalTime endTime;
-            try {
-                startTime = LocalTime.parse(existing.getStartTime(), TIME_FORMATTER);
-                endTime = LocalTime.parse(existing.getEndTime(), TIME_FORMATTER);
-            } catch (Exception e) {
-                 logger.error("!!! Failed to parse time for existing schedule {}: '{}' / '{}'", existing.getId(), existing.getStartTime(), existing.getEndTime(), e);
+            // Integer minutes are persisted on Schedule; the string fallback only covers
+            // documents the background migration has not reached yet.
+            int startMinute = ScheduleTimes.startMinuteOf(existing);
+            int endMinute = ScheduleTimes.endMinuteOf(existing);
+            if (startMinute < 0 || endMinute < 0) {
+                 logger.error("!!! Failed to parse time for existing schedule {}: '{}' / '{}'", existing.getId(), existing.getStartTime(), existing.getEndTime());
                  continue;
             }
             
-            String timeslotKey = existing.getDayOfWeek().toString() + "_" + startTime.toString();
+            String timeslotKey = timeslotKey(existing.getDayOfWeek(), startMinute);
             Timeslot timeslot = timeslotMap.get(timeslotKey);
-            int duration = (int) ChronoUnit.MINUTES.between(startTime, endTime);
-            if(duration < 0) duration += 1440; // 24 * 60
+            int duration = existing.getDurationMinutes() != null
+                    ? existing.getDurationMinutes()
+                    : ScheduleTimes.duration(startMinute, endMinute);
 
             if (classroom != null && section != null && timeslot != null && duration > 0) {
-                 // Determine if this is a major subject by checking if it requires a lab
-                 // For now, we'll need to check the subject code or use a different method
-                 // Since we don't have isMajor in Schedule, we'll set it based on classroom type
-                 boolean isMajor = classroom.getType() != null && 
+                 // isMajor is persisted by saveSolution; only legacy documents fall back
+                 // to guessing from the classroom type
+                 boolean isMajor = existing.getIsMajor() != null
+                         ? existing.getIsMajor()
+                         : classroom.getType() != null &&
                                   (classroom.getType().toLowerCase().contains("lab") || 
                                    classroom.getType().toLowerCase().contains("laboratory"));
                  
                  Allocation pinnedAllocation = new Allocation(
-                    nextAllocationId.getAndIncrement(),
+                    nextAllocationId++,
                     existing.getSubjectCode(), existing.getSubjectName(),
                     teacher, section, duration,
-                    isMajor, // Set isMajor based on classroom type for pinned allocations
+                    isMajor,
                     true // This is pinned
                 );
                 pinnedAllocation.setTimeslot(timeslot);
@@ -190,12 +283,59 @@ public class SchedulingService {
         // #endregion
         
         ScheduleSolution problem = new ScheduleSolution(allTimeslots, allClassrooms, allTeachers, allSections, allocations);
+        if (assemblyEvent.shouldCommit()) {
+            assemblyEvent.problemId = problemId;
+            assemblyEvent.sectionId = sectionId;
+            assemblyEvent.newAllocations = allocations.size() - pinnedCount;
+            assemblyEvent.pinnedAllocations = pinnedCount;
+            assemblyEvent.existingSchedules = allExistingSchedules.size();
+            assemblyEvent.commit();
+        }
+        // Open SolverPhaseEvent of this job, if a recording wants them
+        AtomicReference<SolverPhaseEvent> phaseEvent = new AtomicReference<>();
 
-        solverManager.solveAndListen(
-                problemId,
-                id -> problem,
-                finalBestSolution -> saveSolution(problemId, finalBestSolution),
-                (String failedProblemId, Throwable throwable) -> {
+        SolveJobTracker job = new SolveJobTracker(problemId);
+        solverMetrics.jobQueued(job);
+        solveRunHistory.jobQueued(job, sectionId, problem, pinnedCount, options);
+        problemCapture.jobQueued(problemId, sectionId, problem);
+        SolverJob<ScheduleSolution, String> solverJob = jobSolverManager.solveBuilder()
+                .withProblemId(problemId)
+                // The finder runs on the job's solver thread, which is where profiling must be bound
+                .withProblemFinder(id -> {
+                     constraintProfiling.jobStarted(id);
+                     return problem;
+                })
+                .withSolverJobStartedConsumer(initialSolution -> {
+                     if (job.markStarted()) {
+                         solverMetrics.jobStarted(job);
+                         solveRunHistory.jobStarted(job);
+                     }
+                     beginPhase(phaseEvent, problemId, sectionId, "construction heuristic", initialSolution.getScore());
+                })
+                .withFirstInitializedSolutionConsumer((initializedSolution, terminatedEarly) -> {
+                     solveRunHistory.firstInitializedSolution(job);
+                     endPhase(phaseEvent, initializedSolution.getScore(), terminatedEarly);
+                     if (!terminatedEarly) {
+                         beginPhase(phaseEvent, problemId, sectionId, "local search", initializedSolution.getScore());
+                     }
+                })
+                .withBestSolutionConsumer(bestSolution -> {
+                     if (job.markFeasible(bestSolution.getScore())) {
+                         solverMetrics.firstFeasible(job);
+                         solveRunHistory.firstFeasible(job);
+                     }
+                     queueWrite(problemId, () -> saveSolution(problemId, bestSolution));
+                })
+                .withFinalBestSolutionConsumer(finalBestSolution -> {
+                     if (job.markEnded()) {
+                         solverMetrics.jobFinished(job, finalBestSolution.getScore());
+                         solveRunHistory.jobFinished(job, finalBestSolution.getScore());
+                     }
+                     problemCapture.jobFinished(problemId, finalBestSolution.getScore());
+                     endPhase(phaseEvent, finalBestSolution.getScore(), false);
+                     constraintProfiling.jobFinished(problemId, finalBestSolution);
+                })
+                .withExceptionHandler((String failedProblemId, Throwable throwable) -> {
                      logger.error("!!! SOLVING FAILED for problemId: {} !!!", failedProblemId, throwable);
                      // #region agent log
                      try {
@@ -205,13 +345,67 @@ public class SchedulingService {
                      } catch (Exception e) {}
                      // #endregion
                      solverStatusMap.put(failedProblemId, SolverStatus.NOT_SOLVING);
-                     try {
-                         logger.warn("Attempting cleanup for failed problemId: {}", failedProblemId);
-                         scheduleRepository.deleteByProblemId(failedProblemId);
-                         logger.warn("Cleaned up entries for failed problemId: {}", failedProblemId);
-                     } catch (Exception e) { logger.error("!!! Cleanup failed for problemId: {} !!!", failedProblemId, e); }
-                 }
-        );
+                     if (job.markEnded()) {
+                         solverMetrics.jobFailed(job);
+                         solveRunHistory.jobFailed(job);
+                     }
+                     problemCapture.jobFailed(failedProblemId);
+                     constraintProfiling.jobFinished(failedProblemId, null);
+                     endPhase(phaseEvent, null, true);
+                     // Replaces any solution not yet saved; a save already running finishes first
+                     queueWrite(failedProblemId, () -> {
+                         try {
+                             logger.warn("Attempting cleanup for failed problemId: {}", failedProblemId);
+                             scheduleRepository.deleteByProblemId(failedProblemId);
+                             changeVersions.schedulesChanged();
+                             logger.warn("Cleaned up entries for failed problemId: {}", failedProblemId);
+                         } catch (Exception e) { logger.error("!!! Cleanup failed for problemId: {} !!!", failedProblemId, e); }
+                     });
+                 })
+                .run();
+        job.setSolverJob(solverJob);
+        return solverJob;
+    }
+
+    private static void beginPhase(AtomicReference<SolverPhaseEvent> current, String problemId, String sectionId,
+                                   String phase, HardSoftScore startScore) {
+        SolverPhaseEvent event = new SolverPhaseEvent();
+        if (!event.isEnabled()) return;
+        event.problemId = problemId;
+        event.sectionId = sectionId;
+        event.phase = phase;
+        event.startScore = String.valueOf(startScore);
+        event.begin();
+        current.set(event);
+    }
+
+    private static void endPhase(AtomicReference<SolverPhaseEvent> current, HardSoftScore endScore, boolean terminatedEarly) {
+        SolverPhaseEvent event = current.getAndSet(null);
+        if (event == null) return;
+        event.end();
+        event.endScore = String.valueOf(endScore);
+        event.terminatedEarly = terminatedEarly;
+        event.commit();
+    }
+
+    private void queueWrite(String problemId, Runnable write) {
+        if (pendingWrites.put(problemId, write) == null) {
+            ioExecutor.execute(() -> drainWrites(problemId));
+        }
+    }
+
+    // Runs on the I/O executor; saveSolution has already logged and reset the status on failure
+    private void drainWrites(String problemId) {
+        while (true) {
+            Runnable write = pendingWrites.get(problemId);
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                logger.debug("Write task for problemId {} ended with: {}", problemId, e.getMessage());
+            }
+            // A newer write arrived meanwhile: go round again
+            if (pendingWrites.remove(problemId, write)) return;
+        }
     }
 
     @Transactional
@@ -227,8 +421,22 @@ public class SchedulingService {
             HardSoftScore finalScore = finalBestSolution.getScore();
             logger.info("Solver finished for problemId: {}. Final score: {}", problemId, finalScore);
             
+            String solvedSectionId = null;
+            for(Allocation alloc : finalBestSolution.getAllocations()) {
+                if(!alloc.isPinned()) { // Find the first unpinned allocation
+                    if (alloc.getSection() != null) {
+                        solvedSectionId = alloc.getSection().getId();
+                        break;
+                    }
+                }
+            }
+            
             // Additional validation: manually check for overlaps
+            SaveSolutionStepEvent validateEvent = new SaveSolutionStepEvent(problemId, solvedSectionId, "validate");
+            validateEvent.begin();
             boolean hasOverlaps = validateSolutionForOverlaps(finalBestSolution);
+            validateEvent.documents = finalBestSolution.getAllocations().size();
+            validateEvent.commit();
             // #region agent log
             try {
                 java.io.FileWriter fw = new java.io.FileWriter("c:\\Users\\April Joy Lorca\\Documents\\SmartScheduler\\smartsched_app\\.cursor\\debug.log", true);
@@ -251,46 +459,15 @@ public class SchedulingService {
             }
             solverStatusMap.put(problemId, SolverStatus.NOT_SOLVING);
 
-            String solvedSectionId = null;
-            for(Allocation alloc : finalBestSolution.getAllocations()) {
-                if(!alloc.isPinned()) { // Find the first unpinned allocation
-                    if (alloc.getSection() != null) {
-                        solvedSectionId = alloc.getSection().getId();
-                        break;
-                    }
-                }
-            }
-            
             if (solvedSectionId == null) {
                  logger.warn("No unpinned allocations found in solution for {}. No schedules updated.", problemId);
                  return;
             }
             
-            logger.info("Clearing old schedules for *solved* section: {}", solvedSectionId);
-            List<Schedule> oldSchedulesForSection = scheduleRepository.findAllBySectionId(solvedSectionId);
-            List<String> oldScheduleIds = oldSchedulesForSection.stream().map(Schedule::getId).collect(Collectors.toList());
-            if (!oldSchedulesForSection.isEmpty()) {
-                 scheduleRepository.deleteAll(oldSchedulesForSection);
-            }
-
-            Map<String, Teacher> teachersToUpdate = new HashMap<>();
-            Map<String, Classroom> classroomsToUpdate = new HashMap<>();
-            
-            for(Schedule oldSchedule : oldSchedulesForSection) {
-                if(oldSchedule.getTeacherId() != null) teacherRepository.findById(oldSchedule.getTeacherId()).ifPresent(t -> teachersToUpdate.putIfAbsent(t.getId(), t));
-                if(oldSchedule.getClassroomId() != null) classroomRepository.findById(oldSchedule.getClassroomId()).ifPresent(c -> classroomsToUpdate.putIfAbsent(c.getId(), c));
-            }
-            
-            teachersToUpdate.values().forEach(t -> { if(t.getScheduleIds() != null) t.getScheduleIds().removeAll(oldScheduleIds); });
-            classroomsToUpdate.values().forEach(c -> { if(c.getScheduleIds() != null) c.getScheduleIds().removeAll(oldScheduleIds); });
-
             final String finalSolvedSectionId = solvedSectionId; // For use in lambda
-            Section sectionToUpdate = sectionRepository.findById(finalSolvedSectionId)
-                 .orElseThrow(() -> new IllegalStateException("Section disappeared: " + finalSolvedSectionId));
-            sectionToUpdate.setScheduleIds(new ArrayList<>());
-
-
-            int savedCount = 0;
+            SaveSolutionStepEvent fixUpEvent = new SaveSolutionStepEvent(problemId, solvedSectionId, "fix-up");
+            fixUpEvent.begin();
+            List<Schedule> newSchedules = new ArrayList<>();
             for (Allocation allocation : finalBestSolution.getAllocations()) {
                 if (allocation.isPinned() || !allocation.getSection().getId().equals(finalSolvedSectionId)) continue;
                 if (allocation.getTimeslot() == null || allocation.getClassroom() == null) {
@@ -299,31 +476,21 @@ public class SchedulingService {
                 }
 
                  Timeslot ts = allocation.getTimeslot();
-                 LocalTime st = ts.getStartTime();
-                 LocalTime et = st.plusMinutes(allocation.getDurationInMinutes());
+                 int startMinute = ScheduleTimes.toMinutes(ts.getStartTime());
+                 int endMinute = startMinute + allocation.getDurationInMinutes();
                  String teacherId = (allocation.getTeacher() != null) ? allocation.getTeacher().getId() : null;
 
-                 Schedule schedule = new Schedule(problemId, allocation.getSubjectCode(), allocation.getSubjectName(), teacherId, allocation.getSection().getId(), allocation.getClassroom().getId(), ts.getDayOfWeek(), st.format(TIME_FORMATTER), et.format(TIME_FORMATTER));
-                 
-                 Schedule saved = scheduleRepository.save(schedule);
-                 String newId = saved.getId();
-                 savedCount++;
-
-                 if (teacherId != null) {
-                     Teacher t = teachersToUpdate.computeIfAbsent(teacherId, tid -> teacherRepository.findById(tid).get());
-                     if (t.getScheduleIds() == null) t.setScheduleIds(new ArrayList<>());
-                     t.getScheduleIds().add(newId);
-                 }
-                 Classroom c = classroomsToUpdate.computeIfAbsent(allocation.getClassroom().getId(), cid -> classroomRepository.findById(cid).get());
-                 if (c.getScheduleIds() == null) c.setScheduleIds(new ArrayList<>());
-                 c.getScheduleIds().add(newId);
-                 sectionToUpdate.getScheduleIds().add(newId);
+                 newSchedules.add(new Schedule(problemId, allocation.getSubjectCode(), allocation.getSubjectName(), teacherId, allocation.getSection().getId(), allocation.getClassroom().getId(), ts.getDayOfWeek(), startMinute, endMinute, allocation.isMajor()));
             }
-            logger.info("Saved {} new schedule entries.", savedCount);
-            
-            if (!teachersToUpdate.isEmpty()) teacherRepository.saveAll(teachersToUpdate.values());
-            if (!classroomsToUpdate.isEmpty()) classroomRepository.saveAll(classroomsToUpdate.values());
-            sectionRepository.save(sectionToUpdate);
+
+            fixUpEvent.documents = newSchedules.size();
+            fixUpEvent.commit();
+
+            // Delete, insert and back-reference updates as a fixed number of bulk round trips
+            logger.info("Replacing schedules for *solved* section: {}", solvedSectionId);
+            SchedulePersistenceService.SaveStats stats = schedulePersistenceService.replaceSectionSchedules(problemId, finalSolvedSectionId, newSchedules);
+            saveStatsMap.put(problemId, stats);
+            logger.info("Saved {} new schedule entries ({} round trips, {} ms).", stats.inserted(), stats.roundTrips(), stats.latencyMillis());
             logger.info("New schedule saved successfully for problemId: {}", problemId);
         } catch (Exception e) {
              logger.error("!!! CRITICAL ERROR SAVING SOLUTION for problemId: {} !!!", problemId, e);
@@ -332,7 +499,18 @@ public class SchedulingService {
         }
     }
 
-    private List<Integer> determineSessionDurations(int totalHoursPerWeek) {
+    private static <T> List<T> sortedById(List<T> items, Function<T, String> id) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(id, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sorted;
+    }
+
+    private static String timeslotKey(DayOfWeek day, int startMinute) {
+        return day + "_" + startMinute;
+    }
+
+    // Session lengths in minutes for a subject's weekly hours; also used by the synthetic dataset generator
+    public static List<Integer> determineSessionDurations(int totalHoursPerWeek) {
          List<Integer> durations = new ArrayList<>();
          int totalMinutes = totalHoursPerWeek * 60;
          
@@ -385,7 +563,8 @@ public class SchedulingService {
          return durations;
     }
     
-    private List<Timeslot> generateTimeslots() {
+    // The weekly grid every problem is solved on (Mon-Sat, 1.5-hour slots)
+    public static List<Timeslot> generateTimeslots() {
         List<Timeslot> timeslots = new ArrayList<>();
         long idCounter = 1;
         
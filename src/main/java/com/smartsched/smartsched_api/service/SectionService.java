@@ -3,46 +3,61 @@ package com.smartsched.smartsched_api.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.smartsched.smartsched_api.model.Schedule;
 import com.smartsched.smartsched_api.model.Section;
-import com.smartsched.smartsched_api.repository.ScheduleRepository;
 import com.smartsched.smartsched_api.repository.SectionRepository;
 
 @Service
 public class SectionService {
 
     private final SectionRepository sectionRepository;
-    private final ScheduleRepository scheduleRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ChangeVersions changeVersions;
 
-    public SectionService(SectionRepository sectionRepository, ScheduleRepository scheduleRepository) {
+    public SectionService(SectionRepository sectionRepository, MongoTemplate mongoTemplate,
+                          ReferenceDataCache referenceDataCache, ChangeVersions changeVersions) {
         this.sectionRepository = sectionRepository;
-        this.scheduleRepository = scheduleRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
     }
 
+    // Reads are served from the reference-data cache; writes below keep it in sync.
     public List<Section> getAllSections() {
-        return sectionRepository.findAll();
+        return referenceDataCache.getSections();
     }
 
     public Optional<Section> getSectionById(String id) {
-        return sectionRepository.findById(id);
+        return referenceDataCache.findSection(id);
     }
 
     public Section createSection(Section section) {
-        return sectionRepository.save(section);
+        Section saved = sectionRepository.save(section);
+        referenceDataCache.putSection(saved);
+        return saved;
     }
 
     // --- FIX: "Unsafe Update" Bug ---
     public Optional<Section> updateSection(String id, Section sectionDetails) {
-        return sectionRepository.findById(id).map(existingSection -> {
-            existingSection.setProgram(sectionDetails.getProgram());
-            existingSection.setYearLevel(sectionDetails.getYearLevel());
-            existingSection.setSectionName(sectionDetails.getSectionName());
-            existingSection.setNumberOfStudents(sectionDetails.getNumberOfStudents());
-            // We DO NOT touch existingSection.scheduleIds
-            return sectionRepository.save(existingSection);
-        });
+        // Only the user-editable fields are $set; the document is never re-saved whole,
+        // so scheduleIds written concurrently by saveSolution cannot be overwritten.
+        Update update = new Update()
+                .set("program", sectionDetails.getProgram())
+                .set("yearLevel", sectionDetails.getYearLevel())
+                .set("sectionName", sectionDetails.getSectionName())
+                .set("numberOfStudents", sectionDetails.getNumberOfStudents());
+        Section updated = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Section.class);
+        if (updated != null) referenceDataCache.putSection(updated);
+        return Optional.ofNullable(updated);
     }
 
     // --- FIX: "Orphaned Schedule" Bug ---
@@ -52,15 +67,14 @@ public class SectionService {
         }
 
         // Step 1: Update linked schedules
-        // The error on the line below will be fixed when you update ScheduleRepository.java
-        List<Schedule> schedules = scheduleRepository.findAllBySectionId(id);
-        for (Schedule schedule : schedules) {
-            schedule.setSectionId(null); // Set to null
-        }
-        scheduleRepository.saveAll(schedules);
+        // One atomic multi-update instead of loading and re-saving every schedule
+        mongoTemplate.updateMulti(new Query(Criteria.where("sectionId").is(id)),
+                new Update().unset("sectionId"), Schedule.class);
+        changeVersions.schedulesChanged();
 
         // Step 2: Delete section
         sectionRepository.deleteById(id);
+        referenceDataCache.removeSection(id);
         return true;
     }
 }
@@ -0,0 +1,59 @@
+package com.smartsched.smartsched_api.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverJob;
+
+/**
+ * Where one solve job is in its life: queued, started, first feasible, ended. SchedulingService
+ * creates one per job and moves it along from the SolverManager callbacks; SolverMetrics and
+ * SolveRunHistory read the same instance instead of each keeping their own copy. The mark methods
+ * return true only the first time, so a repeated callback is not counted twice.
+ */
+public final class SolveJobTracker {
+
+    private final String problemId;
+    private final long queuedAtNanos = System.nanoTime();
+    private final AtomicLong startedAtNanos = new AtomicLong();
+    private final AtomicLong feasibleAtNanos = new AtomicLong();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile SolverJob<?, String> solverJob;
+
+    public SolveJobTracker(String problemId) {
+        this.problemId = problemId;
+    }
+
+    public boolean markStarted() {
+        return startedAtNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    public boolean markFeasible(HardSoftScore score) {
+        if (score == null || !score.isFeasible()) return false;
+        return feasibleAtNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    // The final best solution and the exception handler are exclusive, but only one may end the job
+    public boolean markEnded() {
+        return ended.compareAndSet(false, true);
+    }
+
+    // The SolverJob only exists once run() has returned, which can be after the job started
+    public void setSolverJob(SolverJob<?, String> solverJob) {
+        this.solverJob = solverJob;
+    }
+
+    public String getProblemId() { return problemId; }
+    public long getQueuedAtNanos() { return queuedAtNanos; }
+    public long getStartedAtNanos() { return startedAtNanos.get(); }
+    public long getFeasibleAtNanos() { return feasibleAtNanos.get(); }
+    public boolean isStarted() { return startedAtNanos.get() != 0; }
+    public SolverJob<?, String> getSolverJob() { return solverJob; }
+
+    // Solving time is counted from the start callback, or from queueing if it has not arrived
+    public long getSolvingFromNanos() {
+        long started = startedAtNanos.get();
+        return started != 0 ? started : queuedAtNanos;
+    }
+}
@@ -0,0 +1,217 @@
+package com.smartsched.smartsched_api.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.smartsched.smartsched_api.dto.SolveOptions;
+import com.smartsched.smartsched_api.dto.SolveRunSummary;
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.repository.SolveRunRepository;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverJob;
+import ai.timefold.solver.core.config.solver.SolverManagerConfig;
+
+/**
+ * Keeps one SolveRun document per solve job (collection solve_runs), fed from the same
+ * SolverManager callbacks and SolveJobTracker as SolverMetrics, and summarizes them by problem
+ * size so node sizes and termination limits can be chosen from real runs.
+ */
+@Service
+public class SolveRunHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(SolveRunHistory.class);
+
+    // Upper bounds (exclusive) of the entity-count buckets in the summary
+    private static final int[] SIZE_BUCKETS = {50, 100, 200, 500, 1000, 2000};
+
+    private final SolveRunRepository solveRunRepository;
+    private final ExecutorService ioExecutor;
+    private final Duration spentLimit;
+    private final HardSoftScore bestScoreLimit;
+    private final int parallelSolverCount;
+    private final String moveThreadCount;
+    // The document being filled in for each job that has not ended yet
+    private final Map<String, SolveRun> runs = new ConcurrentHashMap<>();
+
+    public SolveRunHistory(SolveRunRepository solveRunRepository,
+                           @Qualifier("ioExecutor") ExecutorService ioExecutor,
+                           @Value("${timefold.solver.termination.spent-limit:#{null}}") Duration spentLimit,
+                           @Value("${timefold.solver.termination.best-score-limit:#{null}}") String bestScoreLimit,
+                           @Value("${timefold.solver-manager.parallel-solver-count:AUTO}") String parallelSolverCount,
+                           @Value("${timefold.solver.move-thread-count:NONE}") String moveThreadCount) {
+        this.solveRunRepository = solveRunRepository;
+        this.ioExecutor = ioExecutor;
+        this.spentLimit = spentLimit;
+        this.bestScoreLimit = bestScoreLimit == null || bestScoreLimit.isBlank() ? null : HardSoftScore.parseScore(bestScoreLimit);
+        // Resolved the way Timefold resolves it, so AUTO is recorded as the actual count
+        this.parallelSolverCount = new SolverManagerConfig().withParallelSolverCount(parallelSolverCount)
+                .resolveParallelSolverCount();
+        this.moveThreadCount = moveThreadCount;
+    }
+
+    public void jobQueued(SolveJobTracker job, String sectionId, ScheduleSolution problem, int pinnedCount,
+                          SolveOptions options) {
+        SolveRun run = new SolveRun(job.getProblemId(), sectionId);
+        run.setEntityCount(problem.getAllocations().size() - pinnedCount);
+        run.setPinnedCount(pinnedCount);
+        run.setTimeslotCount(problem.getTimeslots().size());
+        run.setClassroomCount(problem.getClassrooms().size());
+        run.setTeacherCount(problem.getTeachers().size());
+        run.setSectionCount(problem.getSections().size());
+        // Seeded jobs run outside the shared pool, on one solver thread each (see ReproducibleSolving)
+        run.setParallelSolverCount(options.isDefault() ? parallelSolverCount : 1);
+        run.setRandomSeed(options.randomSeed());
+        run.setReproducible(options.reproducible());
+        run.setMoveThreadCount(moveThreadCount);
+        run.setAvailableProcessors(Runtime.getRuntime().availableProcessors());
+        runs.put(job.getProblemId(), run);
+    }
+
+    public void jobStarted(SolveJobTracker job) {
+        SolveRun run = runs.get(job.getProblemId());
+        if (run == null) return;
+        run.setQueueMillis(millisBetween(job.getQueuedAtNanos(), job.getStartedAtNanos()));
+    }
+
+    public void firstInitializedSolution(SolveJobTracker job) {
+        SolveRun run = runs.get(job.getProblemId());
+        if (run == null || !job.isStarted()) return;
+        run.setConstructionHeuristicMillis(millisBetween(job.getStartedAtNanos(), System.nanoTime()));
+    }
+
+    public void firstFeasible(SolveJobTracker job) {
+        SolveRun run = runs.get(job.getProblemId());
+        if (run == null) return;
+        run.setTimeToFeasibleMillis(millisBetween(job.getSolvingFromNanos(), job.getFeasibleAtNanos()));
+    }
+
+    public void jobFinished(SolveJobTracker job, HardSoftScore score) {
+        SolveRun run = runs.remove(job.getProblemId());
+        if (run == null) return;
+        if (score != null) {
+            run.setFinalScore(score.toString());
+            run.setHardScore(score.hardScore());
+            run.setSoftScore(score.softScore());
+            run.setFeasible(score.isFeasible());
+        }
+        SolverJob<?, String> solverJob = job.getSolverJob();
+        if (solverJob != null) {
+            run.setScoreCalculationSpeed(solverJob.getScoreCalculationSpeed());
+            run.setMoveEvaluationSpeed(solverJob.getMoveEvaluationSpeed());
+        }
+        run.setTerminationReason(terminationReason(run, job, score));
+        save(run, job);
+    }
+
+    public void jobFailed(SolveJobTracker job) {
+        SolveRun run = runs.remove(job.getProblemId());
+        if (run == null) return;
+        run.setTerminationReason("failed");
+        save(run, job);
+    }
+
+    // Timefold does not report which termination fired; infer it from the configured limits
+    private String terminationReason(SolveRun run, SolveJobTracker job, HardSoftScore score) {
+        if (run.isReproducible()) return "move count limit";
+        if (bestScoreLimit != null && score != null && score.compareTo(bestScoreLimit) >= 0) return "best score limit";
+        long solvingMillis = job.isStarted() ? millisBetween(job.getStartedAtNanos(), System.nanoTime()) : 0;
+        // The started callback arrives slightly after the solver's own clock starts
+        if (spentLimit != null && solvingMillis >= spentLimit.toMillis() - 1000) return "spent limit";
+        return "unimproved spent limit";
+    }
+
+    private void save(SolveRun run, SolveJobTracker job) {
+        run.setFinishedAt(Instant.now());
+        run.setTotalMillis(millisBetween(job.getQueuedAtNanos(), System.nanoTime()));
+        ioExecutor.execute(() -> {
+            try {
+                solveRunRepository.save(run);
+            } catch (RuntimeException e) {
+                logger.warn("Could not record solve run for problemId {}: {}", run.getProblemId(), e.getMessage());
+            }
+        });
+    }
+
+    public List<SolveRun> recent() {
+        return solveRunRepository.findTop100ByOrderByFinishedAtDesc();
+    }
+
+    /**
+     * Percentiles per entity-count bucket over the runs finished in the last `days` days.
+     */
+    public List<SolveRunSummary> summarize(int days) {
+        if (days <= 0) throw new IllegalArgumentException("days must be positive.");
+        List<SolveRun> runs = solveRunRepository.findAllByFinishedAtAfter(Instant.now().minus(Duration.ofDays(days)));
+        Map<Integer, List<SolveRun>> byBucket = runs.stream()
+                .collect(Collectors.groupingBy(run -> bucketOf(run.getEntityCount()), TreeMap::new, Collectors.toList()));
+
+        List<SolveRunSummary> summaries = new ArrayList<>();
+        byBucket.forEach((bucket, bucketRuns) -> {
+            List<SolveRun> finished = bucketRuns.stream().filter(run -> !"failed".equals(run.getTerminationReason())).toList();
+            summaries.add(new SolveRunSummary(
+                    bucketLabel(bucket),
+                    bucketRuns.size(),
+                    bucketRuns.size() - finished.size(),
+                    finished.isEmpty() ? 0 : Math.round(1000.0 * finished.stream().filter(SolveRun::isFeasible).count() / finished.size()) / 1000.0,
+                    Math.round(10.0 * bucketRuns.stream().mapToInt(SolveRun::getPinnedCount).average().orElse(0)) / 10.0,
+                    percentiles(finished, SolveRun::getTotalMillis),
+                    percentiles(bucketRuns, SolveRun::getQueueMillis),
+                    percentiles(finished.stream().filter(run -> run.getConstructionHeuristicMillis() != null).toList(),
+                            SolveRun::getConstructionHeuristicMillis),
+                    percentiles(finished.stream().filter(run -> run.getTimeToFeasibleMillis() != null).toList(),
+                            SolveRun::getTimeToFeasibleMillis),
+                    percentiles(finished, SolveRun::getScoreCalculationSpeed),
+                    bucketRuns.stream().collect(Collectors.groupingBy(
+                            run -> run.getTerminationReason() == null ? "unknown" : run.getTerminationReason(),
+                            TreeMap::new, Collectors.counting()))));
+        });
+        return summaries;
+    }
+
+    private static int bucketOf(int entityCount) {
+        for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+            if (entityCount < SIZE_BUCKETS[i]) return i;
+        }
+        return SIZE_BUCKETS.length;
+    }
+
+    private static String bucketLabel(int bucket) {
+        int from = bucket == 0 ? 0 : SIZE_BUCKETS[bucket - 1];
+        return bucket == SIZE_BUCKETS.length ? from + "+" : from + "-" + (SIZE_BUCKETS[bucket] - 1);
+    }
+
+    // Nearest-rank percentiles
+    private static SolveRunSummary.Percentiles percentiles(List<SolveRun> runs, ToLongFunction<SolveRun> value) {
+        if (runs.isEmpty()) return null;
+        long[] values = runs.stream().mapToLong(value).toArray();
+        Arrays.sort(values);
+        return new SolveRunSummary.Percentiles(rank(values, 0.50), rank(values, 0.90), rank(values, 0.95),
+                rank(values, 0.99), values[values.length - 1]);
+    }
+
+    private static long rank(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static long millisBetween(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,103 @@
+package com.smartsched.smartsched_api.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for solver jobs, fed from the SolverManager callbacks in SchedulingService.
+ * A job is queued from submission until Timefold starts it, then running until its final best
+ * solution or its exception arrives. Per-job timing comes from the job's SolveJobTracker.
+ */
+@Component
+public class SolverMetrics {
+
+    private final MeterRegistry registry;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong lastHardScore = new AtomicLong();
+    private final AtomicLong lastSoftScore = new AtomicLong();
+    private final Timer timeToFirstFeasible;
+    private final Timer solveDuration;
+    private final DistributionSummary scoreCalculationSpeed;
+    private final DistributionSummary moveEvaluationSpeed;
+
+    public SolverMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("smartsched.solver.jobs.queued", queued, AtomicInteger::get)
+                .description("Solve requests waiting for a solver thread")
+                .register(registry);
+        Gauge.builder("smartsched.solver.jobs.running", running, AtomicInteger::get)
+                .description("Solver jobs currently solving")
+                .register(registry);
+        Gauge.builder("smartsched.solver.final.score", lastHardScore, AtomicLong::get)
+                .tag("level", "hard").description("Hard score of the last finished job")
+                .register(registry);
+        Gauge.builder("smartsched.solver.final.score", lastSoftScore, AtomicLong::get)
+                .tag("level", "soft").description("Soft score of the last finished job")
+                .register(registry);
+        this.timeToFirstFeasible = Timer.builder("smartsched.solver.time.to.first.feasible")
+                .description("From solver start to the first best solution without hard violations")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.solveDuration = Timer.builder("smartsched.solver.duration")
+                .description("From submission to the final best solution, queueing included")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.scoreCalculationSpeed = DistributionSummary.builder("smartsched.solver.score.calculation.speed")
+                .baseUnit("calculations/s").description("Average score calculations per second of a job")
+                .register(registry);
+        this.moveEvaluationSpeed = DistributionSummary.builder("smartsched.solver.move.evaluation.speed")
+                .baseUnit("moves/s").description("Average moves evaluated per second of a job")
+                .register(registry);
+    }
+
+    public void jobQueued(SolveJobTracker job) {
+        queued.incrementAndGet();
+    }
+
+    public void jobStarted(SolveJobTracker job) {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+    }
+
+    public void firstFeasible(SolveJobTracker job) {
+        timeToFirstFeasible.record(job.getFeasibleAtNanos() - job.getSolvingFromNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void jobFinished(SolveJobTracker job, HardSoftScore score) {
+        finish(job, "finished");
+        if (score != null) {
+            lastHardScore.set(score.hardScore());
+            lastSoftScore.set(score.softScore());
+        }
+        solveDuration.record(Duration.ofNanos(System.nanoTime() - job.getQueuedAtNanos()));
+        SolverJob<?, String> solverJob = job.getSolverJob();
+        if (solverJob != null) {
+            scoreCalculationSpeed.record(solverJob.getScoreCalculationSpeed());
+            moveEvaluationSpeed.record(solverJob.getMoveEvaluationSpeed());
+        }
+    }
+
+    public void jobFailed(SolveJobTracker job) {
+        finish(job, "failed");
+    }
+
+    private void finish(SolveJobTracker job, String outcome) {
+        Counter.builder("smartsched.solver.jobs").tag("outcome", outcome)
+                .description("Solver jobs by outcome").register(registry).increment();
+        if (job.isStarted()) running.decrementAndGet();
+        else queued.decrementAndGet();
+    }
+}
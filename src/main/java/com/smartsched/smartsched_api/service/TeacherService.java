@@ -3,48 +3,62 @@ package com.smartsched.smartsched_api.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.smartsched.smartsched_api.model.Schedule;
 import com.smartsched.smartsched_api.model.Teacher;
-import com.smartsched.smartsched_api.repository.ScheduleRepository;
 import com.smartsched.smartsched_api.repository.TeacherRepository;
 
 @Service
 public class TeacherService {
 
     private final TeacherRepository teacherRepository;
-    private final ScheduleRepository scheduleRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final ChangeVersions changeVersions;
 
-    // Inject ScheduleRepository to update schedules on delete
-    public TeacherService(TeacherRepository teacherRepository, ScheduleRepository scheduleRepository) {
+    // Inject MongoTemplate to update schedules on delete and for field-level updates
+    public TeacherService(TeacherRepository teacherRepository, MongoTemplate mongoTemplate,
+                          ReferenceDataCache referenceDataCache, ChangeVersions changeVersions) {
         this.teacherRepository = teacherRepository;
-        this.scheduleRepository = scheduleRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.referenceDataCache = referenceDataCache;
+        this.changeVersions = changeVersions;
     }
 
+    // Reads are served from the reference-data cache; writes below keep it in sync.
     public List<Teacher> getAllTeachers() {
-        return teacherRepository.findAll();
+        return referenceDataCache.getTeachers();
     }
 
     public Optional<Teacher> getTeacherById(String id) {
-        return teacherRepository.findById(id);
+        return referenceDataCache.findTeacher(id);
     }
 
     public Teacher createTeacher(Teacher teacher) {
         // scheduleIds will be null by default, which is correct.
-        return teacherRepository.save(teacher);
+        Teacher saved = teacherRepository.save(teacher);
+        referenceDataCache.putTeacher(saved);
+        return saved;
     }
 
     // --- FIX: "Unsafe Update" Bug ---
     // This logic is now safe and will not overwrite scheduleIds.
     public Optional<Teacher> updateTeacher(String id, Teacher teacherDetails) {
-        return teacherRepository.findById(id).map(existingTeacher -> {
-            // Only update fields that can be edited by the user
-            existingTeacher.setName(teacherDetails.getName());
-            existingTeacher.setDepartment(teacherDetails.getDepartment());
-            // We intentionally DO NOT touch existingTeacher.scheduleIds
-            return teacherRepository.save(existingTeacher);
-        });
+        // Only the user-editable fields are $set; the document is never re-saved whole,
+        // so scheduleIds written concurrently by saveSolution cannot be overwritten.
+        Update update = new Update()
+                .set("name", teacherDetails.getName())
+                .set("department", teacherDetails.getDepartment());
+        Teacher updated = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(id)), update,
+                FindAndModifyOptions.options().returnNew(true), Teacher.class);
+        if (updated != null) referenceDataCache.putTeacher(updated);
+        return Optional.ofNullable(updated);
     }
 
     // --- FIX: "Orphaned Schedule" Bug ---
@@ -54,18 +68,15 @@ public class TeacherService {
             return false;
         }
         
-        // Step 1: Find all schedules linked to this teacher
-        // This method is defined in the new ScheduleRepository.java
-        // The error will disappear once that file is updated.
-        List<Schedule> schedules = scheduleRepository.findAllByTeacherId(id);
-        for (Schedule schedule : schedules) {
-            // This method is defined in Schedule.java (your Canvas file)
-            schedule.setTeacherId(null); // Set the link to null
-        }
-        scheduleRepository.saveAll(schedules); // Save the changes
+        // Step 1: Unlink all schedules of this teacher
+        // One atomic multi-update instead of loading and re-saving every schedule
+        mongoTemplate.updateMulti(new Query(Criteria.where("teacherId").is(id)),
+                new Update().unset("teacherId"), Schedule.class);
+        changeVersions.schedulesChanged();
 
         // Step 2: Now it's safe to delete the teacher
         teacherRepository.deleteById(id);
+        referenceDataCache.removeTeacher(id);
         return true;
     }
 }
@@ -7,6 +7,7 @@ import com.smartsched.smartsched_api.model.Role;
 import com.smartsched.smartsched_api.model.User;
 import com.smartsched.smartsched_api.repository.UserRepository;
 import com.smartsched.smartsched_api.security.JwtService;
+import com.smartsched.smartsched_api.security.TokenEpochCache;
 
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger; // Import Logger
@@ -35,6 +36,7 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final TokenEpochCache tokenEpochCache;
 
     @Transactional
     public User registerScheduler(RegisterRequest request) {
@@ -54,6 +56,8 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(request.password()));
         user.setRole(Role.ROLE_SCHEDULER);
         user.setEnabled(false);
+        // Start from the clock so a re-registered username never matches a deleted user's old tokens
+        user.setTokenEpoch(System.currentTimeMillis());
 
         User savedUser = userRepository.save(user);
         logger.info("User {} registered successfully with ID: {}. Pending approval.", savedUser.getUsername(), savedUser.getId()); // Add logging
@@ -122,12 +126,38 @@ public class UserService {
             throw new IllegalArgumentException("Cannot approve user with role: " + user.getRole());
         }
 
+        // No epoch bump: a pending user cannot log in, so there are no tokens to revoke
         user.setEnabled(true);
         User approvedUser = userRepository.save(user);
+        tokenEpochCache.update(approvedUser);
         logger.info("User {} (ID: {}) approved successfully.", approvedUser.getUsername(), approvedUser.getId()); // Add logging
         return approvedUser;
     }
 
+    /**
+     * Disables an approved user. Their tokens are rejected on this node at once, and on other
+     * nodes once their TokenEpochCache entry expires (jwt.epoch-cache.ttl-seconds).
+     */
+    @Transactional
+    public User disableUser(String userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
+        if (!user.isEnabled()) {
+            logger.warn("Attempted to disable already disabled user: {}", user.getUsername());
+            return user;
+        }
+        if (user.getRole() != Role.ROLE_SCHEDULER) {
+            logger.error("Attempted to disable user {} with role: {}", user.getUsername(), user.getRole());
+            throw new IllegalArgumentException("Cannot disable user with role: " + user.getRole());
+        }
+
+        user.setEnabled(false);
+        User disabledUser = userRepository.save(user);
+        tokenEpochCache.update(disabledUser);
+        logger.info("User {} (ID: {}) disabled.", disabledUser.getUsername(), disabledUser.getId());
+        return disabledUser;
+    }
+
      @Transactional
      public void deleteUser(String userId) {
          User user = userRepository.findById(userId)
@@ -143,6 +173,7 @@ public class UserService {
          // }
 
          userRepository.deleteById(userId);
+         tokenEpochCache.revoke(user.getUsername());
          logger.warn("User {} (ID: {}) deleted successfully.", user.getUsername(), userId); // Add logging
      }
 
@@ -0,0 +1,259 @@
+package com.smartsched.smartsched_api.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+import ai.timefold.solver.core.api.function.QuadPredicate;
+import ai.timefold.solver.core.api.function.ToIntQuadFunction;
+import ai.timefold.solver.core.api.function.ToIntTriFunction;
+import ai.timefold.solver.core.api.function.TriPredicate;
+
+/**
+ * Optional per-constraint profiling of ScheduleConstraintProvider.
+ *
+ * Each constraint wraps its filter and penalty/reward lambdas through a {@link Probe}. While
+ * profiling is off the wrappers only read one volatile flag and call through. While it is on,
+ * every call is counted and timed into the {@link JobProfile} bound to the current thread:
+ * the job's solver thread binds it (see SchedulingService) before solving starts. Once the job
+ * is finished the profile records nothing more, and a thread still bound to it drops the binding
+ * the next time a probe runs there.
+ *
+ * The constraint provider is instantiated by Timefold, not by Spring, hence the static state.
+ */
+public final class ConstraintProfiler {
+
+    private static volatile boolean enabled;
+    private static final ThreadLocal<JobProfile> CURRENT = new ThreadLocal<>();
+
+    // Constraint name <-> slot in JobProfile; stable for the life of the JVM
+    private static final Map<String, Integer> INDEX = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    private ConstraintProfiler() {}
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts collecting into a new profile on the calling thread. Returns null when profiling is off.
+     */
+    public static JobProfile bind() {
+        if (!enabled) {
+            CURRENT.remove();
+            return null;
+        }
+        JobProfile profile = new JobProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static Probe probe(String constraintName) {
+        int index = INDEX.computeIfAbsent(constraintName, name -> {
+            synchronized (NAMES) {
+                NAMES.add(name);
+                return NAMES.size() - 1;
+            }
+        });
+        return new Probe(index);
+    }
+
+    private static Stats current(int index) {
+        if (!enabled) return null;
+        JobProfile profile = CURRENT.get();
+        if (profile == null) return null;
+        if (profile.finished) {
+            CURRENT.remove();
+            return null;
+        }
+        return profile.stats(index);
+    }
+
+    /**
+     * Counters of one constraint in one job. Only the job's solver thread writes them, so they
+     * are plain fields; a report read while the job is still running may lag slightly.
+     */
+    public static final class Stats {
+        long filterCalls;
+        long filterPassed;
+        long filterNanos;
+        long weightCalls;
+        long weightNanos;
+        long weightTotal;
+    }
+
+    public record ConstraintStats(String constraint, long filterCalls, long filterPassed, long filterNanos,
+                                  long weightCalls, long weightNanos, long weightTotal) {
+        public long totalNanos() {
+            return filterNanos + weightNanos;
+        }
+    }
+
+    /**
+     * Everything recorded for one solve job.
+     */
+    public static final class JobProfile {
+
+        private Stats[] stats = new Stats[0];
+        private volatile boolean finished;
+
+        /** Stops recording. Called when the job ends, from whichever thread reports it. */
+        public void finish() {
+            finished = true;
+        }
+
+        Stats stats(int index) {
+            Stats[] current = stats;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, NAMES.size()));
+                stats = current;
+            }
+            Stats s = current[index];
+            if (s == null) {
+                s = new Stats();
+                current[index] = s;
+            }
+            return s;
+        }
+
+        public List<ConstraintStats> snapshot() {
+            Stats[] current = stats;
+            List<ConstraintStats> result = new ArrayList<>();
+            for (int i = 0; i < current.length; i++) {
+                Stats s = current[i];
+                if (s == null) continue;
+                result.add(new ConstraintStats(NAMES.get(i), s.filterCalls, s.filterPassed, s.filterNanos,
+                        s.weightCalls, s.weightNanos, s.weightTotal));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Wrappers for one constraint's lambdas, one overload per stream cardinality.
+     */
+    public static final class Probe {
+
+        private final int index;
+
+        private Probe(int index) {
+            this.index = index;
+        }
+
+        public <A> Predicate<A> filter(Predicate<A> filter) {
+            return a -> {
+                Stats s = current(index);
+                if (s == null) return filter.test(a);
+                long start = System.nanoTime();
+                boolean passed = filter.test(a);
+                recordFilter(s, start, passed);
+                return passed;
+            };
+        }
+
+        public <A, B> BiPredicate<A, B> filter(BiPredicate<A, B> filter) {
+            return (a, b) -> {
+                Stats s = current(index);
+                if (s == null) return filter.test(a, b);
+                long start = System.nanoTime();
+                boolean passed = filter.test(a, b);
+                recordFilter(s, start, passed);
+                return passed;
+            };
+        }
+
+        public <A, B, C> TriPredicate<A, B, C> filter(TriPredicate<A, B, C> filter) {
+            return (a, b, c) -> {
+                Stats s = current(index);
+                if (s == null) return filter.test(a, b, c);
+                long start = System.nanoTime();
+                boolean passed = filter.test(a, b, c);
+                recordFilter(s, start, passed);
+                return passed;
+            };
+        }
+
+        public <A, B, C, D> QuadPredicate<A, B, C, D> filter(QuadPredicate<A, B, C, D> filter) {
+            return (a, b, c, d) -> {
+                Stats s = current(index);
+                if (s == null) return filter.test(a, b, c, d);
+                long start = System.nanoTime();
+                boolean passed = filter.test(a, b, c, d);
+                recordFilter(s, start, passed);
+                return passed;
+            };
+        }
+
+        public <A> ToIntFunction<A> weight(ToIntFunction<A> weigher) {
+            return a -> {
+                Stats s = current(index);
+                if (s == null) return weigher.applyAsInt(a);
+                long start = System.nanoTime();
+                int weight = weigher.applyAsInt(a);
+                recordWeight(s, start, weight);
+                return weight;
+            };
+        }
+
+        public <A, B> ToIntBiFunction<A, B> weight(ToIntBiFunction<A, B> weigher) {
+            return (a, b) -> {
+                Stats s = current(index);
+                if (s == null) return weigher.applyAsInt(a, b);
+                long start = System.nanoTime();
+                int weight = weigher.applyAsInt(a, b);
+                recordWeight(s, start, weight);
+                return weight;
+            };
+        }
+
+        public <A, B, C> ToIntTriFunction<A, B, C> weight(ToIntTriFunction<A, B, C> weigher) {
+            return (a, b, c) -> {
+                Stats s = current(index);
+                if (s == null) return weigher.applyAsInt(a, b, c);
+                long start = System.nanoTime();
+                int weight = weigher.applyAsInt(a, b, c);
+                recordWeight(s, start, weight);
+                return weight;
+            };
+        }
+
+        public <A, B, C, D> ToIntQuadFunction<A, B, C, D> weight(ToIntQuadFunction<A, B, C, D> weigher) {
+            return (a, b, c, d) -> {
+                Stats s = current(index);
+                if (s == null) return weigher.applyAsInt(a, b, c, d);
+                long start = System.nanoTime();
+                int weight = weigher.applyAsInt(a, b, c, d);
+                recordWeight(s, start, weight);
+                return weight;
+            };
+        }
+
+        private static void recordFilter(Stats s, long start, boolean passed) {
+            s.filterNanos += System.nanoTime() - start;
+            s.filterCalls++;
+            if (passed) s.filterPassed++;
+        }
+
+        private static void recordWeight(Stats s, long start, int weight) {
+            s.weightNanos += System.nanoTime() - start;
+            s.weightCalls++;
+            s.weightTotal += weight;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.smartsched.smartsched_api.solver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+import com.smartsched.smartsched_api.solver.domain.Timeslot;
+
+/**
+ * The assembled input of one solve job (facts, pinned allocations and new allocations), as
+ * written to gzipped JSON by ProblemCaptureService and re-solved offline by SnapshotReplay.
+ *
+ * Allocations refer to facts by ID so the file stays small and reading it back gives the
+ * solver one shared instance per fact, as in a live solve. Timeslot and classroom are only
+ * set for pinned allocations; new ones are captured unassigned, the way the solver got them.
+ */
+public record ProblemSnapshot(int version, String problemId, String sectionId, Instant capturedAt,
+                              List<Timeslot> timeslots, List<Classroom> classrooms, List<Teacher> teachers,
+                              List<Section> sections, List<AllocationFact> allocations) {
+
+    public static final int VERSION = 1;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    public record AllocationFact(long id, String subjectCode, String subjectName, String teacherId, String sectionId,
+                                 int durationInMinutes, boolean major, boolean pinned,
+                                 Long timeslotId, String classroomId) {
+    }
+
+    /**
+     * Must be taken before the job is submitted: the solver assigns the allocations in place.
+     */
+    public static ProblemSnapshot of(String problemId, String sectionId, ScheduleSolution problem) {
+        List<AllocationFact> allocations = new ArrayList<>(problem.getAllocations().size());
+        for (Allocation a : problem.getAllocations()) {
+            boolean keepAssignment = a.isPinned();
+            allocations.add(new AllocationFact(a.getId(), a.getSubjectCode(), a.getSubjectName(),
+                    a.getTeacher() == null ? null : a.getTeacher().getId(),
+                    a.getSection() == null ? null : a.getSection().getId(),
+                    a.getDurationInMinutes(), a.isMajor(), a.isPinned(),
+                    keepAssignment && a.getTimeslot() != null ? a.getTimeslot().getId() : null,
+                    keepAssignment && a.getClassroom() != null ? a.getClassroom().getId() : null));
+        }
+        return new ProblemSnapshot(VERSION, problemId, sectionId, Instant.now(),
+                List.copyOf(problem.getTimeslots()), List.copyOf(problem.getClassrooms()),
+                List.copyOf(problem.getTeachers()), List.copyOf(problem.getSections()), allocations);
+    }
+
+    /**
+     * A fresh, unsolved ScheduleSolution; every call builds new instances.
+     */
+    public ScheduleSolution toProblem() {
+        Map<Long, Timeslot> timeslotById = index(timeslots, Timeslot::getId);
+        Map<String, Classroom> classroomById = index(classrooms, Classroom::getId);
+        Map<String, Teacher> teacherById = index(teachers, Teacher::getId);
+        Map<String, Section> sectionById = index(sections, Section::getId);
+
+        List<Allocation> problemAllocations = new ArrayList<>(allocations.size());
+        for (AllocationFact a : allocations) {
+            Allocation allocation = new Allocation(a.id(), a.subjectCode(), a.subjectName(),
+                    teacherById.get(a.teacherId()), sectionById.get(a.sectionId()),
+                    a.durationInMinutes(), a.major(), a.pinned());
+            if (a.timeslotId() != null) allocation.setTimeslot(timeslotById.get(a.timeslotId()));
+            if (a.classroomId() != null) allocation.setClassroom(classroomById.get(a.classroomId()));
+            problemAllocations.add(allocation);
+        }
+        return new ScheduleSolution(new ArrayList<>(timeslotById.values()), new ArrayList<>(classroomById.values()),
+                new ArrayList<>(teacherById.values()), new ArrayList<>(sectionById.values()), problemAllocations);
+    }
+
+    // Round-trips each fact through JSON so replays never share instances with this snapshot
+    @SuppressWarnings("unchecked")
+    private static <K, T> Map<K, T> index(List<T> facts, Function<T, K> id) {
+        return facts.stream()
+                .map(fact -> MAPPER.convertValue(fact, (Class<T>) fact.getClass()))
+                .collect(Collectors.toMap(id, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public long pinnedCount() {
+        return allocations.stream().filter(AllocationFact::pinned).count();
+    }
+
+    // --- Gzipped JSON ---
+
+    public void write(OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            MAPPER.writeValue(gzip, this);
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            write(out);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static ProblemSnapshot read(InputStream in) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+            ProblemSnapshot snapshot = MAPPER.readValue(gzip, ProblemSnapshot.class);
+            if (snapshot.version() > VERSION) {
+                throw new IOException("Snapshot version " + snapshot.version() + " is newer than supported (" + VERSION + ").");
+            }
+            return snapshot;
+        }
+    }
+
+    public static ProblemSnapshot read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+}
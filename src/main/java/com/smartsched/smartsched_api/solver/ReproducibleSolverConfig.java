@@ -0,0 +1,58 @@
+package com.smartsched.smartsched_api.solver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.config.solver.EnvironmentMode;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+/**
+ * Solver configs for runs that must be repeatable, e.g. to A/B a performance change on the
+ * same input. Same problem + same seed + a move-count termination gives the same solution,
+ * move for move; a time-based limit would stop at a different move on every run.
+ */
+public final class ReproducibleSolverConfig {
+
+    private ReproducibleSolverConfig() {}
+
+    /**
+     * Copy of base with the given seed. With a move-count limit, the time and score limits of
+     * base are replaced by it and the environment mode is forced to a reproducible one.
+     */
+    public static SolverConfig configure(SolverConfig base, long randomSeed, Long moveCountLimit) {
+        SolverConfig config = base.copyConfig().withRandomSeed(randomSeed);
+        if (moveCountLimit != null) {
+            if (moveCountLimit <= 0) throw new IllegalArgumentException("moveCountLimit must be positive.");
+            EnvironmentMode mode = config.getEnvironmentMode();
+            if (mode == null || !mode.isReproducible()) config.setEnvironmentMode(EnvironmentMode.REPRODUCIBLE);
+            config.setTerminationConfig(new TerminationConfig().withMoveCountLimit(moveCountLimit));
+        }
+        return config;
+    }
+
+    /**
+     * Assignments (by allocation ID) and score of a solution in a fixed text form, for comparing
+     * two runs byte for byte.
+     */
+    public static byte[] canonicalBytes(ScheduleSolution solution) {
+        StringBuilder out = new StringBuilder();
+        List<Allocation> allocations = solution.getAllocations().stream()
+                .sorted(Comparator.comparing(Allocation::getId))
+                .toList();
+        for (Allocation a : allocations) {
+            out.append(a.getId()).append('|')
+                    .append(a.getSubjectCode()).append('|')
+                    .append(a.getSection() == null ? null : a.getSection().getId()).append('|')
+                    .append(a.getTimeslot() == null ? null : a.getTimeslot().getId()).append('|')
+                    .append(a.getClassroom() == null ? null : a.getClassroom().getId()).append('|')
+                    .append(a.isPinned()).append('\n');
+        }
+        out.append(solution.getScore()).append('\n');
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
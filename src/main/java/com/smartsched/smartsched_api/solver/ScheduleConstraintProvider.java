@@ -286,10 +286,11 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
     // --- HARD CONSTRAINTS (Using stable groupBy) ---
 
     private Constraint teacherConflict(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Teacher conflict");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.getTeacher() != null && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> alloc.getTeacher() != null && alloc.getTimeslot() != null))
                 .groupBy(Allocation::getTeacher, ConstraintCollectors.toList())
-                .filter((teacher, allocs) -> {
+                .filter(p.filter((teacher, allocs) -> {
                     // #region agent log
                     long pinnedCount = allocs.stream().filter(Allocation::isPinned).count();
                     long unpinnedCount = allocs.size() - pinnedCount;
@@ -309,8 +310,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return hasOverlapResult;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (teacher, allocs) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((teacher, allocs) -> {
                     // #region agent log
                     int penalty = calculateOverlapPenalty(allocs);
                     logDebug("D", "ScheduleConstraintProvider.teacherConflict:PENALIZE", "Applying penalty for teacher", Map.of(
@@ -319,15 +320,16 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return penalty;
-                })
+                }))
                 .asConstraint("Teacher conflict");
     }
 
     private Constraint classroomConflict(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Classroom conflict");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.getClassroom() != null && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> alloc.getClassroom() != null && alloc.getTimeslot() != null))
                 .groupBy(Allocation::getClassroom, ConstraintCollectors.toList())
-                .filter((classroom, allocs) -> {
+                .filter(p.filter((classroom, allocs) -> {
                     // #region agent log
                     long pinnedCount = allocs.stream().filter(Allocation::isPinned).count();
                     long unpinnedCount = allocs.size() - pinnedCount;
@@ -347,8 +349,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return hasOverlapResult;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (classroom, allocs) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((classroom, allocs) -> {
                     // #region agent log
                     int penalty = calculateOverlapPenalty(allocs);
                     logDebug("D", "ScheduleConstraintProvider.classroomConflict:PENALIZE", "Applying penalty for classroom", Map.of(
@@ -357,15 +359,16 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return penalty;
-                })
+                }))
                 .asConstraint("Classroom conflict");
     }
 
     private Constraint sectionConflict(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Section conflict");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.getSection() != null && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> alloc.getSection() != null && alloc.getTimeslot() != null))
                 .groupBy(Allocation::getSection, ConstraintCollectors.toList())
-                .filter((section, allocs) -> {
+                .filter(p.filter((section, allocs) -> {
                     // #region agent log
                     logDebug("A", "ScheduleConstraintProvider.sectionConflict:FILTER", "Checking section for conflicts", Map.of(
                         "sectionId", section.getId(),
@@ -381,8 +384,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return hasOverlapResult;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (section, allocs) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((section, allocs) -> {
                     // #region agent log
                     int penalty = calculateOverlapPenalty(allocs);
                     logDebug("A", "ScheduleConstraintProvider.sectionConflict:PENALIZE", "Applying penalty", Map.of(
@@ -391,7 +394,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return penalty;
-                })
+                }))
                 .asConstraint("Section conflict");
     }
 
@@ -400,12 +403,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * This is a more direct approach to prevent the specific double booking issues
      */
     private Constraint exactTimeConflict(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Exact time conflict");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getStartTime()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // #region agent log
                     logDebug("B", "ScheduleConstraintProvider.exactTimeConflict:JOIN", "Checking exact time conflict", Map.of(
                         "alloc1Id", alloc1.getId(),
@@ -460,8 +464,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     logDebug("B", "ScheduleConstraintProvider.exactTimeConflict:NO_CONFLICT", "No conflict conditions met", Map.of());
                     // #endregion
                     return false;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     // #region agent log
                     logDebug("B", "ScheduleConstraintProvider.exactTimeConflict:PENALIZE", "Applying penalty", Map.of(
                         "alloc1Subject", alloc1.getSubjectCode(),
@@ -469,7 +473,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return 1;
-                })
+                }))
                 .asConstraint("Exact time conflict");
     }
 
@@ -478,14 +482,15 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * This addresses the specific issue where CAPSTONE 1 for BSIT 3-D appears twice at 08:00 AM
      */
     private Constraint sameSubjectSameTimeConflict(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Same subject same time conflict");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.getTimeslot() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> alloc.getTimeslot() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getSection().getId()),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getStartTime()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // Only penalize if they are different allocations
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     
@@ -493,15 +498,16 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                                alloc1.getSubjectCode(), alloc1.getSection().getSectionName(),
                                alloc1.getTimeslot().getStartTime(), alloc1.getTimeslot().getDayOfWeek());
                     return true;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> 1)
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Same subject same time conflict");
     }
 
      private Constraint bsitLabConstraint(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("BSIT major subject must be in a computer laboratory");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getSection() != null && "BSIT".equalsIgnoreCase(alloc.getSection().getProgram()))
-                .penalize(HardSoftScore.of(100, 0), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getSection() != null && "BSIT".equalsIgnoreCase(alloc.getSection().getProgram())))
+                .penalize(HardSoftScore.of(100, 0), p.weight(alloc -> {
                     Classroom classroom = alloc.getClassroom();
                     String classroomType = (classroom != null && classroom.getType() != null) ? classroom.getType().trim() : "";
                     
@@ -518,13 +524,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         return 10; // Much higher penalty
                     }
                     return 0;
-                }).asConstraint("BSIT major subject must be in a computer laboratory");
+                })).asConstraint("BSIT major subject must be in a computer laboratory");
      }
 
     private Constraint generalLabConstraint(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Major subject must be in a laboratory");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getSection() != null && !"BSIT".equalsIgnoreCase(alloc.getSection().getProgram()))
-                .penalize(HardSoftScore.of(50, 0), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getSection() != null && !"BSIT".equalsIgnoreCase(alloc.getSection().getProgram())))
+                .penalize(HardSoftScore.of(50, 0), p.weight(alloc -> {
                     Classroom classroom = alloc.getClassroom();
                     String classroomType = (classroom != null && classroom.getType() != null) ? classroom.getType().trim() : "";
                     
@@ -536,16 +543,17 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         return 1;
                     }
                     return 0;
-                }).asConstraint("Major subject must be in a laboratory");
+                })).asConstraint("Major subject must be in a laboratory");
     }
 
     /**
      * Non-major subjects should be assigned to lecture rooms
      */
     private Constraint nonMajorLectureRoomConstraint(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Non-major subject should be in a lecture room");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor())
-                .penalize(HardSoftScore.of(50, 0), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor()))
+                .penalize(HardSoftScore.of(50, 0), p.weight(alloc -> {
                     Classroom classroom = alloc.getClassroom();
                     String classroomType = (classroom != null && classroom.getType() != null) ? classroom.getType().trim() : "";
                     
@@ -559,18 +567,19 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         return 1;
                     }
                     return 0;
-                }).asConstraint("Non-major subject should be in a lecture room");
+                })).asConstraint("Non-major subject should be in a lecture room");
     }
 
     private Constraint scheduleEndTimeLimit(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Class ends after 8:30 PM");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.getTimeslot() != null)
-                .penalize(HardSoftScore.ONE_HARD, alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.getTimeslot() != null))
+                .penalize(HardSoftScore.ONE_HARD, p.weight(alloc -> {
                      try {
                         LocalTime endTime = calculateEndTime(alloc);
                         if (endTime.isAfter(MAX_END_TIME)) { return 1; } return 0;
                     } catch (Exception e) { return 0; }
-                })
+                }))
                 .asConstraint("Class ends after 8:30 PM");
     }
 
@@ -580,16 +589,17 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Non-major subjects should be scheduled at the same time but on different days
      */
     private Constraint nonMajorSubjectsSameTimeDifferentDays(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Non-major subjects should be on different days");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // Only penalize if they are different allocations of the same subject on the same day
                     return !alloc1.getId().equals(alloc2.getId());
-                })
-                .penalize(HardSoftScore.of(200, 0), (alloc1, alloc2) -> 1)
+                }))
+                .penalize(HardSoftScore.of(200, 0), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Non-major subjects should be on different days");
     }
 
@@ -597,18 +607,19 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Force non-major subjects to be at the same time on different days
      */
     private Constraint forceNonMajorSameTimeDifferentDays(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Force non-major subjects same time different days");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     // Penalize if same subject is at different times or on same day
                     boolean sameTime = alloc1.getTimeslot().getStartTime().equals(alloc2.getTimeslot().getStartTime());
                     boolean sameDay = alloc1.getTimeslot().getDayOfWeek().equals(alloc2.getTimeslot().getDayOfWeek());
                     return !sameTime || sameDay; // Penalize if not same time OR if same day
-                })
-                .penalize(HardSoftScore.of(300, 0), (alloc1, alloc2) -> 1)
+                }))
+                .penalize(HardSoftScore.of(300, 0), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Force non-major subjects same time different days");
     }
 
@@ -616,17 +627,18 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Reward non-major subjects for being scheduled at the same time on different days
      */
     private Constraint rewardNonMajorSameTimeDifferentDays(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Reward non-major subjects for same time different days");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getStartTime()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // Reward if they are different subjects at the same time on different days
                     return !alloc1.getSubjectCode().equals(alloc2.getSubjectCode()) && 
                            !alloc1.getId().equals(alloc2.getId()) &&
                            !alloc1.getTimeslot().getDayOfWeek().equals(alloc2.getTimeslot().getDayOfWeek());
-                })
-                .reward(HardSoftScore.of(0, 10), (alloc1, alloc2) -> 1)
+                }))
+                .reward(HardSoftScore.of(0, 10), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Reward non-major subjects for same time different days");
     }
 
@@ -634,18 +646,19 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Force major subjects to be on the same day (first priority)
      */
     private Constraint forceMajorSameDay(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Force major subjects same day");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
                     boolean sameDay = alloc1.getTimeslot().getDayOfWeek().equals(alloc2.getTimeslot().getDayOfWeek());
                     return !sameDay; // Penalize if not on same day
-                })
-                .penalize(HardSoftScore.of(500, 0), (alloc1, alloc2) -> 1)
+                }))
+                .penalize(HardSoftScore.of(500, 0), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Force major subjects same day");
     }
 
@@ -654,13 +667,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Updated to also check for same section to avoid false positives
      */
     private Constraint forceMajorSequential(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Force major subjects sequential");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSection),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
@@ -672,8 +686,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     // Sequential means: end1 == start2 OR end2 == start1
                     boolean sequential = endTime1.equals(start2) || endTime2.equals(start1);
                     return !sequential; // Penalize if not sequential
-                })
-                .penalize(HardSoftScore.of(300, 0), (alloc1, alloc2) -> 1)
+                }))
+                .penalize(HardSoftScore.of(300, 0), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Force major subjects sequential");
     }
 
@@ -681,18 +695,19 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Reward major subjects for being sequential on the same day
      */
     private Constraint rewardMajorSequentialSameDay(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Reward major subjects for being sequential on same day");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     if (alloc1.getId().equals(alloc2.getId())) return false; // Same allocation
                     LocalTime endTime1 = alloc1.getTimeslot().getStartTime().plusMinutes(alloc1.getDurationInMinutes());
                     return endTime1.equals(alloc2.getTimeslot().getStartTime());
-                })
-                .reward(HardSoftScore.of(0, 10), (alloc1, alloc2) -> 1)
+                }))
+                .reward(HardSoftScore.of(0, 10), p.weight((alloc1, alloc2) -> 1))
                 .asConstraint("Reward major subjects for being sequential on same day");
     }
 
@@ -700,12 +715,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Prefer consistent time slots for non-major subjects (soft constraint)
      */
     private Constraint preferConsistentTimeForNonMajor(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Prefer consistent time slots for non-major subjects");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null)
-                .penalize(HardSoftScore.of(0, 1), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null))
+                .penalize(HardSoftScore.of(0, 1), p.weight(alloc -> {
                     // This is a soft constraint - we prefer consistent times but don't force them
                     return 0; // No penalty for now, just placeholder
-                })
+                }))
                 .asConstraint("Prefer consistent time slots for non-major subjects");
     }
 
@@ -713,12 +729,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Prefer consistent time slots for major subjects (soft constraint)
      */
     private Constraint preferConsistentTimeForMajor(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Prefer consistent time slots for major subjects");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null)
-                .penalize(HardSoftScore.of(0, 1), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null))
+                .penalize(HardSoftScore.of(0, 1), p.weight(alloc -> {
                     // This is a soft constraint - we prefer consistent times but don't force them
                     return 0; // No penalty for now, just placeholder
-                })
+                }))
                 .asConstraint("Prefer consistent time slots for major subjects");
     }
 
@@ -726,13 +743,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Avoid late evening classes (after 6:00 PM)
      */
     private Constraint avoidLateEveningClasses(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Avoid late evening classes");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.getTimeslot() != null)
-                .penalize(HardSoftScore.of(0, 2), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.getTimeslot() != null))
+                .penalize(HardSoftScore.of(0, 2), p.weight(alloc -> {
                     LocalTime startTime = alloc.getTimeslot().getStartTime();
                     if (startTime.isAfter(LocalTime.of(18, 0))) return 1; // Late evening penalty
                     return 0;
-                })
+                }))
                 .asConstraint("Avoid late evening classes");
     }
 
@@ -740,9 +758,10 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Optimize classroom utilization (prefer 50-90% capacity)
      */
     private Constraint optimizeClassroomUtilization(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Optimize classroom utilization");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.getClassroom() != null && alloc.getSection() != null)
-                .penalize(HardSoftScore.of(0, 1), alloc -> {
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.getClassroom() != null && alloc.getSection() != null))
+                .penalize(HardSoftScore.of(0, 1), p.weight(alloc -> {
                     int classroomCapacity = alloc.getClassroom().getCapacity();
                     int sectionSize = alloc.getSection().getNumberOfStudents();
                     if (classroomCapacity == 0) return 3; // No capacity info
@@ -751,7 +770,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     if (utilization >= 0.5 && utilization <= 0.9) return 0; // Optimal
                     if (utilization >= 0.3 && utilization <= 1.0) return 1; // Acceptable
                     return 2; // Poor utilization
-                })
+                }))
                 .asConstraint("Optimize classroom utilization");
     }
 
@@ -774,8 +793,9 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Sections must have exactly 2 major subjects in AM session and 4 in PM session per day
      */
     private Constraint sectionMajorSubjectsAMPMDistribution(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Section major subjects AM-PM distribution 2 AM 4 PM");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null))
                 .groupBy(
                     alloc -> alloc.getSection(),
                     alloc -> alloc.getTimeslot().getDayOfWeek(),
@@ -785,7 +805,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     },
                     ConstraintCollectors.count()
                 )
-                .filter((section, day, session, count) -> {
+                .filter(p.filter((section, day, session, count) -> {
                     // #region agent log
                     logDebug("K", "ScheduleConstraintProvider.sectionMajorSubjectsAMPMDistribution:FILTER", 
                             "Checking section major subject distribution", Map.of(
@@ -806,8 +826,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         return count != 4;
                     }
                     return false; // Ignore "OTHER" session
-                })
-                .penalize(HardSoftScore.ONE_HARD, (section, day, session, count) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((section, day, session, count) -> {
                     int expected = session.equals("AM") ? 2 : 4;
                     logger.warn("!!! SECTION AM/PM DISTRIBUTION VIOLATION: Section {} has {} major subjects in {} session on {} (expected: {})", 
                                section.getSectionName(), count, session, day, expected);
@@ -824,7 +844,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return Math.abs(count - expected); // Penalty based on deviation from expected
-                })
+                }))
                 .asConstraint("Section major subjects AM-PM distribution 2 AM 4 PM");
     }
     
@@ -833,12 +853,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Major subjects in the same session must be scheduled sequentially
      */
     private Constraint sectionMajorSubjectsSequentialInSession(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Section major subjects sequential in session");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSection),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
@@ -873,13 +894,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     // #endregion
                     
                     return !sequential; // Penalize if not sequential
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! SECTION SEQUENTIAL VIOLATION: {} and {} for section {} on {} - not sequential in same session", 
                                alloc1.getSubjectCode(), alloc2.getSubjectCode(),
                                alloc1.getSection().getSectionName(), alloc1.getTimeslot().getDayOfWeek());
                     return 1;
-                })
+                }))
                 .asConstraint("Section major subjects sequential in session");
     }
 
@@ -888,15 +909,16 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Major subjects from the same teacher and section must be held at sequential time
      */
     private Constraint majorSubjectsSameTeacherSectionSequential(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Major subjects same teacher section sequential");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && 
-                               alloc.getTeacher() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && 
+                               alloc.getTeacher() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSection),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
@@ -909,14 +931,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     // Sequential means: end1 == start2 OR end2 == start1
                     boolean sequential = endTime1.equals(start2) || endTime2.equals(start1);
                     return !sequential; // Penalize if not sequential
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! MAJOR NON-SEQUENTIAL VIOLATION: {} and {} for teacher {} section {} on {} - not sequential", 
                                alloc1.getSubjectCode(), alloc2.getSubjectCode(),
                                alloc1.getTeacher().getName(), alloc1.getSection().getSectionName(),
                                alloc1.getTimeslot().getDayOfWeek());
                     return 1;
-                })
+                }))
                 .asConstraint("Major subjects same teacher section sequential");
     }
 
@@ -925,14 +947,15 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Non major subjects from same teacher and section must be held on the same timeslot but different days
      */
     private Constraint nonMajorSubjectsSameTeacherSectionSameTimeDifferentDays(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Non-major subjects same teacher section same time different days");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null && 
-                               alloc.getTeacher() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && !alloc.isMajor() && alloc.getTimeslot() != null && 
+                               alloc.getTeacher() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSection),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
@@ -942,14 +965,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     
                     // Penalize if: not same time OR same day (should be same time AND different days)
                     return !sameTime || sameDay;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! NON-MAJOR RULE VIOLATION: {} for teacher {} section {} - should be same time different days, but got {} on {} vs {} on {}", 
                                alloc1.getSubjectCode(), alloc1.getTeacher().getName(), alloc1.getSection().getSectionName(),
                                alloc1.getTimeslot().getStartTime(), alloc1.getTimeslot().getDayOfWeek(),
                                alloc2.getTimeslot().getStartTime(), alloc2.getTimeslot().getDayOfWeek());
                     return 1;
-                })
+                }))
                 .asConstraint("Non-major subjects same teacher section same time different days");
     }
 
@@ -958,13 +981,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Same teacher's major subjects must be at different sequential timeslots (not overlapping)
      */
     private Constraint majorSubjectsSameTeacherSequential(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Major subjects same teacher sequential");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.isMajor() && alloc.getTimeslot() != null && 
-                               alloc.getTeacher() != null)
+                .filter(p.filter(alloc -> alloc.isMajor() && alloc.getTimeslot() != null && 
+                               alloc.getTeacher() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // #region agent log
                     logDebug("E", "ScheduleConstraintProvider.majorSubjectsSameTeacherSequential:JOIN", "Checking major subjects for same teacher", Map.of(
                         "alloc1Id", alloc1.getId(),
@@ -1036,13 +1060,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         // #endregion
                     }
                     return violation;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! PENALIZING MAJOR TEACHER OVERLAP: {} and {} for teacher {} on {}", 
                                alloc1.getSubjectCode(), alloc2.getSubjectCode(),
                                alloc1.getTeacher().getName(), alloc1.getTimeslot().getDayOfWeek());
                     return 1;
-                })
+                }))
                 .asConstraint("Major subjects same teacher sequential");
     }
 
@@ -1051,8 +1075,9 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Teachers must have exactly 2 major subjects in AM session and 4 in PM session per day
      */
     private Constraint teacherMajorSubjectsAMPMDistribution(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Teacher major subjects AM-PM distribution 2 AM 4 PM");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getTeacher() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getTeacher() != null))
                 .groupBy(
                     alloc -> alloc.getTeacher(),
                     alloc -> alloc.getTimeslot().getDayOfWeek(),
@@ -1062,7 +1087,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     },
                     ConstraintCollectors.count()
                 )
-                .filter((teacher, day, session, count) -> {
+                .filter(p.filter((teacher, day, session, count) -> {
                     // #region agent log
                     logDebug("L", "ScheduleConstraintProvider.teacherMajorSubjectsAMPMDistribution:FILTER", 
                             "Checking teacher major subject distribution", Map.of(
@@ -1083,8 +1108,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                         return count != 4;
                     }
                     return false; // Ignore "OTHER" session
-                })
-                .penalize(HardSoftScore.ONE_HARD, (teacher, day, session, count) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((teacher, day, session, count) -> {
                     int expected = session.equals("AM") ? 2 : 4;
                     logger.warn("!!! TEACHER AM/PM DISTRIBUTION VIOLATION: Teacher {} has {} major subjects in {} session on {} (expected: {})", 
                                teacher.getName(), count, session, day, expected);
@@ -1101,7 +1126,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     ));
                     // #endregion
                     return Math.abs(count - expected); // Penalty based on deviation from expected
-                })
+                }))
                 .asConstraint("Teacher major subjects AM-PM distribution 2 AM 4 PM");
     }
     
@@ -1110,12 +1135,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: Major subjects for the same teacher in the same session must be scheduled sequentially
      */
     private Constraint teacherMajorSubjectsSequentialInSession(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Teacher major subjects sequential in session");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getTeacher() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && alloc.getTeacher() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(a -> a.getTimeslot().getDayOfWeek()))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getTimeslot() == null || alloc2.getTimeslot() == null) return false;
                     
@@ -1150,13 +1176,13 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     // #endregion
                     
                     return !sequential; // Penalize if not sequential
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! TEACHER SEQUENTIAL VIOLATION: {} and {} for teacher {} on {} - not sequential in same session", 
                                alloc1.getSubjectCode(), alloc2.getSubjectCode(),
                                alloc1.getTeacher().getName(), alloc1.getTimeslot().getDayOfWeek());
                     return 1;
-                })
+                }))
                 .asConstraint("Teacher major subjects sequential in session");
     }
 
@@ -1165,13 +1191,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * Rule: If a teacher teaches the same major subject (across different sections), it must be in the same classroom
      */
     private Constraint sameMajorSubjectSameTeacherSameClassroom(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Same major subject same teacher same classroom");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && 
-                               alloc.getTeacher() != null && alloc.getClassroom() != null)
+                .filter(p.filter(alloc -> !alloc.isPinned() && alloc.isMajor() && alloc.getTimeslot() != null && 
+                               alloc.getTeacher() != null && alloc.getClassroom() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     if (alloc1.getId().equals(alloc2.getId())) return false;
                     if (alloc1.getClassroom() == null || alloc2.getClassroom() == null) return false;
                     
@@ -1184,12 +1211,12 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                                    alloc1.getClassroom().getName(), alloc2.getClassroom().getName());
                     }
                     return differentClassroom;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! PENALIZING SAME MAJOR SUBJECT DIFFERENT CLASSROOM: {} for teacher {}", 
                                alloc1.getSubjectCode(), alloc1.getTeacher().getName());
                     return 1;
-                })
+                }))
                 .asConstraint("Same major subject same teacher same classroom");
     }
 
@@ -1202,13 +1229,14 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
      * This ensures proper scheduling distribution and consistency
      */
     private Constraint sameMajorSubjectSameTeacherDifferentSectionsDifferentDays(ConstraintFactory constraintFactory) {
+        ConstraintProfiler.Probe p = ConstraintProfiler.probe("Same major subject same teacher different sections different days same time");
         return constraintFactory.forEach(Allocation.class)
-                .filter(alloc -> alloc.isMajor() && alloc.getTimeslot() != null && 
-                               alloc.getTeacher() != null && alloc.getSection() != null)
+                .filter(p.filter(alloc -> alloc.isMajor() && alloc.getTimeslot() != null && 
+                               alloc.getTeacher() != null && alloc.getSection() != null))
                 .join(Allocation.class,
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getTeacher),
                         ai.timefold.solver.core.api.score.stream.Joiners.equal(Allocation::getSubjectCode))
-                .filter((alloc1, alloc2) -> {
+                .filter(p.filter((alloc1, alloc2) -> {
                     // #region agent log
                     Map<String, Object> logData = new HashMap<>();
                     logData.put("alloc1Id", alloc1.getId());
@@ -1282,8 +1310,8 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                     }
                     
                     return violation;
-                })
-                .penalize(HardSoftScore.ONE_HARD, (alloc1, alloc2) -> {
+                }))
+                .penalize(HardSoftScore.ONE_HARD, p.weight((alloc1, alloc2) -> {
                     logger.warn("!!! PENALIZING SAME MAJOR SUBJECT SAME TEACHER DIFFERENT SECTIONS SAME DAY: {} for teacher {} - {} and {}", 
                                alloc1.getSubjectCode(), alloc1.getTeacher().getName(),
                                alloc1.getSection().getSectionName(), alloc2.getSection().getSectionName());
@@ -1300,7 +1328,7 @@ public class ScheduleConstraintProvider implements ConstraintProvider {
                             "Applying penalty", penaltyData);
                     // #endregion
                     return 1;
-                })
+                }))
                 .asConstraint("Same major subject same teacher different sections different days same time");
     }
 }
\ No newline at end of file
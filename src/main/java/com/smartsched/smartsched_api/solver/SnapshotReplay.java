@@ -0,0 +1,138 @@
+package com.smartsched.smartsched_api.solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.EnvironmentMode;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+/**
+ * Re-solves captured problems (ProblemSnapshot) offline, without Spring or MongoDB, with a fixed
+ * random seed so two replays of the same snapshot and config make the same moves.
+ *
+ * From the packaged jar:
+ *   java -cp target/smartsched-api-*.jar -Dloader.main=com.smartsched.smartsched_api.solver.SnapshotReplay \
+ *        org.springframework.boot.loader.launch.PropertiesLauncher captures/ [options]
+ *
+ * Arguments are snapshot files or directories of *.json.gz files. Options:
+ *   --seed=N                  random seed (default 0)
+ *   --config=solverConfig.xml start from this solver config instead of the built-in one
+ *   --environment-mode=MODE   e.g. FULL_ASSERT to replay with production's assertions
+ *   --spent-limit=PT2M        ISO-8601 duration; replaces the termination of the config
+ *   --unimproved-spent-limit=PT30S
+ *   --move-count-limit=N      reproducible run: stop after N moves instead of on time
+ */
+public final class SnapshotReplay {
+
+    public static final long DEFAULT_SEED = 0L;
+
+    private SnapshotReplay() {}
+
+    public record Result(String problemId, long seed, HardSoftScore score, long solveMillis,
+                         int newAllocations, int unassigned, ScheduleSolution solution) {
+    }
+
+    /**
+     * Built-in config: the same solution, entities, constraints and termination as
+     * application.properties, without FULL_ASSERT (replays are mostly for timing).
+     */
+    public static SolverConfig defaultConfig() {
+        return new SolverConfig()
+                .withSolutionClass(ScheduleSolution.class)
+                .withEntityClasses(Allocation.class)
+                .withConstraintProviderClass(ScheduleConstraintProvider.class)
+                .withEnvironmentMode(EnvironmentMode.REPRODUCIBLE)
+                .withTerminationConfig(new TerminationConfig()
+                        .withSpentLimit(Duration.ofMinutes(15))
+                        .withUnimprovedSpentLimit(Duration.ofMinutes(8))
+                        .withBestScoreLimit("0hard/0soft"));
+    }
+
+    public static Result replay(ProblemSnapshot snapshot, SolverConfig config, long seed) {
+        SolverConfig seeded = ReproducibleSolverConfig.configure(config, seed, null);
+        if (seeded.getSolutionClass() == null) seeded.setSolutionClass(ScheduleSolution.class);
+        if (seeded.getEntityClassList() == null) seeded.setEntityClassList(List.of(Allocation.class));
+        if (seeded.getScoreDirectorFactoryConfig() == null) seeded.withConstraintProviderClass(ScheduleConstraintProvider.class);
+
+        ScheduleSolution problem = snapshot.toProblem();
+        long start = System.nanoTime();
+        ScheduleSolution solved = SolverFactory.<ScheduleSolution>create(seeded).buildSolver().solve(problem);
+        long solveMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int newAllocations = 0;
+        int unassigned = 0;
+        for (Allocation allocation : solved.getAllocations()) {
+            if (allocation.isPinned()) continue;
+            newAllocations++;
+            if (allocation.getTimeslot() == null || allocation.getClassroom() == null) unassigned++;
+        }
+        return new Result(snapshot.problemId(), seed, solved.getScore(), solveMillis, newAllocations, unassigned, solved);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SolverConfig config = defaultConfig();
+        long seed = DEFAULT_SEED;
+        TerminationConfig termination = null;
+        Long moveCountLimit = null;
+        List<Path> snapshots = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--config=")) {
+                config = SolverConfig.createFromXmlFile(new File(value(arg)));
+            } else if (arg.startsWith("--environment-mode=")) {
+                config.setEnvironmentMode(EnvironmentMode.valueOf(value(arg)));
+            } else if (arg.startsWith("--spent-limit=")) {
+                termination = termination == null ? new TerminationConfig() : termination;
+                termination.setSpentLimit(Duration.parse(value(arg)));
+            } else if (arg.startsWith("--unimproved-spent-limit=")) {
+                termination = termination == null ? new TerminationConfig() : termination;
+                termination.setUnimprovedSpentLimit(Duration.parse(value(arg)));
+            } else if (arg.startsWith("--move-count-limit=")) {
+                moveCountLimit = Long.parseLong(value(arg));
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else {
+                snapshots.addAll(snapshotFiles(Path.of(arg)));
+            }
+        }
+        if (snapshots.isEmpty()) {
+            System.err.println("Usage: SnapshotReplay <snapshot.json.gz|directory>... [--seed=N] [--config=solverConfig.xml]"
+                    + " [--environment-mode=MODE] [--spent-limit=PT2M] [--unimproved-spent-limit=PT30S] [--move-count-limit=N]");
+            System.exit(2);
+        }
+        if (termination != null) config.setTerminationConfig(termination);
+        if (moveCountLimit != null) config = ReproducibleSolverConfig.configure(config, seed, moveCountLimit);
+
+        System.out.printf("%-48s %8s %10s %8s %11s %20s%n", "Snapshot", "seed", "allocs", "unassgn", "millis", "score");
+        for (Path file : snapshots) {
+            Result result = replay(ProblemSnapshot.read(file), config, seed);
+            System.out.printf("%-48.48s %8d %10d %8d %11d %20s%n", file.getFileName(), result.seed(),
+                    result.newAllocations(), result.unassigned(), result.solveMillis(), result.score());
+        }
+    }
+
+    public static List<Path> snapshotFiles(Path path) throws IOException {
+        if (!Files.isDirectory(path)) return List.of(path);
+        try (Stream<Path> files = Files.list(path)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".json.gz")).sorted().toList();
+        }
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+}
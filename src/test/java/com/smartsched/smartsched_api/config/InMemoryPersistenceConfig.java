@@ -0,0 +1,95 @@
+package com.smartsched.smartsched_api.config;
+
+import java.util.List;
+import java.util.Set;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryDatabaseFactory;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoStore;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+
+/**
+ * The inmemory profile (spring.profiles.active=inmemory): no MongoDB connection at all, for
+ * benchmarking and load-testing the solver, export and auth paths without network latency.
+ *
+ * The repositories are the InMemory*Repository classes and MongoTemplate is an
+ * InMemoryMongoTemplate, all over one InMemoryMongoStore, so services that write through the
+ * template and read through a repository (or the other way round) see the same data.
+ * The store gets the indexes declared on the model classes. Data is lost on shutdown.
+ * See application-inmemory.properties for the auto-configuration this switches off. Like the
+ * store, it lives in the test tree and is only on the classpath of tests and benchmarks.
+ */
+@Configuration
+@Profile("inmemory")
+public class InMemoryPersistenceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryPersistenceConfig.class);
+
+    // Its presence alone stops Spring Boot from creating a MongoClient
+    @Bean
+    public MongoDatabaseFactory mongoDatabaseFactory() {
+        return new InMemoryDatabaseFactory();
+    }
+
+    @Bean
+    public InMemoryMongoStore inMemoryMongoStore(MongoMappingContext mappingContext) {
+        InMemoryMongoStore store = new InMemoryMongoStore();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        int indexes = 0;
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) continue;
+            for (var index : resolver.resolveIndexFor(entity.getType())) {
+                // Hash index on the leading field; compound keys narrow the candidates just as well
+                Document keys = index.getIndexKeys();
+                boolean unique = keys.size() == 1 && index.getIndexOptions().getBoolean("unique", false);
+                store.createIndex(entity.getCollection(), keys.keySet().iterator().next(), unique);
+                indexes++;
+            }
+        }
+        logger.info("In-memory persistence: no MongoDB connection, {} indexes declared. Data is lost on shutdown.", indexes);
+        return store;
+    }
+
+    @Bean
+    public InMemoryMongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MappingMongoConverter converter,
+                                               InMemoryMongoStore store) {
+        return new InMemoryMongoTemplate(mongoDatabaseFactory, converter, store);
+    }
+
+    /**
+     * An InMemoryMongoTemplate over a fresh store, for tests that do not start a Spring context.
+     * The converter is wired as Spring Boot's MongoDataAutoConfiguration does.
+     */
+    public static InMemoryMongoTemplate standaloneTemplate() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(Teacher.class, Classroom.class, Section.class, Schedule.class,
+                User.class, SolveRun.class));
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        InMemoryPersistenceConfig config = new InMemoryPersistenceConfig();
+        return config.mongoTemplate(config.mongoDatabaseFactory(), converter, config.inMemoryMongoStore(mappingContext));
+    }
+}
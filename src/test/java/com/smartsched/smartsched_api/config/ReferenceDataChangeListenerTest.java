@@ -0,0 +1,160 @@
+package com.smartsched.smartsched_api.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryClassroomRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySectionRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryTeacherRepository;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.SchedulePersistenceService;
+import com.smartsched.smartsched_api.service.TeacherService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Change events fed straight into the listener, with the current document read from an
+ * in-memory store: this node's own writes keep the cache, other writes evict once per burst.
+ */
+class ReferenceDataChangeListenerTest {
+
+    private static final long COALESCE_MILLIS = 50;
+
+    private InMemoryMongoTemplate template;
+    private InMemorySectionRepository sectionRepository;
+    private ReferenceDataCache cache;
+    private ChangeVersions changeVersions;
+    private TeacherService teacherService;
+    private ReferenceDataChangeListener listener;
+
+    @BeforeEach
+    void setUp() {
+        template = InMemoryPersistenceConfig.standaloneTemplate();
+        InMemoryTeacherRepository teacherRepository = new InMemoryTeacherRepository(template);
+        sectionRepository = new InMemorySectionRepository(template);
+        cache = new ReferenceDataCache(teacherRepository, new InMemoryClassroomRepository(template), sectionRepository);
+        changeVersions = new ChangeVersions(cache);
+        teacherService = new TeacherService(teacherRepository, template, cache, changeVersions);
+        listener = new ReferenceDataChangeListener(template, cache, changeVersions, COALESCE_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void ownWritesKeepTheLoadedRegion() throws Exception {
+        cache.getTeachers();
+        Teacher created = teacherService.createTeacher(new Teacher("Ada", "CS"));
+        Teacher renamed = new Teacher("Ada L.", "CS");
+        teacherService.updateTeacher(created.getId(), renamed);
+
+        listener.onChange("teachers", created.getId(), current("teachers", created.getId()));
+        TimeUnit.MILLISECONDS.sleep(COALESCE_MILLIS * 4);
+
+        assertThat(teachersStats()).containsEntry("loaded", true).containsEntry("misses", 1L);
+        assertThat(cache.findTeacher(created.getId())).get().extracting(Teacher::getName).isEqualTo("Ada L.");
+    }
+
+    @Test
+    void saveSolutionBackReferencesKeepTheLoadedRegions() throws Exception {
+        Teacher teacher = teacherService.createTeacher(new Teacher("Ada", "CS"));
+        Section section = sectionRepository.save(new Section("BSIT", 1, "A", 30));
+        cache.getTeachers();
+        cache.getSections();
+        SchedulePersistenceService persistence = new SchedulePersistenceService(template, cache, changeVersions,
+                new SimpleMeterRegistry());
+        for (int round = 0; round < 2; round++) {
+            persistence.replaceSectionSchedules("p", section.getId(), List.of(
+                    new Schedule("p", "IT101", "Programming", teacher.getId(), section.getId(), null,
+                            DayOfWeek.MONDAY, 480, 570, true)));
+        }
+
+        listener.onChange("teachers", teacher.getId(), current("teachers", teacher.getId()));
+        listener.onChange("sections", section.getId(), current("sections", section.getId()));
+        TimeUnit.MILLISECONDS.sleep(COALESCE_MILLIS * 4);
+
+        assertThat(teachersStats()).containsEntry("loaded", true);
+        assertThat(cache.getStats().get("sections")).asInstanceOf(MAP).containsEntry("loaded", true);
+    }
+
+    @Test
+    void writesFromElsewhereEvictTheRegion() {
+        Teacher created = teacherService.createTeacher(new Teacher("Ada", "CS"));
+        cache.getTeachers();
+        // Another node renames the teacher; this node's cache still has the old name
+        template.updateFirst(new Query(Criteria.where("_id").is(created.getId())), new Update().set("name", "Grace"),
+                Teacher.class);
+
+        listener.onChange("teachers", created.getId(), current("teachers", created.getId()));
+
+        awaitTrue(() -> Boolean.FALSE.equals(teachersStats().get("loaded")));
+        assertThat(cache.findTeacher(created.getId())).get().extracting(Teacher::getName).isEqualTo("Grace");
+    }
+
+    @Test
+    void deletesAlreadyAppliedLocallyAreSkipped() throws Exception {
+        Teacher created = teacherService.createTeacher(new Teacher("Ada", "CS"));
+        cache.getTeachers();
+        teacherService.deleteTeacher(created.getId());
+
+        listener.onChange("teachers", created.getId(), null);
+        TimeUnit.MILLISECONDS.sleep(COALESCE_MILLIS * 4);
+
+        assertThat(teachersStats()).containsEntry("loaded", true);
+    }
+
+    @Test
+    void aBurstOfScheduleEventsInvalidatesOnce() throws Exception {
+        AtomicInteger invalidations = new AtomicInteger();
+        changeVersions.addScheduleChangeListener(sectionId -> invalidations.incrementAndGet());
+        String before = changeVersions.schedulesTag();
+
+        for (int i = 0; i < 200; i++) {
+            listener.onChange("schedules", "s" + i, new Document("_id", "s" + i));
+        }
+
+        awaitTrue(() -> invalidations.get() > 0);
+        TimeUnit.MILLISECONDS.sleep(COALESCE_MILLIS * 4);
+        assertThat(invalidations).hasValue(1);
+        assertThat(changeVersions.schedulesTag()).isNotEqualTo(before);
+    }
+
+    private Document current(String collection, String id) {
+        return template.findById(id, Document.class, collection);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> teachersStats() {
+        return (Map<String, Object>) cache.getStats().get("teachers");
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
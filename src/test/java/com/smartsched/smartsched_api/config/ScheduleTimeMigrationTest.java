@@ -0,0 +1,162 @@
+package com.smartsched.smartsched_api.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.mongo.EmbeddedMongoServer;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+
+/**
+ * The startup backfill against EmbeddedMongoServer, with documents written the way the
+ * string-time model stored them: minutes derived from the display strings, bulk writes of
+ * 500, and a second run that finds nothing to do.
+ */
+class ScheduleTimeMigrationTest {
+
+    private EmbeddedMongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ChangeVersions changeVersions;
+    private ScheduleTimeMigration migration;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = EmbeddedMongoServer.start();
+        client = MongoClients.create(server.uri("smartsched_migration"));
+        mongoTemplate = spy(new MongoTemplate(client, "smartsched_migration"));
+        changeVersions = mock(ChangeVersions.class);
+        migration = new ScheduleTimeMigration(mongoTemplate, changeVersions);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void minutesAreDerivedFromTheStoredTimes() {
+        insertLegacy("a", "08:00 AM", "09:30 AM", null);
+        insertLegacy("b", "12:30 PM", "03:00 PM", true);
+        insertLegacy("c", "11:00 AM", "01:00 PM", false);
+
+        migration.migrate();
+
+        assertThat(legacy("a")).containsEntry("startMinute", 480).containsEntry("endMinute", 570)
+                .containsEntry("durationMinutes", 90);
+        assertThat(legacy("b")).containsEntry("startMinute", 750).containsEntry("endMinute", 900)
+                .containsEntry("durationMinutes", 150);
+        assertThat(legacy("c")).containsEntry("startMinute", 660).containsEntry("durationMinutes", 120);
+        verify(changeVersions, times(1)).schedulesChanged();
+    }
+
+    @Test
+    void isMajorIsNotGuessed() {
+        insertLegacy("a", "08:00 AM", "09:30 AM", null);
+        insertLegacy("b", "08:00 AM", "09:30 AM", true);
+        insertLegacy("c", "08:00 AM", "09:30 AM", false);
+
+        migration.migrate();
+
+        assertThat(legacy("a")).doesNotContainKey("isMajor");
+        assertThat(legacy("b")).containsEntry("isMajor", true);
+        assertThat(legacy("c")).containsEntry("isMajor", false);
+    }
+
+    @Test
+    void unparsableTimesAreSkipped() {
+        insertLegacy("bad", "8 o'clock", "09:30 AM", null);
+        insertLegacy("good", "08:00 AM", "09:30 AM", null);
+
+        migration.migrate();
+
+        assertThat(legacy("bad")).doesNotContainKeys("startMinute", "endMinute", "durationMinutes");
+        assertThat(legacy("good")).containsEntry("startMinute", 480);
+    }
+
+    @Test
+    void documentsAreWrittenInBatches() {
+        List<Document> docs = new ArrayList<>();
+        for (int i = 0; i < 1203; i++) {
+            docs.add(legacyDocument("s" + i, i % 2 == 0 ? "07:30 AM" : "01:00 PM", i % 2 == 0 ? "09:00 AM" : "02:30 PM", null));
+        }
+        mongoTemplate.insert(docs, "schedules");
+
+        migration.migrate();
+
+        // One bulk per 500 updates: 500 + 500 + 203
+        verify(mongoTemplate, times(3)).bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Schedule.class));
+        assertThat(mongoTemplate.count(new Query(), "schedules")).isEqualTo(1203);
+        List<Document> migrated = mongoTemplate.findAll(Document.class, "schedules");
+        assertThat(migrated).allSatisfy(doc -> assertThat(doc).containsEntry("durationMinutes", 90));
+        assertThat(migrated).filteredOn(doc -> doc.getInteger("startMinute") == 450).hasSize(602);
+        verify(changeVersions, times(1)).schedulesChanged();
+    }
+
+    @Test
+    void aSecondRunChangesNothing() {
+        for (int i = 0; i < 520; i++) {
+            insertLegacy("s" + i, "08:00 AM", "09:30 AM", null);
+        }
+        insertLegacy("bad", "noon", "01:00 PM", null);
+        // Already migrated, with minutes that disagree with the strings: never rewritten
+        mongoTemplate.insert(legacyDocument("done", "08:00 AM", "09:30 AM", true)
+                .append("startMinute", 500).append("endMinute", 600).append("durationMinutes", 100), "schedules");
+
+        migration.migrate();
+        List<Document> afterFirst = mongoTemplate.findAll(Document.class, "schedules");
+        clearInvocations(changeVersions, mongoTemplate);
+
+        migration.migrate();
+
+        assertThat(mongoTemplate.findAll(Document.class, "schedules")).isEqualTo(afterFirst);
+        assertThat(legacy("done")).containsEntry("startMinute", 500).containsEntry("durationMinutes", 100);
+        verify(changeVersions, never()).schedulesChanged();
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(Schedule.class));
+    }
+
+    private void insertLegacy(String subjectCode, String startTime, String endTime, Boolean isMajor) {
+        mongoTemplate.insert(legacyDocument(subjectCode, startTime, endTime, isMajor), "schedules");
+    }
+
+    // A document as saved before the integer time fields existed
+    private static Document legacyDocument(String subjectCode, String startTime, String endTime, Boolean isMajor) {
+        Document doc = new Document("problemId", "p")
+                .append("subjectCode", subjectCode)
+                .append("teacherId", "t1")
+                .append("sectionId", "s1")
+                .append("classroomId", "c1")
+                .append("dayOfWeek", "MONDAY")
+                .append("startTime", startTime)
+                .append("endTime", endTime);
+        if (isMajor != null) doc.append("isMajor", isMajor);
+        return doc;
+    }
+
+    private Document legacy(String subjectCode) {
+        return mongoTemplate.findOne(Query.query(Criteria.where("subjectCode").is(subjectCode)), Document.class,
+                "schedules");
+    }
+}
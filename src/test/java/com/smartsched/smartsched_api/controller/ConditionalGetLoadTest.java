@@ -0,0 +1,119 @@
+package com.smartsched.smartsched_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ExcelExportService;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Simulates dashboards polling GET /api/schedules/all while schedules change now and then,
+ * and counts how often MongoDB is actually read, with and without If-None-Match.
+ * Run with: mvn test -Pbenchmark -Dtest=ConditionalGetLoadTest
+ */
+@Tag("load")
+class ConditionalGetLoadTest {
+
+    private static final int CLIENTS = 20;
+    private static final int REQUESTS = 2000;
+    private static final int WRITE_EVERY = 200;
+
+    private ScheduleRepository scheduleRepository;
+    private ChangeVersions changeVersions;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(ScheduleRepository.class);
+        // 40 fully scheduled sections, ~800 schedules
+        List<Schedule> schedules = SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                .withSections(40).withScheduledSectionRatio(1.0)).schedules();
+        when(scheduleRepository.findAll()).thenReturn(schedules);
+
+        ReferenceDataCache cache = new ReferenceDataCache(mock(TeacherRepository.class),
+                mock(ClassroomRepository.class), mock(SectionRepository.class));
+        changeVersions = new ChangeVersions(cache);
+        ScheduleController controller = new ScheduleController(mock(SchedulingService.class), scheduleRepository,
+                mock(ExcelExportService.class), mock(ScheduleQueryService.class), changeVersions, mock(BulkExportService.class), mock(CalendarExportService.class),
+                new ExportMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void conditionalPollingOnlyReadsAfterChanges() throws Exception {
+        Result plain = poll(false);
+        setUp();
+        Result conditional = poll(true);
+
+        System.out.printf("Unconditional: %d requests, %d DB reads, %d KB sent%n",
+                REQUESTS, plain.dbReads, plain.bytes / 1024);
+        System.out.printf("If-None-Match: %d requests, %d DB reads, %d x 304, %d KB sent%n",
+                REQUESTS, conditional.dbReads, conditional.notModified, conditional.bytes / 1024);
+
+        assertThat(plain.dbReads).isEqualTo(REQUESTS);
+        // Each client re-reads once at start and once after each write, never more
+        int writes = REQUESTS / WRITE_EVERY;
+        assertThat(conditional.dbReads).isLessThanOrEqualTo((long) CLIENTS * (writes + 1));
+        assertThat(conditional.notModified).isEqualTo(REQUESTS - conditional.dbReads);
+        assertThat(conditional.bytes).isLessThan(plain.bytes / 4);
+    }
+
+    private Result poll(boolean conditional) throws Exception {
+        Map<Integer, String> etags = new HashMap<>();
+        Result result = new Result();
+        for (int i = 0; i < REQUESTS; i++) {
+            if (i > 0 && i % WRITE_EVERY == 0) {
+                changeVersions.sectionSchedulesChanged("s" + (i % 40));
+            }
+            int client = i % CLIENTS;
+            MockHttpServletRequestBuilder request = get("/api/schedules/all");
+            if (conditional && etags.containsKey(client)) {
+                request.header(HttpHeaders.IF_NONE_MATCH, etags.get(client));
+            }
+            MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+            if (response.getStatus() == 304) result.notModified++;
+            if (response.getHeader(HttpHeaders.ETAG) != null) etags.put(client, response.getHeader(HttpHeaders.ETAG));
+            result.bytes += response.getContentAsByteArray().length;
+        }
+        result.dbReads = mockingDetails(scheduleRepository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findAll"))
+                .count();
+        return result;
+    }
+
+    private static final class Result {
+        long dbReads;
+        long notModified;
+        long bytes;
+    }
+}
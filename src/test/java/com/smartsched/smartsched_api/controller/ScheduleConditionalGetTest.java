@@ -0,0 +1,128 @@
+package com.smartsched.smartsched_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.exception.GlobalExceptionHandler;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ExcelExportService;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * If-None-Match on GET /api/schedules and /all: 304 without a read while nothing changed,
+ * a new tag after a write. The query endpoint runs against the in-memory store.
+ */
+class ScheduleConditionalGetTest {
+
+    private ScheduleRepository scheduleRepository;
+    private ChangeVersions changeVersions;
+    private ScheduleQueryService scheduleQueryService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(ScheduleRepository.class);
+        when(scheduleRepository.findAll()).thenReturn(List.of());
+        ReferenceDataCache cache = new ReferenceDataCache(mock(TeacherRepository.class),
+                mock(ClassroomRepository.class), mock(SectionRepository.class));
+        changeVersions = new ChangeVersions(cache);
+        InMemoryMongoTemplate template = InMemoryPersistenceConfig.standaloneTemplate();
+        template.insert(new Schedule("p", "IT101", "Programming", "t1", "s1", "c1", DayOfWeek.MONDAY, 480, 570, true));
+        scheduleQueryService = spy(new ScheduleQueryService(template, new ObjectMapper()));
+        ScheduleController controller = new ScheduleController(mock(SchedulingService.class), scheduleRepository,
+                mock(ExcelExportService.class), scheduleQueryService, changeVersions, mock(BulkExportService.class),
+                mock(CalendarExportService.class), new ExportMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void changeInvalidatesTag() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/schedules/all")).andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        assertThat(mockMvc.perform(get("/api/schedules/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse().getStatus()).isEqualTo(304);
+        verify(scheduleRepository, times(1)).findAll();
+
+        changeVersions.sectionSchedulesChanged("s1");
+        MockHttpServletResponse after = mockMvc.perform(get("/api/schedules/all").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse();
+        assertThat(after.getStatus()).isEqualTo(200);
+        assertThat(after.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void queryAnswers304UntilItsSectionChanges() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/api/schedules").param("sectionId", "s1"))
+                .andReturn().getResponse();
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(first.getContentAsString()).contains("IT101");
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        // Another section's solve leaves a section-scoped tag alone
+        changeVersions.sectionSchedulesChanged("s2");
+        MockHttpServletResponse unchanged = mockMvc.perform(get("/api/schedules").param("sectionId", "s1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+        assertThat(unchanged.getContentAsByteArray()).isEmpty();
+        verify(scheduleQueryService, times(1)).findPage(any(), any(), any(), any());
+
+        changeVersions.sectionSchedulesChanged("s1");
+        MockHttpServletResponse changed = mockMvc.perform(get("/api/schedules").param("sectionId", "s1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void unknownFieldsAreABadRequest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/schedules").param("fields", "subjectCode,password"))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains("Unknown field: password");
+    }
+
+    @Test
+    void anUnfilteredQueryFollowsTheGlobalTag() throws Exception {
+        String etag = mockMvc.perform(get("/api/schedules")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        changeVersions.sectionSchedulesChanged("s2");
+
+        assertThat(mockMvc.perform(get("/api/schedules").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse().getStatus()).isEqualTo(200);
+    }
+}
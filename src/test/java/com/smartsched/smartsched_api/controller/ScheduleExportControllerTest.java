@@ -0,0 +1,90 @@
+package com.smartsched.smartsched_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.smartsched.smartsched_api.exception.GlobalExceptionHandler;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ExcelExportService;
+import com.smartsched.smartsched_api.service.ExportFormat;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Format handling of the export endpoints.
+ */
+class ScheduleExportControllerTest {
+
+    private ScheduleRepository scheduleRepository;
+    private ExcelExportService excelExportService;
+    private ChangeVersions changeVersions;
+    private CalendarExportService calendarExportService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        scheduleRepository = mock(ScheduleRepository.class);
+        excelExportService = mock(ExcelExportService.class);
+        ReferenceDataCache cache = new ReferenceDataCache(mock(TeacherRepository.class),
+                mock(ClassroomRepository.class), mock(SectionRepository.class));
+        changeVersions = new ChangeVersions(cache);
+        calendarExportService = mock(CalendarExportService.class);
+        BulkExportService bulkExportService = new BulkExportService(scheduleRepository, cache, excelExportService,
+                changeVersions, 1);
+        ScheduleController controller = new ScheduleController(mock(SchedulingService.class), scheduleRepository,
+                excelExportService, mock(ScheduleQueryService.class), changeVersions, bulkExportService,
+                calendarExportService, new ExportMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void bulkExportRejectsPlainTextFormats() throws Exception {
+        for (String format : new String[] {"csv", "ics"}) {
+            MockHttpServletResponse response = mockMvc.perform(get("/api/schedules/export/bulk")
+                    .param("sectionIds", "s1", "s2").param("format", format)).andReturn().getResponse();
+            assertThat(response.getStatus()).as("format=%s", format).isEqualTo(400);
+            assertThat(response.getContentAsString()).contains("xls");
+        }
+        verifyNoInteractions(scheduleRepository, excelExportService);
+    }
+
+    @Test
+    void calendarExportIgnoresTheSpreadsheetTag() throws Exception {
+        when(calendarExportService.filename(any(), eq("s1"), eq(ExportFormat.ICS))).thenReturn("S1.ics");
+        String spreadsheetTag = changeVersions.sectionExportTag("s1");
+
+        // The ICS body depends on from/until, which the section tag does not cover
+        MockHttpServletResponse response = mockMvc.perform(get("/api/schedules/export/section/s1")
+                .param("format", "ics").param("from", "2026-01-05")
+                .header(HttpHeaders.IF_NONE_MATCH, spreadsheetTag)).andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        verify(calendarExportService).write(eq(CalendarExportService.View.SECTION), eq("s1"), eq(ExportFormat.ICS),
+                eq(LocalDate.of(2026, 1, 5)), isNull(), any());
+    }
+}
@@ -0,0 +1,147 @@
+package com.smartsched.smartsched_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.exception.GlobalExceptionHandler;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ExcelExportService;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * GET /api/schedules/stream over the in-memory store: one JSON object per line, in _id order,
+ * with more rows than one 500-document cursor batch.
+ */
+class ScheduleStreamTest {
+
+    private static final int ROWS = 1203;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ScheduleQueryService scheduleQueryService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryMongoTemplate template = InMemoryPersistenceConfig.standaloneTemplate();
+        List<Schedule> schedules = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            schedules.add(new Schedule("p", "SUBJ" + i, "Subject, \"" + i + "\"", "t1", i % 2 == 0 ? "s1" : "s2", "c1",
+                    DayOfWeek.of(1 + i % 5), 480, 570, false));
+        }
+        template.insertAll(schedules);
+        scheduleQueryService = new ScheduleQueryService(template, objectMapper);
+        ReferenceDataCache cache = new ReferenceDataCache(mock(TeacherRepository.class),
+                mock(ClassroomRepository.class), mock(SectionRepository.class));
+        ScheduleController controller = new ScheduleController(mock(SchedulingService.class), mock(ScheduleRepository.class),
+                mock(ExcelExportService.class), scheduleQueryService, new ChangeVersions(cache), mock(BulkExportService.class),
+                mock(CalendarExportService.class), new ExportMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void everyRowIsOneJsonObjectPerLine() throws Exception {
+        MockHttpServletResponse response = stream("/api/schedules/stream");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith(MediaType.APPLICATION_NDJSON_VALUE);
+        String body = response.getContentAsString();
+        assertThat(body).endsWith("\n");
+        List<JsonNode> lines = parseLines(body);
+        assertThat(lines).hasSize(ROWS).allMatch(JsonNode::isObject);
+
+        List<String> ids = lines.stream().map(line -> line.get("id").asText()).toList();
+        assertThat(new HashSet<>(ids)).as("no row twice across batches").hasSize(ROWS);
+        assertThat(ids).isSorted();
+        assertThat(lines.get(0).get("subjectName").asText()).isEqualTo("Subject, \"0\"");
+    }
+
+    @Test
+    void filtersAndFieldsApplyToTheStream() throws Exception {
+        List<JsonNode> lines = parseLines(stream("/api/schedules/stream?sectionId=s2&fields=subjectCode").getContentAsString());
+
+        assertThat(lines).hasSize(ROWS / 2);
+        assertThat(lines).allSatisfy(line -> {
+            assertThat(line.has("id")).isTrue();
+            assertThat(line.has("subjectCode")).isTrue();
+            assertThat(line.has("sectionId")).isFalse();
+        });
+    }
+
+    @Test
+    void badParametersAreRejectedBeforeStreaming() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/schedules/stream").param("fields", "password"))
+                .andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains("Unknown field: password");
+    }
+
+    @Test
+    void outputIsFlushedOncePerBatch() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> linesAtFlush = new ArrayList<>();
+        FilterOutputStream out = new FilterOutputStream(bytes) {
+            @Override
+            public void flush() throws IOException {
+                linesAtFlush.add((int) bytes.toString().chars().filter(c -> c == '\n').count());
+                super.flush();
+            }
+        };
+
+        long written = scheduleQueryService.streamNdjson(new ScheduleFilter(null, null, null, null, null, null, null),
+                null, out);
+
+        assertThat(written).isEqualTo(ROWS);
+        // Closing the generator may flush the end once more
+        assertThat(new LinkedHashSet<>(linesAtFlush)).containsExactly(500, 1000, ROWS);
+    }
+
+    private MockHttpServletResponse stream(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url)).andReturn();
+        return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+    }
+
+    private List<JsonNode> parseLines(String body) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
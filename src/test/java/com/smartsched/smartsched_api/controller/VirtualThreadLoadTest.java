@@ -0,0 +1,177 @@
+package com.smartsched.smartsched_api.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.dto.SchedulePage;
+import com.smartsched.smartsched_api.dto.ScheduleView;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+import com.smartsched.smartsched_api.service.BulkExportService;
+import com.smartsched.smartsched_api.service.CalendarExportService;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ExcelExportService;
+import com.smartsched.smartsched_api.service.ExportMetrics;
+import com.smartsched.smartsched_api.service.ExportFormat;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Mixed list and CSV export traffic from many concurrent clients, served by a 200-thread
+ * platform pool (Tomcat's default max) and by one virtual thread per request. MongoDB is
+ * replaced by fixed sleeps standing in for remote round trips, so the difference measured is
+ * how many requests can wait on I/O at once. Run with: mvn test -Pbenchmark
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long LIST_MILLIS = 40;    // one page query to a remote cluster
+    private static final long EXPORT_MILLIS = 180; // one cursor per weekday, ~30 ms each
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        List<ScheduleView> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(ScheduleView.from(new Schedule("p1", "SUBJ" + i, "Subject " + i, "t1", "s1", "r1",
+                    DayOfWeek.of(1 + i % 6), 480 + (i % 8) * 60, 540 + (i % 8) * 60, false)));
+        }
+        // Plain subclasses rather than Mockito answers: Mockito runs a stubbed answer while holding
+        // a lock on the stub, which would serialize the sleeps and hide the difference being measured
+        ScheduleQueryService queryService = new ScheduleQueryService(null, null) {
+            @Override
+            public SchedulePage findPage(ScheduleFilter filter, String cursor, Integer limit, List<String> fields) {
+                pause(LIST_MILLIS);
+                return new SchedulePage(page, null);
+            }
+        };
+
+        byte[] csv = "Day,Start,End,Subject\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+        CalendarExportService calendarExportService = new CalendarExportService(null, null) {
+            @Override
+            public String filename(View view, String id, ExportFormat format) {
+                return "teacher.csv";
+            }
+
+            @Override
+            public void write(View view, String id, ExportFormat format, LocalDate firstDay, LocalDate lastDay,
+                              OutputStream out) throws IOException {
+                pause(EXPORT_MILLIS);
+                out.write(csv);
+            }
+        };
+
+        ReferenceDataCache cache = new ReferenceDataCache(mock(TeacherRepository.class),
+                mock(ClassroomRepository.class), mock(SectionRepository.class));
+        ScheduleController controller = new ScheduleController(mock(SchedulingService.class), mock(ScheduleRepository.class),
+                mock(ExcelExportService.class), queryService, new ChangeVersions(cache), mock(BulkExportService.class),
+                calendarExportService, new ExportMetrics(new SimpleMeterRegistry()));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void virtualThreadsServeMoreConcurrentRequests() throws Exception {
+        AtomicInteger counter = new AtomicInteger();
+        Result platform = run(Executors.newFixedThreadPool(PLATFORM_THREADS, runnable ->
+                new Thread(runnable, "http-nio-" + counter.incrementAndGet())));
+        Result virtual = run(Executors.newVirtualThreadPerTaskExecutor());
+
+        System.out.printf("%d clients x %d requests (list:export 2:1)%n", CLIENTS, REQUESTS_PER_CLIENT);
+        System.out.printf("Platform pool (%d): %.0f req/s, p50=%d ms, p99=%d ms%n",
+                PLATFORM_THREADS, platform.throughput, platform.p50, platform.p99);
+        System.out.printf("Virtual threads:     %.0f req/s, p50=%d ms, p99=%d ms%n",
+                virtual.throughput, virtual.p50, virtual.p99);
+
+        assertThat(platform.failures).isZero();
+        assertThat(virtual.failures).isZero();
+        assertThat(virtual.throughput).isGreaterThan(platform.throughput);
+        assertThat(virtual.p99).isLessThan(platform.p99);
+    }
+
+    // Closed loop: each client sends its next request when the previous one has been answered
+    private Result run(ExecutorService server) throws Exception {
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        int n = client * REQUESTS_PER_CLIENT + r;
+                        String uri = n % 3 == 2
+                                ? "/api/schedules/export/teacher/t" + (n % 30) + "?format=csv"
+                                : "/api/schedules?sectionId=s" + (n % 40) + "&limit=20";
+                        long sent = System.nanoTime();
+                        Future<Integer> answer = server.submit(() ->
+                                mockMvc.perform(get(uri)).andReturn().getResponse().getStatus());
+                        try {
+                            if (answer.get() != 200) failures.incrementAndGet();
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[n] = (System.nanoTime() - sent) / 1_000_000;
+                    }
+                    return null;
+                });
+            }
+        } finally {
+            server.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        Result result = new Result();
+        result.throughput = latencies.length / seconds;
+        result.p50 = latencies[latencies.length / 2];
+        result.p99 = latencies[(int) (latencies.length * 0.99)];
+        result.failures = failures.get();
+        return result;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Result {
+        double throughput;
+        long p50;
+        long p99;
+        int failures;
+    }
+}
@@ -0,0 +1,93 @@
+package com.smartsched.smartsched_api.dataset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleInput;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+class SyntheticDatasetGeneratorTest {
+
+    private static final SyntheticDatasetGenerator.Spec SPEC = SyntheticDatasetGenerator.Spec.defaults()
+            .withSections(60).withScheduledSectionRatio(0.5).withMajorRatio(0.3);
+
+    @Test
+    void sizesFollowTheSpec() {
+        SyntheticDataset dataset = SyntheticDatasetGenerator.generate(SPEC);
+
+        assertThat(dataset.sections()).hasSize(60);
+        assertThat(dataset.inputs()).hasSize(60 * 8);
+        assertThat(dataset.teachers()).hasSize(80);
+        assertThat(dataset.inputs()).allSatisfy(input ->
+                assertThat(input.getClassHoursPerWeek()).isBetween(2, 5));
+        assertThat(dataset.sections()).extracting(s -> s.getProgram()).contains("BSIT").hasSizeGreaterThan(1);
+        assertThat(dataset.classrooms()).extracting(Classroom::getType)
+                .contains("Computer Laboratory", "Laboratory", "Lecture");
+        long majors = dataset.inputs().stream().filter(ScheduleInput::isMajor).count();
+        assertThat(majors / (double) dataset.inputs().size()).isBetween(0.2, 0.4);
+
+        // Scarcer rooms: fewer of them for the same demand
+        SyntheticDataset scarce = SyntheticDatasetGenerator.generate(SPEC.withRoomScarcity(0.95));
+        assertThat(scarce.classrooms().size()).isLessThan(dataset.classrooms().size());
+    }
+
+    @Test
+    void sameSpecGivesSameDataset(@TempDir Path first, @TempDir Path second) throws IOException {
+        SyntheticDatasetGenerator.generate(SPEC).writeJson(first);
+        SyntheticDatasetGenerator.generate(SPEC).writeJson(second);
+
+        for (String file : new String[] {"teachers.json", "classrooms.json", "sections.json", "schedule-inputs.json", "schedules.json"}) {
+            assertThat(Files.readString(second.resolve(file))).as(file).isEqualTo(Files.readString(first.resolve(file)));
+        }
+    }
+
+    @Test
+    void existingSchedulesDoubleBookNobody() {
+        SyntheticDataset dataset = SyntheticDatasetGenerator.generate(SPEC);
+
+        assertThat(dataset.schedules()).isNotEmpty();
+        Set<String> booked = new HashSet<>();
+        for (Schedule s : dataset.schedules()) {
+            String slot = "@" + s.getDayOfWeek() + s.getStartMinute();
+            assertThat(booked.add(s.getTeacherId() + slot)).isTrue();
+            assertThat(booked.add(s.getClassroomId() + slot)).isTrue();
+            assertThat(booked.add(s.getSectionId() + slot)).isTrue();
+        }
+        assertThat(dataset.teachers()).filteredOn(t -> t.getScheduleIds() != null)
+                .allSatisfy(t -> assertThat(t.getScheduleIds()).isNotEmpty());
+    }
+
+    @Test
+    void fixturesRoundTripAndBuildAProblem(@TempDir Path directory) throws IOException {
+        SyntheticDataset generated = SyntheticDatasetGenerator.generate(SPEC);
+        generated.writeJson(directory);
+
+        assertThat(Files.readString(directory.resolve("schedule-inputs.json"))).contains("\"isMajor\"");
+        SyntheticDataset read = SyntheticDataset.readJson(directory);
+        assertThat(read.spec()).isEqualTo(SPEC);
+        assertThat(read.inputs()).hasSameSizeAs(generated.inputs());
+        assertThat(read.inputs().stream().filter(ScheduleInput::isMajor).count())
+                .isEqualTo(generated.inputs().stream().filter(ScheduleInput::isMajor).count());
+        assertThat(read.schedules()).hasSameSizeAs(generated.schedules());
+
+        // The last section is not scheduled: its subjects are new, everything else is pinned in place
+        ScheduleSolution problem = read.toProblem("s060");
+        assertThat(problem.getAllocations()).filteredOn(a -> !a.isPinned())
+                .allSatisfy(a -> assertThat(a.getSection().getId()).isEqualTo("s060"))
+                .isNotEmpty();
+        assertThat(problem.getAllocations()).filteredOn(Allocation::isPinned)
+                .hasSize(generated.schedules().size())
+                .allSatisfy(a -> assertThat(a.getTimeslot()).isNotNull());
+    }
+}
@@ -0,0 +1,325 @@
+package com.smartsched.smartsched_api.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsched.smartsched_api.dataset.SyntheticDataset;
+import com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+
+/**
+ * End-to-end HTTP load test: the whole application (security, controllers, services, driver)
+ * against an in-process MongoDB stand-in holding a generated institution, driven by closed-loop
+ * clients with a mix of logins, list endpoints, schedule queries, exports and solve submissions.
+ * Prints throughput and latency percentiles per endpoint, writes them to load.report and fails
+ * when load/budget.properties, or a baseline report from an earlier run, is exceeded. Everything
+ * runs on loopback. Run with:
+ *
+ *   mvn test -Pbenchmark -Dtest=ApiLoadTest [-Dload.clients=64 -Dload.duration-seconds=120]
+ *   mvn test -Pbenchmark -Dtest=ApiLoadTest -Dload.baseline=path/to/earlier/load-report.properties
+ *   mvn test -Pbenchmark -Dtest=ApiLoadTest -Dload.backend=inmemory   (no MongoDB protocol at all)
+ */
+@Tag("load")
+class ApiLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    private static final int SECTIONS = Integer.getInteger("load.sections", 60);
+    private static final int MAX_SOLVES_IN_FLIGHT = Integer.getInteger("load.max-solves", 2);
+    private static final double TOLERANCE = Double.parseDouble(System.getProperty("load.tolerance", "0.25"));
+    private static final String REPORT = System.getProperty("load.report", "target/load-report.properties");
+    private static final String BASELINE = System.getProperty("load.baseline", "");
+    // mongo: the MongoDB wire-protocol stand-in; inmemory: the inmemory profile, no database round trips
+    private static final String BACKEND = System.getProperty("load.backend", "mongo");
+    private static final double SCHEDULED_RATIO = 0.8;
+
+    // Relative frequency of each request in the mix, roughly what the web client sends
+    private static final Map<String, Integer> MIX = new LinkedHashMap<>();
+    static {
+        MIX.put("login", 3);
+        MIX.put("teachers", 8);
+        MIX.put("classrooms", 8);
+        MIX.put("sections", 8);
+        MIX.put("schedules-page", 25);
+        MIX.put("schedules-filter", 15);
+        MIX.put("schedules-all", 2);
+        MIX.put("export-section-xlsx", 6);
+        MIX.put("export-teacher-csv", 6);
+        MIX.put("export-classroom-ics", 4);
+        MIX.put("solve", 1);
+        MIX.put("solve-status", 4);
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void mixedTrafficStaysWithinBudget() throws Exception {
+        SyntheticDataset dataset = SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                .withSections(SECTIONS).withScheduledSectionRatio(SCHEDULED_RATIO));
+        Map<String, Object> properties = Map.of(
+                // SyntheticDataLoader generates the same dataset at startup
+                "smartsched.dataset.load", true,
+                "smartsched.dataset.generate.sections", SECTIONS,
+                "smartsched.dataset.generate.scheduled-ratio", SCHEDULED_RATIO,
+                "timefold.solver-manager.parallel-solver-count", Math.max(1, MAX_SOLVES_IN_FLIGHT),
+                "logging.level.root", "WARN");
+
+        try (EmbeddedApplication app = BACKEND.equals("inmemory")
+                ? EmbeddedApplication.startInMemory(properties)
+                : EmbeddedApplication.start(properties)) {
+            Traffic traffic = new Traffic(app.baseUrl(), dataset);
+
+            run(traffic, WARMUP_SECONDS, new LoadReport());
+            LoadReport report = run(traffic, DURATION_SECONDS, new LoadReport());
+            int unfinished = traffic.awaitSolves(Duration.ofSeconds(60));
+
+            System.out.printf("%d clients, %d s, %d sections, %d schedules, %d solves submitted (%d unfinished):%n%s",
+                    CLIENTS, DURATION_SECONDS, SECTIONS, dataset.schedules().size(),
+                    traffic.solvesSubmitted.get(), unfinished, report.format());
+            report.write(Path.of(REPORT));
+
+            List<String> violations = report.violations(budget(), baseline(), TOLERANCE);
+            violations.forEach(v -> System.out.println("Over budget: " + v));
+            assertThat(violations).isEmpty();
+        }
+    }
+
+    private static LoadReport run(Traffic traffic, int seconds, LoadReport report) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long until = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Future<?>> futures = new ArrayList<>();
+            report.start();
+            for (int i = 0; i < CLIENTS; i++) {
+                Client client = new Client(new Random(i));
+                futures.add(clients.submit(() -> {
+                    traffic.login(client);
+                    while (System.nanoTime() < until) traffic.next(client, report);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            report.stop();
+            return report;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static Properties budget() throws IOException {
+        Properties budget = new Properties();
+        try (InputStream in = ApiLoadTest.class.getResourceAsStream("/load/budget.properties")) {
+            if (in != null) budget.load(in);
+        }
+        return budget;
+    }
+
+    private static Properties baseline() throws IOException {
+        if (BASELINE.isBlank()) return null;
+        Properties baseline = new Properties();
+        try (Reader in = Files.newBufferedReader(Path.of(BASELINE))) {
+            baseline.load(in);
+        }
+        return baseline;
+    }
+
+    private static final class Client {
+        final Random random;
+        String token;
+
+        Client(Random random) {
+            this.random = random;
+        }
+    }
+
+    /**
+     * Builds the next request for a client from the mix, sends it and records the outcome.
+     */
+    private static final class Traffic {
+        private final HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        private final String baseUrl;
+        private final SyntheticDataset dataset;
+        private final List<String> scheduledSections;
+        private final List<String> unscheduledSections;
+        private final List<String> teacherIds;
+        private final List<String> classroomIds;
+        private final List<String> operations = new ArrayList<>();
+        private final Set<String> solving = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger solvesInFlight = new AtomicInteger();
+        private final AtomicInteger solvesSubmitted = new AtomicInteger();
+
+        Traffic(String baseUrl, SyntheticDataset dataset) {
+            this.baseUrl = baseUrl;
+            this.dataset = dataset;
+            Set<String> scheduled = dataset.schedules().stream().map(Schedule::getSectionId).collect(Collectors.toSet());
+            this.scheduledSections = dataset.sections().stream().map(Section::getId).filter(scheduled::contains).toList();
+            this.unscheduledSections = dataset.sections().stream().map(Section::getId).filter(id -> !scheduled.contains(id)).toList();
+            this.teacherIds = dataset.teachers().stream().map(Teacher::getId).toList();
+            this.classroomIds = dataset.classrooms().stream().map(Classroom::getId).toList();
+            MIX.forEach((name, weight) -> {
+                for (int i = 0; i < weight; i++) operations.add(name);
+            });
+        }
+
+        void login(Client client) throws Exception {
+            HttpResponse<byte[]> response = send(login());
+            client.token = MAPPER.readTree(response.body()).path("token").asText();
+        }
+
+        void next(Client client, LoadReport report) {
+            String operation = operations.get(client.random.nextInt(operations.size()));
+            if (operation.equals("solve") && !reserveSolve()) operation = "solve-status";
+            List<String> inFlight = operation.equals("solve-status") ? List.copyOf(solving) : List.of();
+            if (operation.equals("solve-status") && inFlight.isEmpty()) operation = "sections";
+
+            long start = System.nanoTime();
+            int status = 0;
+            long bytes = 0;
+            try {
+                HttpResponse<byte[]> response = send(request(operation, client, inFlight));
+                status = response.statusCode();
+                bytes = response.body().length;
+                afterResponse(operation, client, response);
+            } catch (IOException e) {
+                if (operation.equals("solve")) solvesInFlight.decrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            report.record(operation, System.nanoTime() - start, status, bytes);
+        }
+
+        private HttpRequest request(String operation, Client client, List<String> inFlight) throws IOException {
+            Random random = client.random;
+            return switch (operation) {
+                case "login" -> login();
+                case "teachers" -> get(client, "/api/teachers");
+                case "classrooms" -> get(client, "/api/classrooms");
+                case "sections" -> get(client, "/api/sections");
+                case "schedules-page" -> get(client, "/api/schedules?limit=50&sectionId=" + pick(random, scheduledSections));
+                case "schedules-filter" -> get(client, "/api/schedules?limit=100&teacherId=" + pick(random, teacherIds)
+                        + "&dayOfWeek=" + DayOfWeek.of(1 + random.nextInt(6)) + "&fromMinute=480&toMinute=1020");
+                case "schedules-all" -> get(client, "/api/schedules/all");
+                case "export-section-xlsx" -> get(client, "/api/schedules/export/section/" + pick(random, scheduledSections) + "?format=xlsx");
+                case "export-teacher-csv" -> get(client, "/api/schedules/export/teacher/" + pick(random, teacherIds) + "?format=csv");
+                case "export-classroom-ics" -> get(client, "/api/schedules/export/classroom/" + pick(random, classroomIds) + "?format=ics");
+                case "solve" -> authorized(client, "/api/schedules/solve")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(
+                                MAPPER.writeValueAsBytes(dataset.solveRequest(pick(random, unscheduledSections)))))
+                        .build();
+                case "solve-status" -> get(client, "/api/schedules/status/" + pick(random, inFlight));
+                default -> throw new IllegalStateException("Unknown operation " + operation);
+            };
+        }
+
+        private void afterResponse(String operation, Client client, HttpResponse<byte[]> response) throws IOException {
+            switch (operation) {
+                case "login" -> client.token = MAPPER.readTree(response.body()).path("token").asText();
+                case "solve" -> {
+                    String problemId = response.statusCode() == 200
+                            ? MAPPER.readTree(response.body()).path("problemId").asText(null) : null;
+                    if (problemId != null) {
+                        solving.add(problemId);
+                        solvesSubmitted.incrementAndGet();
+                    } else {
+                        solvesInFlight.decrementAndGet();
+                    }
+                }
+                case "solve-status" -> {
+                    JsonNode body = MAPPER.readTree(response.body());
+                    if ("NOT_SOLVING".equals(body.path("status").asText()) && solving.remove(body.path("problemId").asText())) {
+                        solvesInFlight.decrementAndGet();
+                    }
+                }
+                default -> { }
+            }
+        }
+
+        // Solving is CPU-bound; more than a few at once would measure the solver, not the API
+        private boolean reserveSolve() {
+            if (unscheduledSections.isEmpty()) return false;
+            if (solvesInFlight.incrementAndGet() <= MAX_SOLVES_IN_FLIGHT) return true;
+            solvesInFlight.decrementAndGet();
+            return false;
+        }
+
+        // Lets submitted solves finish and save before the application shuts down; returns how many did not
+        int awaitSolves(Duration timeout) throws Exception {
+            Client poller = new Client(new Random());
+            login(poller);
+            long until = System.nanoTime() + timeout.toNanos();
+            while (!solving.isEmpty() && System.nanoTime() < until) {
+                for (String problemId : List.copyOf(solving)) {
+                    JsonNode body = MAPPER.readTree(send(get(poller, "/api/schedules/status/" + problemId)).body());
+                    if ("NOT_SOLVING".equals(body.path("status").asText())) solving.remove(problemId);
+                }
+                Thread.sleep(500);
+            }
+            return solving.size();
+        }
+
+        private HttpRequest login() throws IOException {
+            byte[] body = MAPPER.writeValueAsBytes(Map.of(
+                    "username", EmbeddedApplication.ADMIN_USERNAME, "password", EmbeddedApplication.ADMIN_PASSWORD));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+        }
+
+        private HttpRequest get(Client client, String path) {
+            return authorized(client, path).GET().build();
+        }
+
+        private HttpRequest.Builder authorized(Client client, String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + client.token);
+        }
+
+        private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+            return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        private static String pick(Random random, List<String> values) {
+            return values.get(random.nextInt(values.size()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.smartsched.smartsched_api.load;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.smartsched.smartsched_api.SmartschedApiApplication;
+import com.smartsched.smartsched_api.model.Role;
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.mongo.EmbeddedMongoServer;
+import com.smartsched.smartsched_api.repository.UserRepository;
+
+/**
+ * The whole application on a random local port, backed by an EmbeddedMongoServer instead of the
+ * configured cluster (start), or by the inmemory profile with no MongoDB protocol at all
+ * (startInMemory), with an enabled admin account. Nothing leaves the machine. Extra Spring
+ * properties (solver limits, smartsched.dataset.* to load a synthetic institution, ...) are
+ * passed to start().
+ */
+public final class EmbeddedApplication implements AutoCloseable {
+
+    public static final String ADMIN_USERNAME = "load-admin";
+    public static final String ADMIN_PASSWORD = "load-admin-password";
+
+    private static final String DATABASE = "smartsched_load";
+
+    private final EmbeddedMongoServer mongo;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedApplication(EmbeddedMongoServer mongo, ConfigurableApplicationContext context) {
+        this.mongo = mongo;
+        this.context = context;
+    }
+
+    public static EmbeddedApplication start(Map<String, Object> properties) throws IOException {
+        EmbeddedMongoServer mongo = EmbeddedMongoServer.start();
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("spring.data.mongodb.uri", mongo.uri(DATABASE));
+        all.put("spring.data.mongodb.database", DATABASE);
+        all.putAll(properties);
+        try {
+            return start(mongo, all);
+        } catch (RuntimeException e) {
+            mongo.close();
+            throw e;
+        }
+    }
+
+    // Repositories and MongoTemplate on in-JVM maps; mongo() is null
+    public static EmbeddedApplication startInMemory(Map<String, Object> properties) {
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("spring.profiles.active", "inmemory");
+        all.putAll(properties);
+        return start(null, all);
+    }
+
+    private static EmbeddedApplication start(EmbeddedMongoServer mongo, Map<String, Object> properties) {
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("server.port", 0);
+        all.put("jwt.secret", "embedded-application-secret-for-local-load-tests");
+        all.put("spring.main.banner-mode", "off");
+        // No FULL_ASSERT and no 15-minute solves in a load test
+        all.put("timefold.solver.environment-mode", "NON_REPRODUCIBLE");
+        all.put("timefold.solver.termination.spent-limit", "5s");
+        all.put("timefold.solver.termination.unimproved-spent-limit", "2s");
+        all.putAll(properties);
+
+        // As command-line arguments: builder properties() are only defaults, below application.properties
+        String[] args = all.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SmartschedApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(args);
+
+        UserRepository users = context.getBean(UserRepository.class);
+        User admin = new User(ADMIN_USERNAME, context.getBean(PasswordEncoder.class).encode(ADMIN_PASSWORD),
+                Role.ROLE_ADMIN, true);
+        users.save(admin);
+        return new EmbeddedApplication(mongo, context);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    // Null for startInMemory()
+    public EmbeddedMongoServer mongo() {
+        return mongo;
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            context.close();
+        } finally {
+            if (mongo != null) mongo.close();
+        }
+    }
+}
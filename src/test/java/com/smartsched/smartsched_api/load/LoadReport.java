@@ -0,0 +1,170 @@
+package com.smartsched.smartsched_api.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Outcome of one load run: latency percentiles, throughput and errors per endpoint, and the
+ * check against a regression budget.
+ *
+ * The budget is a properties file with absolute ceilings (p99.&lt;endpoint&gt; in ms, error-rate.max,
+ * throughput.min in requests/s). A previous report written by write() can also be given as a
+ * baseline: then no endpoint's p99 may grow, and throughput may not drop, by more than the
+ * tolerance.
+ */
+final class LoadReport {
+
+    // p99 under this many ms is noise on a local run; only grow past baseline + slack is a regression
+    private static final double BASELINE_SLACK_MS = 5;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private long startNanos;
+    private long endNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    // 2xx and 304 are successes; anything else, or an exception (status 0), is an error
+    void record(String endpoint, long nanos, int status, long bytes) {
+        endpoints.computeIfAbsent(endpoint, Endpoint::new).record(nanos, status >= 200 && status < 300 || status == 304, bytes);
+    }
+
+    double seconds() {
+        return (endNanos - startNanos) / 1e9;
+    }
+
+    long requests() {
+        return endpoints.values().stream().mapToLong(Endpoint::count).sum();
+    }
+
+    double throughput() {
+        return requests() / seconds();
+    }
+
+    double errorRate() {
+        long requests = requests();
+        return requests == 0 ? 0 : endpoints.values().stream().mapToLong(e -> e.errors).sum() / (double) requests;
+    }
+
+    String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-22s %8s %7s %8s %8s %8s %8s %8s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "KB"));
+        for (Endpoint e : endpoints.values()) {
+            out.append(String.format("%-22s %8d %7d %8.1f %8.1f %8.1f %8.1f %8.1f %9d%n",
+                    e.name, e.count(), e.errors, e.count() / seconds(),
+                    e.percentile(50), e.percentile(90), e.percentile(99), e.percentile(100), e.bytes / 1024));
+        }
+        out.append(String.format("%-22s %8d %7.2f%% %7.1f%n", "total", requests(), errorRate() * 100, throughput()));
+        return out.toString();
+    }
+
+    Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("throughput", format(throughput()));
+        properties.setProperty("error-rate", format(errorRate()));
+        for (Endpoint e : endpoints.values()) {
+            properties.setProperty("requests." + e.name, Long.toString(e.count()));
+            properties.setProperty("errors." + e.name, Long.toString(e.errors));
+            properties.setProperty("p50." + e.name, format(e.percentile(50)));
+            properties.setProperty("p90." + e.name, format(e.percentile(90)));
+            properties.setProperty("p99." + e.name, format(e.percentile(99)));
+            properties.setProperty("max." + e.name, format(e.percentile(100)));
+        }
+        return properties;
+    }
+
+    void write(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer out = Files.newBufferedWriter(file)) {
+            toProperties().store(out, "Load run: " + requests() + " requests in " + format(seconds()) + " s");
+        }
+    }
+
+    /**
+     * Every way this run exceeds the budget, or regresses against the baseline (may be null).
+     */
+    List<String> violations(Properties budget, Properties baseline, double tolerance) {
+        List<String> violations = new ArrayList<>();
+        double maxErrorRate = Double.parseDouble(budget.getProperty("error-rate.max", "0"));
+        if (errorRate() > maxErrorRate) {
+            violations.add(String.format("error rate %.2f%% > %.2f%%", errorRate() * 100, maxErrorRate * 100));
+        }
+        double minThroughput = Double.parseDouble(budget.getProperty("throughput.min", "0"));
+        if (throughput() < minThroughput) {
+            violations.add(String.format("throughput %.1f req/s < %.1f req/s", throughput(), minThroughput));
+        }
+        for (Endpoint e : endpoints.values()) {
+            String ceiling = budget.getProperty("p99." + e.name);
+            if (ceiling != null && e.percentile(99) > Double.parseDouble(ceiling)) {
+                violations.add(String.format("%s p99 %.1f ms > budget %s ms", e.name, e.percentile(99), ceiling));
+            }
+        }
+
+        if (baseline == null) return violations;
+        double baselineThroughput = Double.parseDouble(baseline.getProperty("throughput", "0"));
+        if (throughput() < baselineThroughput * (1 - tolerance)) {
+            violations.add(String.format("throughput %.1f req/s < baseline %.1f req/s - %.0f%%",
+                    throughput(), baselineThroughput, tolerance * 100));
+        }
+        for (Endpoint e : endpoints.values()) {
+            String before = baseline.getProperty("p99." + e.name);
+            if (before == null) continue;
+            double allowed = Double.parseDouble(before) * (1 + tolerance) + BASELINE_SLACK_MS;
+            if (e.percentile(99) > allowed) {
+                violations.add(String.format("%s p99 %.1f ms > baseline %s ms + %.0f%%",
+                        e.name, e.percentile(99), before, tolerance * 100));
+            }
+        }
+        return violations;
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    private static final class Endpoint {
+        private final String name;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long bytes;
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        synchronized void record(long nanos, boolean success, long size) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (!success) errors++;
+            bytes += size;
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        // Nearest-rank percentile in milliseconds
+        synchronized double percentile(double percentile) {
+            if (count == 0) return 0;
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count);
+            return sorted[Math.max(0, Math.min(count, rank) - 1)] / 1e6;
+        }
+    }
+}
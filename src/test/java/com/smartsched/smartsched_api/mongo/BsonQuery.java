@@ -0,0 +1,556 @@
+package com.smartsched.smartsched_api.mongo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonDouble;
+import org.bson.BsonDecimal128;
+import org.bson.BsonObjectId;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonValue;
+import org.bson.types.Decimal128;
+
+/**
+ * Query, update, projection and sort semantics of MongoDB, limited to what this application
+ * sends. The one engine behind both test stand-ins: EmbeddedMongoServer (wire protocol) and the
+ * inmemory profile's InMemoryMongoStore. Anything else throws IllegalArgumentException, which the
+ * server returns as a command error, so an unsupported query fails loudly instead of matching wrongly.
+ */
+public final class BsonQuery {
+
+    private BsonQuery() {
+    }
+
+    // --- Filters ---
+
+    public static boolean matches(BsonDocument doc, BsonDocument filter) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue condition = entry.getValue();
+            switch (key) {
+                case "$and" -> {
+                    for (BsonValue sub : condition.asArray()) if (!matches(doc, sub.asDocument())) return false;
+                }
+                case "$or" -> {
+                    boolean any = false;
+                    for (BsonValue sub : condition.asArray()) if (matches(doc, sub.asDocument())) { any = true; break; }
+                    if (!any) return false;
+                }
+                case "$nor" -> {
+                    for (BsonValue sub : condition.asArray()) if (matches(doc, sub.asDocument())) return false;
+                }
+                case "$comment" -> { }
+                default -> {
+                    if (key.startsWith("$")) throw new IllegalArgumentException("unknown top level operator: " + key);
+                    if (!matchesField(resolve(doc, key), condition)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesField(List<BsonValue> values, BsonValue condition) {
+        if (!isOperatorDocument(condition)) {
+            return condition.isRegularExpression() ? matchesRegex(values, condition.asRegularExpression()) : equalsAny(values, condition);
+        }
+        BsonDocument operators = condition.asDocument();
+        for (Map.Entry<String, BsonValue> entry : operators.entrySet()) {
+            BsonValue operand = entry.getValue();
+            boolean ok = switch (entry.getKey()) {
+                case "$eq" -> equalsAny(values, operand);
+                case "$ne" -> !equalsAny(values, operand);
+                case "$gt" -> compareAny(values, operand, c -> c > 0);
+                case "$gte" -> compareAny(values, operand, c -> c >= 0);
+                case "$lt" -> compareAny(values, operand, c -> c < 0);
+                case "$lte" -> compareAny(values, operand, c -> c <= 0);
+                case "$in" -> inAny(values, operand.asArray());
+                case "$nin" -> !inAny(values, operand.asArray());
+                case "$exists" -> !values.isEmpty() == isTrue(operand);
+                case "$regex" -> matchesRegex(values, new BsonRegularExpression(
+                        operand.isString() ? operand.asString().getValue() : operand.asRegularExpression().getPattern(),
+                        operators.containsKey("$options") ? operators.getString("$options").getValue()
+                                : operand.isRegularExpression() ? operand.asRegularExpression().getOptions() : ""));
+                case "$options" -> true;
+                case "$not" -> !matchesField(values, operand);
+                case "$size" -> values.stream().anyMatch(v -> v.isArray() && v.asArray().size() == operand.asNumber().intValue());
+                case "$all" -> operand.asArray().stream().allMatch(wanted -> equalsAny(values, wanted));
+                case "$elemMatch" -> values.stream().anyMatch(v -> v.isArray()
+                        && v.asArray().stream().anyMatch(element -> elementMatches(element, operand.asDocument())));
+                default -> throw new IllegalArgumentException("unknown operator: " + entry.getKey());
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static boolean elementMatches(BsonValue element, BsonDocument condition) {
+        if (isOperatorDocument(condition)) return matchesField(List.of(element), condition);
+        return element.isDocument() && matches(element.asDocument(), condition);
+    }
+
+    public static boolean isOperatorDocument(BsonValue value) {
+        return value.isDocument() && !value.asDocument().isEmpty() && value.asDocument().getFirstKey().startsWith("$");
+    }
+
+    // Values at a path; an array along the way contributes each element (MongoDB's implicit traversal)
+    public static List<BsonValue> resolve(BsonDocument doc, String path) {
+        List<BsonValue> out = new ArrayList<>(1);
+        resolve(doc, path.split("\\."), 0, out);
+        return out;
+    }
+
+    private static void resolve(BsonValue current, String[] parts, int i, List<BsonValue> out) {
+        if (i == parts.length) {
+            out.add(current);
+            return;
+        }
+        if (current.isDocument()) {
+            BsonValue child = current.asDocument().get(parts[i]);
+            if (child != null) resolve(child, parts, i + 1, out);
+        } else if (current.isArray()) {
+            BsonArray array = current.asArray();
+            if (isIndex(parts[i])) {
+                int index = Integer.parseInt(parts[i]);
+                if (index < array.size()) resolve(array.get(index), parts, i + 1, out);
+            } else {
+                for (BsonValue element : array) {
+                    if (element.isDocument()) resolve(element, parts, i, out);
+                }
+            }
+        }
+    }
+
+    private static boolean equalsAny(List<BsonValue> values, BsonValue wanted) {
+        if (wanted.isNull() && (values.isEmpty() || values.stream().anyMatch(BsonValue::isNull))) return true;
+        for (BsonValue value : values) {
+            if (sameValue(value, wanted)) return true;
+            if (value.isArray()) {
+                for (BsonValue element : value.asArray()) if (sameValue(element, wanted)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inAny(List<BsonValue> values, BsonArray candidates) {
+        for (BsonValue candidate : candidates) {
+            if (candidate.isRegularExpression() ? matchesRegex(values, candidate.asRegularExpression()) : equalsAny(values, candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface Comparison {
+        boolean test(int comparison);
+    }
+
+    // Range operators only compare within one type bracket, like the server
+    private static boolean compareAny(List<BsonValue> values, BsonValue operand, Comparison comparison) {
+        for (BsonValue value : values) {
+            for (BsonValue candidate : value.isArray() ? value.asArray() : List.of(value)) {
+                if (typeOrder(candidate) == typeOrder(operand) && comparison.test(compare(candidate, operand))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesRegex(List<BsonValue> values, BsonRegularExpression regex) {
+        Pattern pattern = Pattern.compile(regex.getPattern(), flags(regex.getOptions()));
+        for (BsonValue value : values) {
+            for (BsonValue candidate : value.isArray() ? value.asArray() : List.of(value)) {
+                if (candidate.isString() && pattern.matcher(candidate.asString().getValue()).find()) return true;
+            }
+        }
+        return false;
+    }
+
+    private static int flags(String options) {
+        int flags = 0;
+        for (char option : options.toCharArray()) {
+            switch (option) {
+                case 'i' -> flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                case 'm' -> flags |= Pattern.MULTILINE;
+                case 's' -> flags |= Pattern.DOTALL;
+                case 'x' -> flags |= Pattern.COMMENTS;
+                default -> { }
+            }
+        }
+        return flags;
+    }
+
+    private static boolean isTrue(BsonValue value) {
+        return value.isBoolean() ? value.asBoolean().getValue() : value.isNumber() && value.asNumber().doubleValue() != 0;
+    }
+
+    private static boolean isIndex(String part) {
+        return !part.isEmpty() && part.chars().allMatch(Character::isDigit);
+    }
+
+    // --- Comparison (BSON sort order) ---
+
+    public static boolean sameValue(BsonValue a, BsonValue b) {
+        return typeOrder(a) == typeOrder(b) && compare(a, b) == 0;
+    }
+
+    public static int compare(BsonValue a, BsonValue b) {
+        int byType = Integer.compare(typeOrder(a), typeOrder(b));
+        if (byType != 0) return byType;
+        switch (a.getBsonType()) {
+            case INT32, INT64, DOUBLE, DECIMAL128 -> {
+                if ((a.isInt32() || a.isInt64()) && (b.isInt32() || b.isInt64())) {
+                    return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+                }
+                return toDecimal(a).compareTo(toDecimal(b));
+            }
+            case STRING, SYMBOL -> {
+                return stringOf(a).compareTo(stringOf(b));
+            }
+            case DOCUMENT -> {
+                var left = a.asDocument().entrySet().iterator();
+                var right = b.asDocument().entrySet().iterator();
+                while (left.hasNext() && right.hasNext()) {
+                    var l = left.next();
+                    var r = right.next();
+                    // Field by field: value type, then field name, then value
+                    int c = Integer.compare(typeOrder(l.getValue()), typeOrder(r.getValue()));
+                    if (c == 0) c = l.getKey().compareTo(r.getKey());
+                    if (c == 0) c = compare(l.getValue(), r.getValue());
+                    if (c != 0) return c;
+                }
+                return Boolean.compare(left.hasNext(), right.hasNext());
+            }
+            case ARRAY -> {
+                BsonArray left = a.asArray();
+                BsonArray right = b.asArray();
+                for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+                    int c = compare(left.get(i), right.get(i));
+                    if (c != 0) return c;
+                }
+                return Integer.compare(left.size(), right.size());
+            }
+            case OBJECT_ID -> {
+                return a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            }
+            case BOOLEAN -> {
+                return Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            }
+            case DATE_TIME -> {
+                return Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            }
+            case TIMESTAMP -> {
+                return a.asTimestamp().compareTo(b.asTimestamp());
+            }
+            case BINARY -> {
+                byte[] left = a.asBinary().getData();
+                byte[] right = b.asBinary().getData();
+                int c = Integer.compare(left.length, right.length);
+                return c != 0 ? c : java.util.Arrays.compare(left, right);
+            }
+            case REGULAR_EXPRESSION -> {
+                return a.asRegularExpression().getPattern().compareTo(b.asRegularExpression().getPattern());
+            }
+            default -> {
+                return 0; // null, undefined, min/max key: one value each
+            }
+        }
+    }
+
+    private static int typeOrder(BsonValue value) {
+        return switch (value.getBsonType()) {
+            case MIN_KEY -> 1;
+            case NULL, UNDEFINED -> 2;
+            case INT32, INT64, DOUBLE, DECIMAL128 -> 3;
+            case STRING, SYMBOL -> 4;
+            case DOCUMENT -> 5;
+            case ARRAY -> 6;
+            case BINARY -> 7;
+            case OBJECT_ID -> 8;
+            case BOOLEAN -> 9;
+            case DATE_TIME -> 10;
+            case TIMESTAMP -> 11;
+            case REGULAR_EXPRESSION -> 12;
+            case MAX_KEY -> 13;
+            default -> 14;
+        };
+    }
+
+    private static BigDecimal toDecimal(BsonValue value) {
+        return switch (value.getBsonType()) {
+            case INT32 -> BigDecimal.valueOf(value.asInt32().getValue());
+            case INT64 -> BigDecimal.valueOf(value.asInt64().getValue());
+            case DECIMAL128 -> value.asDecimal128().getValue().bigDecimalValue();
+            default -> BigDecimal.valueOf(value.asDouble().getValue());
+        };
+    }
+
+    private static String stringOf(BsonValue value) {
+        return value.isString() ? value.asString().getValue() : value.asSymbol().getSymbol();
+    }
+
+    // --- Sort and projection ---
+
+    public static Comparator<BsonDocument> sort(BsonDocument spec) {
+        Comparator<BsonDocument> comparator = (a, b) -> 0;
+        for (Map.Entry<String, BsonValue> entry : spec.entrySet()) {
+            String path = entry.getKey();
+            int direction = entry.getValue().asNumber().intValue() < 0 ? -1 : 1;
+            comparator = comparator.thenComparing((a, b) -> direction * compare(sortKey(a, path), sortKey(b, path)));
+        }
+        return comparator;
+    }
+
+    private static BsonValue sortKey(BsonDocument doc, String path) {
+        List<BsonValue> values = resolve(doc, path);
+        return values.isEmpty() ? BsonNull.VALUE : values.get(0);
+    }
+
+    public static BsonDocument project(BsonDocument doc, BsonDocument projection) {
+        if (projection == null || projection.isEmpty()) return doc;
+        boolean idIncluded = !projection.containsKey("_id") || isTrue(projection.get("_id"));
+        // {_id: 1} alone is an inclusion projection too
+        boolean inclusive = projection.values().stream().anyMatch(BsonQuery::isTrue);
+        if (!inclusive) {
+            BsonDocument out = doc.clone();
+            projection.keySet().forEach(path -> unset(out, path));
+            if (!idIncluded) out.remove("_id");
+            return out;
+        }
+        BsonDocument out = new BsonDocument();
+        if (idIncluded && doc.containsKey("_id")) out.put("_id", doc.get("_id"));
+        for (Map.Entry<String, BsonValue> entry : projection.entrySet()) {
+            if (entry.getKey().equals("_id") || !isTrue(entry.getValue())) continue;
+            List<BsonValue> values = resolve(doc, entry.getKey());
+            if (!values.isEmpty()) set(out, entry.getKey(), values.get(0));
+        }
+        return out;
+    }
+
+    // --- Updates ---
+
+    public static boolean isReplacement(BsonDocument update) {
+        return update.isEmpty() || !update.getFirstKey().startsWith("$");
+    }
+
+    /**
+     * Applies an update document to a copy of doc. A replacement keeps the _id; operators are
+     * applied in order; $setOnInsert only when inserting is true.
+     */
+    public static BsonDocument applyUpdate(BsonDocument doc, BsonDocument update, boolean inserting) {
+        if (isReplacement(update)) {
+            BsonDocument replaced = new BsonDocument();
+            if (doc.containsKey("_id")) replaced.put("_id", doc.get("_id"));
+            update.forEach((key, value) -> { if (!key.equals("_id") || !replaced.containsKey("_id")) replaced.put(key, copy(value)); });
+            return replaced;
+        }
+        BsonDocument out = doc.clone();
+        for (Map.Entry<String, BsonValue> operator : update.entrySet()) {
+            BsonDocument fields = operator.getValue().asDocument();
+            for (Map.Entry<String, BsonValue> field : fields.entrySet()) {
+                String path = field.getKey();
+                BsonValue operand = field.getValue();
+                switch (operator.getKey()) {
+                    case "$set" -> set(out, path, copy(operand));
+                    case "$setOnInsert" -> { if (inserting) set(out, path, copy(operand)); }
+                    case "$unset" -> unset(out, path);
+                    case "$inc" -> set(out, path, add(current(out, path, new BsonInt32(0)), operand));
+                    case "$min" -> { if (!exists(out, path) || compare(operand, current(out, path, operand)) < 0) set(out, path, copy(operand)); }
+                    case "$max" -> { if (!exists(out, path) || compare(operand, current(out, path, operand)) > 0) set(out, path, copy(operand)); }
+                    case "$currentDate" -> set(out, path, new BsonDateTime(System.currentTimeMillis()));
+                    case "$rename" -> {
+                        if (exists(out, path)) {
+                            BsonValue value = current(out, path, BsonNull.VALUE);
+                            unset(out, path);
+                            set(out, operand.asString().getValue(), value);
+                        }
+                    }
+                    case "$push" -> {
+                        BsonArray array = arrayAt(out, path);
+                        array.addAll(each(operand));
+                    }
+                    case "$addToSet" -> {
+                        BsonArray array = arrayAt(out, path);
+                        for (BsonValue value : each(operand)) {
+                            if (array.stream().noneMatch(existing -> sameValue(existing, value))) array.add(value);
+                        }
+                    }
+                    case "$pull" -> {
+                        if (exists(out, path) && current(out, path, BsonNull.VALUE).isArray()) {
+                            current(out, path, BsonNull.VALUE).asArray().removeIf(element -> pullMatches(element, operand));
+                        }
+                    }
+                    case "$pullAll" -> {
+                        if (exists(out, path) && current(out, path, BsonNull.VALUE).isArray()) {
+                            current(out, path, BsonNull.VALUE).asArray()
+                                    .removeIf(element -> operand.asArray().stream().anyMatch(v -> sameValue(element, v)));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown modifier: " + operator.getKey());
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * The document an upsert starts from: the equality conditions of its filter.
+     */
+    public static BsonDocument seedForUpsert(BsonDocument filter) {
+        BsonDocument seed = new BsonDocument();
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            BsonValue value = entry.getValue();
+            if (key.equals("$and")) {
+                value.asArray().forEach(sub -> seedForUpsert(sub.asDocument()).forEach((k, v) -> set(seed, k, v)));
+            } else if (!key.startsWith("$")) {
+                if (!isOperatorDocument(value)) {
+                    set(seed, key, copy(value));
+                } else if (value.asDocument().containsKey("$eq")) {
+                    set(seed, key, copy(value.asDocument().get("$eq")));
+                }
+            }
+        }
+        return seed;
+    }
+
+    private static boolean pullMatches(BsonValue element, BsonValue condition) {
+        if (isOperatorDocument(condition)) return matchesField(List.of(element), condition);
+        if (condition.isDocument() && element.isDocument()) return matches(element.asDocument(), condition.asDocument());
+        return sameValue(element, condition);
+    }
+
+    private static List<BsonValue> each(BsonValue operand) {
+        if (operand.isDocument() && operand.asDocument().containsKey("$each")) {
+            return operand.asDocument().getArray("$each").stream().map(BsonQuery::copy).toList();
+        }
+        return List.of(copy(operand));
+    }
+
+    private static BsonValue add(BsonValue a, BsonValue b) {
+        if (a.isInt32() && b.isInt32()) {
+            long sum = (long) a.asInt32().getValue() + b.asInt32().getValue();
+            return sum == (int) sum ? new BsonInt32((int) sum) : new BsonInt64(sum);
+        }
+        if ((a.isInt32() || a.isInt64()) && (b.isInt32() || b.isInt64())) {
+            return new BsonInt64(a.asNumber().longValue() + b.asNumber().longValue());
+        }
+        if (a.isDecimal128() || b.isDecimal128()) {
+            return new BsonDecimal128(new Decimal128(toDecimal(a).add(toDecimal(b))));
+        }
+        return new BsonDouble(a.asNumber().doubleValue() + b.asNumber().doubleValue());
+    }
+
+    private static boolean exists(BsonDocument doc, String path) {
+        return container(doc, path, false) != null && lastValue(doc, path) != null;
+    }
+
+    private static BsonValue current(BsonDocument doc, String path, BsonValue fallback) {
+        BsonValue value = lastValue(doc, path);
+        return value != null ? value : fallback;
+    }
+
+    private static BsonValue lastValue(BsonDocument doc, String path) {
+        BsonValue parent = container(doc, path, false);
+        if (parent == null) return null;
+        String last = path.substring(path.lastIndexOf('.') + 1);
+        if (parent.isDocument()) return parent.asDocument().get(last);
+        BsonArray array = parent.asArray();
+        int index = isIndex(last) ? Integer.parseInt(last) : -1;
+        return index >= 0 && index < array.size() ? array.get(index) : null;
+    }
+
+    private static BsonArray arrayAt(BsonDocument doc, String path) {
+        BsonValue value = lastValue(doc, path);
+        if (value == null || value.isNull()) {
+            BsonArray array = new BsonArray();
+            set(doc, path, array);
+            return array;
+        }
+        if (!value.isArray()) throw new IllegalArgumentException("The field '" + path + "' must be an array");
+        return value.asArray();
+    }
+
+    static void set(BsonDocument doc, String path, BsonValue value) {
+        BsonValue parent = container(doc, path, true);
+        String last = path.substring(path.lastIndexOf('.') + 1);
+        if (parent.isDocument()) {
+            parent.asDocument().put(last, value);
+        } else {
+            BsonArray array = parent.asArray();
+            int index = Integer.parseInt(last);
+            while (array.size() <= index) array.add(BsonNull.VALUE);
+            array.set(index, value);
+        }
+    }
+
+    private static void unset(BsonDocument doc, String path) {
+        BsonValue parent = container(doc, path, false);
+        if (parent == null) return;
+        String last = path.substring(path.lastIndexOf('.') + 1);
+        if (parent.isDocument()) {
+            parent.asDocument().remove(last);
+        } else if (isIndex(last) && Integer.parseInt(last) < parent.asArray().size()) {
+            parent.asArray().set(Integer.parseInt(last), BsonNull.VALUE);
+        }
+    }
+
+    // The document or array holding the last path element, created on the way if create is set
+    private static BsonValue container(BsonDocument doc, String path, boolean create) {
+        String[] parts = path.split("\\.");
+        BsonValue current = doc;
+        for (int i = 0; i < parts.length - 1; i++) {
+            BsonValue next;
+            if (current.isDocument()) {
+                next = current.asDocument().get(parts[i]);
+                if (next == null || next.isNull()) {
+                    if (!create) return null;
+                    next = new BsonDocument();
+                    current.asDocument().put(parts[i], next);
+                }
+            } else if (current.isArray() && isIndex(parts[i])) {
+                BsonArray array = current.asArray();
+                int index = Integer.parseInt(parts[i]);
+                if (index >= array.size()) {
+                    if (!create) return null;
+                    while (array.size() <= index) array.add(BsonNull.VALUE);
+                    array.set(index, new BsonDocument());
+                }
+                next = array.get(index);
+            } else {
+                if (!create) return null;
+                throw new IllegalArgumentException("Cannot create field '" + parts[i] + "' in path " + path);
+            }
+            current = next;
+        }
+        if (!current.isDocument() && !current.isArray()) {
+            if (!create) return null;
+            throw new IllegalArgumentException("Cannot create field in non-document path " + path);
+        }
+        return current;
+    }
+
+    // Documents and arrays are mutable; every other BsonValue is not
+    private static BsonValue copy(BsonValue value) {
+        if (value.isDocument()) return value.asDocument().clone();
+        if (value.isArray()) return value.asArray().clone();
+        return value;
+    }
+
+    // --- Ids ---
+
+    public static BsonDocument withId(BsonDocument doc) {
+        if (doc.containsKey("_id")) return doc;
+        BsonDocument withId = new BsonDocument("_id", new BsonObjectId());
+        withId.putAll(doc);
+        return withId;
+    }
+}
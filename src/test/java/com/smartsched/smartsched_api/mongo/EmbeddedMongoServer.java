@@ -0,0 +1,933 @@
+package com.smartsched.smartsched_api.mongo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.bson.BsonArray;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonNull;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process stand-in for a MongoDB server, so the application can be booted and load-tested on
+ * one machine without network or a mongod binary. It speaks the wire protocol on a loopback port
+ * (OP_MSG, and OP_QUERY for the driver's first handshake), keeps every collection in memory and
+ * understands the commands, query operators and update operators this application sends (see
+ * BsonQuery). It is a standalone server without sessions or transactions, unique secondary
+ * indexes or change streams.
+ *
+ * Counts round trips and documents returned, examined and written (see Stats), so tests can
+ * assert on what a code path costs against a real server, not only on how long it took here.
+ */
+public final class EmbeddedMongoServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedMongoServer.class);
+
+    private static final int OP_REPLY = 1;
+    private static final int OP_QUERY = 2004;
+    private static final int OP_MSG = 2013;
+    private static final int MAX_BSON_OBJECT_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_BATCH_BYTES = MAX_BSON_OBJECT_SIZE - 64 * 1024;
+    private static final int DEFAULT_FIRST_BATCH_SIZE = 101;
+
+    // Sent by the driver's connection handshake and server monitor, not by application code
+    private static final Set<String> MONITORING_COMMANDS = Set.of(
+            "hello", "ismaster", "isMaster", "ping", "buildInfo", "buildinfo", "endSessions");
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Collection> collections = new ConcurrentHashMap<>();
+    private final Map<Long, Cursor> cursors = new ConcurrentHashMap<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong cursorIds = new AtomicLong();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final Stats stats = new Stats();
+    private volatile boolean closed;
+
+    private EmbeddedMongoServer(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+
+    /**
+     * Starts a server on a free loopback port.
+     */
+    public static EmbeddedMongoServer start() throws IOException {
+        EmbeddedMongoServer server = new EmbeddedMongoServer(new ServerSocket(0, 200, InetAddress.getLoopbackAddress()));
+        Thread acceptor = new Thread(server::acceptLoop, "embedded-mongo-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Embedded MongoDB stand-in listening on 127.0.0.1:{}", server.port());
+        return server;
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String uri(String database) {
+        return "mongodb://127.0.0.1:" + port() + "/" + database;
+    }
+
+    public Stats stats() {
+        return stats;
+    }
+
+    public long count(String database, String collection) {
+        Collection c = collections.get(database + "." + collection);
+        if (c == null) return 0;
+        c.lock.readLock().lock();
+        try {
+            return c.documents.size();
+        } finally {
+            c.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every database and open cursor; statistics are kept.
+     */
+    public void clear() {
+        collections.clear();
+        cursors.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+        clear();
+    }
+
+    // --- Wire protocol ---
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                int connectionId = connectionIds.incrementAndGet();
+                Thread connection = new Thread(() -> serve(socket, connectionId), "embedded-mongo-conn-" + connectionId);
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (!closed) logger.warn("Embedded MongoDB stand-in stopped accepting: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket, int connectionId) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (!closed) {
+                int length;
+                try {
+                    length = Integer.reverseBytes(in.readInt());
+                } catch (EOFException e) {
+                    return;
+                }
+                byte[] message = new byte[length - 4];
+                in.readFully(message);
+                ByteBuffer buffer = ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN);
+                int requestId = buffer.getInt();
+                buffer.getInt(); // responseTo
+                int opCode = buffer.getInt();
+                byte[] reply = switch (opCode) {
+                    case OP_MSG -> handleMessage(buffer, requestId, connectionId);
+                    case OP_QUERY -> handleQuery(buffer, requestId, connectionId);
+                    default -> throw new IOException("Unsupported opcode " + opCode);
+                };
+                if (reply != null) {
+                    out.write(reply);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) logger.debug("Embedded MongoDB connection closed: {}", e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private byte[] handleMessage(ByteBuffer buffer, int requestId, int connectionId) {
+        int flags = buffer.getInt();
+        boolean checksumPresent = (flags & 1) != 0;
+        boolean moreToCome = (flags & 2) != 0;
+        int end = buffer.limit() - (checksumPresent ? 4 : 0);
+
+        BsonDocument command = null;
+        Map<String, BsonArray> sequences = new LinkedHashMap<>();
+        while (buffer.position() < end) {
+            byte kind = buffer.get();
+            if (kind == 0) {
+                command = readDocument(buffer);
+            } else {
+                int sectionEnd = buffer.position() + buffer.getInt();
+                String identifier = readCString(buffer);
+                BsonArray documents = new BsonArray();
+                while (buffer.position() < sectionEnd) documents.add(readDocument(buffer));
+                sequences.put(identifier, documents);
+            }
+        }
+        if (command == null) throw new IllegalStateException("OP_MSG without a body section");
+        sequences.forEach(command::put);
+
+        BsonDocument reply = execute(command.getString("$db", new BsonString("admin")).getValue(), command, connectionId);
+        if (moreToCome) return null;
+
+        BasicOutputBuffer out = new BasicOutputBuffer();
+        writeHeader(out, requestId, OP_MSG);
+        out.writeInt32(0); // flags
+        out.writeByte(0);  // body section
+        writeDocument(out, reply);
+        out.writeInt32(0, out.getPosition());
+        return out.toByteArray();
+    }
+
+    // Only the driver's first handshake arrives as a legacy OP_QUERY on admin.$cmd
+    private byte[] handleQuery(ByteBuffer buffer, int requestId, int connectionId) {
+        buffer.getInt(); // flags
+        String collection = readCString(buffer);
+        buffer.getInt(); // numberToSkip
+        buffer.getInt(); // numberToReturn
+        BsonDocument query = readDocument(buffer);
+        if (query.containsKey("$query")) query = query.getDocument("$query");
+        String database = collection.substring(0, collection.indexOf('.'));
+        BsonDocument reply = execute(database, query, connectionId);
+
+        BasicOutputBuffer out = new BasicOutputBuffer();
+        writeHeader(out, requestId, OP_REPLY);
+        out.writeInt32(0);  // responseFlags
+        out.writeInt64(0);  // cursorID
+        out.writeInt32(0);  // startingFrom
+        out.writeInt32(1);  // numberReturned
+        writeDocument(out, reply);
+        out.writeInt32(0, out.getPosition());
+        return out.toByteArray();
+    }
+
+    private void writeHeader(BasicOutputBuffer out, int responseTo, int opCode) {
+        out.writeInt32(0); // length, patched once known
+        out.writeInt32(requestIds.incrementAndGet());
+        out.writeInt32(responseTo);
+        out.writeInt32(opCode);
+    }
+
+    private static BsonDocument readDocument(ByteBuffer buffer) {
+        int size = buffer.getInt(buffer.position());
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return new RawBsonDocument(bytes).decode(new BsonDocumentCodec());
+    }
+
+    private static String readCString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // up to the terminating NUL
+        }
+        return new String(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start - 1, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDocument(BasicOutputBuffer out, BsonDocument document) {
+        new BsonDocumentCodec().encode(new BsonBinaryWriter(out), document, EncoderContext.builder().build());
+    }
+
+    private static RawBsonDocument encode(BsonDocument document) {
+        return document instanceof RawBsonDocument raw ? raw : new RawBsonDocument(document, new BsonDocumentCodec());
+    }
+
+    // --- Commands ---
+
+    private BsonDocument execute(String database, BsonDocument command, int connectionId) {
+        String name = command.getFirstKey();
+        stats.command(name);
+        try {
+            return switch (name) {
+                case "hello", "isMaster", "ismaster" -> hello(connectionId);
+                case "ping", "endSessions", "killAllSessions", "commitTransaction", "abortTransaction" -> ok();
+                case "buildInfo", "buildinfo" -> ok()
+                        .append("version", new BsonString("7.0.0"))
+                        .append("versionArray", new BsonArray(List.of(new BsonInt32(7), new BsonInt32(0), new BsonInt32(0), new BsonInt32(0))))
+                        .append("maxBsonObjectSize", new BsonInt32(MAX_BSON_OBJECT_SIZE));
+                case "listDatabases" -> listDatabases();
+                case "insert" -> insert(database, command);
+                case "update" -> update(database, command);
+                case "delete" -> delete(database, command);
+                case "find" -> find(database, command);
+                case "getMore" -> getMore(command);
+                case "killCursors" -> killCursors(command);
+                case "findAndModify", "findandmodify" -> findAndModify(database, command);
+                case "count" -> count(database, command);
+                case "distinct" -> distinct(database, command);
+                case "aggregate" -> aggregate(database, command);
+                case "create" -> {
+                    collection(database, command.getString("create").getValue());
+                    yield ok();
+                }
+                case "createIndexes" -> createIndexes(database, command);
+                case "listIndexes" -> listIndexes(database, command);
+                case "dropIndexes" -> ok().append("nIndexesWas", new BsonInt32(1));
+                case "drop" -> drop(database, command);
+                case "dropDatabase" -> {
+                    collections.keySet().removeIf(ns -> ns.startsWith(database + "."));
+                    yield ok();
+                }
+                case "listCollections" -> listCollections(database, command);
+                default -> error(59, "CommandNotFound", "no such command: '" + name + "'");
+            };
+        } catch (IllegalArgumentException | ClassCastException | org.bson.BsonInvalidOperationException e) {
+            logger.warn("Embedded MongoDB stand-in rejected {}: {}", name, e.getMessage());
+            return error(2, "BadValue", e.getMessage());
+        }
+    }
+
+    private BsonDocument hello(int connectionId) {
+        // No topologyVersion, so the driver polls instead of streaming heartbeats; no
+        // logicalSessionTimeoutMinutes, so it does not attach sessions to commands
+        return new BsonDocument()
+                .append("helloOk", BsonBoolean.TRUE)
+                .append("ismaster", BsonBoolean.TRUE)
+                .append("isWritablePrimary", BsonBoolean.TRUE)
+                .append("maxBsonObjectSize", new BsonInt32(MAX_BSON_OBJECT_SIZE))
+                .append("maxMessageSizeBytes", new BsonInt32(48_000_000))
+                .append("maxWriteBatchSize", new BsonInt32(100_000))
+                .append("localTime", new BsonDateTime(System.currentTimeMillis()))
+                .append("minWireVersion", new BsonInt32(0))
+                .append("maxWireVersion", new BsonInt32(17))
+                .append("readOnly", BsonBoolean.FALSE)
+                .append("connectionId", new BsonInt32(connectionId))
+                .append("ok", new BsonDouble(1));
+    }
+
+    private BsonDocument listDatabases() {
+        BsonArray databases = new BsonArray();
+        collections.keySet().stream().map(ns -> ns.substring(0, ns.indexOf('.'))).distinct().sorted()
+                .forEach(name -> databases.add(new BsonDocument("name", new BsonString(name))
+                        .append("sizeOnDisk", new BsonInt64(0)).append("empty", BsonBoolean.FALSE)));
+        return ok().append("databases", databases).append("totalSize", new BsonInt64(0));
+    }
+
+    private BsonDocument insert(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("insert").getValue());
+        BsonArray documents = command.getArray("documents");
+        boolean ordered = command.getBoolean("ordered", BsonBoolean.TRUE).getValue();
+        BsonArray writeErrors = new BsonArray();
+        int inserted = 0;
+        collection.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                BsonDocument document = BsonQuery.withId(documents.get(i).asDocument());
+                BsonValue id = document.get("_id");
+                if (collection.documents.containsKey(id)) {
+                    writeErrors.add(duplicateKey(i, collection.ns, id));
+                    if (ordered) break;
+                    continue;
+                }
+                collection.documents.put(id, document);
+                inserted++;
+            }
+        } finally {
+            collection.lock.writeLock().unlock();
+        }
+        stats.written(inserted);
+        BsonDocument reply = ok().append("n", new BsonInt32(inserted));
+        if (!writeErrors.isEmpty()) reply.append("writeErrors", writeErrors);
+        return reply;
+    }
+
+    private BsonDocument update(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("update").getValue());
+        BsonArray updates = command.getArray("updates");
+        boolean ordered = command.getBoolean("ordered", BsonBoolean.TRUE).getValue();
+        BsonArray upserted = new BsonArray();
+        BsonArray writeErrors = new BsonArray();
+        int matched = 0;
+        int modified = 0;
+        collection.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < updates.size(); i++) {
+                BsonDocument statement = updates.get(i).asDocument();
+                BsonDocument filter = statement.getDocument("q", new BsonDocument());
+                if (!statement.get("u").isDocument()) {
+                    throw new IllegalArgumentException("Update pipelines are not supported by the embedded stand-in");
+                }
+                BsonDocument update = statement.getDocument("u");
+                boolean multi = statement.getBoolean("multi", BsonBoolean.FALSE).getValue();
+                if (multi && BsonQuery.isReplacement(update)) {
+                    throw new IllegalArgumentException("multi update is not supported for replacement-style update");
+                }
+                List<BsonDocument> targets = collection.matching(filter, stats);
+                if (!multi && targets.size() > 1) targets = targets.subList(0, 1);
+                for (BsonDocument target : targets) {
+                    BsonDocument updated = BsonQuery.applyUpdate(target, update, false);
+                    matched++;
+                    if (!updated.equals(target)) {
+                        collection.documents.put(target.get("_id"), updated);
+                        modified++;
+                    }
+                }
+                if (targets.isEmpty() && statement.getBoolean("upsert", BsonBoolean.FALSE).getValue()) {
+                    BsonDocument inserted = upsert(filter, update);
+                    BsonValue id = inserted.get("_id");
+                    if (collection.documents.containsKey(id)) {
+                        writeErrors.add(duplicateKey(i, collection.ns, id));
+                        if (ordered) break;
+                        continue;
+                    }
+                    collection.documents.put(id, inserted);
+                    upserted.add(new BsonDocument("index", new BsonInt32(i)).append("_id", id));
+                    matched++;
+                }
+            }
+        } finally {
+            collection.lock.writeLock().unlock();
+        }
+        stats.written(modified + upserted.size());
+        BsonDocument reply = ok().append("n", new BsonInt32(matched)).append("nModified", new BsonInt32(modified));
+        if (!upserted.isEmpty()) reply.append("upserted", upserted);
+        if (!writeErrors.isEmpty()) reply.append("writeErrors", writeErrors);
+        return reply;
+    }
+
+    private static BsonDocument upsert(BsonDocument filter, BsonDocument update) {
+        BsonDocument seed = BsonQuery.seedForUpsert(filter);
+        if (BsonQuery.isReplacement(update)) {
+            BsonDocument replacement = new BsonDocument();
+            if (seed.containsKey("_id")) replacement.put("_id", seed.get("_id"));
+            return BsonQuery.withId(BsonQuery.applyUpdate(replacement, update, true));
+        }
+        return BsonQuery.withId(BsonQuery.applyUpdate(seed, update, true));
+    }
+
+    private BsonDocument delete(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("delete").getValue());
+        int deleted = 0;
+        collection.lock.writeLock().lock();
+        try {
+            for (BsonValue value : command.getArray("deletes")) {
+                BsonDocument statement = value.asDocument();
+                List<BsonDocument> targets = collection.matching(statement.getDocument("q", new BsonDocument()), stats);
+                if (statement.getNumber("limit", new BsonInt32(0)).intValue() == 1 && targets.size() > 1) {
+                    targets = targets.subList(0, 1);
+                }
+                for (BsonDocument target : targets) {
+                    collection.documents.remove(target.get("_id"));
+                    deleted++;
+                }
+            }
+        } finally {
+            collection.lock.writeLock().unlock();
+        }
+        stats.written(deleted);
+        return ok().append("n", new BsonInt32(deleted));
+    }
+
+    private BsonDocument find(String database, BsonDocument command) {
+        String name = command.getString("find").getValue();
+        Collection collection = collection(database, name);
+        List<BsonDocument> results = collection.query(command.getDocument("filter", new BsonDocument()),
+                command.getDocument("sort", null), stats);
+        int skip = command.getNumber("skip", new BsonInt32(0)).intValue();
+        int limit = command.getNumber("limit", new BsonInt32(0)).intValue();
+        boolean singleBatch = command.getBoolean("singleBatch", BsonBoolean.FALSE).getValue() || limit < 0;
+        results = window(results, skip, Math.abs(limit));
+        Integer batchSize = command.containsKey("batchSize") ? command.getNumber("batchSize").intValue() : null;
+        return cursorReply(collection.ns, results, command.getDocument("projection", null), batchSize, singleBatch);
+    }
+
+    private BsonDocument getMore(BsonDocument command) {
+        long id = command.getNumber("getMore").longValue();
+        Cursor cursor = cursors.get(id);
+        if (cursor == null) return error(43, "CursorNotFound", "cursor id " + id + " not found");
+        int batchSize = command.containsKey("batchSize") ? command.getNumber("batchSize").intValue() : Integer.MAX_VALUE;
+        BsonArray batch = cursor.next(batchSize, stats);
+        if (cursor.exhausted()) cursors.remove(id);
+        return ok().append("cursor", new BsonDocument("nextBatch", batch)
+                .append("id", new BsonInt64(cursor.exhausted() ? 0 : id))
+                .append("ns", new BsonString(cursor.ns)));
+    }
+
+    private BsonDocument killCursors(BsonDocument command) {
+        BsonArray killed = new BsonArray();
+        BsonArray notFound = new BsonArray();
+        for (BsonValue id : command.getArray("cursors")) {
+            (cursors.remove(id.asNumber().longValue()) != null ? killed : notFound).add(id);
+        }
+        return ok().append("cursorsKilled", killed).append("cursorsNotFound", notFound)
+                .append("cursorsAlive", new BsonArray()).append("cursorsUnknown", new BsonArray());
+    }
+
+    private BsonDocument findAndModify(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getFirstKey().equals("findAndModify")
+                ? command.getString("findAndModify").getValue() : command.getString("findandmodify").getValue());
+        BsonDocument filter = command.getDocument("query", new BsonDocument());
+        boolean remove = command.getBoolean("remove", BsonBoolean.FALSE).getValue();
+        boolean returnNew = command.getBoolean("new", BsonBoolean.FALSE).getValue();
+        BsonDocument projection = command.getDocument("fields", null);
+        BsonDocument lastError = new BsonDocument();
+        BsonValue value = BsonNull.VALUE;
+
+        collection.lock.writeLock().lock();
+        try {
+            List<BsonDocument> targets = collection.matching(filter, stats);
+            if (command.containsKey("sort") && targets.size() > 1) {
+                targets = new ArrayList<>(targets);
+                targets.sort(BsonQuery.sort(command.getDocument("sort")));
+            }
+            BsonDocument target = targets.isEmpty() ? null : targets.get(0);
+            if (remove) {
+                if (target != null) {
+                    collection.documents.remove(target.get("_id"));
+                    value = BsonQuery.project(target, projection);
+                    stats.written(1);
+                }
+                lastError.append("n", new BsonInt32(target == null ? 0 : 1));
+            } else {
+                BsonDocument update = command.getDocument("update");
+                if (target != null) {
+                    BsonDocument updated = BsonQuery.applyUpdate(target, update, false);
+                    if (!updated.equals(target)) {
+                        collection.documents.put(target.get("_id"), updated);
+                        stats.written(1);
+                    }
+                    value = BsonQuery.project(returnNew ? updated : target, projection);
+                    lastError.append("n", new BsonInt32(1)).append("updatedExisting", BsonBoolean.TRUE);
+                } else if (command.getBoolean("upsert", BsonBoolean.FALSE).getValue()) {
+                    BsonDocument inserted = upsert(filter, update);
+                    collection.documents.put(inserted.get("_id"), inserted);
+                    stats.written(1);
+                    if (returnNew) value = BsonQuery.project(inserted, projection);
+                    lastError.append("n", new BsonInt32(1)).append("updatedExisting", BsonBoolean.FALSE)
+                            .append("upserted", inserted.get("_id"));
+                } else {
+                    lastError.append("n", new BsonInt32(0)).append("updatedExisting", BsonBoolean.FALSE);
+                }
+            }
+        } finally {
+            collection.lock.writeLock().unlock();
+        }
+        if (!value.isNull()) stats.returned(1);
+        return ok().append("lastErrorObject", lastError).append("value", value);
+    }
+
+    private BsonDocument count(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("count").getValue());
+        List<BsonDocument> results = collection.query(command.getDocument("query", new BsonDocument()), null, stats);
+        results = window(results, command.getNumber("skip", new BsonInt32(0)).intValue(),
+                Math.abs(command.getNumber("limit", new BsonInt32(0)).intValue()));
+        return ok().append("n", new BsonInt32(results.size()));
+    }
+
+    private BsonDocument distinct(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("distinct").getValue());
+        String key = command.getString("key").getValue();
+        BsonArray values = new BsonArray();
+        for (BsonDocument document : collection.query(command.getDocument("query", new BsonDocument()), null, stats)) {
+            for (BsonValue value : BsonQuery.resolve(document, key)) {
+                for (BsonValue candidate : value.isArray() ? value.asArray() : List.of(value)) {
+                    if (values.stream().noneMatch(v -> BsonQuery.sameValue(v, candidate))) values.add(candidate);
+                }
+            }
+        }
+        stats.returned(values.size());
+        return ok().append("values", values);
+    }
+
+    // Enough of the pipeline for countDocuments and simple grouped counts
+    private BsonDocument aggregate(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("aggregate").getValue());
+        List<BsonDocument> results = null;
+        for (BsonValue value : command.getArray("pipeline")) {
+            BsonDocument stage = value.asDocument();
+            String operator = stage.getFirstKey();
+            BsonValue spec = stage.get(operator);
+            if (results == null) {
+                results = operator.equals("$match")
+                        ? collection.query(spec.asDocument(), null, stats)
+                        : collection.query(new BsonDocument(), null, stats);
+                if (operator.equals("$match")) continue;
+            }
+            results = switch (operator) {
+                case "$match" -> results.stream().filter(doc -> BsonQuery.matches(doc, spec.asDocument())).toList();
+                case "$sort" -> results.stream().sorted(BsonQuery.sort(spec.asDocument())).toList();
+                case "$skip" -> window(results, spec.asNumber().intValue(), 0);
+                case "$limit" -> window(results, 0, spec.asNumber().intValue());
+                case "$project" -> results.stream().map(doc -> BsonQuery.project(doc, spec.asDocument())).toList();
+                case "$count" -> List.of(new BsonDocument(spec.asString().getValue(), new BsonInt32(results.size())));
+                case "$group" -> Aggregation.group(results, spec.asDocument());
+                default -> throw new IllegalArgumentException("Unrecognized pipeline stage name: '" + operator + "'");
+            };
+        }
+        if (results == null) results = collection.query(new BsonDocument(), null, stats);
+        BsonDocument cursorOptions = command.getDocument("cursor", new BsonDocument());
+        Integer batchSize = cursorOptions.containsKey("batchSize") ? cursorOptions.getNumber("batchSize").intValue() : null;
+        return cursorReply(collection.ns, results, null, batchSize, false);
+    }
+
+    private BsonDocument createIndexes(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("createIndexes").getValue());
+        int before;
+        collection.lock.writeLock().lock();
+        try {
+            before = collection.indexes.size() + 1;
+            for (BsonValue index : command.getArray("indexes")) {
+                String name = index.asDocument().getString("name").getValue();
+                collection.indexes.removeIf(existing -> existing.getString("name").getValue().equals(name));
+                collection.indexes.add(new BsonDocument("v", new BsonInt32(2)).append("key", index.asDocument().get("key"))
+                        .append("name", new BsonString(name)));
+            }
+        } finally {
+            collection.lock.writeLock().unlock();
+        }
+        return ok().append("createdCollectionAutomatically", BsonBoolean.FALSE)
+                .append("numIndexesBefore", new BsonInt32(before))
+                .append("numIndexesAfter", new BsonInt32(collection.indexes.size() + 1));
+    }
+
+    private BsonDocument listIndexes(String database, BsonDocument command) {
+        Collection collection = collection(database, command.getString("listIndexes").getValue());
+        List<BsonDocument> indexes = new ArrayList<>();
+        indexes.add(new BsonDocument("v", new BsonInt32(2)).append("key", new BsonDocument("_id", new BsonInt32(1)))
+                .append("name", new BsonString("_id_")));
+        collection.lock.readLock().lock();
+        try {
+            indexes.addAll(collection.indexes);
+        } finally {
+            collection.lock.readLock().unlock();
+        }
+        return cursorReply(collection.ns, indexes, null, null, false);
+    }
+
+    private BsonDocument drop(String database, BsonDocument command) {
+        String ns = database + "." + command.getString("drop").getValue();
+        if (collections.remove(ns) == null) return error(26, "NamespaceNotFound", "ns not found");
+        return ok().append("ns", new BsonString(ns));
+    }
+
+    private BsonDocument listCollections(String database, BsonDocument command) {
+        BsonDocument filter = command.getDocument("filter", new BsonDocument());
+        List<BsonDocument> infos = new ArrayList<>();
+        new TreeMap<>(collections).forEach((ns, collection) -> {
+            if (!ns.startsWith(database + ".")) return;
+            BsonDocument info = new BsonDocument("name", new BsonString(ns.substring(database.length() + 1)))
+                    .append("type", new BsonString("collection"))
+                    .append("options", new BsonDocument())
+                    .append("info", new BsonDocument("readOnly", BsonBoolean.FALSE));
+            if (BsonQuery.matches(info, filter)) infos.add(info);
+        });
+        return cursorReply(database + ".$cmd.listCollections", infos, null, null, false);
+    }
+
+    // --- Cursors ---
+
+    private BsonDocument cursorReply(String ns, List<BsonDocument> results, BsonDocument projection, Integer batchSize,
+                                     boolean singleBatch) {
+        Cursor cursor = new Cursor(ns, results, projection);
+        BsonArray firstBatch = cursor.next(batchSize != null ? batchSize : DEFAULT_FIRST_BATCH_SIZE, stats);
+        long id = 0;
+        if (!singleBatch && !cursor.exhausted()) {
+            id = cursorIds.incrementAndGet();
+            cursors.put(id, cursor);
+        }
+        return ok().append("cursor", new BsonDocument("firstBatch", firstBatch)
+                .append("id", new BsonInt64(id))
+                .append("ns", new BsonString(ns)));
+    }
+
+    private static List<BsonDocument> window(List<BsonDocument> results, int skip, int limit) {
+        int from = Math.min(skip, results.size());
+        int to = limit > 0 ? Math.min(results.size(), from + limit) : results.size();
+        return from == 0 && to == results.size() ? results : results.subList(from, to);
+    }
+
+    private static final class Cursor {
+        private final String ns;
+        private final List<BsonDocument> results;
+        private final BsonDocument projection;
+        private int position;
+
+        Cursor(String ns, List<BsonDocument> results, BsonDocument projection) {
+            this.ns = ns;
+            this.results = results;
+            this.projection = projection;
+        }
+
+        // Stored documents are never mutated (updates replace them), so no lock is needed here
+        synchronized BsonArray next(int batchSize, Stats stats) {
+            BsonArray batch = new BsonArray();
+            long bytes = 0;
+            int max = batchSize <= 0 ? (batchSize == 0 && position == 0 ? 0 : Integer.MAX_VALUE) : batchSize;
+            while (position < results.size() && batch.size() < max) {
+                RawBsonDocument document = encode(BsonQuery.project(results.get(position), projection));
+                if (!batch.isEmpty() && bytes + document.getByteBuffer().remaining() > MAX_BATCH_BYTES) break;
+                bytes += document.getByteBuffer().remaining();
+                batch.add(document);
+                position++;
+            }
+            stats.returned(batch.size());
+            return batch;
+        }
+
+        synchronized boolean exhausted() {
+            return position >= results.size();
+        }
+    }
+
+    // --- Storage ---
+
+    private Collection collection(String database, String name) {
+        return collections.computeIfAbsent(database + "." + name, Collection::new);
+    }
+
+    /**
+     * One collection: documents by _id in insertion order (MongoDB's natural order for a fresh
+     * collection) behind a read/write lock. Documents are replaced, never changed in place, so
+     * readers can keep references after the lock is released.
+     */
+    private static final class Collection {
+        final String ns;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<BsonValue, BsonDocument> documents = new LinkedHashMap<>();
+        final List<BsonDocument> indexes = new ArrayList<>();
+
+        Collection(String ns) {
+            this.ns = ns;
+        }
+
+        List<BsonDocument> query(BsonDocument filter, BsonDocument sort, Stats stats) {
+            List<BsonDocument> results;
+            lock.readLock().lock();
+            try {
+                results = matching(filter, stats);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (sort != null && !sort.isEmpty()) {
+                results = new ArrayList<>(results);
+                results.sort(BsonQuery.sort(sort));
+            }
+            return results;
+        }
+
+        // Caller holds a lock. {_id: value} is a direct lookup, like the _id index
+        List<BsonDocument> matching(BsonDocument filter, Stats stats) {
+            if (filter.size() == 1 && filter.containsKey("_id") && !isOperatorDocument(filter.get("_id"))) {
+                BsonDocument document = documents.get(filter.get("_id"));
+                stats.examined(document == null ? 0 : 1);
+                return document == null ? List.of() : List.of(document);
+            }
+            List<BsonDocument> results = new ArrayList<>();
+            for (BsonDocument document : documents.values()) {
+                if (BsonQuery.matches(document, filter)) results.add(document);
+            }
+            stats.examined(documents.size());
+            return results;
+        }
+
+        private static boolean isOperatorDocument(BsonValue value) {
+            return value.isDocument() && !value.asDocument().isEmpty() && value.asDocument().getFirstKey().startsWith("$");
+        }
+    }
+
+    // --- Replies ---
+
+    private static BsonDocument ok() {
+        return new BsonDocument("ok", new BsonDouble(1));
+    }
+
+    private static BsonDocument error(int code, String codeName, String message) {
+        return new BsonDocument("ok", new BsonDouble(0))
+                .append("errmsg", new BsonString(message == null ? codeName : message))
+                .append("code", new BsonInt32(code))
+                .append("codeName", new BsonString(codeName));
+    }
+
+    private static BsonDocument duplicateKey(int index, String ns, BsonValue id) {
+        return new BsonDocument("index", new BsonInt32(index))
+                .append("code", new BsonInt32(11000))
+                .append("errmsg", new BsonString("E11000 duplicate key error collection: " + ns
+                        + " index: _id_ dup key: { _id: " + id + " }"));
+    }
+
+    // --- Statistics ---
+
+    /**
+     * Cumulative counters. Round trips exclude the driver's handshake and monitoring commands.
+     * Take a snapshot before and after the code under test and subtract.
+     */
+    public static final class Stats {
+        private final Map<String, LongAdder> commands = new ConcurrentHashMap<>();
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder returned = new LongAdder();
+        private final LongAdder examined = new LongAdder();
+        private final LongAdder written = new LongAdder();
+
+        void command(String name) {
+            commands.computeIfAbsent(name, k -> new LongAdder()).increment();
+            if (!MONITORING_COMMANDS.contains(name)) roundTrips.increment();
+        }
+
+        void returned(long documents) {
+            returned.add(documents);
+        }
+
+        void examined(long documents) {
+            examined.add(documents);
+        }
+
+        void written(long documents) {
+            written.add(documents);
+        }
+
+        public Snapshot snapshot() {
+            Map<String, Long> byCommand = new TreeMap<>();
+            commands.forEach((name, count) -> {
+                if (!MONITORING_COMMANDS.contains(name)) byCommand.put(name, count.sum());
+            });
+            return new Snapshot(roundTrips.sum(), returned.sum(), examined.sum(), written.sum(), byCommand);
+        }
+    }
+
+    public record Snapshot(long roundTrips, long documentsReturned, long documentsExamined, long documentsWritten,
+                           Map<String, Long> commands) {
+
+        public Snapshot minus(Snapshot earlier) {
+            Map<String, Long> delta = new TreeMap<>();
+            commands.forEach((name, count) -> {
+                long d = count - earlier.commands.getOrDefault(name, 0L);
+                if (d != 0) delta.put(name, d);
+            });
+            return new Snapshot(roundTrips - earlier.roundTrips, documentsReturned - earlier.documentsReturned,
+                    documentsExamined - earlier.documentsExamined, documentsWritten - earlier.documentsWritten, delta);
+        }
+
+        /**
+         * Documents returned plus documents written.
+         */
+        public long documentsTouched() {
+            return documentsReturned + documentsWritten;
+        }
+    }
+
+    // --- $group for aggregate ---
+
+    private static final class Aggregation {
+
+        static List<BsonDocument> group(List<BsonDocument> input, BsonDocument spec) {
+            Map<BsonValue, List<BsonDocument>> groups = new LinkedHashMap<>();
+            BsonValue idSpec = spec.get("_id");
+            for (BsonDocument document : input) {
+                BsonValue key = evaluate(document, idSpec);
+                List<BsonDocument> members = null;
+                for (Map.Entry<BsonValue, List<BsonDocument>> entry : groups.entrySet()) {
+                    if (BsonQuery.sameValue(entry.getKey(), key)) {
+                        members = entry.getValue();
+                        break;
+                    }
+                }
+                if (members == null) {
+                    members = new ArrayList<>();
+                    groups.put(key, members);
+                }
+                members.add(document);
+            }
+            List<BsonDocument> out = new ArrayList<>();
+            groups.forEach((key, members) -> {
+                BsonDocument result = new BsonDocument("_id", key);
+                for (Map.Entry<String, BsonValue> field : spec.entrySet()) {
+                    if (field.getKey().equals("_id")) continue;
+                    BsonDocument accumulator = field.getValue().asDocument();
+                    result.put(field.getKey(), accumulate(accumulator.getFirstKey(), accumulator.get(accumulator.getFirstKey()), members));
+                }
+                out.add(result);
+            });
+            return out;
+        }
+
+        private static BsonValue accumulate(String operator, BsonValue expression, List<BsonDocument> members) {
+            List<BsonValue> values = new ArrayList<>();
+            for (BsonDocument member : members) values.add(evaluate(member, expression));
+            return switch (operator) {
+                case "$sum" -> {
+                    long longSum = 0;
+                    double doubleSum = 0;
+                    boolean floating = false;
+                    for (BsonValue value : values) {
+                        if (!value.isNumber()) continue;
+                        if (value.isDouble() || value.isDecimal128()) floating = true;
+                        longSum += value.asNumber().longValue();
+                        doubleSum += value.asNumber().doubleValue();
+                    }
+                    yield floating ? new BsonDouble(doubleSum)
+                            : longSum == (int) longSum ? new BsonInt32((int) longSum) : new BsonInt64(longSum);
+                }
+                case "$avg" -> new BsonDouble(values.stream().filter(BsonValue::isNumber)
+                        .mapToDouble(v -> v.asNumber().doubleValue()).average().orElse(0));
+                case "$min" -> values.stream().filter(v -> !v.isNull()).min(BsonQuery::compare).orElse(BsonNull.VALUE);
+                case "$max" -> values.stream().filter(v -> !v.isNull()).max(BsonQuery::compare).orElse(BsonNull.VALUE);
+                case "$first" -> values.isEmpty() ? BsonNull.VALUE : values.get(0);
+                case "$last" -> values.isEmpty() ? BsonNull.VALUE : values.get(values.size() - 1);
+                case "$push" -> new BsonArray(values);
+                default -> throw new IllegalArgumentException("unknown group operator '" + operator + "'");
+            };
+        }
+
+        // A constant, or a "$field.path" reference
+        private static BsonValue evaluate(BsonDocument document, BsonValue expression) {
+            if (expression.isString() && expression.asString().getValue().startsWith("$")) {
+                List<BsonValue> values = BsonQuery.resolve(document, expression.asString().getValue().substring(1));
+                return values.isEmpty() ? BsonNull.VALUE : values.get(0);
+            }
+            if (expression.isDocument()) {
+                BsonDocument out = new BsonDocument();
+                expression.asDocument().forEach((k, v) -> out.put(k, evaluate(document, v)));
+                return out;
+            }
+            return expression;
+        }
+    }
+}
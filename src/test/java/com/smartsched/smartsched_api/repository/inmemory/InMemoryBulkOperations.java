@@ -0,0 +1,135 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * BulkOperations for InMemoryMongoTemplate. The queued writes are applied one after the other
+ * on execute(); ORDERED stops at the first failure, UNORDERED applies the rest and then throws
+ * the first failure, as the server does.
+ */
+class InMemoryBulkOperations implements BulkOperations {
+
+    private final InMemoryMongoTemplate template;
+    private final BulkMode mode;
+    private final Class<?> entityType;
+    private final String collectionName;
+    private final List<Write> writes = new ArrayList<>();
+
+    private int inserted;
+    private int matched;
+    private int modified;
+    private int removed;
+
+    @FunctionalInterface
+    private interface Write {
+        void apply();
+    }
+
+    InMemoryBulkOperations(InMemoryMongoTemplate template, BulkMode mode, Class<?> entityType, String collectionName) {
+        this.template = template;
+        this.mode = mode;
+        this.entityType = entityType;
+        this.collectionName = collectionName;
+    }
+
+    @Override
+    public BulkOperations insert(Object document) {
+        return insert(List.of(document));
+    }
+
+    @Override
+    public BulkOperations insert(List<? extends Object> documents) {
+        List<Object> batch = List.copyOf(documents);
+        writes.add(() -> {
+            template.insertAll(collectionName, batch);
+            inserted += batch.size();
+        });
+        return this;
+    }
+
+    @Override
+    public BulkOperations updateOne(Query query, UpdateDefinition update) {
+        writes.add(() -> count(template.update(query, update, entityType, collectionName, false, false)));
+        return this;
+    }
+
+    @Override
+    public BulkOperations updateOne(List<Pair<Query, UpdateDefinition>> updates) {
+        updates.forEach(pair -> updateOne(pair.getFirst(), pair.getSecond()));
+        return this;
+    }
+
+    @Override
+    public BulkOperations updateMulti(Query query, UpdateDefinition update) {
+        writes.add(() -> count(template.update(query, update, entityType, collectionName, true, false)));
+        return this;
+    }
+
+    @Override
+    public BulkOperations updateMulti(List<Pair<Query, UpdateDefinition>> updates) {
+        updates.forEach(pair -> updateMulti(pair.getFirst(), pair.getSecond()));
+        return this;
+    }
+
+    @Override
+    public BulkOperations upsert(Query query, UpdateDefinition update) {
+        writes.add(() -> count(template.update(query, update, entityType, collectionName, true, true)));
+        return this;
+    }
+
+    @Override
+    public BulkOperations upsert(List<Pair<Query, Update>> updates) {
+        updates.forEach(pair -> upsert(pair.getFirst(), pair.getSecond()));
+        return this;
+    }
+
+    @Override
+    public BulkOperations remove(Query remove) {
+        writes.add(() -> removed += (int) template.delete(remove, entityType, collectionName, true));
+        return this;
+    }
+
+    @Override
+    public BulkOperations remove(List<Query> removes) {
+        removes.forEach(this::remove);
+        return this;
+    }
+
+    @Override
+    public BulkOperations replaceOne(Query query, Object replacement, FindAndReplaceOptions options) {
+        writes.add(() -> count(template.replace(query, replacement, entityType, collectionName, options.isUpsert())));
+        return this;
+    }
+
+    @Override
+    public BulkWriteResult execute() {
+        RuntimeException firstFailure = null;
+        for (Write write : writes) {
+            try {
+                write.apply();
+            } catch (RuntimeException e) {
+                if (mode == BulkMode.ORDERED) throw e;
+                if (firstFailure == null) firstFailure = e;
+            }
+        }
+        writes.clear();
+        if (firstFailure != null) throw firstFailure;
+        return BulkWriteResult.acknowledged(inserted, matched, removed, modified, List.of(), List.of());
+    }
+
+    private void count(UpdateResult result) {
+        matched += (int) result.getMatchedCount();
+        modified += (int) result.getModifiedCount();
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryClassroomRepository extends InMemoryRepository<Classroom> implements ClassroomRepository {
+
+    public InMemoryClassroomRepository(InMemoryMongoTemplate template) {
+        super(template, Classroom.class);
+    }
+}
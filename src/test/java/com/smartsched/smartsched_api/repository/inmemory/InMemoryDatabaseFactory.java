@@ -0,0 +1,57 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import org.bson.codecs.configuration.CodecRegistry;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+
+/**
+ * MongoDatabaseFactory of the inmemory profile. Its presence keeps Spring Boot from creating a
+ * MongoClient, and it refuses to hand out a database, so anything that goes past
+ * InMemoryMongoTemplate to the driver fails with a clear message instead of trying to connect.
+ */
+public class InMemoryDatabaseFactory implements MongoDatabaseFactory {
+
+    private final MongoExceptionTranslator exceptionTranslator = new MongoExceptionTranslator();
+
+    @Override
+    public MongoDatabase getMongoDatabase() {
+        throw noDatabase();
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase(String dbName) {
+        throw noDatabase();
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return exceptionTranslator;
+    }
+
+    @Override
+    public ClientSession getSession(ClientSessionOptions options) {
+        throw noDatabase();
+    }
+
+    @Override
+    public MongoDatabaseFactory withSession(ClientSession session) {
+        throw noDatabase();
+    }
+
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return MongoClientSettings.getDefaultCodecRegistry();
+    }
+
+    private static InvalidDataAccessApiUsageException noDatabase() {
+        return new InvalidDataAccessApiUsageException(
+                "No MongoDB database in the inmemory profile; only the operations of InMemoryMongoTemplate are available");
+    }
+}
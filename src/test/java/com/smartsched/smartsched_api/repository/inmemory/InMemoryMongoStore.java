@@ -0,0 +1,386 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.mongodb.client.result.UpdateResult;
+import com.smartsched.smartsched_api.mongo.BsonQuery;
+
+/**
+ * Documents of the inmemory profile, one collection per MongoDB collection name. Filters, sorts
+ * and updates are evaluated by BsonQuery, the same engine EmbeddedMongoServer uses, so both
+ * stand-ins agree on what a query matches.
+ *
+ * Each collection is a ConcurrentSkipListMap ordered by _id (so _id-sorted and _id-ranged reads,
+ * like cursor paging, need no sort), plus one hash index per declared field: value to ids, with
+ * one entry per element for array fields. Equality and $in filters on _id or on an indexed
+ * field only look at the matching documents; anything else is a scan.
+ *
+ * Reads are lock-free. Writes to one collection are serialized, and a stored document is never
+ * modified, only replaced, so a reader sees either the old or the new version. Documents handed
+ * to or returned from the store belong to it and must not be changed by the caller.
+ */
+public class InMemoryMongoStore {
+
+    // ConcurrentHashMap keys cannot be null; a null or missing indexed value is stored under this
+    private static final Object NULL_KEY = new Object();
+
+    private final Map<String, StoredCollection> collections = new ConcurrentHashMap<>();
+
+    /**
+     * Declares a hash index on a top-level field, like an @Indexed annotation. Existing documents
+     * are indexed straight away. A unique index rejects a second document with the same value.
+     */
+    public void createIndex(String collection, String field, boolean unique) {
+        StoredCollection stored = collection(collection);
+        synchronized (stored) {
+            Index existing = stored.indexes.get(field);
+            if (existing != null && existing.unique == unique) return;
+            Index index = new Index(field, unique || existing != null && existing.unique);
+            stored.documents.values().forEach(doc -> {
+                index.checkUnique(doc);
+                index.add(doc);
+            });
+            stored.indexes.put(field, index);
+        }
+    }
+
+    public Set<String> collectionNames() {
+        return Set.copyOf(collections.keySet());
+    }
+
+    public long count(String collection) {
+        StoredCollection stored = collections.get(collection);
+        return stored == null ? 0 : stored.documents.size();
+    }
+
+    /**
+     * Removes every document, keeping the collections and their indexes.
+     */
+    public void clear() {
+        collections.values().forEach(stored -> {
+            synchronized (stored) {
+                stored.documents.clear();
+                stored.indexes.values().forEach(index -> index.ids.clear());
+            }
+        });
+    }
+
+    // --- Reads ---
+
+    List<BsonDocument> find(String collection, BsonDocument filter, BsonDocument sort, int skip, int limit) {
+        StoredCollection stored = collections.get(collection);
+        if (stored == null) return List.of();
+
+        // The primary map is already in _id order
+        Stream<BsonDocument> matching = candidates(stored, filter).filter(doc -> BsonQuery.matches(doc, filter));
+        if (needsSort(sort)) matching = matching.sorted(BsonQuery.sort(sort));
+        if (skip > 0) matching = matching.skip(skip);
+        if (limit > 0) matching = matching.limit(limit);
+        return matching.toList();
+    }
+
+    long count(String collection, BsonDocument filter) {
+        StoredCollection stored = collections.get(collection);
+        if (stored == null) return 0;
+        if (filter.isEmpty()) return stored.documents.size();
+        return candidates(stored, filter).filter(doc -> BsonQuery.matches(doc, filter)).count();
+    }
+
+    private static boolean needsSort(BsonDocument sort) {
+        if (sort.isEmpty()) return false;
+        return sort.size() != 1 || !sort.containsKey("_id") || sort.get("_id").asNumber().intValue() < 0;
+    }
+
+    /**
+     * Documents that can possibly match, in _id order: a direct lookup or range on _id, the
+     * smallest index hit, or every document.
+     */
+    private Stream<BsonDocument> candidates(StoredCollection stored, BsonDocument filter) {
+        BsonValue id = filter.get("_id");
+        if (id != null && !id.isRegularExpression()) {
+            if (!BsonQuery.isOperatorDocument(id)) {
+                BsonDocument doc = id.isDocument() || id.isArray() ? null : stored.documents.get(id);
+                return doc == null ? Stream.empty() : Stream.of(doc);
+            }
+            BsonDocument operators = id.asDocument();
+            if (operators.size() == 1 && operators.containsKey("$in")) {
+                return operators.getArray("$in").stream()
+                        .sorted(BsonQuery::compare)
+                        .distinct()
+                        .map(stored.documents::get)
+                        .filter(Objects::nonNull);
+            }
+            if (operators.size() == 1 && operators.containsKey("$gt")) {
+                return stored.documents.tailMap(operators.get("$gt"), false).values().stream();
+            }
+            if (operators.size() == 1 && operators.containsKey("$gte")) {
+                return stored.documents.tailMap(operators.get("$gte"), true).values().stream();
+            }
+        }
+
+        Set<BsonValue> best = null;
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            Index index = stored.indexes.get(entry.getKey());
+            if (index == null) continue;
+            Set<BsonValue> ids = index.lookup(entry.getValue());
+            if (ids != null && (best == null || ids.size() < best.size())) best = ids;
+        }
+        if (best == null) return stored.documents.values().stream();
+        return best.stream()
+                .sorted(BsonQuery::compare)
+                .map(stored.documents::get)
+                .filter(Objects::nonNull);
+    }
+
+    // --- Writes ---
+
+    /**
+     * Inserts one document. An _id is generated when missing; a duplicate _id or unique key throws
+     * DuplicateKeyException, as Spring translates the server's E11000 error.
+     */
+    BsonDocument insert(String collection, BsonDocument document) {
+        StoredCollection stored = collection(collection);
+        synchronized (stored) {
+            return stored.insert(BsonQuery.withId(document));
+        }
+    }
+
+    /**
+     * Inserts the documents in order and stops at the first failure, like an ordered insertMany.
+     */
+    List<BsonDocument> insertAll(String collection, List<BsonDocument> documents) {
+        StoredCollection stored = collection(collection);
+        List<BsonDocument> inserted = new ArrayList<>(documents.size());
+        synchronized (stored) {
+            for (BsonDocument document : documents) {
+                inserted.add(stored.insert(BsonQuery.withId(document)));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the document, or replaces the one with the same _id.
+     */
+    BsonDocument save(String collection, BsonDocument document) {
+        StoredCollection stored = collection(collection);
+        synchronized (stored) {
+            BsonDocument withId = BsonQuery.withId(document);
+            BsonDocument existing = stored.documents.get(withId.get("_id"));
+            if (existing == null) return stored.insert(withId);
+            stored.replace(existing, withId);
+            return withId;
+        }
+    }
+
+    /**
+     * Applies an update (operators, or a whole replacement document) to the first or every matching
+     * document, inserting one seeded from the filter if upsert is set and nothing matched.
+     */
+    UpdateResult update(String collection, BsonDocument filter, BsonDocument update, boolean multi, boolean upsert) {
+        StoredCollection stored = collection(collection);
+        synchronized (stored) {
+            List<BsonDocument> matched = candidates(stored, filter)
+                    .filter(doc -> BsonQuery.matches(doc, filter))
+                    .limit(multi ? Long.MAX_VALUE : 1)
+                    .toList();
+            if (matched.isEmpty()) {
+                if (!upsert) return UpdateResult.acknowledged(0, 0L, null);
+                BsonDocument inserted = stored.insert(BsonQuery.withId(
+                        BsonQuery.applyUpdate(BsonQuery.seedForUpsert(filter), update, true)));
+                return UpdateResult.acknowledged(0, 0L, inserted.get("_id"));
+            }
+            long modified = 0;
+            for (BsonDocument doc : matched) {
+                BsonDocument next = BsonQuery.applyUpdate(doc, update, false);
+                if (!next.equals(doc)) {
+                    stored.replace(doc, next);
+                    modified++;
+                }
+            }
+            return UpdateResult.acknowledged(matched.size(), modified, null);
+        }
+    }
+
+    /**
+     * The first matching document (in sort order) updated or removed atomically. Returns the
+     * document before or after the change, or null if nothing matched and there was no upsert.
+     */
+    BsonDocument findAndModify(String collection, BsonDocument filter, BsonDocument sort, BsonDocument update,
+                               boolean returnNew, boolean upsert, boolean remove) {
+        StoredCollection stored = collection(collection);
+        synchronized (stored) {
+            Stream<BsonDocument> matching = candidates(stored, filter).filter(doc -> BsonQuery.matches(doc, filter));
+            if (needsSort(sort)) matching = matching.sorted(BsonQuery.sort(sort));
+            BsonDocument doc = matching.findFirst().orElse(null);
+            if (doc == null) {
+                if (remove || !upsert) return null;
+                BsonDocument inserted = stored.insert(BsonQuery.withId(
+                        BsonQuery.applyUpdate(BsonQuery.seedForUpsert(filter), update, true)));
+                return returnNew ? inserted : null;
+            }
+            if (remove) {
+                stored.remove(doc);
+                return doc;
+            }
+            BsonDocument next = BsonQuery.applyUpdate(doc, update, false);
+            stored.replace(doc, next);
+            return returnNew ? next : doc;
+        }
+    }
+
+    long delete(String collection, BsonDocument filter, boolean multi) {
+        StoredCollection stored = collections.get(collection);
+        if (stored == null) return 0;
+        synchronized (stored) {
+            List<BsonDocument> matched = candidates(stored, filter)
+                    .filter(doc -> BsonQuery.matches(doc, filter))
+                    .limit(multi ? Long.MAX_VALUE : 1)
+                    .toList();
+            matched.forEach(stored::remove);
+            return matched.size();
+        }
+    }
+
+    private StoredCollection collection(String name) {
+        return collections.computeIfAbsent(name, StoredCollection::new);
+    }
+
+    // --- Storage ---
+
+    private static final class StoredCollection {
+        private final String name;
+        private final ConcurrentSkipListMap<BsonValue, BsonDocument> documents = new ConcurrentSkipListMap<>(BsonQuery::compare);
+        private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+
+        StoredCollection(String name) {
+            this.name = name;
+        }
+
+        // Callers hold the collection's monitor
+        BsonDocument insert(BsonDocument doc) {
+            BsonValue id = doc.get("_id");
+            if (documents.containsKey(id)) {
+                throw new DuplicateKeyException("E11000 duplicate key error collection: " + name + " dup key: { _id: " + id + " }");
+            }
+            indexes.values().forEach(index -> index.checkUnique(doc));
+            documents.put(id, doc);
+            indexes.values().forEach(index -> index.add(doc));
+            return doc;
+        }
+
+        void replace(BsonDocument old, BsonDocument next) {
+            indexes.values().forEach(index -> index.checkUnique(next));
+            documents.put(next.get("_id"), next);
+            indexes.values().forEach(index -> {
+                index.remove(old);
+                index.add(next);
+            });
+        }
+
+        void remove(BsonDocument doc) {
+            documents.remove(doc.get("_id"));
+            indexes.values().forEach(index -> index.remove(doc));
+        }
+    }
+
+    private static final class Index {
+        private final String field;
+        private final boolean unique;
+        private final Map<Object, Set<BsonValue>> ids = new ConcurrentHashMap<>();
+
+        Index(String field, boolean unique) {
+            this.field = field;
+            this.unique = unique;
+        }
+
+        // Ids under an equality or $in condition, or null if this condition cannot use the index
+        Set<BsonValue> lookup(BsonValue condition) {
+            if (!BsonQuery.isOperatorDocument(condition)) {
+                return isIndexable(condition) ? ids.getOrDefault(key(condition), Set.of()) : null;
+            }
+            BsonDocument operators = condition.asDocument();
+            if (operators.size() != 1) return null;
+            if (operators.containsKey("$eq")) return lookup(operators.get("$eq"));
+            if (!operators.containsKey("$in")) return null;
+            Set<BsonValue> union = new HashSet<>();
+            for (BsonValue value : operators.getArray("$in")) {
+                if (!isIndexable(value)) return null;
+                union.addAll(ids.getOrDefault(key(value), Set.of()));
+            }
+            return union;
+        }
+
+        // Documents, arrays and regular expressions match by more than plain equality
+        private static boolean isIndexable(BsonValue value) {
+            return !value.isDocument() && !value.isArray() && !value.isRegularExpression();
+        }
+
+        void checkUnique(BsonDocument doc) {
+            if (!unique) return;
+            BsonValue id = doc.get("_id");
+            for (Object key : keys(doc)) {
+                Set<BsonValue> holders = ids.get(key);
+                if (holders != null && holders.stream().anyMatch(other -> BsonQuery.compare(other, id) != 0)) {
+                    throw new DuplicateKeyException("E11000 duplicate key error index: " + field
+                            + " dup key: { " + field + ": " + BsonQuery.resolve(doc, field) + " }");
+                }
+            }
+        }
+
+        void add(BsonDocument doc) {
+            BsonValue id = doc.get("_id");
+            for (Object key : keys(doc)) {
+                ids.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        void remove(BsonDocument doc) {
+            BsonValue id = doc.get("_id");
+            for (Object key : keys(doc)) {
+                ids.computeIfPresent(key, (k, holders) -> {
+                    holders.remove(id);
+                    return holders.isEmpty() ? null : holders;
+                });
+            }
+        }
+
+        // One key per array element (a multikey index), else the value itself
+        private Collection<Object> keys(BsonDocument doc) {
+            BsonValue value = doc.get(field);
+            if (value != null && value.isArray()) {
+                Set<Object> keys = new HashSet<>();
+                ((BsonArray) value).forEach(element -> keys.add(key(element)));
+                return keys;
+            }
+            return List.of(key(value));
+        }
+
+        // Numbers of different BSON types compare equal in MongoDB, so they share one key
+        private static Object key(BsonValue value) {
+            if (value == null || value.isNull()) return NULL_KEY;
+            if (value.isNumber() || value.isDecimal128()) {
+                double asDouble = value.isDecimal128() ? value.asDecimal128().doubleValue() : value.asNumber().doubleValue();
+                if (asDouble == Math.rint(asDouble) && !Double.isInfinite(asDouble)) {
+                    return value.isInt32() || value.isInt64() ? value.asNumber().longValue() : (long) asDouble;
+                }
+                return asDouble;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.smartsched.smartsched_api.mongo.BsonQuery;
+
+/**
+ * The MongoTemplate of the inmemory profile: the operations the services and the in-memory
+ * repositories use, run against an InMemoryMongoStore instead of a server.
+ *
+ * Queries, sorts, projections and updates go through Spring's own QueryMapper/UpdateMapper and
+ * entities through the application's MappingMongoConverter, exactly as on the way to MongoDB,
+ * so ids, field names and enum/date values are stored as they would be in the real collections.
+ * The mapped Documents are then encoded to BSON with the driver's codecs, as they would be on
+ * the wire. Every other MongoTemplate operation reaches InMemoryDatabaseFactory and fails.
+ */
+public class InMemoryMongoTemplate extends MongoTemplate {
+
+    private final InMemoryMongoStore store;
+    private final QueryMapper queryMapper;
+    private final UpdateMapper updateMapper;
+    private final Codec<Document> documentCodec;
+
+    public InMemoryMongoTemplate(MongoDatabaseFactory databaseFactory, MongoConverter converter, InMemoryMongoStore store) {
+        super(databaseFactory, converter);
+        this.store = store;
+        this.queryMapper = new QueryMapper(converter);
+        this.updateMapper = new UpdateMapper(converter);
+        this.documentCodec = databaseFactory.getCodecRegistry().get(Document.class);
+    }
+
+    public InMemoryMongoStore getStore() {
+        return store;
+    }
+
+    // --- Reads ---
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass) {
+        return find(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> List<T> find(Query query, Class<T> entityClass, String collectionName) {
+        return find(query, entityClass, collectionName, query.isLimited() ? query.getLimit() : 0);
+    }
+
+    private <T> List<T> find(Query query, Class<T> entityClass, String collectionName, int limit) {
+        MongoPersistentEntity<?> entity = entity(entityClass);
+        BsonDocument fields = bson(queryMapper.getMappedFields(query.getFieldsObject(), entity));
+        return store.find(collectionName, filter(query, entity), bson(queryMapper.getMappedSort(query.getSortObject(), entity)),
+                        (int) query.getSkip(), limit).stream()
+                .map(doc -> read(entityClass, BsonQuery.project(doc, fields)))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public <T> T findOne(Query query, Class<T> entityClass) {
+        return findOne(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> T findOne(Query query, Class<T> entityClass, String collectionName) {
+        List<T> found = find(query, entityClass, collectionName, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @Override
+    public <T> T findById(Object id, Class<T> entityClass) {
+        return findById(id, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> T findById(Object id, Class<T> entityClass, String collectionName) {
+        return findOne(new Query(Criteria.where("_id").is(id)), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityClass) {
+        return findAll(entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> List<T> findAll(Class<T> entityClass, String collectionName) {
+        return find(new Query(), entityClass, collectionName);
+    }
+
+    // The whole result is materialized first; there is no cursor to keep open
+    @Override
+    public <T> Stream<T> stream(Query query, Class<T> entityType) {
+        return stream(query, entityType, getCollectionName(entityType));
+    }
+
+    @Override
+    public <T> Stream<T> stream(Query query, Class<T> entityType, String collectionName) {
+        return find(query, entityType, collectionName).stream();
+    }
+
+    @Override
+    public boolean exists(Query query, Class<?> entityClass) {
+        return exists(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public boolean exists(Query query, String collectionName) {
+        return exists(query, null, collectionName);
+    }
+
+    @Override
+    public boolean exists(Query query, Class<?> entityClass, String collectionName) {
+        return !store.find(collectionName, filter(query, entity(entityClass)), new BsonDocument(), 0, 1).isEmpty();
+    }
+
+    @Override
+    public long count(Query query, Class<?> entityClass) {
+        return count(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public long count(Query query, String collectionName) {
+        return count(query, null, collectionName);
+    }
+
+    @Override
+    public long count(Query query, Class<?> entityClass, String collectionName) {
+        return store.count(collectionName, filter(query, entity(entityClass)));
+    }
+
+    // --- Inserts and saves ---
+
+    @Override
+    public <T> T insert(T objectToSave) {
+        return insert(objectToSave, getCollectionName(objectToSave.getClass()));
+    }
+
+    @Override
+    public <T> T insert(T objectToSave, String collectionName) {
+        BsonDocument inserted = store.insert(collectionName, toBson(objectToSave));
+        populateId(objectToSave, inserted.get("_id"));
+        return objectToSave;
+    }
+
+    @Override
+    public <T> Collection<T> insert(Collection<? extends T> batchToSave, Class<?> entityClass) {
+        return insert(batchToSave, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> Collection<T> insert(Collection<? extends T> batchToSave, String collectionName) {
+        List<T> saved = new ArrayList<>(batchToSave);
+        insertAll(collectionName, saved);
+        return saved;
+    }
+
+    @Override
+    public <T> Collection<T> insertAll(Collection<? extends T> objectsToSave) {
+        List<T> saved = new ArrayList<>(objectsToSave);
+        saved.stream()
+                .collect(Collectors.groupingBy(o -> getCollectionName(o.getClass()), java.util.LinkedHashMap::new, Collectors.toList()))
+                .forEach(this::insertAll);
+        return saved;
+    }
+
+    // One ordered batch: stops at the first duplicate, like insertMany
+    void insertAll(String collectionName, List<?> objects) {
+        List<BsonDocument> documents = objects.stream().map(this::toBson).toList();
+        List<BsonDocument> inserted = store.insertAll(collectionName, documents);
+        for (int i = 0; i < inserted.size(); i++) {
+            populateId(objects.get(i), inserted.get(i).get("_id"));
+        }
+    }
+
+    @Override
+    public <T> T save(T objectToSave) {
+        return save(objectToSave, getCollectionName(objectToSave.getClass()));
+    }
+
+    @Override
+    public <T> T save(T objectToSave, String collectionName) {
+        BsonDocument saved = store.save(collectionName, toBson(objectToSave));
+        populateId(objectToSave, saved.get("_id"));
+        return objectToSave;
+    }
+
+    // --- Updates ---
+
+    @Override
+    public UpdateResult updateFirst(Query query, UpdateDefinition update, Class<?> entityClass) {
+        return updateFirst(query, update, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, UpdateDefinition update, String collectionName) {
+        return updateFirst(query, update, null, collectionName);
+    }
+
+    @Override
+    public UpdateResult updateFirst(Query query, UpdateDefinition update, Class<?> entityClass, String collectionName) {
+        return update(query, update, entityClass, collectionName, false, false);
+    }
+
+    @Override
+    public UpdateResult updateMulti(Query query, UpdateDefinition update, Class<?> entityClass) {
+        return updateMulti(query, update, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public UpdateResult updateMulti(Query query, UpdateDefinition update, String collectionName) {
+        return updateMulti(query, update, null, collectionName);
+    }
+
+    @Override
+    public UpdateResult updateMulti(Query query, UpdateDefinition update, Class<?> entityClass, String collectionName) {
+        return update(query, update, entityClass, collectionName, true, false);
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, UpdateDefinition update, Class<?> entityClass) {
+        return upsert(query, update, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, UpdateDefinition update, String collectionName) {
+        return upsert(query, update, null, collectionName);
+    }
+
+    @Override
+    public UpdateResult upsert(Query query, UpdateDefinition update, Class<?> entityClass, String collectionName) {
+        return update(query, update, entityClass, collectionName, false, true);
+    }
+
+    UpdateResult update(Query query, UpdateDefinition update, Class<?> entityClass, String collectionName,
+                        boolean multi, boolean upsert) {
+        MongoPersistentEntity<?> entity = entity(entityClass);
+        return store.update(collectionName, filter(query, entity),
+                bson(updateMapper.getMappedObject(update.getUpdateObject(), entity)), multi, upsert);
+    }
+
+    // The first matching document replaced by the whole of replacement, keeping its _id
+    UpdateResult replace(Query query, Object replacement, Class<?> entityClass, String collectionName, boolean upsert) {
+        return store.update(collectionName, filter(query, entity(entityClass)), toBson(replacement), false, upsert);
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, Class<T> entityClass) {
+        return findAndModify(query, update, FindAndModifyOptions.none(), entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, Class<T> entityClass, String collectionName) {
+        return findAndModify(query, update, FindAndModifyOptions.none(), entityClass, collectionName);
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options, Class<T> entityClass) {
+        return findAndModify(query, update, options, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public <T> T findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options, Class<T> entityClass,
+                               String collectionName) {
+        MongoPersistentEntity<?> entity = entity(entityClass);
+        BsonDocument result = store.findAndModify(collectionName, filter(query, entity),
+                bson(queryMapper.getMappedSort(query.getSortObject(), entity)),
+                bson(updateMapper.getMappedObject(update.getUpdateObject(), entity)),
+                options.isReturnNew(), options.isUpsert(), options.isRemove());
+        return result == null ? null : read(entityClass, result);
+    }
+
+    // --- Removes ---
+
+    @Override
+    public DeleteResult remove(Object object) {
+        return remove(object, getCollectionName(object.getClass()));
+    }
+
+    @Override
+    public DeleteResult remove(Object object, String collectionName) {
+        BsonValue id = toBson(object).get("_id");
+        if (id == null) return DeleteResult.acknowledged(0);
+        return DeleteResult.acknowledged(store.delete(collectionName, new BsonDocument("_id", id), false));
+    }
+
+    @Override
+    public DeleteResult remove(Query query, Class<?> entityClass) {
+        return remove(query, entityClass, getCollectionName(entityClass));
+    }
+
+    @Override
+    public DeleteResult remove(Query query, String collectionName) {
+        return remove(query, null, collectionName);
+    }
+
+    @Override
+    public DeleteResult remove(Query query, Class<?> entityClass, String collectionName) {
+        return DeleteResult.acknowledged(delete(query, entityClass, collectionName, true));
+    }
+
+    long delete(Query query, Class<?> entityClass, String collectionName, boolean multi) {
+        return store.delete(collectionName, filter(query, entity(entityClass)), multi);
+    }
+
+    // --- Bulk ---
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, String collectionName) {
+        return bulkOps(mode, null, collectionName);
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityType) {
+        return bulkOps(mode, entityType, getCollectionName(entityType));
+    }
+
+    @Override
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityType, String collectionName) {
+        return new InMemoryBulkOperations(this, mode, entityType, collectionName);
+    }
+
+    // --- Mapping ---
+
+    private BsonDocument filter(Query query, MongoPersistentEntity<?> entity) {
+        return bson(queryMapper.getMappedObject(query.getQueryObject(), entity));
+    }
+
+    private MongoPersistentEntity<?> entity(Class<?> type) {
+        if (type == null || Map.class.isAssignableFrom(type)) return null;
+        return getConverter().getMappingContext().getPersistentEntity(type);
+    }
+
+    BsonDocument toBson(Object object) {
+        if (object instanceof Document document) return bson(document);
+        Document document = new Document();
+        getConverter().write(object, document);
+        return bson(document);
+    }
+
+    // A fresh copy, so the store never shares mutable state with the caller
+    private BsonDocument bson(Document document) {
+        BsonDocument bson = new BsonDocument();
+        documentCodec.encode(new BsonDocumentWriter(bson), document, EncoderContext.builder().build());
+        return bson;
+    }
+
+    private <T> T read(Class<T> type, BsonDocument bson) {
+        Document document = decode(bson);
+        if (Map.class.isAssignableFrom(type)) return type.cast(document);
+        return getConverter().read(type, document);
+    }
+
+    private Document decode(BsonDocument bson) {
+        return documentCodec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    // A generated _id is written back to the entity's (usually String) id property, as MongoTemplate does
+    private void populateId(Object object, BsonValue bsonId) {
+        Object id = decode(new BsonDocument("_id", bsonId)).get("_id");
+        if (object instanceof Document document) {
+            document.putIfAbsent("_id", id);
+            return;
+        }
+        MongoPersistentEntity<?> entity = entity(object.getClass());
+        if (entity == null || id == null) return;
+        MongoPersistentProperty idProperty = entity.getIdProperty();
+        if (idProperty == null) return;
+        PersistentPropertyAccessor<Object> accessor = entity.getPropertyAccessor(object);
+        if (accessor.getProperty(idProperty) == null) {
+            accessor.setProperty(idProperty, getConverter().getConversionService().convert(id, idProperty.getType()));
+        }
+    }
+}
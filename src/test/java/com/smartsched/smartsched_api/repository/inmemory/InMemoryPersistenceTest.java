@@ -0,0 +1,218 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.dto.SchedulePage;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Role;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.SchedulePersistenceService;
+import com.smartsched.smartsched_api.service.ScheduleQueryService;
+import com.smartsched.smartsched_api.service.TeacherService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The inmemory profile's repositories and template under the services that use MongoTemplate
+ * directly: saveSolution's bulk back-reference updates, the teacher cascade, cursor paging,
+ * the unique username index, query by example and bulk replaceOne.
+ */
+class InMemoryPersistenceTest {
+
+    private InMemoryTeacherRepository teacherRepository;
+    private InMemoryClassroomRepository classroomRepository;
+    private InMemorySectionRepository sectionRepository;
+    private InMemoryScheduleRepository scheduleRepository;
+    private InMemoryUserRepository userRepository;
+    private ReferenceDataCache cache;
+    private SchedulePersistenceService persistenceService;
+    private InMemoryMongoTemplate template;
+
+    private final List<Teacher> teachers = new ArrayList<>();
+    private final List<Classroom> classrooms = new ArrayList<>();
+    private final List<Section> sections = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Wired as Spring Boot's MongoDataAutoConfiguration does
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.setInitialEntitySet(Set.of(Teacher.class, Classroom.class, Section.class, Schedule.class,
+                User.class, SolveRun.class));
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        InMemoryPersistenceConfig config = new InMemoryPersistenceConfig();
+        template = config.mongoTemplate(config.mongoDatabaseFactory(), converter, config.inMemoryMongoStore(mappingContext));
+        teacherRepository = new InMemoryTeacherRepository(template);
+        classroomRepository = new InMemoryClassroomRepository(template);
+        sectionRepository = new InMemorySectionRepository(template);
+        scheduleRepository = new InMemoryScheduleRepository(template);
+        userRepository = new InMemoryUserRepository(template);
+
+        for (int i = 0; i < 3; i++) teachers.add(teacherRepository.save(new Teacher("Teacher " + i, "CS")));
+        for (int i = 0; i < 2; i++) classrooms.add(classroomRepository.save(new Classroom("Room " + i, 40, "Lecture")));
+        for (int i = 0; i < 4; i++) sections.add(sectionRepository.save(new Section("BSIT", 1, "S" + i, 30)));
+
+        cache = new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository);
+        persistenceService = new SchedulePersistenceService(template, cache, new ChangeVersions(cache),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void savesKeepBackReferencesInStep() {
+        cache.getTeachers();
+        cache.getClassrooms();
+        long teachersVersion = cache.getTeachersVersion();
+        for (int round = 0; round < 3; round++) {
+            for (Section section : sections) {
+                persistenceService.replaceSectionSchedules("p", section.getId(), schedulesFor(section, 6 + round));
+            }
+        }
+
+        assertThat(scheduleRepository.count()).isEqualTo(sections.size() * 8L);
+        for (Teacher teacher : teachers) {
+            Teacher reloaded = teacherRepository.findById(teacher.getId()).orElseThrow();
+            assertThat(new HashSet<>(reloaded.getScheduleIds())).isEqualTo(ids(scheduleRepository.findAllByTeacherId(teacher.getId())));
+            assertThat(reloaded.getScheduleIds()).doesNotHaveDuplicates();
+            assertThat(cache.findTeacher(teacher.getId()).orElseThrow().getScheduleIds())
+                    .containsExactlyInAnyOrderElementsOf(reloaded.getScheduleIds());
+        }
+        for (Classroom classroom : classrooms) {
+            Classroom reloaded = classroomRepository.findById(classroom.getId()).orElseThrow();
+            assertThat(new HashSet<>(reloaded.getScheduleIds())).isEqualTo(ids(scheduleRepository.findAllByClassroomId(classroom.getId())));
+            assertThat(cache.findClassroom(classroom.getId()).orElseThrow().getScheduleIds())
+                    .containsExactlyInAnyOrderElementsOf(reloaded.getScheduleIds());
+        }
+        for (Section section : sections) {
+            Section reloaded = sectionRepository.findById(section.getId()).orElseThrow();
+            assertThat(new HashSet<>(reloaded.getScheduleIds())).isEqualTo(ids(scheduleRepository.findAllBySectionId(section.getId())));
+            assertThat(cache.findSection(section.getId()).orElseThrow().getScheduleIds())
+                    .containsExactlyInAnyOrderElementsOf(reloaded.getScheduleIds());
+        }
+        // Updated in place: the regions were never dropped, but the teacher ETag still moved
+        assertThat(cache.getStats()).extractingByKey("teachers").asInstanceOf(MAP).containsEntry("misses", 1L);
+        assertThat(cache.getTeachersVersion()).isGreaterThan(teachersVersion);
+        assertThat(scheduleRepository.findAllBySectionIdNot(sections.get(0).getId())).hasSize(3 * 8);
+        assertThat(scheduleRepository.deleteByProblemId("p")).isEqualTo(sections.size() * 8L);
+        assertThat(scheduleRepository.findAllByProblemId("p")).isEmpty();
+    }
+
+    @Test
+    void deletingATeacherUnlinksItsSchedules() {
+        Section section = sections.get(0);
+        persistenceService.replaceSectionSchedules("p", section.getId(), schedulesFor(section, 6));
+        String teacherId = teachers.get(0).getId();
+        assertThat(scheduleRepository.findAllByTeacherId(teacherId)).isNotEmpty();
+
+        TeacherService teacherService = new TeacherService(teacherRepository, template, cache, new ChangeVersions(cache));
+        assertThat(teacherService.deleteTeacher(teacherId)).isTrue();
+
+        assertThat(teacherRepository.existsById(teacherId)).isFalse();
+        assertThat(scheduleRepository.findAllByTeacherId(teacherId)).isEmpty();
+        assertThat(scheduleRepository.findAllBySectionId(section.getId())).hasSize(6)
+                .filteredOn(s -> s.getTeacherId() == null).hasSize(2);
+    }
+
+    @Test
+    void cursorPagingWalksEveryScheduleOnce() {
+        for (Section section : sections) {
+            persistenceService.replaceSectionSchedules("p", section.getId(), schedulesFor(section, 10));
+        }
+        ScheduleQueryService queryService = new ScheduleQueryService(template, new ObjectMapper());
+        ScheduleFilter filter = new ScheduleFilter(null, null, null, null, null, null, "p");
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            SchedulePage page = queryService.findPage(filter, cursor, 7, List.of("sectionId"));
+            page.items().forEach(item -> assertThat(seen.add(item.id())).isTrue());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertThat(seen).isEqualTo(ids(scheduleRepository.findAll()));
+    }
+
+    @Test
+    void usernamesAreUnique() {
+        userRepository.save(new User("alice", "x", Role.ROLE_ADMIN, true));
+        assertThat(userRepository.findByUsername("alice")).isPresent();
+        assertThat(userRepository.existsByUsername("bob")).isFalse();
+        assertThat(userRepository.findByRoleAndEnabled(Role.ROLE_ADMIN, true)).hasSize(1);
+
+        assertThatThrownBy(() -> userRepository.save(new User("alice", "y", Role.ROLE_ADMIN, false)))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void queryByExampleAndBulkReplace() {
+        Teacher probe = new Teacher("Teacher 1", null);
+        assertThat(teacherRepository.findAll(Example.of(probe))).extracting(Teacher::getId).containsExactly(teachers.get(1).getId());
+        assertThat(teacherRepository.count(Example.of(new Teacher(null, "cs"), ExampleMatcher.matching().withIgnoreCase())))
+                .isEqualTo(3);
+        List<String> names = teacherRepository.findBy(Example.of(new Teacher(null, "CS")),
+                query -> query.sortBy(Sort.by(Sort.Direction.DESC, "name")).limit(2).all()).stream()
+                .map(Teacher::getName).toList();
+        assertThat(names).containsExactly("Teacher 2", "Teacher 1");
+
+        Teacher replacement = new Teacher("Renamed", "Math");
+        template.bulkOps(BulkOperations.BulkMode.ORDERED, Teacher.class)
+                .replaceOne(new Query(Criteria.where("_id").is(teachers.get(1).getId())), replacement)
+                .execute();
+
+        assertThat(teacherRepository.findById(teachers.get(1).getId())).get()
+                .extracting(Teacher::getName, Teacher::getDepartment).containsExactly("Renamed", "Math");
+        assertThat(teacherRepository.exists(Example.of(probe))).isFalse();
+        assertThat(teacherRepository.count()).isEqualTo(3);
+    }
+
+    private List<Schedule> schedulesFor(Section section, int count) {
+        List<Schedule> schedules = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Teacher teacher = teachers.get(i % teachers.size());
+            Classroom classroom = classrooms.get(i % classrooms.size());
+            int start = 480 + (i % 6) * 90;
+            schedules.add(new Schedule("p", "SUBJ" + i, "Subject " + i, teacher.getId(), section.getId(),
+                    classroom.getId(), DayOfWeek.of(1 + i % 6), start, start + 90, i % 2 == 0));
+        }
+        return schedules;
+    }
+
+    private static Set<String> ids(List<Schedule> schedules) {
+        return schedules.stream().map(Schedule::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,274 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * CRUD half of an in-memory repository, on top of InMemoryMongoTemplate the way Spring Data's
+ * SimpleMongoRepository sits on MongoTemplate. Subclasses add the derived query methods of
+ * their interface as explicit queries. Query by example goes through Criteria.byExample, as in
+ * SimpleMongoRepository.
+ */
+abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    protected final InMemoryMongoTemplate template;
+    private final Class<T> type;
+
+    protected InMemoryRepository(InMemoryMongoTemplate template, Class<T> type) {
+        this.template = template;
+        this.type = type;
+    }
+
+    // --- Helpers for derived queries ---
+
+    protected List<T> find(Query query) {
+        return template.find(query, type);
+    }
+
+    protected Optional<T> findOne(Query query) {
+        return Optional.ofNullable(template.findOne(query, type));
+    }
+
+    protected boolean exists(Query query) {
+        return template.exists(query, type);
+    }
+
+    protected long delete(Query query) {
+        return template.remove(query, type).getDeletedCount();
+    }
+
+    private static Query byId(String id) {
+        return new Query(Criteria.where("_id").is(id));
+    }
+
+    private static Query byIds(Iterable<? extends String> ids) {
+        List<String> all = new ArrayList<>();
+        ids.forEach(all::add);
+        return new Query(Criteria.where("_id").in(all));
+    }
+
+    // --- CrudRepository ---
+
+    @Override
+    public <S extends T> S save(S entity) {
+        return template.save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(template.save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        return template.insert(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> batch = new ArrayList<>();
+        entities.forEach(batch::add);
+        return new ArrayList<>(template.insert(batch, type));
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        return Optional.ofNullable(template.findById(id, type));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return exists(byId(id));
+    }
+
+    @Override
+    public List<T> findAll() {
+        return template.findAll(type);
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        return find(byIds(ids));
+    }
+
+    @Override
+    public long count() {
+        return template.count(new Query(), type);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delete(byId(id));
+    }
+
+    @Override
+    public void delete(T entity) {
+        template.remove(entity);
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        delete(byIds(ids));
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        delete(new Query());
+    }
+
+    // --- Paging and sorting ---
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return find(new Query().with(sort));
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        List<T> content = find(new Query().with(pageable));
+        return PageableExecutionUtils.getPage(content, pageable, this::count);
+    }
+
+    // --- Query by example ---
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return Optional.ofNullable(template.findOne(byExample(example), example.getProbeType(), collection()));
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return template.find(byExample(example), example.getProbeType(), collection());
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return template.find(byExample(example).with(sort), example.getProbeType(), collection());
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        List<S> content = template.find(byExample(example).with(pageable), example.getProbeType(), collection());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(example));
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return template.count(byExample(example), example.getProbeType(), collection());
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return template.exists(byExample(example), example.getProbeType(), collection());
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(byExample(example), example.getProbeType()));
+    }
+
+    private static Query byExample(Example<?> example) {
+        return new Query(Criteria.byExample(example));
+    }
+
+    private String collection() {
+        return template.getCollectionName(type);
+    }
+
+    /**
+     * findBy's fluent query: each step copies the query, the terminal methods run it.
+     */
+    private final class ExampleQuery<R> implements FluentQuery.FetchableFluentQuery<R> {
+
+        private final Query query;
+        private final Class<R> resultType;
+
+        ExampleQuery(Query query, Class<R> resultType) {
+            this.query = query;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ExampleQuery<>(Query.of(query).with(sort), resultType);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            return new ExampleQuery<>(Query.of(query).limit(limit), resultType);
+        }
+
+        @Override
+        public <N> FluentQuery.FetchableFluentQuery<N> as(Class<N> type) {
+            return new ExampleQuery<>(query, type);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            Query projected = Query.of(query);
+            properties.forEach(projected.fields()::include);
+            return new ExampleQuery<>(projected, resultType);
+        }
+
+        @Override
+        public R oneValue() {
+            List<R> results = template.find(Query.of(query).limit(2), resultType, collection());
+            if (results.size() > 1) throw new IncorrectResultSizeDataAccessException(1);
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public R firstValue() {
+            List<R> results = template.find(Query.of(query).limit(1), resultType, collection());
+            return results.isEmpty() ? null : results.get(0);
+        }
+
+        @Override
+        public List<R> all() {
+            return template.find(query, resultType, collection());
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            List<R> content = template.find(Query.of(query).with(pageable), resultType, collection());
+            return PageableExecutionUtils.getPage(content, pageable, this::count);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return template.stream(query, resultType, collection());
+        }
+
+        @Override
+        public long count() {
+            return template.count(query, type, collection());
+        }
+
+        @Override
+        public boolean exists() {
+            return template.exists(query, type, collection());
+        }
+    }
+}
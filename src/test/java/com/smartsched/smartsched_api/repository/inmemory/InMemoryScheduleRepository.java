@@ -0,0 +1,57 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+
+// problemId, sectionId, teacherId and classroomId are indexed (see the annotations on Schedule)
+@Repository
+@Profile("inmemory")
+public class InMemoryScheduleRepository extends InMemoryRepository<Schedule> implements ScheduleRepository {
+
+    public InMemoryScheduleRepository(InMemoryMongoTemplate template) {
+        super(template, Schedule.class);
+    }
+
+    @Override
+    public List<Schedule> findAllByProblemId(String problemId) {
+        return find(new Query(Criteria.where("problemId").is(problemId)));
+    }
+
+    @Override
+    public long deleteByProblemId(String problemId) {
+        return delete(new Query(Criteria.where("problemId").is(problemId)));
+    }
+
+    @Override
+    public List<Schedule> findAllByTeacherId(String teacherId) {
+        return find(new Query(Criteria.where("teacherId").is(teacherId)));
+    }
+
+    @Override
+    public List<Schedule> findAllByClassroomId(String classroomId) {
+        return find(new Query(Criteria.where("classroomId").is(classroomId)));
+    }
+
+    @Override
+    public List<Schedule> findAllBySectionId(String sectionId) {
+        return find(new Query(Criteria.where("sectionId").is(sectionId)));
+    }
+
+    @Override
+    public List<Schedule> findAllBySectionIdNot(String sectionId) {
+        return find(new Query(Criteria.where("sectionId").ne(sectionId)));
+    }
+
+    @Override
+    public List<Schedule> findAllBySectionIdIn(Collection<String> sectionIds) {
+        return find(new Query(Criteria.where("sectionId").in(sectionIds)));
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+
+@Repository
+@Profile("inmemory")
+public class InMemorySectionRepository extends InMemoryRepository<Section> implements SectionRepository {
+
+    public InMemorySectionRepository(InMemoryMongoTemplate template) {
+        super(template, Section.class);
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.repository.SolveRunRepository;
+
+@Repository
+@Profile("inmemory")
+public class InMemorySolveRunRepository extends InMemoryRepository<SolveRun> implements SolveRunRepository {
+
+    public InMemorySolveRunRepository(InMemoryMongoTemplate template) {
+        super(template, SolveRun.class);
+    }
+
+    @Override
+    public List<SolveRun> findAllByFinishedAtAfter(Instant since) {
+        return find(new Query(Criteria.where("finishedAt").gt(since)));
+    }
+
+    @Override
+    public List<SolveRun> findTop100ByOrderByFinishedAtDesc() {
+        return find(new Query().with(Sort.by(Sort.Direction.DESC, "finishedAt")).limit(100));
+    }
+}
@@ -0,0 +1,16 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+
+@Repository
+@Profile("inmemory")
+public class InMemoryTeacherRepository extends InMemoryRepository<Teacher> implements TeacherRepository {
+
+    public InMemoryTeacherRepository(InMemoryMongoTemplate template) {
+        super(template, Teacher.class);
+    }
+}
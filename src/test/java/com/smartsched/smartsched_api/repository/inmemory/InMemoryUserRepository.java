@@ -0,0 +1,43 @@
+package com.smartsched.smartsched_api.repository.inmemory;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import com.smartsched.smartsched_api.model.Role;
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.repository.UserRepository;
+
+// username has a unique index, so a second registration fails with DuplicateKeyException as on MongoDB
+@Repository
+@Profile("inmemory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    public InMemoryUserRepository(InMemoryMongoTemplate template) {
+        super(template, User.class);
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return findOne(new Query(Criteria.where("username").is(username)));
+    }
+
+    @Override
+    public List<User> findByEnabled(boolean enabled) {
+        return find(new Query(Criteria.where("enabled").is(enabled)));
+    }
+
+    @Override
+    public List<User> findByRoleAndEnabled(Role role, boolean enabled) {
+        return find(new Query(Criteria.where("role").is(role).and("enabled").is(enabled)));
+    }
+
+    @Override
+    public Boolean existsByUsername(String username) {
+        return exists(new Query(Criteria.where("username").is(username)));
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartsched.smartsched_api.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.model.Role;
+import com.smartsched.smartsched_api.model.User;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryUserRepository;
+import com.smartsched.smartsched_api.service.UserService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * jwt.auth-mode=claims end to end through the filter: the principal comes from the token, and
+ * TokenEpochCache still turns away stale-epoch tokens and deleted or disabled users, the last two
+ * at once on this node even though the user's entry is well inside its TTL.
+ */
+class JwtClaimsAuthenticationTest {
+
+    private InMemoryUserRepository userRepository;
+    private TokenEpochCache tokenEpochCache;
+    private JwtService jwtService;
+    private UserService userService;
+    private JwtAuthenticationFilter filter;
+    private User scheduler;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = new InMemoryUserRepository(InMemoryPersistenceConfig.standaloneTemplate());
+        tokenEpochCache = new TokenEpochCache(userRepository, 30);
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKeyString", "claims-test-secret");
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxEntries", 100);
+        jwtService.init();
+        userService = new UserService(userRepository, null, null, jwtService, tokenEpochCache);
+        filter = new JwtAuthenticationFilter(jwtService, username -> {
+            throw new AssertionError("claims mode must not load the user");
+        }, tokenEpochCache, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "authMode", "claims");
+
+        User user = new User("scheduler1", "x", Role.ROLE_SCHEDULER, true);
+        user.setTokenEpoch(1_000);
+        scheduler = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void aCurrentTokenAuthenticatesWithItsRoleClaim() throws Exception {
+        Authentication authentication = authenticate(jwtService.generateToken(scheduler));
+
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("scheduler1");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_SCHEDULER");
+    }
+
+    @Test
+    void aTokenFromAnEarlierEpochIsRejected() throws Exception {
+        String token = jwtService.generateToken(scheduler);
+        scheduler.setTokenEpoch(1_001);
+        tokenEpochCache.update(userRepository.save(scheduler));
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(authenticate(jwtService.generateToken(scheduler))).isNotNull();
+    }
+
+    @Test
+    void aDeletedUsersTokenIsRejectedAtOnce() throws Exception {
+        String token = jwtService.generateToken(scheduler);
+        assertThat(authenticate(token)).isNotNull();
+
+        userService.deleteUser(scheduler.getId());
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    void aDisabledUsersTokenIsRejectedWithinTheTtl() throws Exception {
+        String token = jwtService.generateToken(scheduler);
+        assertThat(authenticate(token)).isNotNull();
+        long loads = (Long) tokenEpochCache.getStats().get("loads");
+
+        userService.disableUser(scheduler.getId());
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(tokenEpochCache.getStats()).as("answered from the cache entry").containsEntry("loads", loads);
+    }
+
+    @Test
+    void aUserDisabledElsewhereIsRejectedOnceTheEntryIsReloaded() throws Exception {
+        String token = jwtService.generateToken(scheduler);
+        scheduler.setEnabled(false);
+        userRepository.save(scheduler);
+
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    void approvingKeepsTheEpoch() {
+        User pending = new User("scheduler2", "x", Role.ROLE_SCHEDULER, false);
+        pending.setTokenEpoch(2_000);
+        pending = userRepository.save(pending);
+
+        User approved = userService.approveUser(pending.getId());
+
+        assertThat(approved.isEnabled()).isTrue();
+        assertThat(approved.getTokenEpoch()).isEqualTo(2_000);
+        assertThat(tokenEpochCache.isCurrent("scheduler2", 2_000)).isTrue();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teachers");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
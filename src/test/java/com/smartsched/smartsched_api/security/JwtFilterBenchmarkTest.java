@@ -0,0 +1,128 @@
+package com.smartsched.smartsched_api.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Optional;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.smartsched.smartsched_api.model.Role;
+import com.smartsched.smartsched_api.repository.UserRepository;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Throughput of the JWT filter against the previous verification path, which re-derived the
+ * key and parsed the token three times per request, and of the claims-only mode that skips the
+ * per-request user lookup. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class JwtFilterBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-please-change";
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private final UserDetails user = new User("scheduler1", "x", List.of(new SimpleGrantedAuthority("ROLE_SCHEDULER")));
+    private final UserDetailsService userDetailsService = username -> user;
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    void filterThroughputBeforeAndAfter() throws Exception {
+        JwtService cachedService = jwtService(10_000);
+        JwtService uncachedService = jwtService(0);
+        String token = cachedService.generateToken(user);
+
+        JwtAuthenticationFilter parseOnceFilter = filter(uncachedService, "database");
+        JwtAuthenticationFilter cachedFilter = filter(cachedService, "database");
+        JwtAuthenticationFilter claimsFilter = filter(cachedService, "claims");
+
+        double before = opsPerSecond(() -> legacyVerify(token));
+        double parseOnce = opsPerSecond(() -> runFilter(parseOnceFilter, token));
+        double cached = opsPerSecond(() -> runFilter(cachedFilter, token));
+        double claimsOnly = opsPerSecond(() -> runFilter(claimsFilter, token));
+
+        System.out.printf("JWT filter throughput (ops/s): before=%.0f, single parse=%.0f, single parse + cache=%.0f, claims only=%.0f%n",
+                before, parseOnce, cached, claimsOnly);
+        assertThat(parseOnce).isGreaterThan(before);
+        assertThat(cached).isGreaterThan(parseOnce);
+    }
+
+    private JwtAuthenticationFilter filter(JwtService service, String authMode) {
+        // Tokens minted for a non-model UserDetails carry no epoch claim and read as epoch 0
+        com.smartsched.smartsched_api.model.User stored =
+                new com.smartsched.smartsched_api.model.User("scheduler1", "x", Role.ROLE_SCHEDULER, true);
+        when(userRepository.findByUsername("scheduler1")).thenReturn(Optional.of(stored));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(service, userDetailsService,
+                new TokenEpochCache(userRepository, 30), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "authMode", authMode);
+        return filter;
+    }
+
+    private JwtService jwtService(int cacheEntries) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKeyString", SECRET);
+        ReflectionTestUtils.setField(service, "verifiedCacheMaxEntries", cacheEntries);
+        service.init();
+        return service;
+    }
+
+    private void runFilter(JwtAuthenticationFilter filter, String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teachers");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new AssertionError("Filter did not authenticate");
+        }
+    }
+
+    // What each request cost before: key derived per call, token parsed for the username in the
+    // filter, then again for the username and the expiry inside isTokenValid
+    private void legacyVerify(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        String username = legacyParse(token).getSubject();
+        UserDetails details = userDetailsService.loadUserByUsername(username);
+        boolean valid = legacyParse(token).getSubject().equals(details.getUsername())
+                && !legacyParse(token).getExpiration().before(new java.util.Date());
+        if (!valid) throw new AssertionError("Legacy path rejected token");
+    }
+
+    private Claims legacyParse(String token) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(SECRET.getBytes(StandardCharsets.UTF_8));
+        SecretKey key = Keys.hmacShaKeyFor(hash);
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+
+    @FunctionalInterface
+    private interface Op {
+        void run() throws Exception;
+    }
+
+    private static double opsPerSecond(Op op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) op.run();
+        return ITERATIONS / ((System.nanoTime() - start) / 1e9);
+    }
+}
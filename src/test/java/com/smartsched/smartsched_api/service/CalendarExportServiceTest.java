@@ -0,0 +1,134 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryClassroomRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySectionRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryTeacherRepository;
+
+/**
+ * CSV quoting (RFC 4180) and iCalendar output (RFC 5545): TEXT escaping, 75-octet folding,
+ * floating DTSTART with a matching floating UNTIL, and one weekly VEVENT per meeting.
+ */
+class CalendarExportServiceTest {
+
+    // 2026-08-03 is a Monday
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 8, 3);
+    private static final LocalDate LAST_DAY = LocalDate.of(2026, 12, 11);
+
+    private InMemoryMongoTemplate template;
+    private CalendarExportService calendarExportService;
+    private Teacher teacher;
+    private Classroom classroom;
+    private Section section;
+
+    @BeforeEach
+    void setUp() {
+        template = InMemoryPersistenceConfig.standaloneTemplate();
+        InMemoryTeacherRepository teacherRepository = new InMemoryTeacherRepository(template);
+        InMemoryClassroomRepository classroomRepository = new InMemoryClassroomRepository(template);
+        InMemorySectionRepository sectionRepository = new InMemorySectionRepository(template);
+        teacher = teacherRepository.save(new Teacher("Lovelace, Ada \"The Countess\"", "CS"));
+        classroom = classroomRepository.save(new Classroom("Lab 1; North\\Wing", 40, "Lab"));
+        section = sectionRepository.save(new Section("BSIT", 2, "A", 30));
+        calendarExportService = new CalendarExportService(template,
+                new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository));
+    }
+
+    @Test
+    void csvQuotesCommasQuotesAndNewlines() throws Exception {
+        meeting(DayOfWeek.MONDAY, "IT201", "Data Structures\nand Algorithms");
+
+        String csv = export(ExportFormat.CSV);
+
+        assertThat(csv).startsWith("Day,Start,End,Subject Code,Subject Name,Teacher,Classroom,Section\r\n");
+        assertThat(csv).endsWith("\r\n");
+        String row = csv.substring(csv.indexOf("\r\n") + 2, csv.length() - 2);
+        assertThat(row).isEqualTo("MONDAY,08:00 AM,09:30 AM,IT201,\"Data Structures\nand Algorithms\","
+                + "\"Lovelace, Ada \"\"The Countess\"\"\",Lab 1; North\\Wing,BSIT 2-A");
+    }
+
+    @Test
+    void icsEscapesTextAndFoldsAt75Octets() throws Exception {
+        String subjectName = "Introducción a la programación, parte 1; con énfasis en estructuras\\algoritmos";
+        meeting(DayOfWeek.MONDAY, "IT101", subjectName);
+
+        String ics = export(ExportFormat.ICS);
+
+        List<String> physical = Arrays.asList(ics.split("\r\n"));
+        assertThat(physical).allSatisfy(line ->
+                assertThat(line.getBytes(StandardCharsets.UTF_8).length).as(line).isLessThanOrEqualTo(75));
+        assertThat(physical).anySatisfy(line -> assertThat(line).startsWith(" "));
+        assertThat(ics).doesNotContain("�");
+
+        List<String> lines = unfold(ics);
+        assertThat(lines).contains("SUMMARY:IT101 - Introducción a la programación\\, parte 1\\; con énfasis en "
+                + "estructuras\\\\algoritmos");
+        assertThat(lines).contains("LOCATION:Lab 1\\; North\\\\Wing");
+        assertThat(lines).contains("DESCRIPTION:Teacher: Lovelace\\, Ada \"The Countess\"\\nSection: BSIT 2-A");
+        assertThat(lines).contains("X-WR-CALNAME:BSIT 2-A");
+    }
+
+    @Test
+    void recurrenceEndsAtAFloatingUntil() throws Exception {
+        meeting(DayOfWeek.WEDNESDAY, "IT101", "Programming");
+
+        List<String> lines = unfold(export(ExportFormat.ICS));
+
+        assertThat(lines).contains("DTSTART:20260805T080000", "DTEND:20260805T093000",
+                "RRULE:FREQ=WEEKLY;BYDAY=WE;UNTIL=20261211T235959");
+        assertThat(lines).filteredOn(line -> line.startsWith("DTSTART") || line.startsWith("RRULE"))
+                .as("floating times: no UTC suffix and no TZID").noneMatch(line -> line.endsWith("Z") || line.contains("TZID"));
+    }
+
+    @Test
+    void eachWeekdayMeetingIsItsOwnEvent() throws Exception {
+        meeting(DayOfWeek.FRIDAY, "IT101", "Programming");
+        meeting(DayOfWeek.MONDAY, "IT101", "Programming");
+        meeting(DayOfWeek.WEDNESDAY, "IT101", "Programming");
+
+        List<String> lines = unfold(export(ExportFormat.ICS));
+
+        assertThat(lines).filteredOn("BEGIN:VEVENT"::equals).hasSize(3);
+        assertThat(lines).filteredOn(line -> line.startsWith("UID:")).doesNotHaveDuplicates().hasSize(3);
+        assertThat(lines).filteredOn(line -> line.startsWith("DTSTART:"))
+                .containsExactly("DTSTART:20260803T080000", "DTSTART:20260805T080000", "DTSTART:20260807T080000");
+        assertThat(lines).filteredOn(line -> line.startsWith("RRULE:"))
+                .extracting(line -> line.substring(line.indexOf("BYDAY=") + 6, line.indexOf("BYDAY=") + 8))
+                .containsExactly("MO", "WE", "FR");
+        assertThat(lines.get(0)).isEqualTo("BEGIN:VCALENDAR");
+        assertThat(lines.get(lines.size() - 1)).isEqualTo("END:VCALENDAR");
+    }
+
+    private void meeting(DayOfWeek day, String code, String name) {
+        template.insert(new Schedule("p", code, name, teacher.getId(), section.getId(), classroom.getId(),
+                day, 480, 570, true));
+    }
+
+    private String export(ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        calendarExportService.write(CalendarExportService.View.SECTION, section.getId(), format, FIRST_DAY, LAST_DAY, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // RFC 5545 unfolding: a CRLF followed by one space joins the lines
+    private static List<String> unfold(String ics) {
+        return Arrays.asList(ics.replace("\r\n ", "").split("\r\n"));
+    }
+}
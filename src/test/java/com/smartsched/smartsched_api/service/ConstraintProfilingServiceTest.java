@@ -0,0 +1,122 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.smartsched.smartsched_api.dto.ConstraintProfileReport;
+import com.smartsched.smartsched_api.solver.ConstraintProfiler;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.analysis.ScoreAnalysis;
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+
+/**
+ * The profile binding of a job's solver thread ends with the job, on the failure path as well,
+ * and the score analysis of the final solution is never counted into the job's profile.
+ */
+class ConstraintProfilingServiceTest {
+
+    private SolutionManager<ScheduleSolution, HardSoftScore> solutionManager;
+    private ScoreAnalysis<HardSoftScore> analysis;
+    private ConstraintProfilingService profiling;
+    private Predicate<Object> filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        solutionManager = mock(SolutionManager.class);
+        analysis = mock(ScoreAnalysis.class);
+        when(analysis.constraintAnalyses()).thenReturn(List.of());
+        when(solutionManager.analyze(any(), any(), any())).thenReturn(analysis);
+        profiling = new ConstraintProfilingService(solutionManager, true, 50);
+        filter = ConstraintProfiler.probe("Profiling test constraint").filter(x -> true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConstraintProfiler.unbind();
+        ConstraintProfiler.setEnabled(false);
+    }
+
+    @Test
+    void aFailedJobUnbindsItsSolverThread() {
+        profiling.jobStarted("p1");
+        filter.test("a");
+
+        // The exception handler runs on the solver thread
+        profiling.jobFinished("p1", null);
+
+        assertThat(bound()).isNull();
+        filter.test("a");
+        assertThat(filterCalls("p1")).isEqualTo(1);
+    }
+
+    @Test
+    void aJobFinishedElsewhereStopsRecordingOnTheSolverThread() throws Exception {
+        profiling.jobStarted("p1");
+        filter.test("a");
+
+        // The final best solution consumer runs on Timefold's consumer thread
+        Thread consumer = new Thread(() -> profiling.jobFinished("p1", mock(ScheduleSolution.class)));
+        consumer.start();
+        consumer.join(10_000);
+        filter.test("a");
+
+        assertThat(filterCalls("p1")).isEqualTo(1);
+        assertThat(bound()).as("dropped by the probe").isNull();
+        assertThat(profiling.report("p1")).get().extracting(ConstraintProfileReport::finished).isEqualTo(true);
+    }
+
+    @Test
+    void theFinalScoreAnalysisIsNotCounted() {
+        when(solutionManager.analyze(any(), any(), any())).thenAnswer(invocation -> {
+            for (int i = 0; i < 5; i++) filter.test("a");
+            return analysis;
+        });
+        profiling.jobStarted("p1");
+        filter.test("a");
+
+        profiling.jobFinished("p1", mock(ScheduleSolution.class));
+
+        assertThat(filterCalls("p1")).isEqualTo(1);
+    }
+
+    @Test
+    void aJobDroppedFromTheRetainedReportsStopsRecording() throws Exception {
+        ConstraintProfilingService keepsOne = new ConstraintProfilingService(solutionManager, true, 1);
+        keepsOne.jobStarted("p1");
+        Object first = bound();
+
+        Thread other = new Thread(() -> keepsOne.jobStarted("p2"));
+        other.start();
+        other.join(10_000);
+        filter.test("a");
+
+        assertThat(first).isNotNull();
+        assertThat(bound()).isNull();
+        assertThat(keepsOne.report("p1")).isEmpty();
+    }
+
+    private long filterCalls(String problemId) {
+        return profiling.report(problemId).orElseThrow().constraints().stream()
+                .filter(entry -> entry.constraint().equals("Profiling test constraint"))
+                .mapToLong(ConstraintProfileReport.Entry::filterCalls)
+                .sum();
+    }
+
+    private static Object bound() {
+        ThreadLocal<?> current = (ThreadLocal<?>) ReflectionTestUtils.getField(ConstraintProfiler.class, "CURRENT");
+        return current.get();
+    }
+}
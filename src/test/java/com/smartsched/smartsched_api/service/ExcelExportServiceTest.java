@@ -0,0 +1,154 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryClassroomRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryScheduleRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySectionRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryTeacherRepository;
+
+/**
+ * Section workbooks read back with POI: loadSection and toSectionSheet give the same sheet,
+ * rows come out by day then start time, and names are looked up from the reference data.
+ */
+class ExcelExportServiceTest {
+
+    private InMemoryMongoTemplate template;
+    private ExcelExportService excelExportService;
+    private Teacher teacher;
+    private Classroom classroom;
+    private Section section;
+
+    @BeforeEach
+    void setUp() {
+        template = InMemoryPersistenceConfig.standaloneTemplate();
+        InMemoryTeacherRepository teacherRepository = new InMemoryTeacherRepository(template);
+        InMemoryClassroomRepository classroomRepository = new InMemoryClassroomRepository(template);
+        InMemorySectionRepository sectionRepository = new InMemorySectionRepository(template);
+        ReferenceDataCache cache = new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository);
+        ChangeVersions changeVersions = new ChangeVersions(cache);
+        excelExportService = new ExcelExportService(new InMemoryScheduleRepository(template), cache, changeVersions,
+                new ExportCache(1 << 20, changeVersions));
+
+        teacher = teacherRepository.save(new Teacher("Ada Lovelace", "CS"));
+        classroom = classroomRepository.save(new Classroom("Room 101", 40, "Lecture"));
+        section = sectionRepository.save(new Section("BSIT", 2, "A", 30));
+    }
+
+    @Test
+    void sectionSheetListsTheRowsByDayThenStartTime() throws Exception {
+        meeting(DayOfWeek.WEDNESDAY, 600, 690, "IT103", teacher.getId(), classroom.getId());
+        meeting(DayOfWeek.MONDAY, 780, 870, "IT102", teacher.getId(), classroom.getId());
+        meeting(DayOfWeek.FRIDAY, 480, 570, "IT104", "missing-teacher", "missing-room");
+        meeting(DayOfWeek.MONDAY, 480, 570, "IT101", teacher.getId(), classroom.getId());
+
+        ExcelExportService.SectionSheet sheet = excelExportService.loadSection(section.getId());
+
+        assertThat(sheet.title()).isEqualTo("BSIT 2-A Schedule");
+        assertThat(sheet.rows()).extracting(Schedule::getSubjectCode).containsExactly("IT101", "IT102", "IT103", "IT104");
+
+        try (Workbook workbook = read(excelExportService.renderScheduleExcel(sheet, ExportFormat.XLSX))) {
+            assertThat(workbook).isInstanceOf(XSSFWorkbook.class);
+            Sheet schedule = workbook.getSheet("Schedule");
+            assertThat(cells(schedule.getRow(0))).containsExactly("BSIT 2-A Schedule");
+            assertThat(schedule.getMergedRegion(0).formatAsString()).isEqualTo("A1:F1");
+            assertThat(cells(schedule.getRow(2)))
+                    .containsExactly("Day", "Time", "Subject Code", "Subject Name", "Teacher", "Classroom");
+            assertThat(cells(schedule.getRow(3)))
+                    .containsExactly("MONDAY", "08:00 AM - 09:30 AM", "IT101", "Subject IT101", "Ada Lovelace", "Room 101");
+            assertThat(cells(schedule.getRow(4))).startsWith("MONDAY", "01:00 PM - 02:30 PM", "IT102");
+            assertThat(cells(schedule.getRow(5))).startsWith("WEDNESDAY", "10:00 AM - 11:30 AM", "IT103");
+            assertThat(cells(schedule.getRow(6))).containsExactly("FRIDAY", "08:00 AM - 09:30 AM", "IT104",
+                    "Subject IT104", "N/A", "N/A");
+            assertThat(schedule.getLastRowNum()).isEqualTo(6);
+            assertThat(schedule.getRow(3).getCell(0).getCellStyle().getFontIndex())
+                    .as("day column is bold").isNotEqualTo(schedule.getRow(3).getCell(2).getCellStyle().getFontIndex());
+        }
+    }
+
+    @Test
+    void preloadedSchedulesGiveTheSameWorkbook() throws Exception {
+        meeting(DayOfWeek.TUESDAY, 540, 630, "IT202", teacher.getId(), classroom.getId());
+        meeting(DayOfWeek.MONDAY, 540, 630, "IT201", teacher.getId(), classroom.getId());
+
+        ExcelExportService.SectionSheet loaded = excelExportService.loadSection(section.getId());
+        List<Schedule> schedules = new ArrayList<>(template.findAll(Schedule.class));
+        ExcelExportService.SectionSheet preloaded = excelExportService.toSectionSheet(section.getId(), schedules,
+                loaded.version());
+
+        assertThat(preloaded.title()).isEqualTo(loaded.title());
+        assertThat(preloaded.rows()).extracting(Schedule::getId)
+                .containsExactlyElementsOf(loaded.rows().stream().map(Schedule::getId).toList());
+        try (Workbook fromLoaded = read(excelExportService.renderScheduleExcel(loaded, ExportFormat.XLS));
+             Workbook fromPreloaded = read(excelExportService.renderScheduleExcel(preloaded, ExportFormat.XLS))) {
+            assertThat(fromLoaded).isInstanceOf(HSSFWorkbook.class);
+            for (int r : new int[] {0, 2, 3, 4}) {
+                assertThat(cells(fromPreloaded.getSheetAt(0).getRow(r))).isEqualTo(cells(fromLoaded.getSheetAt(0).getRow(r)));
+            }
+            assertThat(cells(fromLoaded.getSheetAt(0).getRow(3))).startsWith("MONDAY");
+        }
+    }
+
+    @Test
+    void aSectionWithoutSchedulesIsRejected() {
+        assertThatThrownBy(() -> excelExportService.loadSection(section.getId()))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining(section.getId());
+        assertThat(excelExportService.toSectionSheet("gone", List.of(), "v").title()).isEqualTo("Schedule for Section gone");
+    }
+
+    @Test
+    void sectionsBecomeUniquelyNamedSheets() throws Exception {
+        meeting(DayOfWeek.MONDAY, 480, 570, "IT101", teacher.getId(), classroom.getId());
+        ExcelExportService.SectionSheet sheet = excelExportService.loadSection(section.getId());
+        ExcelExportService.SectionSheet unknown = excelExportService.toSectionSheet("x/y:z", sheet.rows(), sheet.version());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        excelExportService.writeSectionsAsSheets(List.of(sheet, sheet, unknown), ExportFormat.XLSX, out);
+
+        try (Workbook workbook = read(out.toByteArray())) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(workbook.getSheetName(0)).isEqualTo("BSIT 2-A");
+            assertThat(workbook.getSheetName(1)).isEqualTo("BSIT 2-A (2)");
+            assertThat(workbook.getSheetName(2)).doesNotContain("/", ":");
+            assertThat(cells(workbook.getSheetAt(2).getRow(0))).containsExactly("Schedule for Section x/y:z");
+            assertThat(cells(workbook.getSheetAt(1).getRow(3))).isEqualTo(cells(workbook.getSheetAt(0).getRow(3)));
+        }
+    }
+
+    private void meeting(DayOfWeek day, int startMinute, int endMinute, String code, String teacherId, String classroomId) {
+        template.insert(new Schedule("p", code, "Subject " + code, teacherId, section.getId(), classroomId,
+                day, startMinute, endMinute, false));
+    }
+
+    private static Workbook read(byte[] bytes) throws Exception {
+        return WorkbookFactory.create(new ByteArrayInputStream(bytes));
+    }
+
+    private static List<String> cells(Row row) {
+        List<String> values = new ArrayList<>();
+        row.forEach(cell -> values.add(cell.getStringCellValue()));
+        return values;
+    }
+}
@@ -0,0 +1,137 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryClassroomRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryScheduleRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySectionRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryTeacherRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The export cache on its own (byte budget, capture limit) and behind ExcelExportService:
+ * a cached section export stays current until that section or a printed name changes.
+ */
+class ExportCacheTest {
+
+    private ReferenceDataCache cache;
+    private ChangeVersions changeVersions;
+    private ExportCache exportCache;
+    private TeacherService teacherService;
+    private SchedulePersistenceService persistence;
+    private ExcelExportService excelExportService;
+    private Teacher teacher;
+    private Section sectionA;
+    private Section sectionB;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryMongoTemplate template = InMemoryPersistenceConfig.standaloneTemplate();
+        InMemoryTeacherRepository teacherRepository = new InMemoryTeacherRepository(template);
+        InMemorySectionRepository sectionRepository = new InMemorySectionRepository(template);
+        cache = new ReferenceDataCache(teacherRepository, new InMemoryClassroomRepository(template), sectionRepository);
+        changeVersions = new ChangeVersions(cache);
+        exportCache = new ExportCache(1 << 20, changeVersions);
+        teacherService = new TeacherService(teacherRepository, template, cache, changeVersions);
+        persistence = new SchedulePersistenceService(template, cache, changeVersions, new SimpleMeterRegistry());
+        excelExportService = new ExcelExportService(new InMemoryScheduleRepository(template), cache, changeVersions,
+                exportCache);
+
+        teacher = teacherService.createTeacher(new Teacher("Ada", "CS"));
+        sectionA = sectionRepository.save(new Section("BSIT", 1, "A", 30));
+        sectionB = sectionRepository.save(new Section("BSIT", 1, "B", 30));
+        solve(sectionA, DayOfWeek.MONDAY);
+        solve(sectionB, DayOfWeek.TUESDAY);
+    }
+
+    @Test
+    void solvingAnotherSectionKeepsTheCachedExport() throws Exception {
+        String tag = changeVersions.sectionExportTag(sectionB.getId());
+        byte[] rendered = excelExportService.renderScheduleExcelCached(
+                excelExportService.loadSection(sectionB.getId()), ExportFormat.XLSX);
+
+        // Same teacher, so the save also rewrites the scheduleIds of a teacher section B prints
+        solve(sectionA, DayOfWeek.WEDNESDAY);
+
+        assertThat(changeVersions.sectionExportTag(sectionB.getId())).isEqualTo(tag);
+        assertThat(excelExportService.findCachedExport(sectionB.getId(), ExportFormat.XLSX)).isSameAs(rendered);
+        assertThat(exportCache.getStats()).containsEntry("hits", 1L).containsEntry("entries", 1);
+    }
+
+    @Test
+    void solvingTheSectionItselfDropsItsExport() throws Exception {
+        String tag = changeVersions.sectionExportTag(sectionB.getId());
+        excelExportService.renderScheduleExcelCached(excelExportService.loadSection(sectionB.getId()), ExportFormat.XLSX);
+
+        solve(sectionB, DayOfWeek.THURSDAY);
+
+        assertThat(changeVersions.sectionExportTag(sectionB.getId())).isNotEqualTo(tag);
+        assertThat(excelExportService.findCachedExport(sectionB.getId(), ExportFormat.XLSX)).isNull();
+        assertThat(exportCache.getStats()).containsEntry("entries", 0);
+    }
+
+    @Test
+    void renamingAPrintedTeacherChangesTheTag() throws Exception {
+        String tag = changeVersions.sectionExportTag(sectionB.getId());
+        excelExportService.renderScheduleExcelCached(excelExportService.loadSection(sectionB.getId()), ExportFormat.XLSX);
+
+        teacherService.updateTeacher(teacher.getId(), new Teacher("Ada L.", "CS"));
+
+        assertThat(changeVersions.sectionExportTag(sectionB.getId())).isNotEqualTo(tag);
+        assertThat(excelExportService.findCachedExport(sectionB.getId(), ExportFormat.XLSX)).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesGoFirstOnceOverBudget() {
+        ExportCache small = new ExportCache(400, changeVersions);
+        ExportCache.Key first = new ExportCache.Key("s1", "v", ExportFormat.CSV);
+        ExportCache.Key second = new ExportCache.Key("s2", "v", ExportFormat.CSV);
+        ExportCache.Key third = new ExportCache.Key("s3", "v", ExportFormat.CSV);
+        small.put(first, new byte[100]);
+        small.put(second, new byte[100]);
+        small.put(third, new byte[100]);
+        small.get(first);
+
+        small.put(new ExportCache.Key("s4", "v", ExportFormat.CSV), new byte[100]);
+        small.put(new ExportCache.Key("s5", "v", ExportFormat.CSV), new byte[100]);
+
+        assertThat(small.get(first)).isNotNull();
+        assertThat(small.get(second)).isNull();
+        assertThat(small.getStats()).containsEntry("bytes", 400L).containsEntry("evictions", 1L);
+        // Over a quarter of the budget: never stored
+        small.put(new ExportCache.Key("big", "v", ExportFormat.CSV), new byte[101]);
+        assertThat(small.getStats()).containsEntry("entries", 4);
+    }
+
+    @Test
+    void captureStopsCopyingPastTheEntryLimit() throws Exception {
+        ExportCache small = new ExportCache(400, changeVersions);
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        ExportCache.CapturingOutputStream capture = small.capture(client);
+
+        capture.write(new byte[100]);
+        assertThat(capture.captured()).hasSize(100);
+        capture.write(1);
+
+        assertThat(capture.captured()).isNull();
+        assertThat(client.size()).as("the client still gets everything").isEqualTo(101);
+    }
+
+    private void solve(Section section, DayOfWeek day) {
+        persistence.replaceSectionSchedules("p", section.getId(), List.of(
+                new Schedule("p", "IT101", "Programming", teacher.getId(), section.getId(), null, day, 480, 570, true)));
+    }
+}
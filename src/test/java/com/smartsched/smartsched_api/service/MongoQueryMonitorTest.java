@@ -0,0 +1,164 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.smartsched.smartsched_api.dto.SlowQuery;
+import com.smartsched.smartsched_api.repository.ScheduleRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Driver events and repository invocations with set durations: only operations at or over the
+ * threshold are captured, with the filter shape instead of values, newest first in a bounded ring.
+ */
+class MongoQueryMonitorTest {
+
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    private static final long THRESHOLD_MILLIS = 100;
+
+    private SimpleMeterRegistry registry;
+    private MongoQueryMonitor monitor;
+    private int nextRequestId;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        monitor = new MongoQueryMonitor(registry, THRESHOLD_MILLIS, 3);
+    }
+
+    @Test
+    void onlyCommandsOverTheThresholdAreCaptured() {
+        String find = "{find: 'schedules', filter: {sectionId: 's1', startMinute: {$gte: 480}}, $db: 'smartsched'}";
+        String batch = "{cursor: {id: 0, ns: 'smartsched.schedules', firstBatch: [{_id: 1}, {_id: 2}]}, ok: 1}";
+        succeeded(find, batch, 99);
+        succeeded(find, batch, 100);
+
+        List<SlowQuery> slow = monitor.recent();
+
+        assertThat(slow).hasSize(1);
+        SlowQuery query = slow.get(0);
+        assertThat(query.source()).isEqualTo("command");
+        assertThat(query.operation()).isEqualTo("find");
+        assertThat(query.collection()).isEqualTo("schedules");
+        assertThat(query.shape()).isEqualTo("{\"sectionId\": \"?\", \"startMinute\": {\"$gte\": \"?\"}}");
+        assertThat(query.millis()).isEqualTo(100);
+        assertThat(query.documents()).isEqualTo(2);
+        assertThat(query.outcome()).isEqualTo("success");
+        assertThat(query.at()).isNotNull();
+        assertThat(monitor.getStats()).containsEntry("slowCommands", 1L).containsEntry("thresholdMillis", THRESHOLD_MILLIS);
+        // Documents are counted for every command, slow or not
+        assertThat(registry.get("smartsched.mongo.documents").tag("command", "find").tag("collection", "schedules")
+                .summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    void shapesNeverCarryValues() {
+        succeeded("{aggregate: 'schedules', pipeline: [{$match: {teacherId: {$in: ['t1', 't2', 't3']}}},"
+                + " {$group: {_id: '$sectionId'}}], $db: 'smartsched'}", "{cursor: {id: 0, firstBatch: []}, ok: 1}", 150);
+        succeeded("{delete: 'schedules', deletes: [{q: {sectionId: 'secret'}, limit: 0}], $db: 'smartsched'}",
+                "{n: 12, ok: 1}", 150);
+        succeeded("{getMore: 42, collection: 'schedules', $db: 'smartsched'}",
+                "{cursor: {id: 0, nextBatch: [{_id: 3}]}, ok: 1}", 150);
+
+        List<SlowQuery> slow = monitor.recent();
+
+        assertThat(slow).extracting(SlowQuery::operation).containsExactly("getMore", "delete", "aggregate");
+        assertThat(slow.get(0).shape()).isNull();
+        assertThat(slow.get(0).collection()).isEqualTo("schedules");
+        assertThat(slow.get(0).documents()).isEqualTo(1);
+        assertThat(slow.get(1).shape()).isEqualTo("{\"sectionId\": \"?\"}");
+        assertThat(slow.get(1).documents()).isEqualTo(12);
+        assertThat(slow.get(2).shape())
+                .isEqualTo("[{\"$match\": {\"teacherId\": {\"$in\": [\"?\"]}}}, {\"$group\": {\"_id\": \"?\"}}]");
+        assertThat(slow).allSatisfy(query -> assertThat(query.shape() == null ? "" : query.shape())
+                .doesNotContain("secret", "t1", "s1"));
+    }
+
+    @Test
+    void failedAndUntrackedCommands() {
+        int requestId = started("{update: 'teachers', updates: [{q: {_id: 'x'}, u: {$set: {name: 'y'}}}], $db: 'smartsched'}");
+        monitor.commandFailed(new CommandFailedEvent(null, 1, requestId, CONNECTION, "smartsched", "update",
+                TimeUnit.MILLISECONDS.toNanos(250), new MongoException("boom")));
+        // Handshakes are not timed, and a reply without a start is ignored
+        succeeded("{hello: 1, $db: 'admin'}", "{ok: 1}", 500);
+        monitor.commandSucceeded(new CommandSucceededEvent(null, 1, 999, CONNECTION, "smartsched", "find",
+                BsonDocument.parse("{ok: 1}"), TimeUnit.MILLISECONDS.toNanos(500)));
+
+        List<SlowQuery> slow = monitor.recent();
+
+        assertThat(slow).hasSize(1);
+        assertThat(slow.get(0).operation()).isEqualTo("update");
+        assertThat(slow.get(0).collection()).isEqualTo("teachers");
+        assertThat(slow.get(0).shape()).isEqualTo("{\"_id\": \"?\"}");
+        assertThat(slow.get(0).documents()).isNull();
+        assertThat(slow.get(0).outcome()).isEqualTo("MongoException");
+    }
+
+    @Test
+    void slowRepositoryCallsAreCaptured() throws Exception {
+        RepositoryMethodInvocationResult success = new RepositoryMethodInvocationResult() {
+            @Override public State getState() { return State.SUCCESS; }
+            @Override public Throwable getError() { return null; }
+        };
+        monitor.afterInvocation(new RepositoryMethodInvocation(ScheduleRepository.class,
+                ScheduleRepository.class.getMethod("findAllBySectionId", String.class), success,
+                TimeUnit.MILLISECONDS.toNanos(50)));
+        monitor.afterInvocation(new RepositoryMethodInvocation(ScheduleRepository.class,
+                ScheduleRepository.class.getMethod("findAllBySectionId", String.class), success,
+                TimeUnit.MILLISECONDS.toNanos(320)));
+
+        List<SlowQuery> slow = monitor.recent();
+
+        assertThat(slow).hasSize(1);
+        assertThat(slow.get(0).source()).isEqualTo("repository");
+        assertThat(slow.get(0).operation()).isEqualTo("ScheduleRepository.findAllBySectionId");
+        assertThat(slow.get(0).millis()).isEqualTo(320);
+        assertThat(slow.get(0).outcome()).isEqualTo("success");
+        assertThat(monitor.getStats()).containsEntry("slowRepositoryCalls", 1L).containsEntry("slowCommands", 0L);
+    }
+
+    @Test
+    void theRingKeepsTheNewestFirst() {
+        for (int i = 1; i <= 5; i++) {
+            succeeded("{count: 'c" + i + "', query: {}, $db: 'smartsched'}", "{n: " + i + ", ok: 1}", 100 + i);
+        }
+
+        assertThat(monitor.recent()).extracting(SlowQuery::collection).containsExactly("c5", "c4", "c3");
+        assertThat(monitor.getStats()).containsEntry("slowCommands", 5L).containsEntry("capacity", 3);
+
+        monitor.clear();
+        assertThat(monitor.recent()).isEmpty();
+    }
+
+    private int started(String command) {
+        BsonDocument document = BsonDocument.parse(command);
+        int requestId = ++nextRequestId;
+        monitor.commandStarted(new CommandStartedEvent(null, 1, requestId, CONNECTION, "smartsched",
+                document.getFirstKey(), document));
+        return requestId;
+    }
+
+    private void succeeded(String command, String response, long millis) {
+        int requestId = started(command);
+        monitor.commandSucceeded(new CommandSucceededEvent(null, 1, requestId, CONNECTION, "smartsched",
+                BsonDocument.parse(command).getFirstKey(), BsonDocument.parse(response), TimeUnit.MILLISECONDS.toNanos(millis)));
+    }
+}
@@ -0,0 +1,234 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.mongo.EmbeddedMongoServer;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of the write paths against the embedded MongoDB stand-in: saveSolution's
+ * replaceSectionSchedules at 50, 500 and 5000 allocations, and the teacher, classroom and
+ * section delete cascades with hundreds of linked schedules. Reports round trips and documents
+ * touched as the server counts them (driver handshakes and monitoring excluded), and the median
+ * wall time. Round trips must not grow with the number of schedules, cursor getMores aside.
+ * Run with: mvn test -Pbenchmark -Dtest=PersistenceBenchmarkTest
+ */
+@Tag("benchmark")
+class PersistenceBenchmarkTest {
+
+    private static final int[] ALLOCATIONS = {50, 500, 5000};
+    private static final int[] LINKED_SCHEDULES = {100, 500};
+    private static final int TEACHERS = 40;
+    private static final int CLASSROOMS = 20;
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 5;
+
+    private EmbeddedMongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private TeacherRepository teacherRepository;
+    private ClassroomRepository classroomRepository;
+    private SectionRepository sectionRepository;
+    private ReferenceDataCache cache;
+    private ChangeVersions changeVersions;
+    private SchedulePersistenceService persistenceService;
+
+    private final List<Teacher> teachers = new ArrayList<>();
+    private final List<Classroom> classrooms = new ArrayList<>();
+
+    /**
+     * One measured operation: what the server saw for the last round, and the median latency.
+     */
+    private record Measurement(String operation, int size, long roundTrips, long documentsTouched,
+                               double medianMillis, Map<String, Long> commands) {
+
+        void print() {
+            System.out.printf("  %-18s %5d  %4d round trips  %6d docs touched  %8.2f ms  %s%n",
+                    operation, size, roundTrips, documentsTouched, medianMillis, commands);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = EmbeddedMongoServer.start();
+        client = MongoClients.create(server.uri("smartsched_bench"));
+        mongoTemplate = new MongoTemplate(client, "smartsched_bench");
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        teacherRepository = factory.getRepository(TeacherRepository.class);
+        classroomRepository = factory.getRepository(ClassroomRepository.class);
+        sectionRepository = factory.getRepository(SectionRepository.class);
+
+        cache = new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository);
+        changeVersions = new ChangeVersions(cache);
+        persistenceService = new SchedulePersistenceService(mongoTemplate, cache, changeVersions, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void saveSolutionRoundTripsDoNotGrowWithAllocations() {
+        seedReferenceData();
+        Section warmup = sectionRepository.save(new Section("BSIT", 1, "warmup", 30));
+        cache.evictSections();
+        for (int i = 0; i < WARMUP; i++) {
+            persistenceService.replaceSectionSchedules("bench", warmup.getId(), schedulesFor(warmup.getId(), 50));
+        }
+
+        List<Measurement> results = new ArrayList<>();
+        for (int allocations : ALLOCATIONS) {
+            Section section = sectionRepository.save(new Section("BSIT", 1, "S" + allocations, 30));
+            cache.evictSections();
+            results.add(measure("first save", allocations, () ->
+                    persistenceService.replaceSectionSchedules("bench", section.getId(), schedulesFor(section.getId(), allocations)), 1));
+            results.add(measure("re-save", allocations, () ->
+                    persistenceService.replaceSectionSchedules("bench", section.getId(), schedulesFor(section.getId(), allocations)), ROUNDS));
+            assertThat(server.count("smartsched_bench", "schedules"))
+                    .as("only the latest save of each section is kept")
+                    .isEqualTo(50L + Arrays.stream(ALLOCATIONS).filter(n -> n <= allocations).sum());
+        }
+
+        System.out.println("saveSolution (replaceSectionSchedules), " + TEACHERS + " teachers, " + CLASSROOMS + " classrooms:");
+        results.forEach(Measurement::print);
+
+        // Reading back more than 101 old _ids costs getMore calls, as the first cursor batch
+        // holds 101 documents; every other command must be issued once per save
+        List<Long> reSaveCommands = results.stream()
+                .filter(m -> m.operation().equals("re-save"))
+                .map(m -> m.roundTrips() - m.commands().getOrDefault("getMore", 0L)).distinct().toList();
+        assertThat(reSaveCommands).as("re-save round trips at %s allocations", Arrays.toString(ALLOCATIONS)).hasSize(1);
+    }
+
+    @Test
+    void deleteCascadesRoundTripsDoNotGrowWithLinkedSchedules() {
+        TeacherService teacherService = new TeacherService(teacherRepository, mongoTemplate, cache, changeVersions);
+        ClassroomService classroomService = new ClassroomService(classroomRepository, mongoTemplate, cache, changeVersions);
+        SectionService sectionService = new SectionService(sectionRepository, mongoTemplate, cache, changeVersions);
+
+        List<Measurement> results = new ArrayList<>();
+        for (int linked : LINKED_SCHEDULES) {
+            results.add(measureCascade("deleteTeacher", linked, "teacherId", Owners::teacherId,
+                    teacherService::deleteTeacher));
+            results.add(measureCascade("deleteClassroom", linked, "classroomId", Owners::classroomId,
+                    classroomService::deleteClassroom));
+            results.add(measureCascade("deleteSection", linked, "sectionId", Owners::sectionId,
+                    sectionService::deleteSection));
+        }
+
+        System.out.println("Delete cascades:");
+        results.forEach(Measurement::print);
+
+        for (String operation : List.of("deleteTeacher", "deleteClassroom", "deleteSection")) {
+            assertThat(results.stream().filter(m -> m.operation().equals(operation)).map(Measurement::roundTrips).distinct())
+                    .as("%s round trips at %s linked schedules", operation, Arrays.toString(LINKED_SCHEDULES))
+                    .hasSize(1);
+        }
+    }
+
+    // --- Scenarios ---
+
+    private record Owners(String teacherId, String classroomId, String sectionId) {}
+
+    // Each round starts from a fresh teacher, classroom and section sharing `linked` schedules
+    private Measurement measureCascade(String operation, int linked, String ownerField, Function<Owners, String> owner,
+                                       Predicate<String> delete) {
+        long[] nanos = new long[ROUNDS];
+        EmbeddedMongoServer.Snapshot delta = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            server.clear();
+            String ownerId = owner.apply(seedOwnersWithSchedules(linked));
+            EmbeddedMongoServer.Snapshot before = server.stats().snapshot();
+            long start = System.nanoTime();
+            assertThat(delete.test(ownerId)).isTrue();
+            nanos[round] = System.nanoTime() - start;
+            delta = server.stats().snapshot().minus(before);
+            assertThat(mongoTemplate.count(new Query(Criteria.where(ownerField).is(ownerId)), Schedule.class)).isZero();
+        }
+        return new Measurement(operation, linked, delta.roundTrips(), delta.documentsTouched(), median(nanos), delta.commands());
+    }
+
+    private Owners seedOwnersWithSchedules(int linked) {
+        Teacher teacher = mongoTemplate.insert(new Teacher("Teacher", "CS"));
+        Classroom classroom = mongoTemplate.insert(new Classroom("Room", 40, "Lecture"));
+        Section section = mongoTemplate.insert(new Section("BSIT", 1, "S", 30));
+        List<Schedule> schedules = new ArrayList<>(linked);
+        for (int i = 0; i < linked; i++) {
+            schedules.add(schedule(teacher.getId(), section.getId(), classroom.getId(), i));
+        }
+        mongoTemplate.insert(schedules, Schedule.class);
+        cache.evictAll();
+        return new Owners(teacher.getId(), classroom.getId(), section.getId());
+    }
+
+    private void seedReferenceData() {
+        for (int i = 0; i < TEACHERS; i++) teachers.add(teacherRepository.save(new Teacher("Teacher " + i, "CS")));
+        for (int i = 0; i < CLASSROOMS; i++) classrooms.add(classroomRepository.save(new Classroom("Room " + i, 40, "Lecture")));
+        cache.evictAll();
+    }
+
+    private List<Schedule> schedulesFor(String sectionId, int count) {
+        List<Schedule> schedules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            schedules.add(schedule(teachers.get(i % TEACHERS).getId(), sectionId, classrooms.get(i % CLASSROOMS).getId(), i));
+        }
+        return schedules;
+    }
+
+    private static Schedule schedule(String teacherId, String sectionId, String classroomId, int i) {
+        int start = 480 + (i % 6) * 90;
+        return new Schedule("bench", "SUBJ" + i, "Subject " + i, teacherId, sectionId, classroomId,
+                DayOfWeek.of(1 + i % 6), start, start + 90, i % 2 == 0);
+    }
+
+    // --- Measuring ---
+
+    private Measurement measure(String operation, int size, Supplier<?> action, int rounds) {
+        long[] nanos = new long[rounds];
+        EmbeddedMongoServer.Snapshot delta = null;
+        for (int round = 0; round < rounds; round++) {
+            EmbeddedMongoServer.Snapshot before = server.stats().snapshot();
+            long start = System.nanoTime();
+            action.get();
+            nanos[round] = System.nanoTime() - start;
+            delta = server.stats().snapshot().minus(before);
+        }
+        return new Measurement(operation, size, delta.roundTrips(), delta.documentsTouched(), median(nanos), delta.commands());
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.model.Teacher;
+
+/**
+ * A cache region against a map standing in for the collection: a write-through that lands
+ * while a reload is running must be in the snapshot the reload leaves behind.
+ */
+class ReferenceDataCacheTest {
+
+    private final Map<String, Teacher> collection = new ConcurrentHashMap<>();
+    private final CountDownLatch loadRead = new CountDownLatch(1);
+    private final CountDownLatch finishLoad = new CountDownLatch(1);
+
+    // Reads the collection, then holds the load open until the test lets it finish
+    private List<Teacher> slowLoad() {
+        List<Teacher> loaded = new ArrayList<>(collection.values());
+        loadRead.countDown();
+        try {
+            finishLoad.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return loaded;
+    }
+
+    @Test
+    void aWriteDuringAReloadIsAppliedToTheInstalledSnapshot() throws Exception {
+        ReferenceDataCache.Region<Teacher> region = new ReferenceDataCache.Region<>("teachers",
+                this::slowLoad, Teacher::getId, Teacher::getScheduleIds, (t, ids) -> t);
+        Teacher teacher = new Teacher("Ada", "CS");
+        teacher.setId("t1");
+
+        Thread reader = new Thread(region::snapshot);
+        reader.start();
+        assertThat(loadRead.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // The load has already read the collection, so its result is missing the teacher
+        Thread writer = new Thread(() -> {
+            collection.put(teacher.getId(), teacher);
+            region.put(teacher);
+        });
+        writer.start();
+        while (writer.isAlive() && writer.getState() != Thread.State.BLOCKED) {
+            Thread.onSpinWait();
+        }
+        finishLoad.countDown();
+        reader.join(10_000);
+        writer.join(10_000);
+
+        assertThat(region.stats()).containsEntry("loaded", true).containsEntry("misses", 1L);
+        assertThat(region.snapshot().byId()).containsKey(teacher.getId());
+        assertThat(region.stats()).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void scheduleIdsAreReplacedInPlace() {
+        Teacher teacher = new Teacher("Ada", "CS");
+        teacher.setId("t1");
+        teacher.setScheduleIds(List.of("s1", "s2"));
+        collection.put(teacher.getId(), teacher);
+        finishLoad.countDown();
+        ReferenceDataCache.Region<Teacher> region = new ReferenceDataCache.Region<>("teachers",
+                this::slowLoad, Teacher::getId, Teacher::getScheduleIds, (t, ids) -> {
+                    Teacher copy = new Teacher(t.getName(), t.getDepartment());
+                    copy.setId(t.getId());
+                    copy.setScheduleIds(ids);
+                    return copy;
+                });
+        Teacher cached = region.snapshot().byId().get("t1");
+        long version = region.version();
+
+        region.replaceScheduleIds(List.of("s1"), Map.of("t1", List.of("s3", "s2")));
+
+        assertThat(region.snapshot().byId().get("t1").getScheduleIds()).containsExactly("s2", "s3");
+        assertThat(cached.getScheduleIds()).as("entities already handed out are not changed").containsExactly("s1", "s2");
+        assertThat(region.version()).isGreaterThan(version);
+        assertThat(region.stats()).containsEntry("misses", 1L);
+    }
+}
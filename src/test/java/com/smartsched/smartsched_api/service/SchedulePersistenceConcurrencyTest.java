@@ -0,0 +1,158 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.mongo.EmbeddedMongoServer;
+import com.smartsched.smartsched_api.repository.ClassroomRepository;
+import com.smartsched.smartsched_api.repository.SectionRepository;
+import com.smartsched.smartsched_api.repository.TeacherRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Stress test for concurrent saveSolution writes: many sections sharing a few teachers and
+ * classrooms are re-saved in parallel, then every scheduleIds back-reference must match the
+ * schedules collection exactly (nothing lost, nothing stale).
+ *
+ * Runs against EmbeddedMongoServer by default, which applies each write command atomically as
+ * mongod does per document. Point SMARTSCHED_TEST_MONGODB_URI at a disposable instance to run it
+ * against a real server; a throwaway database is created and dropped.
+ */
+class SchedulePersistenceConcurrencyTest {
+
+    private static final int SECTIONS = 24;
+    private static final int ROUNDS = 5;
+    private static final int SCHEDULES_PER_SECTION = 12;
+
+    private EmbeddedMongoServer server;
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private SchedulePersistenceService persistenceService;
+    private final List<Teacher> teachers = new ArrayList<>();
+    private final List<Classroom> classrooms = new ArrayList<>();
+    private final List<Section> sections = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String uri = System.getenv("SMARTSCHED_TEST_MONGODB_URI");
+        if (uri == null || uri.isBlank()) {
+            server = EmbeddedMongoServer.start();
+            uri = server.uri("smartsched_stress");
+        }
+        client = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(client, "smartsched_stress_" + UUID.randomUUID().toString().substring(0, 8));
+
+        for (int i = 0; i < 3; i++) teachers.add(mongoTemplate.insert(new Teacher("Teacher " + i, "CS")));
+        for (int i = 0; i < 2; i++) classrooms.add(mongoTemplate.insert(new Classroom("Room " + i, 40, "Lecture")));
+        for (int i = 0; i < SECTIONS; i++) sections.add(mongoTemplate.insert(new Section("BSIT", 1, "S" + i, 30)));
+
+        TeacherRepository teacherRepository = mock(TeacherRepository.class);
+        ClassroomRepository classroomRepository = mock(ClassroomRepository.class);
+        SectionRepository sectionRepository = mock(SectionRepository.class);
+        when(teacherRepository.findAll()).thenReturn(teachers);
+        when(classroomRepository.findAll()).thenReturn(classrooms);
+        when(sectionRepository.findAll()).thenReturn(sections);
+
+        ReferenceDataCache cache = new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository);
+        persistenceService = new SchedulePersistenceService(mongoTemplate, cache, new ChangeVersions(cache),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mongoTemplate.getDb().drop();
+        client.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    void parallelSavesSharingTeachersAndClassroomsLoseNoIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(SECTIONS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> saves = new ArrayList<>();
+                for (Section section : sections) {
+                    saves.add(pool.submit(() -> {
+                        start.await();
+                        persistenceService.replaceSectionSchedules("p-" + section.getId(), section.getId(), schedulesFor(section));
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> save : saves) save.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Schedule> all = mongoTemplate.findAll(Schedule.class);
+        assertThat(all).hasSize(SECTIONS * SCHEDULES_PER_SECTION);
+
+        for (Teacher teacher : teachers) {
+            Teacher reloaded = mongoTemplate.findById(teacher.getId(), Teacher.class);
+            assertThat(new HashSet<>(reloaded.getScheduleIds()))
+                    .as("scheduleIds of %s", teacher.getName())
+                    .isEqualTo(idsWhere("teacherId", teacher.getId()));
+            assertThat(reloaded.getScheduleIds()).doesNotHaveDuplicates();
+        }
+        for (Classroom classroom : classrooms) {
+            Classroom reloaded = mongoTemplate.findById(classroom.getId(), Classroom.class);
+            assertThat(new HashSet<>(reloaded.getScheduleIds()))
+                    .as("scheduleIds of %s", classroom.getName())
+                    .isEqualTo(idsWhere("classroomId", classroom.getId()));
+        }
+        for (Section section : sections) {
+            Section reloaded = mongoTemplate.findById(section.getId(), Section.class);
+            assertThat(new HashSet<>(reloaded.getScheduleIds()))
+                    .as("scheduleIds of section %s", section.getSectionName())
+                    .isEqualTo(idsWhere("sectionId", section.getId()));
+        }
+    }
+
+    private List<Schedule> schedulesFor(Section section) {
+        List<Schedule> schedules = new ArrayList<>();
+        for (int i = 0; i < SCHEDULES_PER_SECTION; i++) {
+            Teacher teacher = teachers.get(i % teachers.size());
+            Classroom classroom = classrooms.get(i % classrooms.size());
+            int start = 480 + (i % 6) * 90;
+            schedules.add(new Schedule("stress", "SUBJ" + i, "Subject " + i, teacher.getId(), section.getId(),
+                    classroom.getId(), DayOfWeek.of(1 + i % 6), start, start + 90, i % 2 == 0));
+        }
+        return schedules;
+    }
+
+    private Set<String> idsWhere(String field, String value) {
+        Set<String> ids = new HashSet<>();
+        mongoTemplate.find(new Query(Criteria.where(field).is(value)), Schedule.class)
+                .forEach(s -> ids.add(s.getId()));
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.dto.ScheduleFilter;
+import com.smartsched.smartsched_api.dto.SchedulePage;
+import com.smartsched.smartsched_api.dto.ScheduleView;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+
+/**
+ * Keyset paging, the ?fields= whitelist and the time-window filter, against the in-memory store.
+ */
+class ScheduleQueryServiceTest {
+
+    private InMemoryMongoTemplate template;
+    private ScheduleQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        template = InMemoryPersistenceConfig.standaloneTemplate();
+        queryService = new ScheduleQueryService(template, new ObjectMapper());
+    }
+
+    @Test
+    void pagesContinueFromTheCursorWithoutGapsOrRepeats() {
+        List<String> ids = insert("s1", 25);
+        insert("s2", 5);
+        ScheduleFilter section = filter("s1", null, null);
+
+        List<String> seen = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            SchedulePage page = queryService.findPage(section, cursor, 10, null);
+            page.items().forEach(item -> seen.add(item.id()));
+            cursor = page.nextCursor();
+            if (cursor != null) {
+                assertThat(cursor).as("next cursor is the last id returned").isEqualTo(seen.get(seen.size() - 1));
+                cursors.add(cursor);
+            }
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(ids);
+        assertThat(cursors).hasSize(2);
+    }
+
+    @Test
+    void aFullLastPageHasNoNextCursor() {
+        List<String> ids = insert("s1", 20);
+
+        SchedulePage first = queryService.findPage(filter("s1", null, null), null, 10, null);
+        SchedulePage second = queryService.findPage(filter("s1", null, null), first.nextCursor(), 10, null);
+
+        assertThat(first.nextCursor()).isEqualTo(ids.get(9));
+        assertThat(second.items()).hasSize(10);
+        assertThat(second.nextCursor()).as("the limit+1 probe found nothing more").isNull();
+    }
+
+    @Test
+    void limitsAndCursorsAreValidated() {
+        assertThatThrownBy(() -> queryService.findPage(null, null, 0, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queryService.findPage(null, null, ScheduleQueryService.MAX_LIMIT + 1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> queryService.findPage(null, "not-an-id", 10, null))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("cursor");
+    }
+
+    @Test
+    void projectionReturnsOnlyTheRequestedFields() {
+        insert("s1", 1);
+
+        ScheduleView view = queryService.findPage(null, null, 10, List.of("subjectCode", " startMinute", "id"))
+                .items().get(0);
+
+        assertThat(view.id()).isNotNull();
+        assertThat(view.subjectCode()).isEqualTo("SUBJ0");
+        assertThat(view.startMinute()).isEqualTo(480);
+        assertThat(view.sectionId()).isNull();
+        assertThat(view.endMinute()).isNull();
+    }
+
+    @Test
+    void unknownProjectionFieldsAreRejected() {
+        assertThatThrownBy(() -> queryService.findPage(null, null, 10, List.of("subjectCode", "password")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Unknown field: password");
+        assertThatThrownBy(() -> queryService.validate(null, List.of("scheduleIds")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void timeWindowMatchesOverlapsOnly() {
+        // One class 08:00-09:30
+        template.insert(new Schedule("p", "IT101", "Programming", "t1", "s1", "c1", DayOfWeek.MONDAY, 480, 570, true));
+
+        assertThat(count(filter("s1", 570, 600))).as("starts when the class ends").isZero();
+        assertThat(count(filter("s1", 420, 480))).as("ends when the class starts").isZero();
+        assertThat(count(filter("s1", 569, 600))).isEqualTo(1);
+        assertThat(count(filter("s1", 420, 481))).isEqualTo(1);
+        assertThat(count(filter("s1", 500, 510))).as("inside the class").isEqualTo(1);
+        assertThat(count(filter("s1", null, 481))).isEqualTo(1);
+        assertThat(count(filter("s1", 570, null))).isZero();
+        assertThatThrownBy(() -> count(filter("s1", 600, 600))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long count(ScheduleFilter filter) {
+        return queryService.findPage(filter, null, ScheduleQueryService.MAX_LIMIT, null).items().size();
+    }
+
+    private static ScheduleFilter filter(String sectionId, Integer fromMinute, Integer toMinute) {
+        return new ScheduleFilter(sectionId, null, null, null, fromMinute, toMinute, null);
+    }
+
+    // Inserted one at a time, so the ids (and the page order) follow the insertion order
+    private List<String> insert(String sectionId, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Schedule schedule = template.insert(new Schedule("p", "SUBJ" + i, "Subject " + i, "t1", sectionId, "c1",
+                    DayOfWeek.of(1 + i % 5), 480, 570, false));
+            ids.add(schedule.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,115 @@
+package com.smartsched.smartsched_api.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.dto.SolveRunSummary;
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySolveRunRepository;
+
+/**
+ * summarize() over stored runs with known durations and scores: nearest-rank percentiles,
+ * feasible rate, failed runs, size buckets and the time window.
+ */
+class SolveRunHistoryTest {
+
+    private InMemorySolveRunRepository solveRunRepository;
+    private SolveRunHistory history;
+
+    @BeforeEach
+    void setUp() {
+        solveRunRepository = new InMemorySolveRunRepository(InMemoryPersistenceConfig.standaloneTemplate());
+        history = new SolveRunHistory(solveRunRepository, mock(ExecutorService.class), null, null, "AUTO", "NONE");
+    }
+
+    @Test
+    void percentilesAndFeasibleRateOfOneBucket() {
+        // totalMillis 100..2000, stored out of order; the first 14 are feasible
+        List<SolveRun> runs = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            SolveRun run = run(40, i * 100L, i <= 14, "spent-limit");
+            run.setQueueMillis(i);
+            runs.add(run);
+        }
+        runs.add(run(40, 5_000, false, "failed"));
+        runs.add(run(40, 6_000, false, "failed"));
+        Collections.shuffle(runs, new Random(7));
+        solveRunRepository.saveAll(runs);
+
+        List<SolveRunSummary> summaries = history.summarize(7);
+
+        assertThat(summaries).hasSize(1);
+        SolveRunSummary summary = summaries.get(0);
+        assertThat(summary.entityCountRange()).isEqualTo("0-49");
+        assertThat(summary.runs()).isEqualTo(22);
+        assertThat(summary.failed()).isEqualTo(2);
+        assertThat(summary.feasibleRate()).as("failed runs are left out").isEqualTo(0.7);
+        // Nearest rank over 20 values: ceil(p * 20)-th smallest; failed runs excluded
+        assertThat(summary.totalMillis()).isEqualTo(new SolveRunSummary.Percentiles(1000, 1800, 1900, 2000, 2000));
+        assertThat(summary.queueMillis().max()).as("queue time counts failed runs too").isEqualTo(20);
+        assertThat(summary.constructionHeuristicMillis()).isNull();
+        assertThat(summary.terminationReasons()).isEqualTo(Map.of("spent-limit", 20L, "failed", 2L));
+    }
+
+    @Test
+    void aSingleRunIsEveryPercentile() {
+        SolveRun run = run(150, 4_200, true, "best-score-limit");
+        run.setTimeToFeasibleMillis(800L);
+        solveRunRepository.save(run);
+
+        SolveRunSummary summary = history.summarize(7).get(0);
+
+        assertThat(summary.entityCountRange()).isEqualTo("100-199");
+        assertThat(summary.runs()).isEqualTo(1);
+        assertThat(summary.feasibleRate()).isEqualTo(1.0);
+        assertThat(summary.totalMillis()).isEqualTo(new SolveRunSummary.Percentiles(4200, 4200, 4200, 4200, 4200));
+        assertThat(summary.timeToFeasibleMillis().p95()).isEqualTo(800);
+    }
+
+    @Test
+    void anEmptyHistoryHasNoBuckets() {
+        assertThat(history.summarize(7)).isEmpty();
+    }
+
+    @Test
+    void onlyRunsInsideTheWindowCount() {
+        SolveRun old = run(40, 100, true, "spent-limit");
+        old.setFinishedAt(Instant.now().minus(Duration.ofDays(8)));
+        solveRunRepository.save(old);
+        solveRunRepository.save(run(40, 300, false, "failed"));
+        solveRunRepository.save(run(2_500, 900, true, "spent-limit"));
+
+        List<SolveRunSummary> summaries = history.summarize(7);
+
+        assertThat(summaries).extracting(SolveRunSummary::entityCountRange).containsExactly("0-49", "2000+");
+        SolveRunSummary onlyFailed = summaries.get(0);
+        assertThat(onlyFailed.runs()).isEqualTo(1);
+        assertThat(onlyFailed.feasibleRate()).isZero();
+        assertThat(onlyFailed.totalMillis()).isNull();
+        assertThatThrownBy(() -> history.summarize(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SolveRun run(int entityCount, long totalMillis, boolean feasible, String terminationReason) {
+        SolveRun run = new SolveRun("p-" + totalMillis, "s1");
+        run.setEntityCount(entityCount);
+        run.setTotalMillis(totalMillis);
+        run.setFeasible(feasible);
+        run.setTerminationReason(terminationReason);
+        run.setFinishedAt(Instant.now().minus(Duration.ofHours(1)));
+        return run;
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartsched.smartsched_api.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator;
+import com.smartsched.smartsched_api.dto.ConstraintProfileReport;
+import com.smartsched.smartsched_api.service.ConstraintProfilingService;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+
+import ai.timefold.solver.core.api.score.buildin.hardsoft.HardSoftScore;
+import ai.timefold.solver.core.api.solver.ScoreAnalysisFetchPolicy;
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolutionUpdatePolicy;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+
+/**
+ * Solves a small synthetic section (one new section against two already scheduled ones) with
+ * constraint profiling on and prints where score calculation time went, most expensive
+ * constraint first. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class ConstraintProfileBenchmarkTest {
+
+    private static final Duration SPENT_LIMIT = Duration.ofSeconds(20);
+
+    @AfterEach
+    void tearDown() {
+        ConstraintProfiler.unbind();
+        ConstraintProfiler.setEnabled(false);
+    }
+
+    @Test
+    void reportsEveryConstraintRankedByEvaluationTime() {
+        SolverFactory<ScheduleSolution> solverFactory = SolverFactory.create(new SolverConfig()
+                .withSolutionClass(ScheduleSolution.class)
+                .withEntityClasses(Allocation.class)
+                .withConstraintProviderClass(ScheduleConstraintProvider.class)
+                .withTerminationSpentLimit(SPENT_LIMIT));
+
+        ConstraintProfiler.setEnabled(true);
+        ConstraintProfiler.JobProfile profile = ConstraintProfiler.bind();
+        long start = System.nanoTime();
+        ScheduleSolution solved = solverFactory.buildSolver().solve(problem());
+        long solveMillis = (System.nanoTime() - start) / 1_000_000;
+        ConstraintProfiler.unbind();
+
+        SolutionManager<ScheduleSolution, HardSoftScore> solutionManager = SolutionManager.create(solverFactory);
+        ConstraintProfileReport report = ConstraintProfileReport.of("benchmark", true, solveMillis, profile.snapshot(),
+                ConstraintProfilingService.matchesOf(solutionManager.analyze(solved,
+                        ScoreAnalysisFetchPolicy.FETCH_MATCH_COUNT, SolutionUpdatePolicy.NO_UPDATE)));
+
+        System.out.printf("Solved in %d ms, final score %s, %.0f ms inside constraint lambdas%n",
+                report.solveMillis(), solved.getScore(), report.profiledMillis());
+        System.out.printf("%-4s %-60s %12s %9s %12s %9s %9s %6s %8s %7s%n", "#", "Constraint",
+                "filterCalls", "passed%", "weightCalls", "totalMs", "avgUs", "share%", "matches", "score");
+        for (ConstraintProfileReport.Entry e : report.constraints()) {
+            System.out.printf("%-4d %-60.60s %12d %9.1f %12d %9.1f %9.1f %6.1f %8s %7s%n", e.rank(), e.constraint(),
+                    e.filterCalls(), e.filterCalls() == 0 ? 0 : 100.0 * e.filterPassed() / e.filterCalls(),
+                    e.weightCalls(), e.totalMillis(), e.avgMicrosPerCall(), e.sharePercent(),
+                    e.matchCount(), e.score());
+        }
+
+        assertThat(report.constraints()).hasSize(28);
+        assertThat(report.constraints()).allSatisfy(e -> {
+            assertThat(e.filterCalls()).isPositive();
+            assertThat(e.matchCount()).isNotNull();
+        });
+        assertThat(report.constraints()).isSortedAccordingTo((a, b) -> Double.compare(b.totalMillis(), a.totalMillis()));
+    }
+
+    // One new section against two already scheduled ones, from the synthetic dataset generator
+    private static ScheduleSolution problem() {
+        return SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                .withSections(3).withScheduledSectionRatio(2.0 / 3)).toProblem("s003");
+    }
+}
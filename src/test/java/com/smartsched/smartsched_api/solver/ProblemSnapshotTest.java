@@ -0,0 +1,115 @@
+package com.smartsched.smartsched_api.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+import com.smartsched.smartsched_api.solver.domain.Timeslot;
+
+import ai.timefold.solver.core.config.solver.termination.TerminationConfig;
+
+class ProblemSnapshotTest {
+
+    @Test
+    void roundTripKeepsFactsPinnedAssignmentsAndSharedInstances() throws IOException {
+        ScheduleSolution problem = problem();
+        ProblemSnapshot snapshot = ProblemSnapshot.of("p1", "s0", problem);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.write(bytes);
+        ProblemSnapshot read = ProblemSnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+        ScheduleSolution restored = read.toProblem();
+
+        assertThat(read.problemId()).isEqualTo("p1");
+        assertThat(read.sectionId()).isEqualTo("s0");
+        assertThat(read.pinnedCount()).isEqualTo(4);
+        assertThat(restored.getTimeslots()).hasSameSizeAs(problem.getTimeslots());
+        assertThat(restored.getTimeslots().get(0).getStartTime()).isEqualTo(LocalTime.of(8, 0));
+        assertThat(restored.getClassrooms()).extracting(Classroom::getType)
+                .containsExactlyElementsOf(problem.getClassrooms().stream().map(Classroom::getType).toList());
+        assertThat(restored.getAllocations()).hasSameSizeAs(problem.getAllocations());
+
+        for (int i = 0; i < problem.getAllocations().size(); i++) {
+            Allocation original = problem.getAllocations().get(i);
+            Allocation copy = restored.getAllocations().get(i);
+            assertThat(copy.getId()).isEqualTo(original.getId());
+            assertThat(copy.isPinned()).isEqualTo(original.isPinned());
+            assertThat(copy.getTimeslot()).isEqualTo(original.getTimeslot());
+            assertThat(copy.getClassroom()).isEqualTo(original.getClassroom());
+            // References resolve to the restored facts, never to the captured ones
+            assertThat(copy.getTeacher()).isSameAs(restored.getTeachers().stream()
+                    .filter(t -> t.getId().equals(original.getTeacher().getId())).findFirst().orElseThrow());
+            assertThat(copy.getSection()).isNotSameAs(original.getSection());
+        }
+    }
+
+    @Test
+    void replaySolvesTheSnapshotWithTheGivenSeed() {
+        ProblemSnapshot snapshot = ProblemSnapshot.of("p1", "s0", problem());
+
+        SnapshotReplay.Result result = SnapshotReplay.replay(snapshot, SnapshotReplay.defaultConfig()
+                .withTerminationConfig(new TerminationConfig().withStepCountLimit(50)), 7L);
+
+        assertThat(result.seed()).isEqualTo(7L);
+        assertThat(result.newAllocations()).isEqualTo(4);
+        assertThat(result.unassigned()).isZero();
+        assertThat(result.score()).isNotNull();
+    }
+
+    private static ScheduleSolution problem() {
+        List<Timeslot> timeslots = new ArrayList<>();
+        long timeslotId = 1;
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY)) {
+            for (LocalTime t = LocalTime.of(8, 0); t.isBefore(LocalTime.of(17, 0)); t = t.plusMinutes(90)) {
+                timeslots.add(new Timeslot(timeslotId++, day, t, t.plusMinutes(90)));
+            }
+        }
+        List<Classroom> classrooms = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Classroom room = new Classroom("Room " + i, 40, i == 0 ? "Laboratory" : "Lecture");
+            room.setId("r" + i);
+            classrooms.add(room);
+        }
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Teacher teacher = new Teacher("Teacher " + i, "CS");
+            teacher.setId("t" + i);
+            teachers.add(teacher);
+        }
+        List<Section> sections = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Section section = new Section("BSIT", 1, "BSIT 1" + (char) ('A' + i), 35);
+            section.setId("s" + i);
+            sections.add(section);
+        }
+
+        List<Allocation> allocations = new ArrayList<>();
+        long allocationId = 1;
+        for (Section section : sections) {
+            boolean pinned = section.getId().equals("s1");
+            for (int subject = 0; subject < 4; subject++) {
+                Allocation allocation = new Allocation(allocationId++, "SUBJ" + subject, "Subject " + subject,
+                        teachers.get(subject % 2), section, 90, subject == 0, pinned);
+                if (pinned) {
+                    allocation.setTimeslot(timeslots.get(subject * 3));
+                    allocation.setClassroom(classrooms.get(subject % 3));
+                }
+                allocations.add(allocation);
+            }
+        }
+        return new ScheduleSolution(timeslots, classrooms, teachers, sections, allocations);
+    }
+}
@@ -0,0 +1,317 @@
+package com.smartsched.smartsched_api.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.smartsched.smartsched_api.config.InMemoryPersistenceConfig;
+import com.smartsched.smartsched_api.dataset.SyntheticDataset;
+import com.smartsched.smartsched_api.dataset.SyntheticDatasetGenerator;
+import com.smartsched.smartsched_api.dto.SolveOptions;
+import com.smartsched.smartsched_api.exception.SolverBusyException;
+import com.smartsched.smartsched_api.model.Classroom;
+import com.smartsched.smartsched_api.model.Schedule;
+import com.smartsched.smartsched_api.model.ScheduleInput;
+import com.smartsched.smartsched_api.model.Section;
+import com.smartsched.smartsched_api.model.SolveRun;
+import com.smartsched.smartsched_api.model.Teacher;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryClassroomRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryMongoTemplate;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryScheduleRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySectionRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemorySolveRunRepository;
+import com.smartsched.smartsched_api.repository.inmemory.InMemoryTeacherRepository;
+import com.smartsched.smartsched_api.service.ChangeVersions;
+import com.smartsched.smartsched_api.service.ConstraintProfilingService;
+import com.smartsched.smartsched_api.service.ProblemCaptureService;
+import com.smartsched.smartsched_api.service.ReferenceDataCache;
+import com.smartsched.smartsched_api.service.ReproducibleSolving;
+import com.smartsched.smartsched_api.service.SchedulePersistenceService;
+import com.smartsched.smartsched_api.service.SchedulingService;
+import com.smartsched.smartsched_api.service.SolveRunHistory;
+import com.smartsched.smartsched_api.service.SolverMetrics;
+import com.smartsched.smartsched_api.solver.domain.Allocation;
+import com.smartsched.smartsched_api.solver.domain.ScheduleSolution;
+import com.smartsched.smartsched_api.solver.domain.Timeslot;
+
+import ai.timefold.solver.core.api.solver.SolutionManager;
+import ai.timefold.solver.core.api.solver.SolverFactory;
+import ai.timefold.solver.core.api.solver.SolverManager;
+import ai.timefold.solver.core.config.solver.SolverConfig;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Same input + same seed + move-count termination must give byte-identical solutions, both for
+ * the bare solver and for a reproducible request through SchedulingService. If this
+ * fails, something in the solver path (a constraint, a collector, a fact's hashCode) has become
+ * order- or identity-dependent and performance A/B runs are no longer comparable.
+ */
+class ReproducibleSolveTest {
+
+    private static final long SEED = 42L;
+    private static final long MOVE_COUNT_LIMIT = 4_000L;
+
+    @Test
+    void sameSeedAndMoveCountGiveByteIdenticalSolutions() {
+        SolverConfig config = ReproducibleSolverConfig.configure(SnapshotReplay.defaultConfig(), SEED, MOVE_COUNT_LIMIT);
+
+        byte[] first = ReproducibleSolverConfig.canonicalBytes(solve(config, fixedDataset()));
+        byte[] second = ReproducibleSolverConfig.canonicalBytes(solve(config, fixedDataset()));
+
+        // The limit must leave room for local search after every new allocation has been placed
+        assertThat(new String(first, StandardCharsets.UTF_8)).doesNotContain("|null|");
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void replayOfACapturedSnapshotMatchesTheLiveSolve() throws IOException {
+        SolverConfig config = ReproducibleSolverConfig.configure(SnapshotReplay.defaultConfig(), SEED, MOVE_COUNT_LIMIT);
+        ScheduleSolution problem = fixedDataset();
+        ProblemSnapshot snapshot = ProblemSnapshot.of("fixed", "s0", problem);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        snapshot.write(bytes);
+
+        byte[] live = ReproducibleSolverConfig.canonicalBytes(solve(config, problem));
+        SnapshotReplay.Result replayed = SnapshotReplay.replay(
+                ProblemSnapshot.read(new ByteArrayInputStream(bytes.toByteArray())), config, SEED);
+
+        assertThat(ReproducibleSolverConfig.canonicalBytes(replayed.solution())).isEqualTo(live);
+    }
+
+    @Test
+    void seededJobsBeyondTheQuotaAreRefused() {
+        ReproducibleSolving reproducibleSolving = new ReproducibleSolving(
+                new StaticListableBeanFactory().getBeanProvider(SolverConfig.class), false, SEED, MOVE_COUNT_LIMIT, 1);
+        SolveOptions options = reproducibleSolving.resolve(true, SEED, null);
+        try {
+            SolverManager<ScheduleSolution, String> first = reproducibleSolving.newSolverManager(options);
+            assertThatThrownBy(() -> reproducibleSolving.newSolverManager(options)).isInstanceOf(SolverBusyException.class);
+
+            reproducibleSolving.close(first);
+            reproducibleSolving.close(reproducibleSolving.newSolverManager(options));
+        } finally {
+            reproducibleSolving.shutdown();
+        }
+    }
+
+    @Test
+    void reproducibleRequestsSaveTheSameSchedules() throws Exception {
+        // Small enough to be solved feasibly within the move limit, so each run saves its schedules
+        SyntheticDataset dataset = SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                .withSections(2).withSubjectsPerSection(3).withSubjectsPerTeacher(1).withRoomScarcity(1.0)
+                .withScheduledSectionRatio(0.5));
+        Set<String> scheduled = dataset.schedules().stream().map(Schedule::getSectionId).collect(Collectors.toSet());
+        String sectionId = dataset.sections().stream().map(Section::getId)
+                .filter(id -> !scheduled.contains(id)).findFirst().orElseThrow();
+
+        try (InMemoryScheduling scheduling = new InMemoryScheduling(dataset, false)) {
+            SolveOptions options = scheduling.service.resolveSolveOptions(true, SEED, MOVE_COUNT_LIMIT);
+            List<String> first = scheduling.solveAndReadBack("first", sectionId, dataset.inputsFor(sectionId), options);
+            List<String> second = scheduling.solveAndReadBack("second", sectionId, dataset.inputsFor(sectionId), options);
+
+            assertThat(first).isNotEmpty();
+            assertThat(second).isEqualTo(first);
+            // The problems handed to the solver, allocation ids and order included
+            assertThat(scheduling.capturedProblem("second").allocations())
+                    .isEqualTo(scheduling.capturedProblem("first").allocations());
+        }
+    }
+
+    @Test
+    void reproducibleByDefaultQueuesInsteadOfRefusing() throws Exception {
+        SyntheticDataset dataset = SyntheticDatasetGenerator.generate(SyntheticDatasetGenerator.Spec.defaults()
+                .withSections(2).withSubjectsPerSection(3).withSubjectsPerTeacher(1).withRoomScarcity(1.0)
+                .withScheduledSectionRatio(0.5));
+        Set<String> scheduled = dataset.schedules().stream().map(Schedule::getSectionId).collect(Collectors.toSet());
+        String sectionId = dataset.sections().stream().map(Section::getId)
+                .filter(id -> !scheduled.contains(id)).findFirst().orElseThrow();
+
+        try (InMemoryScheduling scheduling = new InMemoryScheduling(dataset, true)) {
+            // A plain /solve request, twice in a row, with room for one seeded job at a time
+            SolveOptions options = scheduling.service.resolveSolveOptions(null, null, null);
+            assertThat(options).isEqualTo(new SolveOptions(SEED, true, MOVE_COUNT_LIMIT));
+            scheduling.service.solveAndSave("first", sectionId, dataset.inputsFor(sectionId), options);
+            scheduling.service.solveAndSave("second", sectionId, dataset.inputsFor(sectionId), options);
+
+            // Per-request seeds keep their own slots, so the queued jobs do not hold them
+            SolveOptions requested = scheduling.service.resolveSolveOptions(true, SEED + 1, null);
+            assertThat(scheduling.reproducibleSolving.configuredSolverManager(requested)).isNull();
+            scheduling.reproducibleSolving.close(scheduling.reproducibleSolving.newSolverManager(requested));
+
+            scheduling.awaitRun("first");
+            scheduling.awaitRun("second");
+            assertThat(scheduling.capturedProblem("second").allocations())
+                    .isEqualTo(scheduling.capturedProblem("first").allocations());
+        }
+    }
+
+    /**
+     * SchedulingService wired as in the inmemory profile, with a single I/O thread so a job's
+     * saves are done once its SolveRun has been recorded.
+     */
+    private static final class InMemoryScheduling implements AutoCloseable {
+
+        final SchedulingService service;
+        final InMemoryScheduleRepository scheduleRepository;
+        final InMemorySolveRunRepository solveRunRepository;
+        final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+        final SolverManager<ScheduleSolution, String> sharedSolverManager = SolverManager.create(SnapshotReplay.defaultConfig());
+        final ReproducibleSolving reproducibleSolving;
+        final Path captureDirectory = Files.createTempDirectory("captures");
+
+        InMemoryScheduling(SyntheticDataset dataset, boolean reproducibleByDefault) throws IOException {
+            MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+            MongoMappingContext mappingContext = new MongoMappingContext();
+            mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+            mappingContext.setInitialEntitySet(Set.of(Teacher.class, Classroom.class, Section.class, Schedule.class,
+                    SolveRun.class));
+            mappingContext.afterPropertiesSet();
+            MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+            converter.setCustomConversions(conversions);
+            converter.afterPropertiesSet();
+            InMemoryPersistenceConfig config = new InMemoryPersistenceConfig();
+            InMemoryMongoTemplate template = config.mongoTemplate(config.mongoDatabaseFactory(), converter,
+                    config.inMemoryMongoStore(mappingContext));
+
+            InMemoryTeacherRepository teacherRepository = new InMemoryTeacherRepository(template);
+            InMemoryClassroomRepository classroomRepository = new InMemoryClassroomRepository(template);
+            InMemorySectionRepository sectionRepository = new InMemorySectionRepository(template);
+            scheduleRepository = new InMemoryScheduleRepository(template);
+            solveRunRepository = new InMemorySolveRunRepository(template);
+            dataset.loadInto(teacherRepository, classroomRepository, sectionRepository, scheduleRepository);
+
+            ReferenceDataCache cache = new ReferenceDataCache(teacherRepository, classroomRepository, sectionRepository);
+            ChangeVersions changeVersions = new ChangeVersions(cache);
+            reproducibleSolving = new ReproducibleSolving(new StaticListableBeanFactory().getBeanProvider(SolverConfig.class),
+                    reproducibleByDefault, SEED, MOVE_COUNT_LIMIT, 1);
+            service = new SchedulingService(sharedSolverManager, scheduleRepository, cache,
+                    new SchedulePersistenceService(template, cache, changeVersions, new SimpleMeterRegistry()),
+                    changeVersions, ioExecutor, new SolverMetrics(new SimpleMeterRegistry()),
+                    new ConstraintProfilingService(SolutionManager.create(SolverFactory.create(SnapshotReplay.defaultConfig())), false, 1),
+                    new SolveRunHistory(solveRunRepository, ioExecutor, null, null, "1", "NONE"),
+                    new ProblemCaptureService(ioExecutor, "all", captureDirectory.toString(), Duration.ofMinutes(5)),
+                    reproducibleSolving);
+        }
+
+        // Submits like POST /solve and returns the section's saved schedules in a stable order
+        List<String> solveAndReadBack(String problemId, String sectionId, List<ScheduleInput> inputs, SolveOptions options)
+                throws Exception {
+            service.solveAndSave(problemId, sectionId, inputs, options);
+            awaitRun(problemId);
+            return scheduleRepository.findAllBySectionId(sectionId).stream()
+                    .map(s -> s.getSubjectCode() + "|" + s.getDayOfWeek() + "|" + s.getStartMinute() + "|" + s.getEndMinute()
+                            + "|" + s.getTeacherId() + "|" + s.getClassroomId())
+                    .sorted()
+                    .toList();
+        }
+
+        void awaitRun(String problemId) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+            while (solveRunRepository.findAll().stream().noneMatch(run -> run.getProblemId().equals(problemId))) {
+                assertThat(System.nanoTime()).as("solve %s finished", problemId).isLessThan(deadline);
+                Thread.sleep(50);
+            }
+        }
+
+        // Capture mode "all" writes every finished job's problem on the I/O thread
+        ProblemSnapshot capturedProblem(String problemId) throws Exception {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (true) {
+                try (Stream<Path> files = Files.list(captureDirectory)) {
+                    Optional<Path> file = files.filter(f -> f.getFileName().toString().contains("_" + problemId + "_")
+                            && f.getFileName().toString().endsWith(".json.gz")).findFirst();
+                    if (file.isPresent()) return ProblemSnapshot.read(file.get());
+                }
+                assertThat(System.nanoTime()).as("problem %s captured", problemId).isLessThan(deadline);
+                Thread.sleep(50);
+            }
+        }
+
+        @Override
+        public void close() {
+            sharedSolverManager.close();
+            reproducibleSolving.shutdown();
+            ioExecutor.shutdownNow();
+        }
+    }
+
+    private static ScheduleSolution solve(SolverConfig config, ScheduleSolution problem) {
+        return SolverFactory.<ScheduleSolution>create(config).buildSolver().solve(problem);
+    }
+
+    // One new section of 16 sessions against two sections already scheduled
+    private static ScheduleSolution fixedDataset() {
+        List<Timeslot> timeslots = new ArrayList<>();
+        long timeslotId = 1;
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY)) {
+            for (LocalTime t = LocalTime.of(8, 0); t.isBefore(LocalTime.of(17, 0)); t = t.plusMinutes(90)) {
+                timeslots.add(new Timeslot(timeslotId++, day, t, t.plusMinutes(90)));
+            }
+        }
+        List<Classroom> classrooms = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Classroom room = new Classroom("Room " + i, 40, i < 2 ? "Laboratory" : "Lecture");
+            room.setId("r" + i);
+            classrooms.add(room);
+        }
+        List<Teacher> teachers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Teacher teacher = new Teacher("Teacher " + i, "CS");
+            teacher.setId("t" + i);
+            teachers.add(teacher);
+        }
+        List<Section> sections = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Section section = new Section("BSIT", 1 + i, "BSIT " + (1 + i) + "A", 35);
+            section.setId("s" + i);
+            sections.add(section);
+        }
+
+        List<Allocation> allocations = new ArrayList<>();
+        long allocationId = 1;
+        for (Section section : sections) {
+            boolean pinned = !section.getId().equals("s0");
+            for (int subject = 0; subject < 8; subject++) {
+                boolean major = subject < 3;
+                Teacher teacher = teachers.get((subject + section.getYearLevel()) % teachers.size());
+                for (int session = 0; session < 2; session++) {
+                    Allocation allocation = new Allocation(allocationId++, "SUBJ" + subject, "Subject " + subject,
+                            teacher, section, 90, major, pinned);
+                    if (pinned) {
+                        int slot = (int) (allocationId * 7 % timeslots.size());
+                        allocation.setTimeslot(timeslots.get(slot));
+                        allocation.setClassroom(classrooms.get(major ? slot % 2 : 2 + slot % 3));
+                    }
+                    allocations.add(allocation);
+                }
+            }
+        }
+        return new ScheduleSolution(timeslots, classrooms, teachers, sections, allocations);
+    }
+}